@@ -0,0 +1,122 @@
+package sandbox.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sandbox.Rectangle;
+import sandbox.index.ConcurrentRectangleStore;
+
+/**
+ * Query throughput from many threads at once.  Readers of the concurrent
+ * store search lock-free snapshots; the baseline guards a plain list with
+ * <code>synchronized</code>, which lets one reader in at a time.  Run with
+ * <code>-t</code> to compare thread counts; the defaults use every core.
+ * The readWrite group adds a writer committing batches of moves while three
+ * threads read.
+ *
+ * @author Wes McKean
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentStoreBenchmark {
+    static final int COUNT = 100_000;
+    static final int QUERIES = 1024;
+    static final int BATCH = 256;
+
+    @Param({"UNIFORM", "CLUSTERED", "OVERLAPPING"})
+    public Distribution distribution;
+
+    private Rectangle[] rectangles;
+    private Rectangle[] queries;
+    private ConcurrentRectangleStore store;
+    private List<Rectangle> locked;
+
+    @Setup
+    public void setUp() {
+        rectangles = distribution.rectangles(Distribution.SEED, COUNT);
+        queries = distribution.rectangles(Distribution.SEED + 1, QUERIES);
+        store = new ConcurrentRectangleStore();
+        locked = new ArrayList<>(COUNT);
+        try(ConcurrentRectangleStore.Batch batch = store.batch()) {
+            for(Rectangle r : rectangles) {
+                batch.add(r);
+                locked.add(r);
+            }
+            batch.commit();
+        }
+    }
+
+    /**
+     * the position of each thread in the query list
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        Rectangle query(Rectangle[] queries) {
+            next = (next + 1) & (QUERIES - 1);
+            return queries[next];
+        }
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void snapshotIntersects(Cursor cursor, Blackhole blackhole) {
+        store.snapshot().intersecting(cursor.query(queries), blackhole::consume);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void synchronizedIntersects(Cursor cursor, Blackhole blackhole) {
+        Rectangle query = cursor.query(queries);
+        synchronized(locked) {
+            for(Rectangle r : locked) {
+                if(r.intersects(query)) {
+                    blackhole.consume(r);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public void reader(Cursor cursor, Blackhole blackhole) {
+        store.snapshot().intersecting(cursor.query(queries), blackhole::consume);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void writer(Cursor cursor) {
+        try(ConcurrentRectangleStore.Batch batch = store.batch()) {
+            for(int i = 0; i < BATCH; i++) {
+                cursor.next = (cursor.next + 1) % COUNT;
+                Rectangle r = rectangles[cursor.next];
+                int shift = cursor.next & 1;
+                batch.set(cursor.next, r.getUpperLeft().getX() + shift, r.getUpperLeft().getY(),
+                        r.getLowerRight().getX() + shift, r.getLowerRight().getY());
+            }
+            batch.commit();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package sandbox.benchmarks;
+
+import java.util.Random;
+import sandbox.Point;
+import sandbox.Rectangle;
+
+/**
+ * The shapes of input the benchmarks run against.  Every generator is
+ * seeded, so two runs of the same benchmark see exactly the same
+ * rectangles and points.
+ *
+ * @author Wes McKean
+ */
+public enum Distribution {
+    /**
+     * small rectangles spread evenly over a large area.  most pairs are
+     * far apart.
+     */
+    UNIFORM {
+        @Override
+        Rectangle rectangle(Random random, int[] centers) {
+            return box(random.nextInt(10_000), random.nextInt(10_000), 1 + random.nextInt(50), 1 + random.nextInt(50));
+        }
+
+        @Override
+        Point point(Random random, int[] centers) {
+            return new Point(random.nextInt(10_000), random.nextInt(10_000));
+        }
+    },
+    /**
+     * small rectangles gathered around a handful of hot spots, the way
+     * real data tends to bunch up.
+     */
+    CLUSTERED {
+        @Override
+        Rectangle rectangle(Random random, int[] centers) {
+            int c = random.nextInt(centers.length / 2) * 2;
+            int x = centers[c] + (int) (random.nextGaussian() * 200);
+            int y = centers[c + 1] + (int) (random.nextGaussian() * 200);
+            return box(x, y, 1 + random.nextInt(50), 1 + random.nextInt(50));
+        }
+
+        @Override
+        Point point(Random random, int[] centers) {
+            int c = random.nextInt(centers.length / 2) * 2;
+            return new Point(centers[c] + (int) (random.nextGaussian() * 200),
+                    centers[c + 1] + (int) (random.nextGaussian() * 200));
+        }
+    },
+    /**
+     * large rectangles packed into a small area, so most pairs overlap and
+     * many contain one another.
+     */
+    OVERLAPPING {
+        @Override
+        Rectangle rectangle(Random random, int[] centers) {
+            return box(random.nextInt(1_000), random.nextInt(1_000), 50 + random.nextInt(250), 50 + random.nextInt(250));
+        }
+
+        @Override
+        Point point(Random random, int[] centers) {
+            return new Point(random.nextInt(1_200), random.nextInt(1_200));
+        }
+    };
+
+    /**
+     * the seed every benchmark uses unless it has a reason not to
+     */
+    public static final long SEED = 0x5EEDL;
+
+    private static final int CLUSTERS = 16;
+
+    abstract Rectangle rectangle(Random random, int[] centers);
+
+    abstract Point point(Random random, int[] centers);
+
+    /**
+     * Generates rectangles following this distribution.
+     *
+     * @param seed  the seed for the random generator
+     * @param count the number of rectangles to generate
+     * @return the rectangles
+     */
+    public Rectangle[] rectangles(long seed, int count) {
+        Random random = new Random(seed);
+        int[] centers = centers(random);
+        Rectangle[] result = new Rectangle[count];
+        for(int i = 0; i < count; i++) {
+            result[i] = rectangle(random, centers);
+        }
+        return result;
+    }
+
+    /**
+     * Generates points following this distribution.
+     *
+     * @param seed  the seed for the random generator
+     * @param count the number of points to generate
+     * @return the points
+     */
+    public Point[] points(long seed, int count) {
+        Random random = new Random(seed);
+        int[] centers = centers(random);
+        Point[] result = new Point[count];
+        for(int i = 0; i < count; i++) {
+            result[i] = point(random, centers);
+        }
+        return result;
+    }
+
+    private static int[] centers(Random random) {
+        int[] centers = new int[CLUSTERS * 2];
+        for(int i = 0; i < centers.length; i++) {
+            centers[i] = random.nextInt(10_000);
+        }
+        return centers;
+    }
+
+    private static Rectangle box(int x, int y, int width, int height) {
+        return new Rectangle(x, y, x + width, y + height);
+    }
+}
@@ -0,0 +1,112 @@
+package sandbox.benchmarks;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sandbox.Point;
+import sandbox.PointMap;
+import sandbox.Rectangle;
+
+/**
+ * Hash based lookups keyed by <code>Point</code> and
+ * <code>Rectangle</code>.  Half of the probes are for keys that are in the
+ * collection and half are for keys that are not.
+ *
+ * @author Wes McKean
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashingBenchmark {
+    static final int COUNT = 1024;
+
+    @Param({"UNIFORM", "CLUSTERED", "OVERLAPPING"})
+    public Distribution distribution;
+
+    @Param({"100000"})
+    public int size;
+
+    private Map<Point, Integer> pointMap;
+    private PointMap<Integer> primitivePointMap;
+    private Set<Rectangle> rectangleSet;
+    private Point[] pointProbes;
+    private Rectangle[] rectangleProbes;
+
+    @Setup
+    public void setUp() {
+        Point[] points = distribution.points(Distribution.SEED, size);
+        Rectangle[] rectangles = distribution.rectangles(Distribution.SEED, size);
+        pointMap = new HashMap<>();
+        primitivePointMap = new PointMap<>(size);
+        rectangleSet = new HashSet<>();
+        for(int i = 0; i < size; i++) {
+            pointMap.put(points[i], i);
+            primitivePointMap.put(points[i], i);
+            rectangleSet.add(rectangles[i]);
+        }
+
+        Point[] missingPoints = distribution.points(Distribution.SEED + 1, COUNT);
+        Rectangle[] missingRectangles = distribution.rectangles(Distribution.SEED + 1, COUNT);
+        pointProbes = new Point[COUNT];
+        rectangleProbes = new Rectangle[COUNT];
+        for(int i = 0; i < COUNT; i++) {
+            // copies, so the lookups cannot short cut on identity
+            Point p = (i & 1) == 0 ? points[i] : missingPoints[i];
+            pointProbes[i] = new Point(p.getX(), p.getY());
+            Rectangle r = (i & 1) == 0 ? rectangles[i] : missingRectangles[i];
+            rectangleProbes[i] = new Rectangle(r.getUpperLeft().getX(), r.getUpperLeft().getY(),
+                    r.getLowerRight().getX(), r.getLowerRight().getY());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void pointMapGet(Blackhole blackhole) {
+        for(Point p : pointProbes) {
+            blackhole.consume(pointMap.get(p));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void primitivePointMapGet(Blackhole blackhole) {
+        for(Point p : pointProbes) {
+            blackhole.consume(primitivePointMap.get(p.getX(), p.getY()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void rectangleSetContains(Blackhole blackhole) {
+        for(Rectangle r : rectangleProbes) {
+            blackhole.consume(rectangleSet.contains(r));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void pointSetInsert(Blackhole blackhole) {
+        Set<Point> set = new HashSet<>();
+        for(Point p : pointProbes) {
+            blackhole.consume(set.add(p));
+        }
+    }
+}
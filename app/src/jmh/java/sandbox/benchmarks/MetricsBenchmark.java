@@ -0,0 +1,108 @@
+package sandbox.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import sandbox.index.RTree;
+
+/**
+ * The cost of the instrumentation in <code>sandbox.metrics</code>.  Each
+ * workload runs twice, in a JVM with metrics off and in one with them on;
+ * <code>Metrics.ENABLED</code> is fixed when the JVM starts, so the two
+ * settings need separate forks.  With metrics off the predicates should
+ * cost what <code>RectangleBenchmark.intersects</code> reports.
+ *
+ * @author Wes McKean
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MetricsBenchmark {
+    static final int COUNT = 1024;
+    static final int STORED = 100_000;
+    static final String ON = "-Dsandbox.metrics=true";
+
+    private Rectangle[] rectangles;
+    private Rectangle[] others;
+    private RectangleArray array;
+    private RTree tree;
+    private int[] result;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        rectangles = Distribution.UNIFORM.rectangles(Distribution.SEED, COUNT);
+        others = Distribution.UNIFORM.rectangles(Distribution.SEED + 1, COUNT);
+        Rectangle[] stored = Distribution.UNIFORM.rectangles(Distribution.SEED + 2, STORED);
+        array = RectangleArray.of(Arrays.asList(stored));
+        tree = RTree.bulkLoad(Arrays.asList(stored));
+        result = new int[STORED];
+    }
+
+    private void predicates(Blackhole blackhole) {
+        for(int i = 0; i < COUNT; i++) {
+            blackhole.consume(rectangles[i].intersects(others[i]));
+        }
+    }
+
+    private int scan() {
+        return array.intersects(rectangles[next++ & (COUNT - 1)], result);
+    }
+
+    private void query(Blackhole blackhole) {
+        tree.intersecting(rectangles[next++ & (COUNT - 1)], blackhole::consume);
+    }
+
+    @Benchmark
+    @Fork(1)
+    @OperationsPerInvocation(COUNT)
+    public void predicatesOff(Blackhole blackhole) {
+        predicates(blackhole);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = ON)
+    @OperationsPerInvocation(COUNT)
+    public void predicatesOn(Blackhole blackhole) {
+        predicates(blackhole);
+    }
+
+    @Benchmark
+    @Fork(1)
+    public int scanOff() {
+        return scan();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = ON)
+    public int scanOn() {
+        return scan();
+    }
+
+    @Benchmark
+    @Fork(1)
+    public void treeQueryOff(Blackhole blackhole) {
+        query(blackhole);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = ON)
+    public void treeQueryOn(Blackhole blackhole) {
+        query(blackhole);
+    }
+}
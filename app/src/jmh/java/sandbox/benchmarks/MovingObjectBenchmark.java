@@ -0,0 +1,147 @@
+package sandbox.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sandbox.Point;
+import sandbox.Rectangle;
+import sandbox.index.GridIndex;
+import sandbox.index.RTree;
+
+/**
+ * Update-heavy workloads: every object moves a short way each tick.  The
+ * loose grid updates entries in place, the R-tree has to delete and
+ * re-insert them, and the tracked grid follows <code>Rectangle</code>
+ * setters through a listener.  The tick benchmarks add a round of queries
+ * after the moves, the way a simulation step would.
+ *
+ * @author Wes McKean
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MovingObjectBenchmark {
+    static final int COUNT = 10_000;
+    static final int QUERIES = 64;
+    /**
+     * the number of precomputed moves; more than COUNT so consecutive ticks
+     * move objects differently
+     */
+    static final int MOVES = 1 << 16;
+
+    @Param({"UNIFORM", "CLUSTERED", "OVERLAPPING"})
+    public Distribution distribution;
+
+    private Rectangle[] objects;
+    private Rectangle[] tracked;
+    private int[] handles;
+    private int[] dx;
+    private int[] dy;
+    private Rectangle[] queries;
+    private int move;
+
+    private GridIndex grid;
+    private GridIndex trackingGrid;
+    private RTree tree;
+
+    @Setup
+    public void setUp() {
+        objects = distribution.rectangles(Distribution.SEED, COUNT);
+        tracked = distribution.rectangles(Distribution.SEED, COUNT);
+        queries = distribution.rectangles(Distribution.SEED + 1, QUERIES);
+
+        Random random = new Random(Distribution.SEED + 2);
+        dx = new int[MOVES];
+        dy = new int[MOVES];
+        for(int i = 0; i < MOVES; i++) {
+            dx[i] = random.nextInt(9) - 4;
+            dy[i] = random.nextInt(9) - 4;
+        }
+
+        grid = new GridIndex();
+        trackingGrid = new GridIndex();
+        tree = new RTree();
+        handles = new int[COUNT];
+        for(int i = 0; i < COUNT; i++) {
+            handles[i] = grid.insert(objects[i]);
+            trackingGrid.track(tracked[i]);
+            tree.insert(objects[i]);
+        }
+    }
+
+    private int nextMove() {
+        move = (move + 1) & (MOVES - 1);
+        return move;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void gridUpdate() {
+        for(int i = 0; i < COUNT; i++) {
+            int m = nextMove();
+            int h = handles[i];
+            grid.update(h, grid.getX(h) + dx[m], grid.getY(h) + dy[m], grid.getX1(h) + dx[m], grid.getY1(h) + dy[m]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void trackedGridUpdate() {
+        for(int i = 0; i < COUNT; i++) {
+            int m = nextMove();
+            Rectangle r = tracked[i];
+            Point upperLeft = r.getUpperLeft();
+            Point lowerRight = r.getLowerRight();
+            // setUpperLeft does not validate, while setLowerRight checks
+            // against the upper left corner, so it has to be moved second
+            r.setUpperLeft(new Point(upperLeft.getX() + dx[m], upperLeft.getY() + dy[m]));
+            r.setLowerRight(new Point(lowerRight.getX() + dx[m], lowerRight.getY() + dy[m]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void rtreeDeleteInsert() {
+        for(int i = 0; i < COUNT; i++) {
+            int m = nextMove();
+            Rectangle r = objects[i];
+            tree.delete(r);
+            Point upperLeft = r.getUpperLeft();
+            Point lowerRight = r.getLowerRight();
+            objects[i] = new Rectangle(upperLeft.getX() + dx[m], upperLeft.getY() + dy[m],
+                    lowerRight.getX() + dx[m], lowerRight.getY() + dy[m]);
+            tree.insert(objects[i]);
+        }
+    }
+
+    @Benchmark
+    public void gridTick(Blackhole blackhole) {
+        gridUpdate();
+        for(Rectangle query : queries) {
+            grid.intersecting(query, blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public void rtreeTick(Blackhole blackhole) {
+        rtreeDeleteInsert();
+        for(Rectangle query : queries) {
+            tree.intersecting(query, blackhole::consume);
+        }
+    }
+}
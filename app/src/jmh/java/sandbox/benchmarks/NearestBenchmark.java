@@ -0,0 +1,81 @@
+package sandbox.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sandbox.Metric;
+import sandbox.Point;
+import sandbox.Rectangle;
+import sandbox.index.DistanceQueue;
+import sandbox.index.RTree;
+
+/**
+ * Nearest neighbour lookups: the best-first search over the R-tree against
+ * measuring every rectangle and sorting.
+ *
+ * @author Wes McKean
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NearestBenchmark {
+    static final int COUNT = 100_000;
+
+    @Param({"UNIFORM", "CLUSTERED", "OVERLAPPING"})
+    public Distribution distribution;
+
+    @Param({"1", "16"})
+    public int k;
+
+    private Rectangle[] rectangles;
+    private Point[] points;
+    private RTree tree;
+    private DistanceQueue queue;
+    private long[] distances;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        rectangles = distribution.rectangles(Distribution.SEED, COUNT);
+        points = distribution.points(Distribution.SEED + 1, 1024);
+        tree = RTree.bulkLoad(Arrays.asList(rectangles));
+        queue = new DistanceQueue();
+        distances = new long[COUNT];
+    }
+
+    private Point nextPoint() {
+        next = (next + 1) & (points.length - 1);
+        return points[next];
+    }
+
+    @Benchmark
+    public void rtreeNearest(Blackhole blackhole) {
+        Point pt = nextPoint();
+        tree.nearest(pt.getX(), pt.getY(), pt.getX(), pt.getY(), k, Metric.SQUARED_EUCLIDEAN, queue,
+                (r, d) -> blackhole.consume(r));
+    }
+
+    @Benchmark
+    public long bruteForce() {
+        Point pt = nextPoint();
+        for(int i = 0; i < COUNT; i++) {
+            distances[i] = Metric.SQUARED_EUCLIDEAN.distance(rectangles[i], pt);
+        }
+        Arrays.sort(distances);
+        return distances[k - 1];
+    }
+}
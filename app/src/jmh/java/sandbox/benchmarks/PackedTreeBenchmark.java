@@ -0,0 +1,84 @@
+package sandbox.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sandbox.Point;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import sandbox.index.PackedRTree;
+import sandbox.index.RTree;
+
+/**
+ * Point stabbing queries, "which rectangles contain this point", on the
+ * static Hilbert-packed tree against the dynamic R-tree loaded with
+ * Sort-Tile-Recursive, and the time each takes to build.
+ *
+ * @author Wes McKean
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PackedTreeBenchmark {
+    static final int COUNT = 1_000_000;
+
+    @Param({"UNIFORM", "CLUSTERED", "OVERLAPPING"})
+    public Distribution distribution;
+
+    private Rectangle[] rectangles;
+    private RectangleArray array;
+    private Point[] points;
+    private RTree tree;
+    private PackedRTree packed;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        rectangles = distribution.rectangles(Distribution.SEED, COUNT);
+        array = RectangleArray.of(Arrays.asList(rectangles));
+        points = distribution.points(Distribution.SEED + 1, 1024);
+        tree = RTree.bulkLoad(Arrays.asList(rectangles));
+        packed = PackedRTree.build(array);
+    }
+
+    private Point nextPoint() {
+        next = (next + 1) & (points.length - 1);
+        return points[next];
+    }
+
+    @Benchmark
+    public void rtreeContaining(Blackhole blackhole) {
+        tree.containing(nextPoint(), blackhole::consume);
+    }
+
+    @Benchmark
+    public int packedContaining(Blackhole blackhole) {
+        return packed.containing(nextPoint(), blackhole::consume);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public RTree rtreeBuild() {
+        return RTree.bulkLoad(Arrays.asList(rectangles));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public PackedRTree packedBuild() {
+        return PackedRTree.build(array);
+    }
+}
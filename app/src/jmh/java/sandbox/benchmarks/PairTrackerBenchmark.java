@@ -0,0 +1,108 @@
+package sandbox.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import sandbox.join.PairTracker;
+import sandbox.join.SweepJoin;
+
+/**
+ * Keeping the intersecting pairs of a moving set up to date: committing a
+ * tick's moves to a <code>PairTracker</code> against finding every pair
+ * again with a sweep.  Each tick moves <code>moved</code> of the objects a
+ * short way.
+ *
+ * @author Wes McKean
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PairTrackerBenchmark {
+    static final int COUNT = 100_000;
+    static final int MOVES = 1 << 16;
+
+    @Param({"UNIFORM", "CLUSTERED"})
+    public Distribution distribution;
+
+    @Param({"100", "1000", "10000"})
+    public int moved;
+
+    private RectangleArray array;
+    private RectangleArray tracked;
+    private PairTracker tracker;
+    private int[] dx;
+    private int[] dy;
+    private int[] picks;
+    private int move;
+
+    @Setup
+    public void setUp() {
+        Rectangle[] objects = distribution.rectangles(Distribution.SEED, COUNT);
+        array = RectangleArray.of(Arrays.asList(objects));
+        tracked = RectangleArray.of(Arrays.asList(objects));
+        tracker = new PairTracker();
+        for(Rectangle r : objects) {
+            tracker.add(r);
+        }
+        tracker.commit((i, j, relation, added) -> {
+        });
+
+        Random random = new Random(Distribution.SEED + 2);
+        dx = new int[MOVES];
+        dy = new int[MOVES];
+        picks = new int[MOVES];
+        for(int i = 0; i < MOVES; i++) {
+            dx[i] = random.nextInt(9) - 4;
+            dy[i] = random.nextInt(9) - 4;
+            picks[i] = random.nextInt(COUNT);
+        }
+    }
+
+    /**
+     * moves the objects of one tick, telling the tracker about each move
+     * if there is one.
+     */
+    private void tick(RectangleArray objects, PairTracker tracker) {
+        for(int k = 0; k < moved; k++) {
+            move = (move + 1) & (MOVES - 1);
+            int i = picks[move];
+            int x = objects.getX(i) + dx[move];
+            int y = objects.getY(i) + dy[move];
+            int x1 = objects.getX1(i) + dx[move];
+            int y1 = objects.getY1(i) + dy[move];
+            objects.set(i, x, y, x1, y1);
+            if(tracker != null) {
+                tracker.move(i, x, y, x1, y1);
+            }
+        }
+    }
+
+    @Benchmark
+    public int incremental(Blackhole blackhole) {
+        tick(tracked, tracker);
+        return tracker.commit((i, j, relation, added) -> blackhole.consume(i));
+    }
+
+    @Benchmark
+    public void recompute(Blackhole blackhole) {
+        tick(array, null);
+        SweepJoin.selfJoin(array, (i, j) -> blackhole.consume(i));
+    }
+}
@@ -0,0 +1,80 @@
+package sandbox.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import sandbox.join.SweepJoin;
+import sandbox.parallel.ParallelJoin;
+import sandbox.parallel.ParallelQuery;
+import sandbox.parallel.SpatialPartition;
+
+/**
+ * The sequential sweep join against the partitioned fork-join version, and
+ * a bulk intersects over the whole array against the partitioned search.
+ * The parallel versions use the common pool, so set
+ * <code>-Djava.util.concurrent.ForkJoinPool.common.parallelism</code> in the
+ * fork to compare core counts.
+ *
+ * @author Wes McKean
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelJoinBenchmark {
+    static final int COUNT = 200_000;
+
+    @Param({"UNIFORM", "CLUSTERED", "OVERLAPPING"})
+    public Distribution distribution;
+
+    private RectangleArray rectangles;
+    private ParallelQuery query;
+    private Rectangle window;
+
+    @Setup
+    public void setUp() {
+        rectangles = new RectangleArray(COUNT);
+        for(Rectangle r : distribution.rectangles(Distribution.SEED, COUNT)) {
+            rectangles.add(r);
+        }
+        query = new ParallelQuery(SpatialPartition.build(rectangles));
+        window = new Rectangle(2_000, 2_000, 4_000, 4_000);
+    }
+
+    @Benchmark
+    public void sweepSelfJoin(Blackhole blackhole) {
+        SweepJoin.selfJoin(rectangles, (int i, int j) -> blackhole.consume(i ^ j));
+    }
+
+    @Benchmark
+    public void parallelSelfJoin(Blackhole blackhole) {
+        ParallelJoin.selfJoin(rectangles, (int i, int j) -> blackhole.consume(i ^ j));
+    }
+
+    @Benchmark
+    public int[] arrayIntersects() {
+        int[] hits = new int[COUNT];
+        int count = rectangles.intersects(window, hits);
+        return Arrays.copyOf(hits, count);
+    }
+
+    @Benchmark
+    public int[] parallelIntersects() {
+        return query.intersecting(window);
+    }
+}
@@ -0,0 +1,82 @@
+package sandbox.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sandbox.Point;
+
+/**
+ * Benchmarks for the <code>Point</code> methods that sit on hot paths.
+ *
+ * @author Wes McKean
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PointBenchmark {
+    static final int COUNT = 1024;
+
+    @Param({"UNIFORM", "CLUSTERED", "OVERLAPPING"})
+    public Distribution distribution;
+
+    private Point[] points;
+    private Point[] others;
+    private Point[] lineStarts;
+    private Point[] lineEnds;
+
+    @Setup
+    public void setUp() {
+        points = distribution.points(Distribution.SEED, COUNT);
+        others = distribution.points(Distribution.SEED + 1, COUNT);
+
+        // horizontal lines from lineStarts[i] to lineEnds[i] that span
+        // points[i] on the x-axis; alternate between lines through the point
+        // and lines one row below it, which miss
+        lineStarts = new Point[COUNT];
+        lineEnds = new Point[COUNT];
+        for(int i = 0; i < COUNT; i++) {
+            Point p = points[i];
+            int y = p.getY() + (i & 1);
+            lineStarts[i] = new Point(others[i].getX(), y);
+            lineEnds[i] = new Point(2 * p.getX() - others[i].getX(), y);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void hashCode(Blackhole blackhole) {
+        for(Point p : points) {
+            blackhole.consume(p.hashCode());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void equals(Blackhole blackhole) {
+        for(int i = 0; i < COUNT; i++) {
+            blackhole.consume(points[i].equals(others[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void isOnLine(Blackhole blackhole) {
+        for(int i = 0; i < COUNT; i++) {
+            blackhole.consume(points[i].isOnLine(lineStarts[i], lineEnds[i]));
+        }
+    }
+}
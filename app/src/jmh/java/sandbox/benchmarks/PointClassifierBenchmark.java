@@ -0,0 +1,113 @@
+package sandbox.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sandbox.Point;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import sandbox.simd.PointClassifier;
+
+/**
+ * Point-in-rectangle throughput of the vectorized classifier against the
+ * scalar loop, and against calling <code>Rectangle.contains(Point)</code>
+ * per point.  Scores are in points per microsecond.
+ *
+ * @author Wes McKean
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class PointClassifierBenchmark {
+    static final int COUNT = 1 << 16;
+
+    @Param({"UNIFORM", "CLUSTERED", "OVERLAPPING"})
+    public Distribution distribution;
+
+    @Param({"1", "16"})
+    public int rectangleCount;
+
+    private Point[] points;
+    private int[] xs;
+    private int[] ys;
+    private long[] mask;
+    private Rectangle rectangle;
+    private Rectangle[] generated;
+    private RectangleArray rectangles;
+
+    @Setup
+    public void setUp() {
+        points = distribution.points(Distribution.SEED, COUNT);
+        xs = new int[COUNT];
+        ys = new int[COUNT];
+        for(int i = 0; i < COUNT; i++) {
+            xs[i] = points[i].getX();
+            ys[i] = points[i].getY();
+        }
+        mask = new long[COUNT / 64];
+
+        generated = distribution.rectangles(Distribution.SEED + 1, rectangleCount);
+        rectangle = generated[0];
+        rectangles = new RectangleArray(rectangleCount);
+        for(Rectangle r : generated) {
+            rectangles.add(r);
+        }
+
+        if(!PointClassifier.best().isVectorized()) {
+            throw new IllegalStateException("the Vector API is not available in the benchmark JVM");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public long[] vector() {
+        if(rectangleCount == 1) {
+            PointClassifier.best().contains(rectangle, xs, ys, COUNT, mask);
+        }
+        else {
+            PointClassifier.best().containsAny(rectangles, xs, ys, COUNT, mask);
+        }
+        return mask;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public long[] scalar() {
+        if(rectangleCount == 1) {
+            PointClassifier.scalar().contains(rectangle, xs, ys, COUNT, mask);
+        }
+        else {
+            PointClassifier.scalar().containsAny(rectangles, xs, ys, COUNT, mask);
+        }
+        return mask;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public long[] rectangleContains() {
+        Arrays.fill(mask, 0L);
+        for(int i = 0; i < COUNT; i++) {
+            for(Rectangle r : generated) {
+                if(r.contains(points[i])) {
+                    mask[i >>> 6] |= 1L << i;
+                    break;
+                }
+            }
+        }
+        return mask;
+    }
+}
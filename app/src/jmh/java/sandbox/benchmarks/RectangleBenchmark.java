@@ -0,0 +1,134 @@
+package sandbox.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sandbox.Point;
+import sandbox.Rectangle;
+
+/**
+ * Benchmarks for the <code>Rectangle</code> predicates, each run over the
+ * same seeded pairs of rectangles.
+ *
+ * @author Wes McKean
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RectangleBenchmark {
+    static final int COUNT = 1024;
+
+    @Param({"UNIFORM", "CLUSTERED", "OVERLAPPING"})
+    public Distribution distribution;
+
+    private Rectangle[] rectangles;
+    private Rectangle[] others;
+    private Point[] points;
+
+    @Setup
+    public void setUp() {
+        rectangles = distribution.rectangles(Distribution.SEED, COUNT);
+        others = distribution.rectangles(Distribution.SEED + 1, COUNT);
+        points = distribution.points(Distribution.SEED + 2, COUNT);
+
+        // Rectangle.intersection cannot build the line two touching
+        // rectangles share and throws, so keep such pairs out of the input
+        for(int i = 0; i < COUNT; i++) {
+            try {
+                rectangles[i].intersection(others[i]);
+            }
+            catch(IllegalArgumentException e) {
+                others[i] = Rectangle.build(others[i].getUpperLeft().getX() + 1,
+                        others[i].getUpperLeft().getY() + 1, others[i].getWidth(), others[i].getHeight());
+                i--;
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void intersects(Blackhole blackhole) {
+        for(int i = 0; i < COUNT; i++) {
+            blackhole.consume(rectangles[i].intersects(others[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void intersection(Blackhole blackhole) {
+        for(int i = 0; i < COUNT; i++) {
+            blackhole.consume(rectangles[i].intersection(others[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void containsRectangle(Blackhole blackhole) {
+        for(int i = 0; i < COUNT; i++) {
+            blackhole.consume(rectangles[i].contains(others[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void containsPoint(Blackhole blackhole) {
+        for(int i = 0; i < COUNT; i++) {
+            blackhole.consume(rectangles[i].contains(points[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void adjacent(Blackhole blackhole) {
+        for(int i = 0; i < COUNT; i++) {
+            blackhole.consume(rectangles[i].adjacent(others[i]));
+        }
+    }
+
+    /**
+     * classifying a pair the old way, one predicate at a time.
+     */
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void classify(Blackhole blackhole) {
+        for(int i = 0; i < COUNT; i++) {
+            Rectangle a = rectangles[i];
+            Rectangle b = others[i];
+            blackhole.consume(a.contains(b));
+            blackhole.consume(b.contains(a));
+            blackhole.consume(a.intersects(b));
+            blackhole.consume(a.adjacent(b));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void relate(Blackhole blackhole) {
+        for(int i = 0; i < COUNT; i++) {
+            blackhole.consume(rectangles[i].relate(others[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void build(Blackhole blackhole) {
+        for(int i = 0; i < COUNT; i++) {
+            Point p = points[i];
+            blackhole.consume(Rectangle.build(p.getX(), p.getY(), 2 + (i & 31), 2 + (i & 15)));
+        }
+    }
+}
@@ -1,15 +1,234 @@
 package sandbox;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import sandbox.cli.BatchQuery;
+import sandbox.cli.Options;
+import sandbox.cli.RecordReader;
+import sandbox.cli.ServerOptions;
+import sandbox.index.RTree;
+import sandbox.io.RectangleFileReader;
+import sandbox.metrics.Metrics;
+import sandbox.metrics.Reporter;
+import sandbox.server.LoadGenerator;
+import sandbox.server.QueryServer;
+
 /**
- * this is a placeholder.
- * 
+ * The command-line entry point for batch jobs.
+ *
+ * <pre>
+ * app &lt;operation&gt; [-q x,y,x1,y1] [-i input] [-o output]
+ * </pre>
+ *
+ * The operation is one of <code>intersects</code>,
+ * <code>intersection</code>, <code>contains</code>, <code>adjacent</code>,
+ * <code>all-pairs</code> or <code>compact</code>; see {@link BatchQuery} for
+ * what each one writes.  Records are read from the input file or stdin and
+ * results are written to the output file or stdout.  A summary of the run
+ * goes to stderr.
+ *
+ * <code>app serve</code> loads the rectangles into an index and answers
+ * queries over a socket until it is killed, and <code>app load</code>
+ * drives a running server and reports the latencies it sees; see
+ * {@link ServerOptions} for their options and {@link QueryServer} for the
+ * protocol.
+ *
+ * Run with <code>-Dsandbox.metrics=true</code> to count and time the
+ * queries, and add <code>-Dsandbox.metrics.report=stderr</code> to have
+ * them reported as the job runs; see {@link Metrics}.
+ *
+ * The exit status is 0 on success, 1 if the input is bad or a file can not
+ * be read or written, and 2 if the command line is wrong.
+ *
  * @author Wes McKean
  */
 public class App {
+    private static final String USAGE = "usage: app <intersects|intersection|contains|adjacent|all-pairs|compact>"
+            + " [-q x,y,x1,y1] [-i input] [-o output]\n"
+            + "       app serve [-i input] [-p port | -u socket] [-h host] [-w window-us]\n"
+            + "       app load [-p port | -u socket] [-h host] [-t operation] [-q x,y,x1,y1]"
+            + " [-c connections] [-n requests] [-d depth]";
+
     /**
      * make javadoc happy :)
      */
     public App() {
         
     }
+
+    /**
+     * @param args the command line
+     */
+    public static void main(String[] args) {
+        Reporter reporter;
+        try {
+            reporter = Metrics.startReporter();
+        }
+        catch(IOException | IllegalArgumentException e) {
+            System.err.println("error: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        int status = new App().run(args, System.in, System.out, System.err);
+        if(reporter != null) {
+            reporter.close();
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Runs the command line against the given streams.
+     *
+     * @param args the command line
+     * @param in   read when no input file is given
+     * @param out  written when no output file is given
+     * @param err  receives the summary and any error message
+     * @return the exit status
+     */
+    public int run(String[] args, InputStream in, OutputStream out, PrintStream err) {
+        if(args.length > 0 && ServerOptions.handles(args[0])) {
+            return runServer(args, in, err);
+        }
+
+        Options options;
+        try {
+            options = Options.parse(args);
+        }
+        catch(IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+
+        BatchQuery query = new BatchQuery(options.getOperation(), options.getQuery());
+        long start = System.nanoTime();
+        try {
+            if(options.getOutput() == null) {
+                execute(query, options, in, Channels.newChannel(out));
+                out.flush();
+            }
+            else {
+                try(FileChannel output = FileChannel.open(options.getOutput(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    execute(query, options, in, output);
+                }
+            }
+        }
+        catch(IOException | IllegalArgumentException e) {
+            err.println("error: " + e.getMessage());
+            return 1;
+        }
+
+        query.report(System.nanoTime() - start, err);
+        return 0;
+    }
+
+    private static void execute(BatchQuery query, Options options, InputStream in, WritableByteChannel output)
+            throws IOException {
+        if(options.getInput() == null) {
+            query.run(Channels.newChannel(in), output);
+        }
+        else if(BatchQuery.isRectangleFile(options.getInput())) {
+            try(RectangleFileReader reader = RectangleFileReader.open(options.getInput())) {
+                query.run(reader, output);
+            }
+        }
+        else {
+            try(ReadableByteChannel input = FileChannel.open(options.getInput(), StandardOpenOption.READ)) {
+                query.run(input, output);
+            }
+        }
+    }
+
+    private int runServer(String[] args, InputStream in, PrintStream err) {
+        ServerOptions options;
+        try {
+            options = ServerOptions.parse(args);
+        }
+        catch(IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+
+        try {
+            if(options.isServe()) {
+                long start = System.nanoTime();
+                List<Rectangle> rectangles = read(options.getInput(), in);
+                RTree tree = RTree.bulkLoad(rectangles);
+                err.printf("serve: indexed %d rectangles in %.3f s%n", tree.size(), (System.nanoTime() - start) / 1e9);
+
+                QueryServer server = new QueryServer(tree, options.getWindow());
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        server.close();
+                    }
+                    catch(IOException e) {
+                        // exiting anyway
+                    }
+                }));
+                err.println("serve: listening on " + server.start(options.getAddress()));
+                server.join();
+            }
+            else {
+                LoadGenerator load = new LoadGenerator(options.getAddress(), options.getOperation(),
+                        options.getArea(), options.getConnections(), options.getRequests(), options.getDepth());
+                long start = System.nanoTime();
+                load.run(System.nanoTime());
+                load.report(System.nanoTime() - start, err);
+            }
+        }
+        catch(IOException | IllegalArgumentException e) {
+            err.println("error: " + e.getMessage());
+            return 1;
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * reads every rectangle in a text or binary input into memory.
+     */
+    private static List<Rectangle> read(Path input, InputStream in) throws IOException {
+        List<Rectangle> rectangles = new ArrayList<>();
+        if(input != null && BatchQuery.isRectangleFile(input)) {
+            try(RectangleFileReader reader = RectangleFileReader.open(input)) {
+                reader.forEach((i, x, y, x1, y1) -> rectangles.add(new Rectangle(x, y, x1, y1)));
+            }
+            return rectangles;
+        }
+
+        try(ReadableByteChannel channel = input == null ? Channels.newChannel(in)
+                : FileChannel.open(input, StandardOpenOption.READ)) {
+            RecordReader reader = new RecordReader(channel);
+            int[] fields = new int[4];
+            int count;
+            while((count = reader.next(fields)) >= 0) {
+                if(count != 4) {
+                    throw new IllegalArgumentException("line " + reader.getLine() + ": expected x y x1 y1");
+                }
+                try {
+                    rectangles.add(new Rectangle(fields[0], fields[1], fields[2], fields[3]));
+                }
+                catch(IllegalArgumentException e) {
+                    throw new IllegalArgumentException("line " + reader.getLine() + ": " + e.getMessage());
+                }
+            }
+        }
+        return rectangles;
+    }
 }
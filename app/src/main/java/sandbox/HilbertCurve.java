@@ -0,0 +1,123 @@
+package sandbox;
+
+import java.util.Arrays;
+
+/**
+ * Positions along a Hilbert curve, the space-filling curve that visits every
+ * cell of a 2^order by 2^order grid without ever jumping: consecutive
+ * positions are always neighbouring cells.  Sorting by position therefore
+ * keeps things that are close in the plane close in the sorted order, which
+ * is what packed indexes and delta encodings want.
+ *
+ * Coordinates are usually scaled into the grid first; see
+ * {@link #shift(long)}.
+ *
+ * @author Wes McKean
+ */
+public final class HilbertCurve {
+    /**
+     * the largest supported order; positions then fill 62 bits
+     */
+    public static final int MAX_ORDER = 31;
+
+    private HilbertCurve() {
+    }
+
+    /**
+     * @param order the curve covers a 2^order by 2^order grid, from 1 to
+     * {@link #MAX_ORDER}
+     * @param x     the column, from 0 to 2^order - 1
+     * @param y     the row, from 0 to 2^order - 1
+     * @return the position of the cell along the curve, from 0 to
+     * 4^order - 1
+     *
+     * @throws IllegalArgumentException if the order is out of range or the
+     * cell is outside the grid
+     */
+    public static long index(int order, int x, int y) {
+        if(order < 1 || order > MAX_ORDER) {
+            throw new IllegalArgumentException("order must be between 1 and " + MAX_ORDER);
+        }
+        if(x < 0 || y < 0 || x >>> order != 0 || y >>> order != 0) {
+            throw new IllegalArgumentException("(" + x + ", " + y + ") is outside a grid of order " + order);
+        }
+
+        long d = 0;
+        for(int s = 1 << (order - 1); s > 0; s >>>= 1) {
+            int rx = (x & s) != 0 ? 1 : 0;
+            int ry = (y & s) != 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+
+            // rotate the quadrant so the curve inside it starts and ends in
+            // the right corners
+            if(ry == 0) {
+                if(rx == 1) {
+                    x = s - 1 - (x & (s - 1));
+                    y = s - 1 - (y & (s - 1));
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+            x &= s - 1;
+            y &= s - 1;
+        }
+        return d;
+    }
+
+    /**
+     * Sorts rectangles along a Hilbert curve through their centres.  The
+     * centres are scaled into a grid of order 16 covering their bounding
+     * box, so rectangles whose centres share a cell keep their index order.
+     *
+     * @param rectangles the rectangles to sort
+     * @return the indexes of the rectangles in curve order
+     */
+    public static int[] sort(RectangleArray rectangles) {
+        int n = rectangles.size();
+        long minX = Long.MAX_VALUE;
+        long minY = Long.MAX_VALUE;
+        long maxX = Long.MIN_VALUE;
+        long maxY = Long.MIN_VALUE;
+        for(int i = 0; i < n; i++) {
+            long cx = ((long) rectangles.getX(i) + rectangles.getX1(i)) >> 1;
+            long cy = ((long) rectangles.getY(i) + rectangles.getY1(i)) >> 1;
+            minX = Math.min(minX, cx);
+            minY = Math.min(minY, cy);
+            maxX = Math.max(maxX, cx);
+            maxY = Math.max(maxY, cy);
+        }
+        int shift = shift(Math.max(maxX - minX, maxY - minY));
+
+        // the position fills the high 32 bits and the index the low ones,
+        // so one primitive sort does it.  positions from 2^31 up set the
+        // sign bit, so it is flipped to make the signed sort an unsigned one
+        long[] keys = new long[n];
+        for(int i = 0; i < n; i++) {
+            long cx = ((long) rectangles.getX(i) + rectangles.getX1(i)) >> 1;
+            long cy = ((long) rectangles.getY(i) + rectangles.getY1(i)) >> 1;
+            long d = index(16, (int) ((cx - minX) >>> shift), (int) ((cy - minY) >>> shift));
+            keys[i] = ((d << 32) | i) ^ Long.MIN_VALUE;
+        }
+        Arrays.parallelSort(keys);
+
+        int[] order = new int[n];
+        for(int k = 0; k < n; k++) {
+            order[k] = (int) keys[k];
+        }
+        return order;
+    }
+
+    /**
+     * Returns how far to shift offsets from the low corner of an extent to
+     * the right so they fit a grid of order 16, which is fine enough to
+     * sort by and leaves room to pack an <code>int</code> index next to the
+     * position in a <code>long</code>.
+     *
+     * @param extent the largest offset that has to fit, not negative
+     * @return the shift
+     */
+    public static int shift(long extent) {
+        return Math.max(0, 64 - Long.numberOfLeadingZeros(extent) - 16);
+    }
+}
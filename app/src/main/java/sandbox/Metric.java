@@ -0,0 +1,147 @@
+package sandbox;
+
+/**
+ * Ways of measuring the distance between points and rectangles on the
+ * integer grid.
+ *
+ * The distance between two rectangles, or a rectangle and a point, is the
+ * distance across the gap between them: the smallest distance between a
+ * point of one and a point of the other.  Rectangles include their edges,
+ * the way <code>Rectangle.contains(Point)</code> reads them, so rectangles
+ * that touch or overlap are at distance zero.  The gap is measured along
+ * each axis separately and the metric combines the two.
+ *
+ * Distances are <code>long</code>s so that no metric can overflow for any
+ * pair of <code>int</code> coordinates, except that
+ * {@link #SQUARED_EUCLIDEAN} stops at <code>Long.MAX_VALUE</code> for gaps
+ * of 2^31 or more.
+ *
+ * @author Wes McKean
+ */
+public enum Metric {
+    /**
+     * the gap along x plus the gap along y
+     */
+    MANHATTAN {
+        @Override
+        public long combine(long dx, long dy) {
+            return dx + dy;
+        }
+    },
+    /**
+     * the larger of the gaps along x and y
+     */
+    CHEBYSHEV {
+        @Override
+        public long combine(long dx, long dy) {
+            return Math.max(dx, dy);
+        }
+    },
+    /**
+     * the square of the straight line distance, which orders distances the
+     * same way without a square root
+     */
+    SQUARED_EUCLIDEAN {
+        @Override
+        public long combine(long dx, long dy) {
+            if(dx < (1L << 31) && dy < (1L << 31)) {
+                return dx * dx + dy * dy;
+            }
+            return Long.MAX_VALUE;
+        }
+    };
+
+    /**
+     * Combines the gaps along the two axes into a distance.
+     *
+     * @param dx the gap along the x-axis, not negative
+     * @param dy the gap along the y-axis, not negative
+     * @return the distance
+     */
+    public abstract long combine(long dx, long dy);
+
+    /**
+     * @param x  the first point on the x-axis
+     * @param y  the first point on the y-axis
+     * @param px the second point on the x-axis
+     * @param py the second point on the y-axis
+     * @return the distance between the points
+     */
+    public long distance(int x, int y, int px, int py) {
+        return combine(Math.abs((long) x - px), Math.abs((long) y - py));
+    }
+
+    /**
+     * @param ax  upper left x of rectangle a
+     * @param ay  upper left y of rectangle a
+     * @param ax1 lower right x of rectangle a
+     * @param ay1 lower right y of rectangle a
+     * @param px  the point on the x-axis
+     * @param py  the point on the y-axis
+     * @return the distance from the point to the nearest point of a
+     */
+    public long distance(int ax, int ay, int ax1, int ay1, int px, int py) {
+        return combine(gap(ax, ax1, px, px), gap(ay, ay1, py, py));
+    }
+
+    /**
+     * @param ax  upper left x of rectangle a
+     * @param ay  upper left y of rectangle a
+     * @param ax1 lower right x of rectangle a
+     * @param ay1 lower right y of rectangle a
+     * @param bx  upper left x of rectangle b
+     * @param by  upper left y of rectangle b
+     * @param bx1 lower right x of rectangle b
+     * @param by1 lower right y of rectangle b
+     * @return the distance across the gap between a and b
+     */
+    public long distance(int ax, int ay, int ax1, int ay1, int bx, int by, int bx1, int by1) {
+        return combine(gap(ax, ax1, bx, bx1), gap(ay, ay1, by, by1));
+    }
+
+    /**
+     * @param a a point
+     * @param b another point
+     * @return the distance between the points
+     */
+    public long distance(Point a, Point b) {
+        return distance(a.getX(), a.getY(), b.getX(), b.getY());
+    }
+
+    /**
+     * @param rectangle a rectangle
+     * @param pt        a point
+     * @return the distance from the point to the nearest point of the
+     * rectangle; zero if the rectangle contains the point
+     */
+    public long distance(Rectangle rectangle, Point pt) {
+        return distance(rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY(), pt.getX(), pt.getY());
+    }
+
+    /**
+     * @param a a rectangle
+     * @param b another rectangle
+     * @return the distance across the gap between the rectangles; zero if
+     * they touch or overlap
+     */
+    public long distance(Rectangle a, Rectangle b) {
+        return distance(a.getUpperLeft().getX(), a.getUpperLeft().getY(),
+                a.getLowerRight().getX(), a.getLowerRight().getY(),
+                b.getUpperLeft().getX(), b.getUpperLeft().getY(),
+                b.getLowerRight().getX(), b.getLowerRight().getY());
+    }
+
+    /**
+     * the gap between the spans [a, a1] and [b, b1] on one axis
+     */
+    private static long gap(int a, int a1, int b, int b1) {
+        if(b > a1) {
+            return (long) b - a1;
+        }
+        if(a > b1) {
+            return (long) a - b1;
+        }
+        return 0;
+    }
+}
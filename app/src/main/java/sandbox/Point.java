@@ -80,9 +80,13 @@ public class Point {
         return sb.toString();
     }
     
+    /**
+     * Computed from the coordinates alone, so hashing a point does not
+     * allocate.  Agrees with <code>PointValue.hashCode</code>.
+     */
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        return 31 * x + y;
     }
     
     /**
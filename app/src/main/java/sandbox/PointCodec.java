@@ -0,0 +1,72 @@
+package sandbox;
+
+/**
+ * Packs a point's (x, y) coordinates into a single <code>long</code>, x in
+ * the high 32 bits and y, with its sign bit flipped, in the low 32 bits.
+ * Two points have the same code exactly when they are <code>equals</code>,
+ * so the code can stand in for the point as a map key or be stored in a
+ * primitive array.
+ *
+ * Sorting codes as signed longs orders points by x, then by y.
+ *
+ * @author Wes McKean
+ */
+public final class PointCodec {
+
+    private PointCodec() {
+    }
+
+    /**
+     * @param x location on the x-axis
+     * @param y location on the y-axis
+     * @return the code for the point (x, y)
+     */
+    public static long encode(int x, int y) {
+        return ((long) x << 32) | ((y ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param pt the point to encode
+     * @return the code for the point
+     */
+    public static long encode(Point pt) {
+        return encode(pt.getX(), pt.getY());
+    }
+
+    /**
+     * @param code a point code
+     * @return the location of the point on the x-axis
+     */
+    public static int x(long code) {
+        return (int) (code >> 32);
+    }
+
+    /**
+     * @param code a point code
+     * @return the location of the point on the y-axis
+     */
+    public static int y(long code) {
+        return (int) code ^ Integer.MIN_VALUE;
+    }
+
+    /**
+     * @param code a point code
+     * @return a newly created <code>Point</code> for the code
+     */
+    public static Point decode(long code) {
+        return new Point(x(code), y(code));
+    }
+
+    /**
+     * Hashes a code the way <code>Point.hashCode</code> hashes the encoded
+     * point, as 31 * x + y.  The bits are not spread: points close together
+     * on a dense grid collide often, so a table keyed by codes should mix
+     * them itself, as <code>PointTable</code> does.
+     *
+     * @param code a point code
+     * @return the hash code of the encoded point
+     */
+    public static int hashCode(long code) {
+        return 31 * x(code) + y(code);
+    }
+}
@@ -0,0 +1,17 @@
+package sandbox;
+
+/**
+ * Receives the coordinates of a point without the point being built as a
+ * <code>Point</code>.
+ *
+ * @author Wes McKean
+ */
+@FunctionalInterface
+public interface PointConsumer {
+
+    /**
+     * @param x location on the x-axis
+     * @param y location on the y-axis
+     */
+    void accept(int x, int y);
+}
@@ -0,0 +1,179 @@
+package sandbox;
+
+/**
+ * A map from points to values, with the points kept as
+ * <code>PointCodec</code> codes in an open addressing hash table.  Looking
+ * up a value by its point's coordinates does not allocate, unlike a
+ * <code>HashMap&lt;Point, V&gt;</code> which needs a <code>Point</code> for
+ * every lookup.
+ *
+ * Null values are not allowed, so a null result always means the point is
+ * not in the map.
+ *
+ * @param <V> the type of the values
+ *
+ * @author Wes McKean
+ */
+public class PointMap<V> extends PointTable {
+
+    /**
+     * Receives the entries of a map.
+     *
+     * @param <V> the type of the values
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+
+        /**
+         * @param x     location of the point on the x-axis
+         * @param y     location of the point on the y-axis
+         * @param value the value stored for the point
+         */
+        void accept(int x, int y, V value);
+    }
+
+    /**
+     * Default constructor.  Creates an empty map.
+     */
+    public PointMap() {
+        this(0);
+    }
+
+    /**
+     * Creates an empty map that can hold <code>expectedSize</code> entries
+     * before it has to grow.
+     *
+     * @param expectedSize the number of entries expected
+     */
+    public PointMap(int expectedSize) {
+        super(expectedSize, true);
+    }
+
+    /**
+     * @param x location on the x-axis
+     * @param y location on the y-axis
+     * @return the value stored for the point, or null if there is none
+     */
+    public V get(int x, int y) {
+        return getCode(PointCodec.encode(x, y));
+    }
+
+    /**
+     * @param pt the point to look up
+     * @return the value stored for the point, or null if there is none
+     */
+    public V get(Point pt) {
+        return getCode(PointCodec.encode(pt));
+    }
+
+    /**
+     * @param code the <code>PointCodec</code> code of the point to look up
+     * @return the value stored for the point, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public V getCode(long code) {
+        int slot = find(code);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * @param x location on the x-axis
+     * @param y location on the y-axis
+     * @return true if a value is stored for the point
+     */
+    public boolean containsKey(int x, int y) {
+        return find(PointCodec.encode(x, y)) >= 0;
+    }
+
+    /**
+     * @param x     location on the x-axis
+     * @param y     location on the y-axis
+     * @param value the value to store for the point
+     * @return the value previously stored for the point, or null
+     */
+    public V put(int x, int y, V value) {
+        return putCode(PointCodec.encode(x, y), value);
+    }
+
+    /**
+     * @param pt    the point to store the value for
+     * @param value the value to store for the point
+     * @return the value previously stored for the point, or null
+     */
+    public V put(Point pt, V value) {
+        return putCode(PointCodec.encode(pt), value);
+    }
+
+    /**
+     * @param code  the <code>PointCodec</code> code of the point
+     * @param value the value to store for the point
+     * @return the value previously stored for the point, or null
+     *
+     * @throws IllegalArgumentException if value is null
+     */
+    @SuppressWarnings("unchecked")
+    public V putCode(long code, V value) {
+        if(value == null) {
+            throw new IllegalArgumentException("value may not be null");
+        }
+
+        int slot = insert(code);
+        if(slot < 0) {
+            values[-slot - 1] = value;
+            return null;
+        }
+
+        V previous = (V) values[slot];
+        values[slot] = value;
+        return previous;
+    }
+
+    /**
+     * @param x location on the x-axis
+     * @param y location on the y-axis
+     * @return the value that was stored for the point, or null
+     */
+    public V remove(int x, int y) {
+        return removeCode(PointCodec.encode(x, y));
+    }
+
+    /**
+     * @param pt the point to remove
+     * @return the value that was stored for the point, or null
+     */
+    public V remove(Point pt) {
+        return removeCode(PointCodec.encode(pt));
+    }
+
+    /**
+     * @param code the <code>PointCodec</code> code of the point to remove
+     * @return the value that was stored for the point, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V removeCode(long code) {
+        int slot = find(code);
+        if(slot < 0) {
+            return null;
+        }
+
+        V previous = (V) values[slot];
+        removeAt(slot);
+        return previous;
+    }
+
+    /**
+     * Hands every entry of the map to the action, in no particular order.
+     * The map must not be changed while this runs.
+     *
+     * @param action receives each entry
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> action) {
+        for(int slot = 0, n = capacity(); slot < n; slot++) {
+            if(usedAt(slot)) {
+                long code = keyAt(slot);
+                action.accept(PointCodec.x(code), PointCodec.y(code), (V) values[slot]);
+            }
+        }
+    }
+}
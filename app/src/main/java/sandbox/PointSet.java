@@ -0,0 +1,141 @@
+package sandbox;
+
+import java.util.function.LongConsumer;
+
+/**
+ * A set of points kept as <code>PointCodec</code> codes in an open
+ * addressing hash table.  Adding, finding and removing a point by its
+ * coordinates does not allocate, unlike a <code>HashSet&lt;Point&gt;</code>
+ * which needs a <code>Point</code> for every lookup.
+ *
+ * @author Wes McKean
+ */
+public class PointSet extends PointTable {
+
+    /**
+     * Default constructor.  Creates an empty set.
+     */
+    public PointSet() {
+        this(0);
+    }
+
+    /**
+     * Creates an empty set that can hold <code>expectedSize</code> points
+     * before it has to grow.
+     *
+     * @param expectedSize the number of points expected
+     */
+    public PointSet(int expectedSize) {
+        super(expectedSize, false);
+    }
+
+    /**
+     * @param x location on the x-axis
+     * @param y location on the y-axis
+     * @return true if the point was added, false if it was already there
+     */
+    public boolean add(int x, int y) {
+        return addCode(PointCodec.encode(x, y));
+    }
+
+    /**
+     * @param pt the point to add
+     * @return true if the point was added, false if it was already there
+     */
+    public boolean add(Point pt) {
+        return addCode(PointCodec.encode(pt));
+    }
+
+    /**
+     * @param code the <code>PointCodec</code> code of the point to add
+     * @return true if the point was added, false if it was already there
+     */
+    public boolean addCode(long code) {
+        return insert(code) < 0;
+    }
+
+    /**
+     * @param x location on the x-axis
+     * @param y location on the y-axis
+     * @return true if the point is in the set
+     */
+    public boolean contains(int x, int y) {
+        return find(PointCodec.encode(x, y)) >= 0;
+    }
+
+    /**
+     * @param pt the point to look for
+     * @return true if the point is in the set
+     */
+    public boolean contains(Point pt) {
+        return find(PointCodec.encode(pt)) >= 0;
+    }
+
+    /**
+     * @param code the <code>PointCodec</code> code of the point to look for
+     * @return true if the point is in the set
+     */
+    public boolean containsCode(long code) {
+        return find(code) >= 0;
+    }
+
+    /**
+     * @param x location on the x-axis
+     * @param y location on the y-axis
+     * @return true if the point was removed, false if it was not there
+     */
+    public boolean remove(int x, int y) {
+        return removeCode(PointCodec.encode(x, y));
+    }
+
+    /**
+     * @param pt the point to remove
+     * @return true if the point was removed, false if it was not there
+     */
+    public boolean remove(Point pt) {
+        return removeCode(PointCodec.encode(pt));
+    }
+
+    /**
+     * @param code the <code>PointCodec</code> code of the point to remove
+     * @return true if the point was removed, false if it was not there
+     */
+    public boolean removeCode(long code) {
+        int slot = find(code);
+        if(slot < 0) {
+            return false;
+        }
+        removeAt(slot);
+        return true;
+    }
+
+    /**
+     * Hands the coordinates of every point in the set to the action, in no
+     * particular order.  The set must not be changed while this runs.
+     *
+     * @param action receives each point
+     */
+    public void forEach(PointConsumer action) {
+        for(int slot = 0, n = capacity(); slot < n; slot++) {
+            if(usedAt(slot)) {
+                long code = keyAt(slot);
+                action.accept(PointCodec.x(code), PointCodec.y(code));
+            }
+        }
+    }
+
+    /**
+     * Hands the <code>PointCodec</code> code of every point in the set to
+     * the action, in no particular order.  The set must not be changed while
+     * this runs.
+     *
+     * @param action receives each code
+     */
+    public void forEachCode(LongConsumer action) {
+        for(int slot = 0, n = capacity(); slot < n; slot++) {
+            if(usedAt(slot)) {
+                action.accept(keyAt(slot));
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package sandbox;
+
+import java.util.Arrays;
+
+/**
+ * The open addressing hash table behind <code>PointSet</code> and
+ * <code>PointMap</code>.  Points are stored as <code>PointCodec</code> codes
+ * in a <code>long[]</code> and found with linear probing, so a lookup does
+ * no allocation and follows no pointers.  Removal shifts the following
+ * entries back instead of leaving tombstones.
+ *
+ * @author Wes McKean
+ */
+abstract class PointTable {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private boolean[] used;
+    /**
+     * the value stored with each key, or null for a set
+     */
+    Object[] values;
+    private int size;
+    private int shift;
+
+    PointTable(int expectedSize, boolean withValues) {
+        if(expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize may not be negative");
+        }
+
+        int capacity = MIN_CAPACITY;
+        while(capacity / 2 < expectedSize) {
+            capacity *= 2;
+        }
+        allocate(capacity, withValues);
+    }
+
+    private void allocate(int capacity, boolean withValues) {
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        values = withValues ? new Object[capacity] : null;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private int home(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    /**
+     * @return the slot holding key, or -1 if it is not in the table
+     */
+    final int find(long key) {
+        int mask = keys.length - 1;
+        for(int slot = home(key); used[slot]; slot = (slot + 1) & mask) {
+            if(keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the slot holding key.  if the key was not in the table it is
+     * added and the slot is returned as (-slot - 1).
+     */
+    final int insert(long key) {
+        if(size + 1 > keys.length / 2) {
+            grow();
+        }
+
+        int mask = keys.length - 1;
+        int slot = home(key);
+        for(; used[slot]; slot = (slot + 1) & mask) {
+            if(keys[slot] == key) {
+                return slot;
+            }
+        }
+
+        used[slot] = true;
+        keys[slot] = key;
+        size++;
+        return -slot - 1;
+    }
+
+    final long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    final boolean usedAt(int slot) {
+        return used[slot];
+    }
+
+    final int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * removes the entry in slot, moving back any entries that probed past it.
+     */
+    final void removeAt(int slot) {
+        int mask = keys.length - 1;
+        int gap = slot;
+        for(int next = (gap + 1) & mask; used[next]; next = (next + 1) & mask) {
+            int distance = (next - home(keys[next])) & mask;
+            if(distance >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                if(values != null) {
+                    values[gap] = values[next];
+                }
+                gap = next;
+            }
+        }
+
+        used[gap] = false;
+        if(values != null) {
+            values[gap] = null;
+        }
+        size--;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        Object[] oldValues = values;
+        allocate(keys.length * 2, oldValues != null);
+        size = 0;
+
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldUsed[i]) {
+                int slot = -insert(oldKeys[i]) - 1;
+                if(oldValues != null) {
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of points in the table
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the table holds no points
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every point, keeping the allocated capacity.
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        if(values != null) {
+            Arrays.fill(values, null);
+        }
+        size = 0;
+    }
+}
@@ -0,0 +1,59 @@
+package sandbox;
+
+/**
+ * An immutable point on the matrix.  Unlike <code>Point</code>, a
+ * <code>PointValue</code> can not change once it has been used as a map key
+ * or stored in a set.
+ *
+ * Two values are equal when a <code>Point</code> with the same coordinates
+ * would be, and they hash to the same value as that <code>Point</code>.
+ *
+ * @param x location on the x-axis
+ * @param y location on the y-axis
+ *
+ * @author Wes McKean
+ */
+public record PointValue(int x, int y) {
+
+    /**
+     * @param pt the point to copy
+     * @return a value with the point's current coordinates
+     */
+    public static PointValue of(Point pt) {
+        return new PointValue(pt.getX(), pt.getY());
+    }
+
+    /**
+     * @param code a code made by <code>PointCodec.encode</code>
+     * @return the value for the code
+     */
+    public static PointValue decode(long code) {
+        return new PointValue(PointCodec.x(code), PointCodec.y(code));
+    }
+
+    /**
+     * @return the <code>PointCodec</code> code of this point
+     */
+    public long encode() {
+        return PointCodec.encode(x, y);
+    }
+
+    /**
+     * @return a newly created <code>Point</code> with these coordinates
+     */
+    public Point toPoint() {
+        return new Point(x, y);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * x + y;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('(').append(x).append(',').append(y).append(')');
+        return sb.toString();
+    }
+}
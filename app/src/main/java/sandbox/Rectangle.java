@@ -1,6 +1,8 @@
 package sandbox;
 
 import java.util.Optional;
+import sandbox.metrics.Metrics;
+import sandbox.metrics.Probe;
 
 /**
  * A rectangle represents an area in a matrix specified by the upper left
@@ -17,6 +19,10 @@ public class Rectangle {
      * the lower right coordinate of the rectangle
      */
     private Point lowerRight;
+    /**
+     * told when a corner is replaced, or null
+     */
+    private RectangleListener listener;
     
     /**
      * Default constructor.  creates an empty rectangle
@@ -97,9 +103,13 @@ public class Rectangle {
         return sb.toString();
     }
     
+    /**
+     * Computed from the coordinates alone, so hashing a rectangle does not
+     * allocate.  Agrees with <code>RectangleValue.hashCode</code>.
+     */
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        return 31 * upperLeft.hashCode() + lowerRight.hashCode();
     }
     
     /**
@@ -146,6 +156,9 @@ public class Rectangle {
             throw new IllegalArgumentException("upperLeft may not be null");
         }
         this.upperLeft = upperLeft;
+        if(listener != null) {
+            listener.changed(this);
+        }
     }
 
     /**
@@ -184,6 +197,32 @@ public class Rectangle {
         }
         
         this.lowerRight = lowerRight;
+        if(listener != null) {
+            listener.changed(this);
+        }
+    }
+
+    /**
+     * getter for the listener told about changes to this rectangle.
+     * 
+     * @return the listener, or null if there is none
+     */
+    public RectangleListener getListener() {
+        return listener;
+    }
+
+    /**
+     * setter for the listener told whenever <code>setUpperLeft</code> or
+     * <code>setLowerRight</code> replaces a corner of this rectangle.  A
+     * rectangle has at most one listener.
+     * 
+     * Only the setters are observed.  Changing the coordinates of a corner
+     * <code>Point</code> in place does not tell the listener.
+     * 
+     * @param listener the listener, or null to remove it
+     */
+    public void setListener(RectangleListener listener) {
+        this.listener = listener;
     }    
     
     /**
@@ -194,9 +233,20 @@ public class Rectangle {
      * otherwise it returns false.
      */
     public boolean intersects(Rectangle rectangle) {
+        if(Metrics.ENABLED) {
+            Probe.RECTANGLE_INTERSECTS.count();
+        }
+        return intersectsUncounted(rectangle);
+    }
+
+    /**
+     * the test behind <code>intersects</code>, for the methods here that
+     * use it, so a call is only counted where it comes in.
+     */
+    private boolean intersectsUncounted(Rectangle rectangle) {
         boolean result = true;
         
-        if(contains(rectangle) || rectangle.contains(this)) {
+        if(containsUncounted(rectangle) || rectangle.containsUncounted(this)) {
             return false;
         }
         
@@ -226,7 +276,7 @@ public class Rectangle {
     public Optional<Rectangle> intersection(Rectangle rectangle) {
         Rectangle result = null;
         
-        if(intersects(rectangle)) {
+        if(intersectsUncounted(rectangle)) {
             int leftX   = Math.max( upperLeft.getX(), rectangle.getUpperLeft().getX());
             int rightX  = Math.min( upperLeft.getX() + getWidth(), rectangle.getUpperLeft().getX() + rectangle.getWidth());
             int topY    = Math.max( upperLeft.getY(), rectangle.getUpperLeft().getY() );
@@ -249,7 +299,14 @@ public class Rectangle {
      * this rectangle, false if it is not.
      */
     public boolean contains(Rectangle rectangle) {
-        return contains(rectangle.getUpperLeft()) && contains(rectangle.getLowerRight());
+        if(Metrics.ENABLED) {
+            Probe.RECTANGLE_CONTAINS.count();
+        }
+        return containsUncounted(rectangle);
+    }
+
+    private boolean containsUncounted(Rectangle rectangle) {
+        return containsUncounted(rectangle.getUpperLeft()) && containsUncounted(rectangle.getLowerRight());
     }
     
     /**
@@ -262,6 +319,13 @@ public class Rectangle {
      * rectangle, otherwise, false.
      */
     public boolean contains(Point pt) {
+        if(Metrics.ENABLED) {
+            Probe.RECTANGLE_CONTAINS.count();
+        }
+        return containsUncounted(pt);
+    }
+
+    private boolean containsUncounted(Point pt) {
         return pt.getX() >= upperLeft.getX() && pt.getX() <= lowerRight.getX() &&
                 pt.getY() >= upperLeft.getY() && pt.getY() <= lowerRight.getY();
     }
@@ -292,6 +356,9 @@ public class Rectangle {
      * 
      */
     public boolean adjacent(Rectangle rectangle) {
+        if(Metrics.ENABLED) {
+            Probe.RECTANGLE_ADJACENT.count();
+        }
         boolean result = false;
         
         Point ul1 = upperLeft;
@@ -331,6 +398,28 @@ public class Rectangle {
         
     }
     
+    /**
+     * Works out every relationship between this rectangle and another in
+     * one pass, without creating any objects.  The bits of the result are
+     * the {@link Relation} constants; <code>CONTAINS</code>,
+     * <code>WITHIN</code>, <code>INTERSECTS</code> and <code>ADJACENT</code>
+     * are set exactly when <code>contains</code> either way round,
+     * <code>intersects</code> and <code>adjacent</code> would return true,
+     * and the side bits say which sides of this rectangle the other one
+     * touches.
+     *
+     * @param rectangle the <code>Rectangle</code> to classify
+     * @return the relation of this rectangle to the other one
+     */
+    public int relate(Rectangle rectangle) {
+        if(Metrics.ENABLED) {
+            Probe.RECTANGLE_RELATE.count();
+        }
+        return Rectangles.relate(upperLeft.getX(), upperLeft.getY(), lowerRight.getX(), lowerRight.getY(),
+                rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
     /**
      * A utility function to build a Rectangle using the coordinates of the 
      * upper left corner along with the width and the height.
@@ -0,0 +1,888 @@
+package sandbox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+import sandbox.io.RecordConsumer;
+import sandbox.metrics.Metrics;
+import sandbox.metrics.Probe;
+
+/**
+ * A packed list of rectangles.  Instead of holding a <code>Rectangle</code>
+ * and its two <code>Point</code>s per entry, the coordinates are kept in four
+ * parallel <code>int</code> arrays (x, y, x1, y1).
+ *
+ * The batch methods test every entry against a single query and write the
+ * answers into a caller supplied <code>BitSet</code> or <code>int[]</code>.
+ * They give the same answers as calling the matching <code>Rectangle</code>
+ * method on each entry, but they do not allocate anything per entry.
+ * The same queries can hand each match to an <code>IntConsumer</code> as it
+ * is found, or return the matches as a lazy <code>IntStream</code> that
+ * only scans as far as the caller reads.
+ *
+ * @author Wes McKean
+ */
+public class RectangleArray {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] x;
+    private int[] y;
+    private int[] x1;
+    private int[] y1;
+    /**
+     * the index in the backing arrays of entry zero.  only slices have a
+     * non zero offset.
+     */
+    private final int offset;
+    private int size;
+    private final boolean readOnly;
+
+    /**
+     * Default constructor.  Creates an empty array.
+     */
+    public RectangleArray() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty array with room for <code>capacity</code> rectangles
+     * before it has to grow.
+     *
+     * @param capacity the initial capacity
+     *
+     * @throws IllegalArgumentException if capacity is negative
+     */
+    public RectangleArray(int capacity) {
+        if(capacity < 0) {
+            throw new IllegalArgumentException("capacity may not be negative");
+        }
+
+        x = new int[capacity];
+        y = new int[capacity];
+        x1 = new int[capacity];
+        y1 = new int[capacity];
+        offset = 0;
+        readOnly = false;
+    }
+
+    private RectangleArray(RectangleArray source, int from, int to) {
+        x = source.x;
+        y = source.y;
+        x1 = source.x1;
+        y1 = source.y1;
+        offset = source.offset + from;
+        size = to - from;
+        readOnly = true;
+    }
+
+    /**
+     * Packs a collection of <code>Rectangle</code>s, keeping their iteration
+     * order.
+     *
+     * @param rectangles the rectangles to copy
+     * @return a new array holding the coordinates of every rectangle
+     */
+    public static RectangleArray of(Collection<Rectangle> rectangles) {
+        RectangleArray result = new RectangleArray(rectangles.size());
+        for(Rectangle r : rectangles) {
+            result.add(r);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the number of rectangles in this array
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if this array holds no rectangles
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Appends a rectangle.
+     *
+     * @param x  the coordinate of the upper left corner on the x-axis
+     * @param y  the coordinate of the upper left corner on the y-axis
+     * @param x1 the coordinate of the lower right corner on the x-axis
+     * @param y1 the coordinate of the lower right corner on the y-axis
+     * @return the index of the new entry
+     *
+     * @throws IllegalArgumentException if the coordinates would not make a
+     * valid <code>Rectangle</code>
+     * @throws UnsupportedOperationException if this is a slice
+     */
+    public int add(int x, int y, int x1, int y1) {
+        checkWritable();
+        Rectangles.validate(x, y, x1, y1);
+
+        if(size == this.x.length) {
+            int capacity = Math.max(DEFAULT_CAPACITY, size + (size >> 1));
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            this.x1 = Arrays.copyOf(this.x1, capacity);
+            this.y1 = Arrays.copyOf(this.y1, capacity);
+        }
+
+        this.x[size] = x;
+        this.y[size] = y;
+        this.x1[size] = x1;
+        this.y1[size] = y1;
+        return size++;
+    }
+
+    /**
+     * Appends the current coordinates of a <code>Rectangle</code>.  Later
+     * changes to the rectangle are not seen by this array.
+     *
+     * @param rectangle the rectangle to copy
+     * @return the index of the new entry
+     */
+    public int add(Rectangle rectangle) {
+        return add(rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * Replaces the coordinates of an existing entry.
+     *
+     * @param index the entry to replace
+     * @param x  the coordinate of the upper left corner on the x-axis
+     * @param y  the coordinate of the upper left corner on the y-axis
+     * @param x1 the coordinate of the lower right corner on the x-axis
+     * @param y1 the coordinate of the lower right corner on the y-axis
+     *
+     * @throws IllegalArgumentException if the coordinates would not make a
+     * valid <code>Rectangle</code>
+     * @throws IndexOutOfBoundsException if index is not a valid entry
+     * @throws UnsupportedOperationException if this is a slice
+     */
+    public void set(int index, int x, int y, int x1, int y1) {
+        checkWritable();
+        checkIndex(index);
+        Rectangles.validate(x, y, x1, y1);
+
+        this.x[index] = x;
+        this.y[index] = y;
+        this.x1[index] = x1;
+        this.y1[index] = y1;
+    }
+
+    /**
+     * Removes every entry, keeping the allocated capacity.
+     *
+     * @throws UnsupportedOperationException if this is a slice
+     */
+    public void clear() {
+        checkWritable();
+        size = 0;
+    }
+
+    /**
+     * @param index the entry to read
+     * @return the coordinate of the upper left corner on the x-axis
+     */
+    public int getX(int index) {
+        checkIndex(index);
+        return x[offset + index];
+    }
+
+    /**
+     * @param index the entry to read
+     * @return the coordinate of the upper left corner on the y-axis
+     */
+    public int getY(int index) {
+        checkIndex(index);
+        return y[offset + index];
+    }
+
+    /**
+     * @param index the entry to read
+     * @return the coordinate of the lower right corner on the x-axis
+     */
+    public int getX1(int index) {
+        checkIndex(index);
+        return x1[offset + index];
+    }
+
+    /**
+     * @param index the entry to read
+     * @return the coordinate of the lower right corner on the y-axis
+     */
+    public int getY1(int index) {
+        checkIndex(index);
+        return y1[offset + index];
+    }
+
+    /**
+     * Builds a <code>Rectangle</code> out of one entry.
+     *
+     * @param index the entry to convert
+     * @return a newly created <code>Rectangle</code>
+     */
+    public Rectangle toRectangle(int index) {
+        checkIndex(index);
+        int i = offset + index;
+        return new Rectangle(x[i], y[i], x1[i], y1[i]);
+    }
+
+    /**
+     * Builds a <code>Rectangle</code> for every entry.
+     *
+     * @return a list of newly created <code>Rectangle</code>s in index order
+     */
+    public List<Rectangle> toList() {
+        List<Rectangle> result = new ArrayList<>(size);
+        for(int i = 0; i < size; i++) {
+            result.add(toRectangle(i));
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a read-only view of the entries from <code>from</code>
+     * (inclusive) to <code>to</code> (exclusive).  The slice shares storage
+     * with this array and is numbered from zero.  Adding to this array after
+     * taking a slice may leave the slice looking at stale storage.
+     *
+     * @param from the first entry of the slice
+     * @param to   one past the last entry of the slice
+     * @return the slice
+     *
+     * @throws IndexOutOfBoundsException if the range is not within this array
+     */
+    public RectangleArray slice(int from, int to) {
+        if(from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("invalid slice [" + from + ", " + to + ") of " + size);
+        }
+
+        return new RectangleArray(this, from, to);
+    }
+
+    /**
+     * Returns a flyweight view that can be moved over the entries of this
+     * array with {@link Cursor#moveTo(int)}.
+     *
+     * @return a new cursor positioned on entry zero
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Marks every entry that intersects the rectangle.
+     *
+     * @param rectangle the <code>Rectangle</code> to test against
+     * @param result bit i is set if entry i intersects the rectangle and
+     * cleared otherwise.  Size it to at least {@link #size()} bits to avoid
+     * it growing.
+     * @see Rectangle#intersects(Rectangle)
+     */
+    public void intersects(Rectangle rectangle, BitSet result) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int qx = rectangle.getUpperLeft().getX();
+        int qy = rectangle.getUpperLeft().getY();
+        int qx1 = rectangle.getLowerRight().getX();
+        int qy1 = rectangle.getLowerRight().getY();
+        int[] x = this.x, y = this.y, x1 = this.x1, y1 = this.y1;
+
+        result.clear(0, size);
+        int count = 0;
+        for(int i = 0, j = offset; i < size; i++, j++) {
+            if(Rectangles.intersects(x[j], y[j], x1[j], y1[j], qx, qy, qx1, qy1)) {
+                result.set(i);
+                count++;
+            }
+        }
+        if(Metrics.ENABLED) {
+            Probe.ARRAY_QUERY.record(start, count);
+        }
+    }
+
+    /**
+     * Collects the index of every entry that intersects the rectangle.
+     *
+     * @param rectangle the <code>Rectangle</code> to test against
+     * @param result receives the matching indexes in ascending order.  it
+     * must be able to hold {@link #size()} indexes.
+     * @return the number of indexes written
+     * @see Rectangle#intersects(Rectangle)
+     */
+    public int intersects(Rectangle rectangle, int[] result) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int qx = rectangle.getUpperLeft().getX();
+        int qy = rectangle.getUpperLeft().getY();
+        int qx1 = rectangle.getLowerRight().getX();
+        int qy1 = rectangle.getLowerRight().getY();
+        int[] x = this.x, y = this.y, x1 = this.x1, y1 = this.y1;
+        checkResult(result);
+
+        int count = 0;
+        for(int i = 0, j = offset; i < size; i++, j++) {
+            if(Rectangles.intersects(x[j], y[j], x1[j], y1[j], qx, qy, qx1, qy1)) {
+                result[count++] = i;
+            }
+        }
+
+        if(Metrics.ENABLED) {
+            Probe.ARRAY_QUERY.record(start, count);
+        }
+        return count;
+    }
+
+    /**
+     * Marks every entry that wholly contains the rectangle.
+     *
+     * @param rectangle the <code>Rectangle</code> to test for containment
+     * @param result bit i is set if entry i contains the rectangle and
+     * cleared otherwise.
+     * @see Rectangle#contains(Rectangle)
+     */
+    public void contains(Rectangle rectangle, BitSet result) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int qx = rectangle.getUpperLeft().getX();
+        int qy = rectangle.getUpperLeft().getY();
+        int qx1 = rectangle.getLowerRight().getX();
+        int qy1 = rectangle.getLowerRight().getY();
+        int[] x = this.x, y = this.y, x1 = this.x1, y1 = this.y1;
+
+        result.clear(0, size);
+        int count = 0;
+        for(int i = 0, j = offset; i < size; i++, j++) {
+            if(Rectangles.contains(x[j], y[j], x1[j], y1[j], qx, qy, qx1, qy1)) {
+                result.set(i);
+                count++;
+            }
+        }
+        if(Metrics.ENABLED) {
+            Probe.ARRAY_QUERY.record(start, count);
+        }
+    }
+
+    /**
+     * Collects the index of every entry that wholly contains the rectangle.
+     *
+     * @param rectangle the <code>Rectangle</code> to test for containment
+     * @param result receives the matching indexes in ascending order.  it
+     * must be able to hold {@link #size()} indexes.
+     * @return the number of indexes written
+     * @see Rectangle#contains(Rectangle)
+     */
+    public int contains(Rectangle rectangle, int[] result) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int qx = rectangle.getUpperLeft().getX();
+        int qy = rectangle.getUpperLeft().getY();
+        int qx1 = rectangle.getLowerRight().getX();
+        int qy1 = rectangle.getLowerRight().getY();
+        int[] x = this.x, y = this.y, x1 = this.x1, y1 = this.y1;
+        checkResult(result);
+
+        int count = 0;
+        for(int i = 0, j = offset; i < size; i++, j++) {
+            if(Rectangles.contains(x[j], y[j], x1[j], y1[j], qx, qy, qx1, qy1)) {
+                result[count++] = i;
+            }
+        }
+
+        if(Metrics.ENABLED) {
+            Probe.ARRAY_QUERY.record(start, count);
+        }
+        return count;
+    }
+
+    /**
+     * Marks every entry whose area includes the point.
+     *
+     * @param pt the <code>Point</code> to test for
+     * @param result bit i is set if entry i contains the point and cleared
+     * otherwise.
+     * @see Rectangle#contains(Point)
+     */
+    public void contains(Point pt, BitSet result) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int px = pt.getX();
+        int py = pt.getY();
+        int[] x = this.x, y = this.y, x1 = this.x1, y1 = this.y1;
+
+        result.clear(0, size);
+        int count = 0;
+        for(int i = 0, j = offset; i < size; i++, j++) {
+            if(Rectangles.contains(x[j], y[j], x1[j], y1[j], px, py)) {
+                result.set(i);
+                count++;
+            }
+        }
+        if(Metrics.ENABLED) {
+            Probe.ARRAY_QUERY.record(start, count);
+        }
+    }
+
+    /**
+     * Collects the index of every entry whose area includes the point.
+     *
+     * @param pt the <code>Point</code> to test for
+     * @param result receives the matching indexes in ascending order.  it
+     * must be able to hold {@link #size()} indexes.
+     * @return the number of indexes written
+     * @see Rectangle#contains(Point)
+     */
+    public int contains(Point pt, int[] result) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int px = pt.getX();
+        int py = pt.getY();
+        int[] x = this.x, y = this.y, x1 = this.x1, y1 = this.y1;
+        checkResult(result);
+
+        int count = 0;
+        for(int i = 0, j = offset; i < size; i++, j++) {
+            if(Rectangles.contains(x[j], y[j], x1[j], y1[j], px, py)) {
+                result[count++] = i;
+            }
+        }
+
+        if(Metrics.ENABLED) {
+            Probe.ARRAY_QUERY.record(start, count);
+        }
+        return count;
+    }
+
+    /**
+     * Marks every entry that shares a side with the rectangle.
+     *
+     * @param rectangle the <code>Rectangle</code> to test against
+     * @param result bit i is set if entry i is adjacent to the rectangle and
+     * cleared otherwise.
+     * @see Rectangle#adjacent(Rectangle)
+     */
+    public void adjacent(Rectangle rectangle, BitSet result) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int qx = rectangle.getUpperLeft().getX();
+        int qy = rectangle.getUpperLeft().getY();
+        int qx1 = rectangle.getLowerRight().getX();
+        int qy1 = rectangle.getLowerRight().getY();
+        int[] x = this.x, y = this.y, x1 = this.x1, y1 = this.y1;
+
+        result.clear(0, size);
+        int count = 0;
+        for(int i = 0, j = offset; i < size; i++, j++) {
+            if(Rectangles.adjacent(x[j], y[j], x1[j], y1[j], qx, qy, qx1, qy1)) {
+                result.set(i);
+                count++;
+            }
+        }
+        if(Metrics.ENABLED) {
+            Probe.ARRAY_QUERY.record(start, count);
+        }
+    }
+
+    /**
+     * Collects the index of every entry that shares a side with the
+     * rectangle.
+     *
+     * @param rectangle the <code>Rectangle</code> to test against
+     * @param result receives the matching indexes in ascending order.  it
+     * must be able to hold {@link #size()} indexes.
+     * @return the number of indexes written
+     * @see Rectangle#adjacent(Rectangle)
+     */
+    public int adjacent(Rectangle rectangle, int[] result) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int qx = rectangle.getUpperLeft().getX();
+        int qy = rectangle.getUpperLeft().getY();
+        int qx1 = rectangle.getLowerRight().getX();
+        int qy1 = rectangle.getLowerRight().getY();
+        int[] x = this.x, y = this.y, x1 = this.x1, y1 = this.y1;
+        checkResult(result);
+
+        int count = 0;
+        for(int i = 0, j = offset; i < size; i++, j++) {
+            if(Rectangles.adjacent(x[j], y[j], x1[j], y1[j], qx, qy, qx1, qy1)) {
+                result[count++] = i;
+            }
+        }
+
+        if(Metrics.ENABLED) {
+            Probe.ARRAY_QUERY.record(start, count);
+        }
+        return count;
+    }
+
+    /**
+     * Classifies every entry against the rectangle in one pass, writing
+     * what <code>toRectangle(i).relate(rectangle)</code> would return to
+     * <code>result[i]</code>.  The side bits describe the entry's sides, not
+     * the rectangle's.  Read the bytes with <code>&amp; 0xFF</code>, since
+     * {@link Relation#RIGHT} is the sign bit.
+     *
+     * @param rectangle the <code>Rectangle</code> to classify against
+     * @param result receives the relation of each entry.  it must be able
+     * to hold {@link #size()} relations.
+     * @return the number of entries that are not
+     * {@link Relation#DISJOINT}
+     * @see Rectangle#relate(Rectangle)
+     */
+    public int relate(Rectangle rectangle, byte[] result) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int qx = rectangle.getUpperLeft().getX();
+        int qy = rectangle.getUpperLeft().getY();
+        int qx1 = rectangle.getLowerRight().getX();
+        int qy1 = rectangle.getLowerRight().getY();
+        int[] x = this.x, y = this.y, x1 = this.x1, y1 = this.y1;
+        if(result.length < size) {
+            throw new IllegalArgumentException("result must hold at least " + size + " relations");
+        }
+
+        int count = 0;
+        for(int i = 0, j = offset; i < size; i++, j++) {
+            int relation = Rectangles.relate(x[j], y[j], x1[j], y1[j], qx, qy, qx1, qy1);
+            result[i] = (byte) relation;
+            if(relation != Relation.DISJOINT) {
+                count++;
+            }
+        }
+
+        if(Metrics.ENABLED) {
+            Probe.ARRAY_QUERY.record(start, count);
+        }
+        return count;
+    }
+
+    /**
+     * Hands the index of every entry that intersects the rectangle to the
+     * action, in ascending order.
+     *
+     * @param rectangle the <code>Rectangle</code> to test against
+     * @param action receives the matching indexes
+     * @see Rectangle#intersects(Rectangle)
+     */
+    public void intersects(Rectangle rectangle, IntConsumer action) {
+        scan(Test.INTERSECTS, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY(), action);
+    }
+
+    /**
+     * Hands the index of every entry that wholly contains the rectangle to
+     * the action, in ascending order.
+     *
+     * @param rectangle the <code>Rectangle</code> to test for containment
+     * @param action receives the matching indexes
+     * @see Rectangle#contains(Rectangle)
+     */
+    public void contains(Rectangle rectangle, IntConsumer action) {
+        scan(Test.CONTAINS, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY(), action);
+    }
+
+    /**
+     * Hands the index of every entry that contains the point to the action,
+     * in ascending order.
+     *
+     * @param pt the <code>Point</code> to test for containment
+     * @param action receives the matching indexes
+     * @see Rectangle#contains(Point)
+     */
+    public void contains(Point pt, IntConsumer action) {
+        scan(Test.CONTAINS, pt.getX(), pt.getY(), pt.getX(), pt.getY(), action);
+    }
+
+    /**
+     * Hands the index of every entry that shares a side with the rectangle
+     * to the action, in ascending order.
+     *
+     * @param rectangle the <code>Rectangle</code> to test against
+     * @param action receives the matching indexes
+     * @see Rectangle#adjacent(Rectangle)
+     */
+    public void adjacent(Rectangle rectangle, IntConsumer action) {
+        scan(Test.ADJACENT, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY(), action);
+    }
+
+    /**
+     * Hands the area every intersecting entry shares with the rectangle to
+     * the action, in ascending order of index, without building an
+     * <code>Optional</code> or a <code>Rectangle</code> for each one.
+     * Entries that only touch the rectangle share a line, which is handed
+     * over with x == x1 or y == y1.
+     *
+     * @param rectangle the <code>Rectangle</code> to intersect with
+     * @param action receives the index of each intersecting entry and the
+     * area it shares with the rectangle
+     * @see Rectangle#intersection(Rectangle)
+     */
+    public void intersection(Rectangle rectangle, RecordConsumer action) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int qx = rectangle.getUpperLeft().getX();
+        int qy = rectangle.getUpperLeft().getY();
+        int qx1 = rectangle.getLowerRight().getX();
+        int qy1 = rectangle.getLowerRight().getY();
+        int[] x = this.x, y = this.y, x1 = this.x1, y1 = this.y1;
+
+        int found = 0;
+        for(int i = 0, j = offset; i < size; i++, j++) {
+            if(Rectangles.intersects(x[j], y[j], x1[j], y1[j], qx, qy, qx1, qy1)) {
+                action.accept(i, Math.max(x[j], qx), Math.max(y[j], qy), Math.min(x1[j], qx1), Math.min(y1[j], qy1));
+                found++;
+            }
+        }
+        if(Metrics.ENABLED) {
+            Probe.ARRAY_QUERY.record(start, found);
+        }
+    }
+
+    /**
+     * Returns the index of every entry that intersects the rectangle as a
+     * lazy stream.  Entries are only tested as the stream is consumed, so
+     * <code>findFirst</code> or <code>limit</code> stop the scan early, and
+     * the stream splits for parallel use.  The array must not be changed
+     * while the stream is in use.
+     *
+     * @param rectangle the <code>Rectangle</code> to test against
+     * @return the matching indexes, in ascending order
+     * @see Rectangle#intersects(Rectangle)
+     */
+    public IntStream streamIntersects(Rectangle rectangle) {
+        return stream(Test.INTERSECTS, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * Returns the index of every entry that wholly contains the rectangle as
+     * a lazy stream.
+     *
+     * @param rectangle the <code>Rectangle</code> to test for containment
+     * @return the matching indexes, in ascending order
+     * @see #streamIntersects(Rectangle)
+     * @see Rectangle#contains(Rectangle)
+     */
+    public IntStream streamContains(Rectangle rectangle) {
+        return stream(Test.CONTAINS, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * Returns the index of every entry that contains the point as a lazy
+     * stream.
+     *
+     * @param pt the <code>Point</code> to test for containment
+     * @return the matching indexes, in ascending order
+     * @see #streamIntersects(Rectangle)
+     * @see Rectangle#contains(Point)
+     */
+    public IntStream streamContains(Point pt) {
+        return stream(Test.CONTAINS, pt.getX(), pt.getY(), pt.getX(), pt.getY());
+    }
+
+    /**
+     * Returns the index of every entry that shares a side with the rectangle
+     * as a lazy stream.
+     *
+     * @param rectangle the <code>Rectangle</code> to test against
+     * @return the matching indexes, in ascending order
+     * @see #streamIntersects(Rectangle)
+     * @see Rectangle#adjacent(Rectangle)
+     */
+    public IntStream streamAdjacent(Rectangle rectangle) {
+        return stream(Test.ADJACENT, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    private void scan(Test test, int qx, int qy, int qx1, int qy1, IntConsumer action) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int[] x = this.x, y = this.y, x1 = this.x1, y1 = this.y1;
+        int found = 0;
+        for(int i = 0, j = offset; i < size; i++, j++) {
+            if(test.matches(x[j], y[j], x1[j], y1[j], qx, qy, qx1, qy1)) {
+                action.accept(i);
+                found++;
+            }
+        }
+        if(Metrics.ENABLED) {
+            Probe.ARRAY_QUERY.record(start, found);
+        }
+    }
+
+    private IntStream stream(Test test, int qx, int qy, int qx1, int qy1) {
+        return StreamSupport.intStream(new Matches(test, qx, qy, qx1, qy1, 0, size), false);
+    }
+
+    /**
+     * the tests the lazy and sink queries run against each entry.  a point
+     * is the query (px, py, px, py), which an entry contains exactly when
+     * it contains the point.
+     */
+    private enum Test {
+        INTERSECTS {
+            @Override
+            boolean matches(int ax, int ay, int ax1, int ay1, int x, int y, int x1, int y1) {
+                return Rectangles.intersects(ax, ay, ax1, ay1, x, y, x1, y1);
+            }
+        },
+        CONTAINS {
+            @Override
+            boolean matches(int ax, int ay, int ax1, int ay1, int x, int y, int x1, int y1) {
+                return Rectangles.contains(ax, ay, ax1, ay1, x, y, x1, y1);
+            }
+        },
+        ADJACENT {
+            @Override
+            boolean matches(int ax, int ay, int ax1, int ay1, int x, int y, int x1, int y1) {
+                return Rectangles.adjacent(ax, ay, ax1, ay1, x, y, x1, y1);
+            }
+        };
+
+        abstract boolean matches(int ax, int ay, int ax1, int ay1, int x, int y, int x1, int y1);
+    }
+
+    /**
+     * scans the entries from index to end for matches, one match per
+     * advance.  splitting hands off the first half of what is left.
+     */
+    private final class Matches implements Spliterator.OfInt {
+        private final Test test;
+        private final int qx;
+        private final int qy;
+        private final int qx1;
+        private final int qy1;
+        private int index;
+        private final int end;
+
+        Matches(Test test, int qx, int qy, int qx1, int qy1, int index, int end) {
+            this.test = test;
+            this.qx = qx;
+            this.qy = qy;
+            this.qx1 = qx1;
+            this.qy1 = qy1;
+            this.index = index;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            while(index < end) {
+                int i = index++;
+                int j = offset + i;
+                if(test.matches(x[j], y[j], x1[j], y1[j], qx, qy, qx1, qy1)) {
+                    action.accept(i);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            int[] x = RectangleArray.this.x, y = RectangleArray.this.y;
+            int[] x1 = RectangleArray.this.x1, y1 = RectangleArray.this.y1;
+            for(int i = index, j = offset + index; i < end; i++, j++) {
+                if(test.matches(x[j], y[j], x1[j], y1[j], qx, qy, qx1, qy1)) {
+                    action.accept(i);
+                }
+            }
+            index = end;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            int from = index;
+            int mid = (from + end) >>> 1;
+            if(mid - from < 1024) {
+                return null;
+            }
+            index = mid;
+            return new Matches(test, qx, qy, qx1, qy1, from, mid);
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | NONNULL | IMMUTABLE;
+        }
+    }
+
+    private void checkIndex(int index) {
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    private void checkResult(int[] result) {
+        if(result.length < size) {
+            throw new IllegalArgumentException("result must hold at least " + size + " indexes");
+        }
+    }
+
+    private void checkWritable() {
+        if(readOnly) {
+            throw new UnsupportedOperationException("slices are read-only");
+        }
+    }
+
+    /**
+     * A reusable, read-only view over one entry of the array.
+     */
+    public final class Cursor implements RectangleView {
+        private int index;
+
+        private Cursor() {
+        }
+
+        /**
+         * Positions this cursor over another entry.
+         *
+         * @param index the entry to look at
+         * @return this cursor
+         *
+         * @throws IndexOutOfBoundsException if index is not a valid entry
+         */
+        public Cursor moveTo(int index) {
+            checkIndex(index);
+            this.index = index;
+            return this;
+        }
+
+        /**
+         * @return the entry this cursor is positioned over
+         */
+        public int index() {
+            return index;
+        }
+
+        @Override
+        public int getX() {
+            return x[offset + index];
+        }
+
+        @Override
+        public int getY() {
+            return y[offset + index];
+        }
+
+        @Override
+        public int getX1() {
+            return x1[offset + index];
+        }
+
+        @Override
+        public int getY1() {
+            return y1[offset + index];
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package sandbox;
+
+/**
+ * Notified when a <code>Rectangle</code> is moved or resized through
+ * <code>setUpperLeft</code> or <code>setLowerRight</code>.
+ *
+ * @author Wes McKean
+ * @see Rectangle#setListener(RectangleListener)
+ */
+@FunctionalInterface
+public interface RectangleListener {
+    /**
+     * Called after one of the rectangle's corners has been replaced.
+     *
+     * @param rectangle the rectangle that changed
+     */
+    void changed(Rectangle rectangle);
+}
@@ -0,0 +1,124 @@
+package sandbox;
+
+/**
+ * An immutable rectangle on the matrix.  The coordinates follow the same
+ * rules as <code>Rectangle</code>, and the geometry methods give the same
+ * answers, but a <code>RectangleValue</code> can not change after it has
+ * been used as a map key or stored in a set.
+ *
+ * Two values are equal when <code>Rectangle</code>s with the same
+ * coordinates would be, and they hash to the same value as those
+ * <code>Rectangle</code>s.
+ *
+ * @param x  the coordinate of the upper left corner on the x-axis
+ * @param y  the coordinate of the upper left corner on the y-axis
+ * @param x1 the coordinate of the lower right corner on the x-axis
+ * @param y1 the coordinate of the lower right corner on the y-axis
+ *
+ * @author Wes McKean
+ */
+public record RectangleValue(int x, int y, int x1, int y1) implements RectangleView {
+
+    /**
+     * @throws IllegalArgumentException if the coordinates would not make a
+     * valid <code>Rectangle</code>
+     */
+    public RectangleValue {
+        Rectangles.validate(x, y, x1, y1);
+    }
+
+    /**
+     * @param rectangle the rectangle to copy
+     * @return a value with the rectangle's current coordinates
+     */
+    public static RectangleValue of(Rectangle rectangle) {
+        return new RectangleValue(rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * @param view the rectangle to copy
+     * @return a value with the coordinates currently under the view
+     */
+    public static RectangleValue of(RectangleView view) {
+        return new RectangleValue(view.getX(), view.getY(), view.getX1(), view.getY1());
+    }
+
+    @Override
+    public int getX() {
+        return x;
+    }
+
+    @Override
+    public int getY() {
+        return y;
+    }
+
+    @Override
+    public int getX1() {
+        return x1;
+    }
+
+    @Override
+    public int getY1() {
+        return y1;
+    }
+
+    /**
+     * @return the upper left corner
+     */
+    public PointValue upperLeft() {
+        return new PointValue(x, y);
+    }
+
+    /**
+     * @return the lower right corner
+     */
+    public PointValue lowerRight() {
+        return new PointValue(x1, y1);
+    }
+
+    /**
+     * @param other the rectangle to test for intersection
+     * @return the same result as <code>Rectangle.intersects</code>
+     */
+    public boolean intersects(RectangleValue other) {
+        return Rectangles.intersects(x, y, x1, y1, other.x, other.y, other.x1, other.y1);
+    }
+
+    /**
+     * @param other the rectangle to test for containment
+     * @return the same result as <code>Rectangle.contains(Rectangle)</code>
+     */
+    public boolean contains(RectangleValue other) {
+        return Rectangles.contains(x, y, x1, y1, other.x, other.y, other.x1, other.y1);
+    }
+
+    /**
+     * @param pt the point to test for containment
+     * @return the same result as <code>Rectangle.contains(Point)</code>
+     */
+    public boolean contains(PointValue pt) {
+        return Rectangles.contains(x, y, x1, y1, pt.x(), pt.y());
+    }
+
+    /**
+     * @param other the rectangle to test for a shared side
+     * @return the same result as <code>Rectangle.adjacent</code>
+     */
+    public boolean adjacent(RectangleValue other) {
+        return Rectangles.adjacent(x, y, x1, y1, other.x, other.y, other.x1, other.y1);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * x + y) + (31 * x1 + y1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('(').append(x).append(',').append(y).append(',').append(x1).append(',').append(y1).append(')');
+        return sb.toString();
+    }
+}
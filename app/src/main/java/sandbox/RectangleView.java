@@ -0,0 +1,103 @@
+package sandbox;
+
+/**
+ * A read-only view of a rectangle's coordinates.  Packed collections hand
+ * out views so callers can look at a stored rectangle without building a
+ * <code>Rectangle</code> and its two <code>Point</code>s.
+ *
+ * A view may be a flyweight that gets repositioned over different
+ * rectangles, so hold on to the result of {@link #toRectangle()} rather
+ * than the view itself.
+ *
+ * @author Wes McKean
+ */
+public interface RectangleView {
+
+    /**
+     * @return the coordinate of the upper left corner on the x-axis
+     */
+    int getX();
+
+    /**
+     * @return the coordinate of the upper left corner on the y-axis
+     */
+    int getY();
+
+    /**
+     * @return the coordinate of the lower right corner on the x-axis
+     */
+    int getX1();
+
+    /**
+     * @return the coordinate of the lower right corner on the y-axis
+     */
+    int getY1();
+
+    /**
+     * returns the width of the rectangle, counted the same way as
+     * <code>Rectangle.getWidth</code>.
+     *
+     * @return the width of the rectangle
+     */
+    default int getWidth() {
+        return getX1() - getX() + 1;
+    }
+
+    /**
+     * returns the height of the rectangle, counted the same way as
+     * <code>Rectangle.getHeight</code>.
+     *
+     * @return the height of the rectangle
+     */
+    default int getHeight() {
+        return getY1() - getY() + 1;
+    }
+
+    /**
+     * @param rectangle the <code>Rectangle</code> to test for intersection.
+     * @return the same result as <code>Rectangle.intersects</code>
+     */
+    default boolean intersects(Rectangle rectangle) {
+        return Rectangles.intersects(getX(), getY(), getX1(), getY1(),
+                rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * @param rectangle the <code>Rectangle</code> to test for containment.
+     * @return the same result as <code>Rectangle.contains(Rectangle)</code>
+     */
+    default boolean contains(Rectangle rectangle) {
+        return Rectangles.contains(getX(), getY(), getX1(), getY1(),
+                rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * @param pt the <code>Point</code> to test for containment.
+     * @return the same result as <code>Rectangle.contains(Point)</code>
+     */
+    default boolean contains(Point pt) {
+        return Rectangles.contains(getX(), getY(), getX1(), getY1(), pt.getX(), pt.getY());
+    }
+
+    /**
+     * @param rectangle the <code>Rectangle</code> to test for a shared side.
+     * @return the same result as <code>Rectangle.adjacent</code>
+     */
+    default boolean adjacent(Rectangle rectangle) {
+        return Rectangles.adjacent(getX(), getY(), getX1(), getY1(),
+                rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * Copies the coordinates currently under this view into a new
+     * <code>Rectangle</code>.
+     *
+     * @return a newly created <code>Rectangle</code>
+     */
+    default Rectangle toRectangle() {
+        return new Rectangle(getX(), getY(), getX1(), getY1());
+    }
+}
@@ -0,0 +1,198 @@
+package sandbox;
+
+/**
+ * Primitive versions of the <code>Rectangle</code> predicates.  Every
+ * rectangle is passed as its four coordinates x, y, x1 and y1 (upper left
+ * corner followed by lower right corner), so the checks can run against
+ * packed arrays without creating any <code>Point</code> or
+ * <code>Rectangle</code> objects.
+ *
+ * Each method returns exactly what the matching <code>Rectangle</code>
+ * method returns for rectangles built with the same coordinates.
+ *
+ * @author Wes McKean
+ */
+public final class Rectangles {
+
+    private Rectangles() {
+    }
+
+    /**
+     * Checks the coordinates the same way the <code>Rectangle</code>
+     * constructor does.
+     *
+     * @param x  the coordinate of the upper left corner on the x-axis
+     * @param y  the coordinate of the upper left corner on the y-axis
+     * @param x1 the coordinate of the lower right corner on the x-axis
+     * @param y1 the coordinate of the lower right corner on the y-axis
+     *
+     * @throws IllegalArgumentException if the lower right corner is not
+     * greater than the upper left corner on both axes.
+     */
+    public static void validate(int x, int y, int x1, int y1) {
+        if(x1 <= x) {
+            throw new IllegalArgumentException("lower right coordinates must be greater than upper right coordinates.");
+        }
+
+        if(y1 <= y) {
+            throw new IllegalArgumentException("lower right coordinates must be greater than upper right coordinates.");
+        }
+    }
+
+    /**
+     * Determines if the point (px, py) falls within the area of rectangle a.
+     * Mirrors <code>Rectangle.contains(Point)</code>; the edges are part of
+     * the rectangle.
+     *
+     * @param ax  upper left x of a
+     * @param ay  upper left y of a
+     * @param ax1 lower right x of a
+     * @param ay1 lower right y of a
+     * @param px  the location of the point on the x-axis
+     * @param py  the location of the point on the y-axis
+     * @return true if the point lies within a, otherwise false.
+     */
+    public static boolean contains(int ax, int ay, int ax1, int ay1, int px, int py) {
+        return px >= ax && px <= ax1 && py >= ay && py <= ay1;
+    }
+
+    /**
+     * Determines if rectangle b is wholly contained by rectangle a.  Mirrors
+     * <code>Rectangle.contains(Rectangle)</code>, so a rectangle contains
+     * itself.
+     *
+     * @param ax  upper left x of a
+     * @param ay  upper left y of a
+     * @param ax1 lower right x of a
+     * @param ay1 lower right y of a
+     * @param bx  upper left x of b
+     * @param by  upper left y of b
+     * @param bx1 lower right x of b
+     * @param by1 lower right y of b
+     * @return true if b is contained by a, otherwise false.
+     */
+    public static boolean contains(int ax, int ay, int ax1, int ay1, int bx, int by, int bx1, int by1) {
+        return contains(ax, ay, ax1, ay1, bx, by) && contains(ax, ay, ax1, ay1, bx1, by1);
+    }
+
+    /**
+     * Determines if the closed areas of a and b share at least one
+     * coordinate.  This is the overlap test <code>Rectangle.intersects</code>
+     * applies once containment has been ruled out; touching edges count.
+     *
+     * @param ax  upper left x of a
+     * @param ay  upper left y of a
+     * @param ax1 lower right x of a
+     * @param ay1 lower right y of a
+     * @param bx  upper left x of b
+     * @param by  upper left y of b
+     * @param bx1 lower right x of b
+     * @param by1 lower right y of b
+     * @return true if the rectangles overlap or touch, otherwise false.
+     */
+    public static boolean overlaps(int ax, int ay, int ax1, int ay1, int bx, int by, int bx1, int by1) {
+        return ay1 >= by && ay <= by1 && ax1 >= bx && ax <= bx1;
+    }
+
+    /**
+     * Determines if a and b intersect.  Mirrors
+     * <code>Rectangle.intersects</code>: the rectangles must overlap or
+     * touch, and neither may contain the other.
+     *
+     * @param ax  upper left x of a
+     * @param ay  upper left y of a
+     * @param ax1 lower right x of a
+     * @param ay1 lower right y of a
+     * @param bx  upper left x of b
+     * @param by  upper left y of b
+     * @param bx1 lower right x of b
+     * @param by1 lower right y of b
+     * @return true if the rectangles intersect, otherwise false.
+     */
+    public static boolean intersects(int ax, int ay, int ax1, int ay1, int bx, int by, int bx1, int by1) {
+        if(contains(ax, ay, ax1, ay1, bx, by, bx1, by1) || contains(bx, by, bx1, by1, ax, ay, ax1, ay1)) {
+            return false;
+        }
+
+        return overlaps(ax, ay, ax1, ay1, bx, by, bx1, by1);
+    }
+
+    /**
+     * Determines if a and b share a side, in part or in full.  Mirrors
+     * <code>Rectangle.adjacent</code>; the end points of a side are part of
+     * the side, so rectangles touching at a corner are adjacent.
+     *
+     * @param ax  upper left x of a
+     * @param ay  upper left y of a
+     * @param ax1 lower right x of a
+     * @param ay1 lower right y of a
+     * @param bx  upper left x of b
+     * @param by  upper left y of b
+     * @param bx1 lower right x of b
+     * @param by1 lower right y of b
+     * @return true if the rectangles share a side, otherwise false.
+     */
+    public static boolean adjacent(int ax, int ay, int ax1, int ay1, int bx, int by, int bx1, int by1) {
+        // a bottom to b top, or a top to b bottom
+        if(ay1 == by || by1 == ay) {
+            return ax <= bx1 && bx <= ax1;
+        }
+        // a right to b left, or a left to b right
+        if(ax1 == bx || ax == bx1) {
+            return ay <= by1 && by <= ay1;
+        }
+
+        return false;
+    }
+
+    /**
+     * Classifies a and b in one pass.  Mirrors
+     * <code>Rectangle.relate</code>: the result holds the
+     * {@link Relation} bit of every predicate that holds for a and b, and
+     * the sides of a that b touches.
+     *
+     * @param ax  upper left x of a
+     * @param ay  upper left y of a
+     * @param ax1 lower right x of a
+     * @param ay1 lower right y of a
+     * @param bx  upper left x of b
+     * @param by  upper left y of b
+     * @param bx1 lower right x of b
+     * @param by1 lower right y of b
+     * @return the relation of a to b
+     */
+    public static int relate(int ax, int ay, int ax1, int ay1, int bx, int by, int bx1, int by1) {
+        boolean acrossX = ax <= bx1 && bx <= ax1;
+        boolean acrossY = ay <= by1 && by <= ay1;
+        boolean contains = bx >= ax && bx1 <= ax1 && by >= ay && by1 <= ay1;
+        boolean within = ax >= bx && ax1 <= bx1 && ay >= by && ay1 <= by1;
+
+        int result = Relation.DISJOINT;
+        if(contains) {
+            result |= Relation.CONTAINS;
+        }
+        if(within) {
+            result |= Relation.WITHIN;
+        }
+        if(!contains && !within && acrossX && acrossY) {
+            result |= Relation.INTERSECTS;
+        }
+
+        // a side is shared when the edges lie on the same line and the
+        // rectangles overlap along it
+        if(acrossX && by1 == ay) {
+            result |= Relation.ADJACENT | Relation.TOP;
+        }
+        if(acrossX && ay1 == by) {
+            result |= Relation.ADJACENT | Relation.BOTTOM;
+        }
+        if(acrossY && bx1 == ax) {
+            result |= Relation.ADJACENT | Relation.LEFT;
+        }
+        if(acrossY && ax1 == bx) {
+            result |= Relation.ADJACENT | Relation.RIGHT;
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,107 @@
+package sandbox;
+
+/**
+ * The bits returned by <code>Rectangle.relate</code>, which classifies a
+ * pair of rectangles in one pass.  A relation is an <code>int</code> that
+ * fits in a byte, with a bit for each <code>Rectangle</code> predicate that
+ * holds and a bit for each side of the first rectangle the second one
+ * touches:
+ * <pre>
+ * int relation = a.relate(b);
+ * if((relation &amp; Relation.ADJACENT) != 0) ...
+ * </pre>
+ *
+ * The predicate bits agree exactly with the methods they are named after,
+ * so <code>CONTAINS</code> is set when <code>a.contains(b)</code> is true,
+ * <code>WITHIN</code> when <code>b.contains(a)</code> is, and so on.  The
+ * side bits are only ever set together with <code>ADJACENT</code>; a
+ * rectangle touching a corner sets the bits of both sides meeting there.
+ *
+ * @author Wes McKean
+ */
+public final class Relation {
+    /**
+     * no bits: the rectangles do not touch
+     */
+    public static final int DISJOINT = 0;
+    /**
+     * the first rectangle contains the second
+     */
+    public static final int CONTAINS = 1;
+    /**
+     * the second rectangle contains the first
+     */
+    public static final int WITHIN = 2;
+    /**
+     * both rectangles contain each other, so they are equal
+     */
+    public static final int EQUAL = CONTAINS | WITHIN;
+    /**
+     * the rectangles intersect: they overlap or touch, and neither
+     * contains the other
+     */
+    public static final int INTERSECTS = 4;
+    /**
+     * the rectangles share a side, in part or in full
+     */
+    public static final int ADJACENT = 8;
+    /**
+     * the second rectangle's bottom lies along the first one's top
+     */
+    public static final int TOP = 16;
+    /**
+     * the second rectangle's top lies along the first one's bottom
+     */
+    public static final int BOTTOM = 32;
+    /**
+     * the second rectangle's right side lies along the first one's left
+     */
+    public static final int LEFT = 64;
+    /**
+     * the second rectangle's left side lies along the first one's right
+     */
+    public static final int RIGHT = 128;
+
+    private static final String[] NAMES = { "CONTAINS", "WITHIN", "INTERSECTS", "ADJACENT", "TOP", "BOTTOM", "LEFT",
+        "RIGHT" };
+
+    private Relation() {
+    }
+
+    /**
+     * Swaps the roles of the two rectangles, turning <code>a.relate(b)</code>
+     * into <code>b.relate(a)</code>.
+     *
+     * @param relation a relation
+     * @return the relation seen from the second rectangle
+     */
+    public static int converse(int relation) {
+        int result = relation & (INTERSECTS | ADJACENT);
+        result |= (relation & CONTAINS) << 1 | (relation & WITHIN) >> 1;
+        result |= (relation & TOP) << 1 | (relation & BOTTOM) >> 1;
+        result |= (relation & LEFT) << 1 | (relation & RIGHT) >> 1;
+        return result;
+    }
+
+    /**
+     * @param relation a relation
+     * @return the names of its bits joined with '|', or DISJOINT if none
+     * are set
+     */
+    public static String toString(int relation) {
+        if(relation == DISJOINT) {
+            return "DISJOINT";
+        }
+
+        StringBuilder result = new StringBuilder();
+        for(int bit = 0; bit < NAMES.length; bit++) {
+            if((relation & (1 << bit)) != 0) {
+                if(result.length() > 0) {
+                    result.append('|');
+                }
+                result.append(NAMES[bit]);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,295 @@
+package sandbox.cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import sandbox.Rectangles;
+import sandbox.cover.Compaction;
+import sandbox.io.RectangleFile;
+import sandbox.io.RectangleFileReader;
+import sandbox.join.SweepJoin;
+import sandbox.metrics.LatencyHistogram;
+
+/**
+ * Runs one operation over a stream of records and writes the results as they
+ * are found.
+ *
+ * The input is either text, one record per line (see {@link RecordReader}),
+ * or a binary rectangle file (see {@link RectangleFile}), which is detected
+ * by its magic number.  A text record of four numbers is the rectangle
+ * x, y, x1, y1 and a record of two numbers is the point x, y.  Points are
+ * only accepted by the <code>contains</code> operation.
+ *
+ * The streaming operations test each record against the query rectangle and
+ * write matching records straight away, so memory use does not depend on
+ * the size of the input:
+ * <ul>
+ * <li><code>intersects</code> writes each rectangle that intersects the
+ * query.</li>
+ * <li><code>intersection</code> writes the area each intersecting rectangle
+ * shares with the query.  Rectangles that only touch the query share a line,
+ * which is written with x == x1 or y == y1.</li>
+ * <li><code>contains</code> writes each rectangle or point the query
+ * contains.</li>
+ * <li><code>adjacent</code> writes each rectangle sharing a side with the
+ * query.</li>
+ * </ul>
+ * <code>all-pairs</code> and <code>compact</code> are the exceptions.  They
+ * have to see every rectangle, so they hold the rectangles in a
+ * <code>RectangleArray</code> (16 bytes each).  <code>all-pairs</code> joins
+ * them with <code>SweepJoin</code>, writing "i j" for each intersecting pair
+ * of record numbers, counted from zero.  <code>compact</code> writes the
+ * rectangles of their <code>Compaction</code>, which cover the same cells,
+ * and adds the compaction ratio to the report.
+ *
+ * When the run finishes, the record and result counts, the throughput and a
+ * summary of the time spent on each record are written to the error
+ * stream.
+ *
+ * @author Wes McKean
+ */
+public class BatchQuery {
+    private final Operation operation;
+    private final int qx;
+    private final int qy;
+    private final int qx1;
+    private final int qy1;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private long records;
+    private long results;
+    private Compaction compaction;
+
+    /**
+     * @param operation the operation to run
+     * @param query     the query rectangle, or null for
+     * <code>all-pairs</code>
+     */
+    public BatchQuery(Operation operation, Rectangle query) {
+        if(operation.needsQuery() && query == null) {
+            throw new IllegalArgumentException(operation.command() + " needs a query rectangle");
+        }
+        this.operation = operation;
+        this.qx = query == null ? 0 : query.getUpperLeft().getX();
+        this.qy = query == null ? 0 : query.getUpperLeft().getY();
+        this.qx1 = query == null ? 0 : query.getLowerRight().getX();
+        this.qy1 = query == null ? 0 : query.getLowerRight().getY();
+    }
+
+    /**
+     * @return the number of records read by the last run
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * @return the number of results written by the last run
+     */
+    public long getResults() {
+        return results;
+    }
+
+    /**
+     * Runs the operation over text records.
+     *
+     * @param in  where to read the records
+     * @param out where to write the results
+     *
+     * @throws IOException if the input can not be read or the output can not
+     * be written
+     * @throws IllegalArgumentException if a record is not a valid rectangle
+     * or point
+     */
+    public void run(ReadableByteChannel in, WritableByteChannel out) throws IOException {
+        RecordReader reader = new RecordReader(in);
+        ChannelWriter writer = new ChannelWriter(out);
+        RectangleArray all = operation.needsQuery() ? null : new RectangleArray();
+        int[] fields = new int[4];
+
+        int count;
+        while((count = reader.next(fields)) >= 0) {
+            if(count == 2 && operation == Operation.CONTAINS) {
+                long start = System.nanoTime();
+                records++;
+                if(Rectangles.contains(qx, qy, qx1, qy1, fields[0], fields[1])) {
+                    results++;
+                    writer.println(fields[0], fields[1]);
+                }
+                latency.record(System.nanoTime() - start);
+                continue;
+            }
+
+            if(count != 4) {
+                throw new IllegalArgumentException("line " + reader.getLine() + ": expected x y x1 y1"
+                        + (operation == Operation.CONTAINS ? " or x y" : ""));
+            }
+
+            try {
+                Rectangles.validate(fields[0], fields[1], fields[2], fields[3]);
+            }
+            catch(IllegalArgumentException e) {
+                throw new IllegalArgumentException("line " + reader.getLine() + ": " + e.getMessage());
+            }
+
+            if(all != null) {
+                records++;
+                all.add(fields[0], fields[1], fields[2], fields[3]);
+            }
+            else {
+                rectangle(fields[0], fields[1], fields[2], fields[3], writer);
+            }
+        }
+
+        if(all != null) {
+            whole(all, writer);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Runs the operation over a binary rectangle file, which is mapped into
+     * memory rather than parsed.
+     *
+     * @param reader the open rectangle file
+     * @param out    where to write the results
+     *
+     * @throws IOException if the output can not be written
+     */
+    public void run(RectangleFileReader reader, WritableByteChannel out) throws IOException {
+        ChannelWriter writer = new ChannelWriter(out);
+        long size = reader.size();
+
+        if(!operation.needsQuery()) {
+            if(size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(operation.command() + " is limited to " + Integer.MAX_VALUE
+                        + " rectangles");
+            }
+            RectangleArray all = new RectangleArray((int) size);
+            for(long i = 0; i < size; i++) {
+                all.add(reader.getX(i), reader.getY(i), reader.getX1(i), reader.getY1(i));
+            }
+            records = size;
+            whole(all, writer);
+        }
+        else {
+            for(long i = 0; i < size; i++) {
+                rectangle(reader.getX(i), reader.getY(i), reader.getX1(i), reader.getY1(i), writer);
+            }
+        }
+        writer.flush();
+    }
+
+    private void rectangle(int x, int y, int x1, int y1, ChannelWriter writer) throws IOException {
+        long start = System.nanoTime();
+        records++;
+        switch(operation) {
+            case INTERSECTS -> {
+                if(Rectangles.intersects(x, y, x1, y1, qx, qy, qx1, qy1)) {
+                    results++;
+                    writer.println(x, y, x1, y1);
+                }
+            }
+            case INTERSECTION -> {
+                if(Rectangles.intersects(x, y, x1, y1, qx, qy, qx1, qy1)) {
+                    results++;
+                    writer.println(Math.max(x, qx), Math.max(y, qy), Math.min(x1, qx1), Math.min(y1, qy1));
+                }
+            }
+            case CONTAINS -> {
+                if(Rectangles.contains(qx, qy, qx1, qy1, x, y, x1, y1)) {
+                    results++;
+                    writer.println(x, y, x1, y1);
+                }
+            }
+            case ADJACENT -> {
+                if(Rectangles.adjacent(x, y, x1, y1, qx, qy, qx1, qy1)) {
+                    results++;
+                    writer.println(x, y, x1, y1);
+                }
+            }
+            default -> throw new IllegalStateException(operation.command());
+        }
+        latency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * runs an operation that needs all of the rectangles at once.
+     */
+    private void whole(RectangleArray all, ChannelWriter writer) throws IOException {
+        if(operation == Operation.COMPACT) {
+            compaction = Compaction.compact(all);
+            RectangleArray pieces = compaction.getPieces();
+            for(int i = 0; i < pieces.size(); i++) {
+                results++;
+                writer.println(pieces.getX(i), pieces.getY(i), pieces.getX1(i), pieces.getY1(i));
+            }
+        }
+        else {
+            allPairs(all, writer);
+        }
+    }
+
+    private void allPairs(RectangleArray all, ChannelWriter writer) throws IOException {
+        IOException[] failure = new IOException[1];
+        SweepJoin.selfJoin(all, (int i, int j) -> {
+            if(failure[0] == null) {
+                try {
+                    results++;
+                    writer.println(i, j);
+                }
+                catch(IOException e) {
+                    failure[0] = e;
+                }
+            }
+        });
+        if(failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    /**
+     * Writes the counts, throughput and latency summary of the last run.
+     *
+     * @param elapsed how long the run took, in nanoseconds
+     * @param out     where to write the report
+     */
+    public void report(long elapsed, PrintStream out) {
+        double seconds = elapsed / 1e9;
+        out.printf("%s: %d records, %d results in %.3f s (%.0f records/s)%n", operation.command(),
+                records, results, seconds, seconds > 0 ? records / seconds : 0.0);
+        if(compaction != null) {
+            out.printf("compaction ratio: %.2f%n", compaction.getRatio());
+        }
+        if(latency.getCount() > 0) {
+            latency.print("latency per record", out);
+        }
+    }
+
+    /**
+     * @param path a file
+     * @return true if the file starts with the magic number of a binary
+     * rectangle file
+     *
+     * @throws IOException if the file can not be read
+     */
+    public static boolean isRectangleFile(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while(magic.hasRemaining()) {
+                if(channel.read(magic) < 0) {
+                    return false;
+                }
+            }
+            return magic.getInt(0) == RectangleFile.MAGIC;
+        }
+    }
+}
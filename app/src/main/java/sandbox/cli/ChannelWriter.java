@@ -0,0 +1,105 @@
+package sandbox.cli;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes text output to a channel through a fixed size buffer.  Numbers are
+ * formatted straight into the buffer, so writing a result creates no
+ * strings, and results reach the channel as soon as the buffer fills.
+ *
+ * @author Wes McKean
+ */
+public class ChannelWriter {
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final byte[] digits = new byte[11];
+
+    /**
+     * @param channel the channel to write to
+     */
+    public ChannelWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes a number in decimal.
+     *
+     * @param value the number to write
+     * @return this writer
+     *
+     * @throws IOException if the channel can not be written
+     */
+    public ChannelWriter print(int value) throws IOException {
+        if(buffer.remaining() < digits.length) {
+            flush();
+        }
+
+        long remaining = value;
+        if(remaining < 0) {
+            buffer.put((byte) '-');
+            remaining = -remaining;
+        }
+
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while(remaining > 0);
+
+        while(count > 0) {
+            buffer.put(digits[--count]);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a single ASCII character.
+     *
+     * @param c the character to write
+     * @return this writer
+     *
+     * @throws IOException if the channel can not be written
+     */
+    public ChannelWriter print(char c) throws IOException {
+        if(!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put((byte) c);
+        return this;
+    }
+
+    /**
+     * Writes the numbers separated by spaces, followed by a new line.
+     *
+     * @param values the numbers to write
+     * @return this writer
+     *
+     * @throws IOException if the channel can not be written
+     */
+    public ChannelWriter println(int... values) throws IOException {
+        for(int i = 0; i < values.length; i++) {
+            if(i > 0) {
+                print(' ');
+            }
+            print(values[i]);
+        }
+        return print('\n');
+    }
+
+    /**
+     * Writes everything buffered so far to the channel.
+     *
+     * @throws IOException if the channel can not be written
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
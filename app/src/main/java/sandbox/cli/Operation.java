@@ -0,0 +1,69 @@
+package sandbox.cli;
+
+/**
+ * The operations the batch query command can run.
+ *
+ * @author Wes McKean
+ */
+public enum Operation {
+    /**
+     * rectangles that intersect the query rectangle
+     */
+    INTERSECTS("intersects"),
+    /**
+     * the area each intersecting rectangle shares with the query rectangle
+     */
+    INTERSECTION("intersection"),
+    /**
+     * rectangles and points that lie wholly within the query rectangle
+     */
+    CONTAINS("contains"),
+    /**
+     * rectangles that share a side with the query rectangle
+     */
+    ADJACENT("adjacent"),
+    /**
+     * every intersecting pair within the input
+     */
+    ALL_PAIRS("all-pairs"),
+    /**
+     * a smaller set of rectangles covering the same cells as the input
+     */
+    COMPACT("compact");
+
+    private final String command;
+
+    Operation(String command) {
+        this.command = command;
+    }
+
+    /**
+     * @return the name of the operation on the command line
+     */
+    public String command() {
+        return command;
+    }
+
+    /**
+     * @return true if the operation tests each record against a query
+     * rectangle
+     */
+    public boolean needsQuery() {
+        return this != ALL_PAIRS && this != COMPACT;
+    }
+
+    /**
+     * @param command the name of an operation on the command line
+     * @return the operation
+     *
+     * @throws IllegalArgumentException if there is no such operation
+     */
+    public static Operation parse(String command) {
+        for(Operation operation : values()) {
+            if(operation.command.equals(command)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("unknown operation: " + command);
+    }
+}
@@ -0,0 +1,109 @@
+package sandbox.cli;
+
+import java.nio.file.Path;
+import sandbox.Rectangle;
+
+/**
+ * The parsed command line of the batch query command.
+ *
+ * <pre>
+ * &lt;operation&gt; [-q x,y,x1,y1] [-i input] [-o output]
+ * </pre>
+ *
+ * Without <code>-i</code> the records are read from stdin, and without
+ * <code>-o</code> the results are written to stdout.
+ *
+ * @author Wes McKean
+ */
+public class Options {
+    private final Operation operation;
+    private final Rectangle query;
+    private final Path input;
+    private final Path output;
+
+    private Options(Operation operation, Rectangle query, Path input, Path output) {
+        this.operation = operation;
+        this.query = query;
+        this.input = input;
+        this.output = output;
+    }
+
+    /**
+     * @param args the command line arguments
+     * @return the parsed options
+     *
+     * @throws IllegalArgumentException if the arguments are not valid
+     */
+    public static Options parse(String... args) {
+        if(args.length == 0) {
+            throw new IllegalArgumentException("missing operation");
+        }
+
+        Operation operation = Operation.parse(args[0]);
+        Rectangle query = null;
+        Path input = null;
+        Path output = null;
+        for(int i = 1; i < args.length; i++) {
+            String flag = args[i];
+            if(i + 1 == args.length) {
+                throw new IllegalArgumentException("missing value for " + flag);
+            }
+            String value = args[++i];
+            switch(flag) {
+                case "-q" -> query = parseRectangle(value);
+                case "-i" -> input = Path.of(value);
+                case "-o" -> output = Path.of(value);
+                default -> throw new IllegalArgumentException("unknown option: " + flag);
+            }
+        }
+
+        if(operation.needsQuery() && query == null) {
+            throw new IllegalArgumentException(operation.command() + " needs a query rectangle (-q x,y,x1,y1)");
+        }
+
+        return new Options(operation, query, input, output);
+    }
+
+    static Rectangle parseRectangle(String value) {
+        String[] parts = value.split(",");
+        if(parts.length != 4) {
+            throw new IllegalArgumentException("query must be x,y,x1,y1: " + value);
+        }
+
+        try {
+            return new Rectangle(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()),
+                    Integer.parseInt(parts[2].trim()), Integer.parseInt(parts[3].trim()));
+        }
+        catch(NumberFormatException e) {
+            throw new IllegalArgumentException("query must be x,y,x1,y1: " + value);
+        }
+    }
+
+    /**
+     * @return the operation to run
+     */
+    public Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the query rectangle, or null for operations that do not use one
+     */
+    public Rectangle getQuery() {
+        return query;
+    }
+
+    /**
+     * @return the input file, or null to read stdin
+     */
+    public Path getInput() {
+        return input;
+    }
+
+    /**
+     * @return the output file, or null to write stdout
+     */
+    public Path getOutput() {
+        return output;
+    }
+}
@@ -0,0 +1,131 @@
+package sandbox.cli;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads text records of integers from a channel, one record per line.  The
+ * numbers on a line may be separated by spaces, tabs or commas.  Blank lines
+ * and lines starting with <code>#</code> are skipped.
+ *
+ * The reader parses straight out of a fixed size buffer, so memory use does
+ * not depend on the size of the input and no strings are created.
+ *
+ * @author Wes McKean
+ */
+public class RecordReader {
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private boolean endOfInput;
+    private long line;
+
+    /**
+     * @param channel the channel to read from
+     */
+    public RecordReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.flip();
+    }
+
+    /**
+     * @return the number of the last line read, starting at one
+     */
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @param fields receives the numbers of the record
+     * @return the number of numbers in the record, or -1 at the end of the
+     * input
+     *
+     * @throws IOException if the channel can not be read
+     * @throws IllegalArgumentException if a line holds something other than
+     * numbers, or more numbers than fields can hold
+     */
+    public int next(int[] fields) throws IOException {
+        while(true) {
+            int b = read();
+            if(b < 0) {
+                return -1;
+            }
+            line++;
+
+            if(b == '#') {
+                skipLine();
+                continue;
+            }
+
+            int count = 0;
+            while(b >= 0 && b != '\n') {
+                if(b == ' ' || b == '\t' || b == ',' || b == '\r') {
+                    b = read();
+                    continue;
+                }
+                if(count == fields.length) {
+                    throw new IllegalArgumentException("line " + line + ": too many numbers");
+                }
+                b = parseNumber(b, fields, count++);
+            }
+
+            if(count > 0) {
+                return count;
+            }
+        }
+    }
+
+    /**
+     * parses a number starting with b into fields[index] and returns the
+     * byte that ended it.
+     */
+    private int parseNumber(int b, int[] fields, int index) throws IOException {
+        boolean negative = b == '-';
+        if(negative) {
+            b = read();
+        }
+
+        long value = 0;
+        int digits = 0;
+        while(b >= '0' && b <= '9') {
+            value = value * 10 + (b - '0');
+            if(value > (negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE)) {
+                throw new IllegalArgumentException("line " + line + ": number out of range");
+            }
+            digits++;
+            b = read();
+        }
+
+        if(digits == 0 || (b >= 0 && b != ' ' && b != '\t' && b != ',' && b != '\r' && b != '\n')) {
+            throw new IllegalArgumentException("line " + line + ": not a number");
+        }
+
+        fields[index] = (int) (negative ? -value : value);
+        return b;
+    }
+
+    private void skipLine() throws IOException {
+        int b;
+        do {
+            b = read();
+        } while(b >= 0 && b != '\n');
+    }
+
+    private int read() throws IOException {
+        while(!buffer.hasRemaining()) {
+            if(endOfInput) {
+                return -1;
+            }
+            buffer.clear();
+            if(channel.read(buffer) < 0) {
+                endOfInput = true;
+            }
+            buffer.flip();
+        }
+        return buffer.get() & 0xFF;
+    }
+}
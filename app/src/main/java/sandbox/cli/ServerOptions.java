@@ -0,0 +1,207 @@
+package sandbox.cli;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import sandbox.Rectangle;
+
+/**
+ * The parsed command line of the query server and its load generator.
+ *
+ * <pre>
+ * serve [-i input] [-p port | -u socket] [-h host] [-w window]
+ * load  [-p port | -u socket] [-h host] [-t operation] [-q x,y,x1,y1]
+ *       [-c connections] [-n requests] [-d depth]
+ * </pre>
+ *
+ * The server listens on TCP port {@value #DEFAULT_PORT} of the loopback
+ * address unless told otherwise, or on the Unix domain socket given with
+ * <code>-u</code>.  Without <code>-i</code> it reads the rectangles to serve
+ * from stdin.  The batch window is given in microseconds.
+ *
+ * The load generator sends <code>-n</code> requests (10000 by default) on
+ * each of <code>-c</code> connections (4 by default), keeping
+ * <code>-d</code> in flight (1 by default), of the operation given with
+ * <code>-t</code> (<code>intersects</code> by default) placed in the area
+ * given with <code>-q</code> (0,0,1000,1000 by default).
+ *
+ * @author Wes McKean
+ */
+public class ServerOptions {
+    /**
+     * the TCP port used when neither a port nor a socket is given
+     */
+    public static final int DEFAULT_PORT = 7878;
+
+    private static final Set<String> SERVE_FLAGS = Set.of("-i", "-p", "-u", "-h", "-w");
+    private static final Set<String> LOAD_FLAGS = Set.of("-p", "-u", "-h", "-t", "-q", "-c", "-n", "-d");
+
+    private final boolean serve;
+    private final Path input;
+    private final SocketAddress address;
+    private final long window;
+    private final Operation operation;
+    private final Rectangle area;
+    private final int connections;
+    private final int requests;
+    private final int depth;
+
+    private ServerOptions(boolean serve, Path input, SocketAddress address, long window, Operation operation,
+            Rectangle area, int connections, int requests, int depth) {
+        this.serve = serve;
+        this.input = input;
+        this.address = address;
+        this.window = window;
+        this.operation = operation;
+        this.area = area;
+        this.connections = connections;
+        this.requests = requests;
+        this.depth = depth;
+    }
+
+    /**
+     * @param command the first argument on a command line
+     * @return true if the command line starts the server or the load
+     * generator rather than a batch query
+     */
+    public static boolean handles(String command) {
+        return "serve".equals(command) || "load".equals(command);
+    }
+
+    /**
+     * @param args the command line arguments
+     * @return the parsed options
+     *
+     * @throws IllegalArgumentException if the arguments are not valid
+     */
+    public static ServerOptions parse(String... args) {
+        if(args.length == 0 || !handles(args[0])) {
+            throw new IllegalArgumentException("expected serve or load");
+        }
+
+        boolean serve = args[0].equals("serve");
+        Path input = null;
+        String host = "127.0.0.1";
+        int port = DEFAULT_PORT;
+        Path socket = null;
+        long window = TimeUnit.MICROSECONDS.toNanos(100);
+        Operation operation = Operation.INTERSECTS;
+        Rectangle area = new Rectangle(0, 0, 1000, 1000);
+        int connections = 4;
+        int requests = 10000;
+        int depth = 1;
+        for(int i = 1; i < args.length; i++) {
+            String flag = args[i];
+            if(i + 1 == args.length) {
+                throw new IllegalArgumentException("missing value for " + flag);
+            }
+            String value = args[++i];
+            if(!(serve ? SERVE_FLAGS : LOAD_FLAGS).contains(flag)) {
+                throw new IllegalArgumentException("unknown option: " + flag);
+            }
+            switch(flag) {
+                case "-i" -> input = Path.of(value);
+                case "-p" -> port = parseInt(flag, value, 0, 65535);
+                case "-u" -> socket = Path.of(value);
+                case "-h" -> host = value;
+                case "-w" -> window = TimeUnit.MICROSECONDS.toNanos(parseInt(flag, value, 0, Integer.MAX_VALUE));
+                case "-t" -> operation = Operation.parse(value);
+                case "-q" -> area = Options.parseRectangle(value);
+                case "-c" -> connections = parseInt(flag, value, 1, 4096);
+                case "-n" -> requests = parseInt(flag, value, 0, Integer.MAX_VALUE);
+                case "-d" -> depth = parseInt(flag, value, 1, Integer.MAX_VALUE);
+                default -> throw new IllegalArgumentException("unknown option: " + flag);
+            }
+        }
+
+        if(!serve && !operation.needsQuery()) {
+            throw new IllegalArgumentException("the server does not run " + operation.command());
+        }
+
+        SocketAddress address = socket != null
+                ? UnixDomainSocketAddress.of(socket)
+                : new InetSocketAddress(host, port);
+        return new ServerOptions(serve, input, address, window, operation, area, connections, requests, depth);
+    }
+
+    private static int parseInt(String flag, String value, int min, int max) {
+        try {
+            int n = Integer.parseInt(value.trim());
+            if(n >= min && n <= max) {
+                return n;
+            }
+        }
+        catch(NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException(flag + " must be a number from " + min + " to " + max + ": " + value);
+    }
+
+    /**
+     * @return true to run the server, false to run the load generator
+     */
+    public boolean isServe() {
+        return serve;
+    }
+
+    /**
+     * @return the file of rectangles to serve, or null to read stdin
+     */
+    public Path getInput() {
+        return input;
+    }
+
+    /**
+     * @return the address to listen on or connect to
+     */
+    public SocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * @return the batch window of the server, in nanoseconds
+     */
+    public long getWindow() {
+        return window;
+    }
+
+    /**
+     * @return the operation the load generator asks for
+     */
+    public Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the area the load generator puts its queries in
+     */
+    public Rectangle getArea() {
+        return area;
+    }
+
+    /**
+     * @return the number of connections the load generator opens
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    /**
+     * @return the number of requests the load generator sends on each
+     * connection
+     */
+    public int getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return the number of requests the load generator keeps in flight on
+     * each connection
+     */
+    public int getDepth() {
+        return depth;
+    }
+}
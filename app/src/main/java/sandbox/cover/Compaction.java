@@ -0,0 +1,107 @@
+package sandbox.cover;
+
+import java.util.Collection;
+import java.util.List;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+
+/**
+ * Replaces a set of rectangles with a smaller set of rectangles covering the
+ * same region, so later queries and index builds have less to look at.
+ *
+ * The rectangles are read with inclusive edges, the way
+ * <code>Rectangle.contains</code> and <code>Rectangle.adjacent</code> read
+ * them: a rectangle nested in another disappears, and rectangles that
+ * overlap or share a side are merged into the region they cover together.
+ * The pieces cover exactly the same cells as the input.  No two pieces
+ * share any area, although neighbouring pieces are adjacent and so share
+ * the cells along their common side.
+ *
+ * The region is cut into pieces by {@link Coverage#decompose(RectangleArray)}
+ * twice, once sweeping along the x-axis and once along the y-axis, and the
+ * shorter result is kept.  A region made of wide rows compacts best one way
+ * and a region made of tall columns the other.  Each sweep takes
+ * O(n log n).  The result is not always the smallest possible set of
+ * pieces, which takes far longer to find.
+ *
+ * @author Wes McKean
+ */
+public final class Compaction {
+    private final int inputCount;
+    private final RectangleArray pieces;
+
+    private Compaction(int inputCount, RectangleArray pieces) {
+        this.inputCount = inputCount;
+        this.pieces = pieces;
+    }
+
+    /**
+     * @param rectangles the rectangles to compact
+     * @return the compacted rectangles
+     */
+    public static Compaction compact(RectangleArray rectangles) {
+        RectangleArray byColumns = Coverage.decompose(rectangles);
+        RectangleArray byRows = transpose(Coverage.decompose(transpose(rectangles)));
+        return new Compaction(rectangles.size(), byRows.size() < byColumns.size() ? byRows : byColumns);
+    }
+
+    /**
+     * @param rectangles the rectangles to compact
+     * @return the compacted rectangles
+     */
+    public static Compaction compact(Collection<Rectangle> rectangles) {
+        return compact(RectangleArray.of(rectangles));
+    }
+
+    /**
+     * swaps the axes of every rectangle.
+     */
+    private static RectangleArray transpose(RectangleArray rectangles) {
+        RectangleArray result = new RectangleArray(rectangles.size());
+        for(int i = 0; i < rectangles.size(); i++) {
+            result.add(rectangles.getY(i), rectangles.getX(i), rectangles.getY1(i), rectangles.getX1(i));
+        }
+        return result;
+    }
+
+    /**
+     * @return the compacted rectangles
+     */
+    public RectangleArray getPieces() {
+        return pieces;
+    }
+
+    /**
+     * @return the compacted rectangles as a list
+     */
+    public List<Rectangle> toList() {
+        return pieces.toList();
+    }
+
+    /**
+     * @return the number of rectangles that were compacted
+     */
+    public int getInputCount() {
+        return inputCount;
+    }
+
+    /**
+     * @return the number of rectangles left after compaction
+     */
+    public int getPieceCount() {
+        return pieces.size();
+    }
+
+    /**
+     * @return how many input rectangles each piece replaces on average; 1.0
+     * when there was nothing to compact
+     */
+    public double getRatio() {
+        return pieces.size() == 0 ? 1.0 : (double) inputCount / pieces.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rectangles compacted to %d (%.2fx)", inputCount, pieces.size(), getRatio());
+    }
+}
@@ -0,0 +1,389 @@
+package sandbox.cover;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+
+/**
+ * Computes the region covered by a set of possibly overlapping rectangles.
+ *
+ * Areas follow the same convention as <code>Rectangle.getWidth</code> and
+ * <code>Rectangle.getHeight</code>: a rectangle covers every cell of the
+ * matrix from x to x1 and from y to y1 inclusive, so on its own it covers
+ * <code>getWidth() * getHeight()</code> cells.  The union area is the
+ * number of cells covered by at least one rectangle, so overlapping cells
+ * are only counted once.
+ *
+ * Both computations sweep a line along the x-axis over the corners of the
+ * rectangles.  The sweep keeps a segment tree over the sorted, distinct
+ * y-coordinates that records how much of the line is covered, so each
+ * rectangle is entered and removed in O(log n) and the whole sweep takes
+ * O(n log n).
+ *
+ * @author Wes McKean
+ */
+public final class Coverage {
+
+    private Coverage() {
+    }
+
+    /**
+     * @param rectangles the rectangles
+     * @return the number of cells covered by at least one rectangle
+     *
+     * @throws ArithmeticException if the area does not fit in a long
+     */
+    public static long area(RectangleArray rectangles) {
+        int n = rectangles.size();
+        int[] x = new int[n];
+        int[] y = new int[n];
+        int[] x1 = new int[n];
+        int[] y1 = new int[n];
+        for(int i = 0; i < n; i++) {
+            x[i] = rectangles.getX(i);
+            y[i] = rectangles.getY(i);
+            x1[i] = rectangles.getX1(i);
+            y1[i] = rectangles.getY1(i);
+        }
+        return cellArea(x, y, x1, y1, n);
+    }
+
+    /**
+     * @param rectangles the rectangles
+     * @return the number of cells covered by at least one rectangle
+     *
+     * @throws ArithmeticException if the area does not fit in a long
+     */
+    public static long area(Collection<Rectangle> rectangles) {
+        return area(RectangleArray.of(rectangles));
+    }
+
+    /**
+     * @param rectangles the rectangles
+     * @param window     the part of the matrix to measure
+     * @return the number of cells inside the window covered by at least one
+     * rectangle
+     *
+     * @throws ArithmeticException if the area does not fit in a long
+     */
+    public static long area(RectangleArray rectangles, Rectangle window) {
+        int wx = window.getUpperLeft().getX();
+        int wy = window.getUpperLeft().getY();
+        int wx1 = window.getLowerRight().getX();
+        int wy1 = window.getLowerRight().getY();
+
+        int n = rectangles.size();
+        int[] x = new int[n];
+        int[] y = new int[n];
+        int[] x1 = new int[n];
+        int[] y1 = new int[n];
+        int count = 0;
+        for(int i = 0; i < n; i++) {
+            // clipping can leave a single row or column of cells, which is
+            // not a valid Rectangle but is still area
+            int cx = Math.max(rectangles.getX(i), wx);
+            int cy = Math.max(rectangles.getY(i), wy);
+            int cx1 = Math.min(rectangles.getX1(i), wx1);
+            int cy1 = Math.min(rectangles.getY1(i), wy1);
+            if(cx <= cx1 && cy <= cy1) {
+                x[count] = cx;
+                y[count] = cy;
+                x1[count] = cx1;
+                y1[count] = cy1;
+                count++;
+            }
+        }
+        return cellArea(x, y, x1, y1, count);
+    }
+
+    /**
+     * Splits the region covered by the rectangles into rectangles that do
+     * not overlap.
+     *
+     * The rectangles are read as closed regions of the plane, the way
+     * <code>Rectangle.contains(Point)</code> reads them.  The pieces cover
+     * exactly the same region, so they contain exactly the same cells, and
+     * no two pieces share any area, although neighbouring pieces share an
+     * edge (and so the cells along it).  Pieces are built from the vertical
+     * slabs between the distinct x-coordinates, and a piece is extended
+     * across slabs for as long as its span on the y-axis does not change.
+     * That keeps the list short, although it is not always the smallest
+     * possible partition.
+     *
+     * @param rectangles the rectangles
+     * @return the pieces, ordered by their right edge
+     */
+    public static RectangleArray decompose(RectangleArray rectangles) {
+        int n = rectangles.size();
+        RectangleArray pieces = new RectangleArray();
+        if(n == 0) {
+            return pieces;
+        }
+
+        int[] x = new int[n];
+        int[] x1 = new int[n];
+        long[] ys = new long[n * 2];
+        for(int i = 0; i < n; i++) {
+            x[i] = rectangles.getX(i);
+            x1[i] = rectangles.getX1(i);
+            ys[i * 2] = rectangles.getY(i);
+            ys[i * 2 + 1] = rectangles.getY1(i);
+        }
+
+        long[] starts = sortedKeys(x, n);
+        long[] ends = sortedKeys(x1, n);
+        SegmentTree tree = new SegmentTree(distinct(ys, ys.length));
+
+        Spans open = new Spans();
+        Spans slab = new Spans();
+        Spans next = new Spans();
+
+        int s = 0;
+        int e = 0;
+        while(s < n || e < n) {
+            int c = s < n ? Math.min(value(starts[s]), e < n ? value(ends[e]) : Integer.MAX_VALUE) : value(ends[e]);
+            for(; s < n && value(starts[s]) == c; s++) {
+                int i = (int) starts[s];
+                tree.update(rectangles.getY(i), rectangles.getY1(i), 1);
+            }
+            for(; e < n && value(ends[e]) == c; e++) {
+                int i = (int) ends[e];
+                tree.update(rectangles.getY(i), rectangles.getY1(i), -1);
+            }
+
+            // the slab from c to the next coordinate; the last one is empty
+            slab.clear();
+            if(s < n || e < n) {
+                tree.spans(slab);
+            }
+
+            // carry on the pieces whose span is unchanged, close the others
+            // at c and open a piece for every new span
+            next.clear();
+            int i = 0;
+            int j = 0;
+            while(i < open.size || j < slab.size) {
+                if(i < open.size && j < slab.size && open.from[i] == slab.from[j] && open.to[i] == slab.to[j]) {
+                    next.add(open.from[i], open.to[i], open.x[i]);
+                    i++;
+                    j++;
+                }
+                else if(i < open.size && (j == slab.size || open.from[i] <= slab.from[j])) {
+                    pieces.add(open.x[i], (int) open.from[i], c, (int) open.to[i]);
+                    i++;
+                }
+                else {
+                    next.add(slab.from[j], slab.to[j], c);
+                    j++;
+                }
+            }
+
+            Spans swap = open;
+            open = next;
+            next = swap;
+        }
+
+        return pieces;
+    }
+
+    /**
+     * Splits the region covered by the rectangles into rectangles that do
+     * not overlap.
+     *
+     * @param rectangles the rectangles
+     * @return the pieces
+     * @see #decompose(RectangleArray)
+     */
+    public static List<Rectangle> decompose(Collection<Rectangle> rectangles) {
+        return decompose(RectangleArray.of(rectangles)).toList();
+    }
+
+    /**
+     * sweeps the cells of the first count rectangles.  the cells of a
+     * rectangle span [x, x1 + 1) by [y, y1 + 1), which is done in longs so
+     * Integer.MAX_VALUE is not a special case.
+     */
+    private static long cellArea(int[] x, int[] y, int[] x1, int[] y1, int count) {
+        if(count == 0) {
+            return 0;
+        }
+
+        long[] ys = new long[count * 2];
+        for(int i = 0; i < count; i++) {
+            ys[i * 2] = y[i];
+            ys[i * 2 + 1] = y1[i] + 1L;
+        }
+
+        // sorting on x1 orders the ends the same way as on x1 + 1
+        long[] starts = sortedKeys(x, count);
+        long[] ends = sortedKeys(x1, count);
+        SegmentTree tree = new SegmentTree(distinct(ys, ys.length));
+
+        long area = 0;
+        long previous = 0;
+        int s = 0;
+        int e = 0;
+        while(e < count) {
+            long c = value(ends[e]) + 1L;
+            if(s < count) {
+                c = Math.min(c, value(starts[s]));
+            }
+
+            area = Math.addExact(area, Math.multiplyExact(tree.covered(), c - previous));
+            for(; s < count && value(starts[s]) == c; s++) {
+                int i = (int) starts[s];
+                tree.update(y[i], y1[i] + 1L, 1);
+            }
+            for(; e < count && value(ends[e]) + 1L == c; e++) {
+                int i = (int) ends[e];
+                tree.update(y[i], y1[i] + 1L, -1);
+            }
+            previous = c;
+        }
+
+        return area;
+    }
+
+    /**
+     * returns the indexes of the first count values sorted by value, each
+     * packed in the low half of a long behind its value.
+     */
+    private static long[] sortedKeys(int[] values, int count) {
+        long[] keys = new long[count];
+        for(int i = 0; i < count; i++) {
+            keys[i] = ((long) values[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private static int value(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static long[] distinct(long[] values, int count) {
+        Arrays.sort(values, 0, count);
+        int unique = 0;
+        for(int i = 0; i < count; i++) {
+            if(unique == 0 || values[i] != values[unique - 1]) {
+                values[unique++] = values[i];
+            }
+        }
+        return Arrays.copyOf(values, unique);
+    }
+
+    /**
+     * a segment tree over the intervals between consecutive coordinates.
+     * each node counts the rectangles covering all of its interval and
+     * remembers how much of its interval is covered.  counts are never
+     * pushed down, which works because every removal matches an earlier
+     * insertion of the same interval.
+     */
+    private static final class SegmentTree {
+        private final long[] coordinates;
+        private final int leaves;
+        private final int[] count;
+        private final long[] covered;
+
+        SegmentTree(long[] coordinates) {
+            this.coordinates = coordinates;
+            this.leaves = Math.max(1, coordinates.length - 1);
+            this.count = new int[leaves * 4];
+            this.covered = new long[leaves * 4];
+        }
+
+        long covered() {
+            return covered[1];
+        }
+
+        void update(long from, long to, int delta) {
+            int lo = Arrays.binarySearch(coordinates, from);
+            int hi = Arrays.binarySearch(coordinates, to);
+            if(lo < hi) {
+                update(1, 0, leaves, lo, hi, delta);
+            }
+        }
+
+        private void update(int node, int l, int r, int lo, int hi, int delta) {
+            if(lo <= l && r <= hi) {
+                count[node] += delta;
+            }
+            else {
+                int mid = (l + r) >>> 1;
+                if(lo < mid) {
+                    update(node * 2, l, mid, lo, hi, delta);
+                }
+                if(hi > mid) {
+                    update(node * 2 + 1, mid, r, lo, hi, delta);
+                }
+            }
+
+            if(count[node] > 0) {
+                covered[node] = coordinates[r] - coordinates[l];
+            }
+            else if(r - l == 1) {
+                covered[node] = 0;
+            }
+            else {
+                covered[node] = covered[node * 2] + covered[node * 2 + 1];
+            }
+        }
+
+        /**
+         * appends the covered spans in ascending order, joining spans that
+         * touch.
+         */
+        void spans(Spans out) {
+            spans(1, 0, leaves, out);
+        }
+
+        private void spans(int node, int l, int r, Spans out) {
+            if(covered[node] == 0) {
+                return;
+            }
+            if(count[node] > 0) {
+                long from = coordinates[l];
+                long to = coordinates[r];
+                if(out.size > 0 && out.to[out.size - 1] == from) {
+                    out.to[out.size - 1] = to;
+                }
+                else {
+                    out.add(from, to, 0);
+                }
+                return;
+            }
+            int mid = (l + r) >>> 1;
+            spans(node * 2, l, mid, out);
+            spans(node * 2 + 1, mid, r, out);
+        }
+    }
+
+    /**
+     * a growable list of spans along the y-axis, each with the x-coordinate
+     * where the piece covering it started.
+     */
+    private static final class Spans {
+        long[] from = new long[16];
+        long[] to = new long[16];
+        int[] x = new int[16];
+        int size;
+
+        void add(long from, long to, int x) {
+            if(size == this.from.length) {
+                this.from = Arrays.copyOf(this.from, size * 2);
+                this.to = Arrays.copyOf(this.to, size * 2);
+                this.x = Arrays.copyOf(this.x, size * 2);
+            }
+            this.from[size] = from;
+            this.to[size] = to;
+            this.x[size] = x;
+            size++;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
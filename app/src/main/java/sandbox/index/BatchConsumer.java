@@ -0,0 +1,18 @@
+package sandbox.index;
+
+import sandbox.Rectangle;
+
+/**
+ * Receives the results of a batch of queries, each tagged with the query it
+ * answers.
+ *
+ * @author Wes McKean
+ */
+@FunctionalInterface
+public interface BatchConsumer {
+    /**
+     * @param query     the number of the query within the batch
+     * @param rectangle a stored rectangle that answers it
+     */
+    void accept(int query, Rectangle rectangle);
+}
@@ -0,0 +1,564 @@
+package sandbox.index;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+import sandbox.Point;
+import sandbox.Rectangle;
+import sandbox.Rectangles;
+
+/**
+ * A rectangle store that many threads can query while another thread
+ * changes it.
+ *
+ * Readers call {@link #snapshot()} and query the <code>Snapshot</code> they
+ * get back.  A snapshot never changes, so reading it takes no lock and any
+ * number of threads can search the same snapshot at full speed.  Getting a
+ * snapshot is a single volatile read.
+ *
+ * Writers group their changes into a {@link Batch}.  The rectangles are kept
+ * in pages of {@link #PAGE_SIZE} entries, and a batch copies only the pages
+ * it touches; every other page is shared with the previous version.
+ * {@link Batch#commit()} publishes the new version in one step, so a reader
+ * sees either none or all of a batch.  Only one batch can be open at a time;
+ * other writers wait for it, readers never do.
+ *
+ * Each rectangle has an <code>int</code> id that stays the same until it is
+ * removed.  Ids of removed rectangles are handed out again by later batches.
+ *
+ * @author Wes McKean
+ */
+public class ConcurrentRectangleStore {
+    /**
+     * the number of entries in a page
+     */
+    public static final int PAGE_SIZE = 1024;
+    private static final int PAGE_SHIFT = 10;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Snapshot current = new Snapshot(0, new Page[0], 0, 0);
+
+    /**
+     * ids free for reuse, used as a stack.  only touched by the writer
+     * holding the lock.
+     */
+    private int[] free = new int[16];
+    private int freeCount;
+
+    /**
+     * Default constructor.  Creates an empty store.
+     */
+    public ConcurrentRectangleStore() {
+    }
+
+    /**
+     * @return the latest committed version of the store
+     */
+    public Snapshot snapshot() {
+        return current;
+    }
+
+    /**
+     * Opens a batch of changes, waiting for any other open batch to finish.
+     * The batch belongs to the calling thread and must be committed or
+     * closed by it.
+     *
+     * @return the new batch
+     */
+    public Batch batch() {
+        writeLock.lock();
+        return new Batch(current);
+    }
+
+    /**
+     * Adds one rectangle in a batch of its own.
+     *
+     * @param rectangle the rectangle to add
+     * @return the id of the new entry
+     */
+    public int add(Rectangle rectangle) {
+        try(Batch batch = batch()) {
+            int id = batch.add(rectangle);
+            batch.commit();
+            return id;
+        }
+    }
+
+    /**
+     * Moves or resizes one entry in a batch of its own.
+     *
+     * @param id        the entry
+     * @param rectangle the new coordinates
+     *
+     * @throws IllegalArgumentException if there is no entry with that id
+     */
+    public void set(int id, Rectangle rectangle) {
+        try(Batch batch = batch()) {
+            batch.set(id, rectangle);
+            batch.commit();
+        }
+    }
+
+    /**
+     * Removes one entry in a batch of its own.
+     *
+     * @param id the entry
+     *
+     * @throws IllegalArgumentException if there is no entry with that id
+     */
+    public void remove(int id) {
+        try(Batch batch = batch()) {
+            batch.remove(id);
+            batch.commit();
+        }
+    }
+
+    /**
+     * One version of the store.  Nothing in a snapshot ever changes, so it
+     * can be shared freely between threads.
+     *
+     * The queries give the same answers as <code>RTree</code>, reporting
+     * ids.  Pages whose bounding box can not hold an answer are skipped
+     * without looking at their entries.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final Page[] pages;
+        private final int size;
+        private final int limit;
+
+        private Snapshot(long version, Page[] pages, int size, int limit) {
+            this.version = version;
+            this.pages = pages;
+            this.size = size;
+            this.limit = limit;
+        }
+
+        /**
+         * @return the version number, counting commits from zero
+         */
+        public long version() {
+            return version;
+        }
+
+        /**
+         * @return the number of rectangles
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return true if there are no rectangles
+         */
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * @param id an entry
+         * @return true if there is a rectangle with that id
+         */
+        public boolean contains(int id) {
+            return id >= 0 && id < limit && pages[id >>> PAGE_SHIFT].isLive(id & (PAGE_SIZE - 1));
+        }
+
+        /**
+         * @param id an entry
+         * @return the coordinate of the upper left corner on the x-axis
+         */
+        public int getX(int id) {
+            return page(id).x[id & (PAGE_SIZE - 1)];
+        }
+
+        /**
+         * @param id an entry
+         * @return the coordinate of the upper left corner on the y-axis
+         */
+        public int getY(int id) {
+            return page(id).y[id & (PAGE_SIZE - 1)];
+        }
+
+        /**
+         * @param id an entry
+         * @return the coordinate of the lower right corner on the x-axis
+         */
+        public int getX1(int id) {
+            return page(id).x1[id & (PAGE_SIZE - 1)];
+        }
+
+        /**
+         * @param id an entry
+         * @return the coordinate of the lower right corner on the y-axis
+         */
+        public int getY1(int id) {
+            return page(id).y1[id & (PAGE_SIZE - 1)];
+        }
+
+        /**
+         * @param id an entry
+         * @return a new <code>Rectangle</code> with the entry's coordinates
+         */
+        public Rectangle toRectangle(int id) {
+            Page page = page(id);
+            int i = id & (PAGE_SIZE - 1);
+            return new Rectangle(page.x[i], page.y[i], page.x1[i], page.y1[i]);
+        }
+
+        /**
+         * Hands the id of every rectangle to the action, in ascending order.
+         *
+         * @param action receives the ids
+         */
+        public void forEach(IntConsumer action) {
+            for(int p = 0; p < pages.length; p++) {
+                Page page = pages[p];
+                for(int w = 0; w < page.live.length; w++) {
+                    for(long bits = page.live[w]; bits != 0; bits &= bits - 1) {
+                        action.accept((p << PAGE_SHIFT) | (w << 6) | Long.numberOfTrailingZeros(bits));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Finds every entry that intersects the rectangle.
+         *
+         * @param rectangle the query
+         * @param action    receives the id of each entry found
+         * @see Rectangle#intersects(Rectangle)
+         */
+        public void intersecting(Rectangle rectangle, IntConsumer action) {
+            search(RTree.Query.INTERSECTS, rectangle, action);
+        }
+
+        /**
+         * Finds every entry that contains the rectangle.
+         *
+         * @param rectangle the query
+         * @param action    receives the id of each entry found
+         * @see Rectangle#contains(Rectangle)
+         */
+        public void containing(Rectangle rectangle, IntConsumer action) {
+            search(RTree.Query.CONTAINS, rectangle, action);
+        }
+
+        /**
+         * Finds every entry that contains the point.
+         *
+         * @param pt     the query
+         * @param action receives the id of each entry found
+         * @see Rectangle#contains(Point)
+         */
+        public void containing(Point pt, IntConsumer action) {
+            search(RTree.Query.CONTAINS, pt.getX(), pt.getY(), pt.getX(), pt.getY(), action);
+        }
+
+        /**
+         * Finds every entry the rectangle contains.
+         *
+         * @param rectangle the query
+         * @param action    receives the id of each entry found
+         */
+        public void containedBy(Rectangle rectangle, IntConsumer action) {
+            search(RTree.Query.CONTAINED_BY, rectangle, action);
+        }
+
+        /**
+         * Finds every entry adjacent to the rectangle.
+         *
+         * @param rectangle the query
+         * @param action    receives the id of each entry found
+         * @see Rectangle#adjacent(Rectangle)
+         */
+        public void adjacentTo(Rectangle rectangle, IntConsumer action) {
+            search(RTree.Query.ADJACENT, rectangle, action);
+        }
+
+        private void search(RTree.Query query, Rectangle rectangle, IntConsumer action) {
+            search(query, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                    rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY(), action);
+        }
+
+        private void search(RTree.Query query, int qx, int qy, int qx1, int qy1, IntConsumer action) {
+            for(int p = 0; p < pages.length; p++) {
+                Page page = pages[p];
+                if(page.count == 0 || !query.visits(page.minX, page.minY, page.maxX, page.maxY, qx, qy, qx1, qy1)) {
+                    continue;
+                }
+                for(int w = 0; w < page.live.length; w++) {
+                    for(long bits = page.live[w]; bits != 0; bits &= bits - 1) {
+                        int i = (w << 6) | Long.numberOfTrailingZeros(bits);
+                        if(query.matches(page.x[i], page.y[i], page.x1[i], page.y1[i], qx, qy, qx1, qy1)) {
+                            action.accept((p << PAGE_SHIFT) | i);
+                        }
+                    }
+                }
+            }
+        }
+
+        private Page page(int id) {
+            if(!contains(id)) {
+                throw new IllegalArgumentException("no entry for id " + id);
+            }
+            return pages[id >>> PAGE_SHIFT];
+        }
+    }
+
+    /**
+     * A group of changes that becomes visible all at once.  Changes made
+     * through a batch are not seen by anyone, the batch included, until
+     * {@link #commit()}.  Closing a batch without committing it throws the
+     * changes away.  Use it with try-with-resources so the store is always
+     * released:
+     *
+     * <pre>
+     * try(Batch batch = store.batch()) {
+     *     batch.add(r);
+     *     batch.remove(id);
+     *     batch.commit();
+     * }
+     * </pre>
+     */
+    public final class Batch implements AutoCloseable {
+        private final Snapshot base;
+        private Page[] pages;
+        private int limit;
+        private int size;
+        /**
+         * how much of the free stack is left for this batch; ids above it
+         * have been taken
+         */
+        private int freeLeft;
+        private int[] removed = new int[16];
+        private int removedCount;
+        private boolean open = true;
+
+        private Batch(Snapshot base) {
+            this.base = base;
+            this.pages = base.pages;
+            this.limit = base.limit;
+            this.size = base.size;
+            this.freeLeft = freeCount;
+        }
+
+        /**
+         * Adds a rectangle given by its coordinates.
+         *
+         * @param x  the coordinate of the upper left corner on the x-axis
+         * @param y  the coordinate of the upper left corner on the y-axis
+         * @param x1 the coordinate of the lower right corner on the x-axis
+         * @param y1 the coordinate of the lower right corner on the y-axis
+         * @return the id of the new entry
+         *
+         * @throws IllegalArgumentException if the coordinates do not make a
+         * valid <code>Rectangle</code>
+         */
+        public int add(int x, int y, int x1, int y1) {
+            checkOpen();
+            Rectangles.validate(x, y, x1, y1);
+            int id = freeLeft > 0 ? free[--freeLeft] : limit++;
+            Page page = writable(id >>> PAGE_SHIFT);
+            page.put(id & (PAGE_SIZE - 1), x, y, x1, y1);
+            size++;
+            return id;
+        }
+
+        /**
+         * Adds a copy of the rectangle's coordinates.
+         *
+         * @param rectangle the rectangle to add
+         * @return the id of the new entry
+         */
+        public int add(Rectangle rectangle) {
+            return add(rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                    rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+        }
+
+        /**
+         * Moves or resizes an entry.
+         *
+         * @param id the entry
+         * @param x  the new coordinate of the upper left corner on the x-axis
+         * @param y  the new coordinate of the upper left corner on the y-axis
+         * @param x1 the new coordinate of the lower right corner on the x-axis
+         * @param y1 the new coordinate of the lower right corner on the y-axis
+         *
+         * @throws IllegalArgumentException if there is no entry with that id,
+         * or the coordinates do not make a valid <code>Rectangle</code>
+         */
+        public void set(int id, int x, int y, int x1, int y1) {
+            checkOpen();
+            checkLive(id);
+            Rectangles.validate(x, y, x1, y1);
+            writable(id >>> PAGE_SHIFT).put(id & (PAGE_SIZE - 1), x, y, x1, y1);
+        }
+
+        /**
+         * Moves or resizes an entry.
+         *
+         * @param id        the entry
+         * @param rectangle the new coordinates
+         *
+         * @throws IllegalArgumentException if there is no entry with that id
+         */
+        public void set(int id, Rectangle rectangle) {
+            set(id, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                    rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+        }
+
+        /**
+         * Removes an entry.
+         *
+         * @param id the entry
+         *
+         * @throws IllegalArgumentException if there is no entry with that id
+         */
+        public void remove(int id) {
+            checkOpen();
+            checkLive(id);
+            writable(id >>> PAGE_SHIFT).kill(id & (PAGE_SIZE - 1));
+            if(removedCount == removed.length) {
+                removed = Arrays.copyOf(removed, removedCount * 2);
+            }
+            removed[removedCount++] = id;
+            size--;
+        }
+
+        /**
+         * Publishes the changes as the next version of the store and closes
+         * the batch.
+         *
+         * @return the new version
+         */
+        public Snapshot commit() {
+            checkOpen();
+            for(int p = 0; p < pages.length; p++) {
+                if(p >= base.pages.length || pages[p] != base.pages[p]) {
+                    pages[p].seal();
+                }
+            }
+
+            // the ids this batch removed can be reused from the next batch on
+            freeCount = freeLeft;
+            if(freeCount + removedCount > free.length) {
+                free = Arrays.copyOf(free, Math.max(free.length * 2, freeCount + removedCount));
+            }
+            System.arraycopy(removed, 0, free, freeCount, removedCount);
+            freeCount += removedCount;
+
+            Snapshot snapshot = new Snapshot(base.version + 1, pages, size, limit);
+            current = snapshot;
+            close();
+            return snapshot;
+        }
+
+        /**
+         * Closes the batch, throwing away the changes if it was not
+         * committed.
+         */
+        @Override
+        public void close() {
+            if(open) {
+                open = false;
+                writeLock.unlock();
+            }
+        }
+
+        /**
+         * returns the page, copying it first if it is still shared with the
+         * base snapshot.
+         */
+        private Page writable(int p) {
+            if(p >= pages.length) {
+                pages = Arrays.copyOf(pages, p + 1);
+            }
+            if(pages == base.pages) {
+                pages = pages.clone();
+            }
+            if(pages[p] == null) {
+                pages[p] = new Page();
+            }
+            else if(p < base.pages.length && pages[p] == base.pages[p]) {
+                pages[p] = pages[p].copy();
+            }
+            return pages[p];
+        }
+
+        private void checkLive(int id) {
+            if(id < 0 || id >= limit || pages[id >>> PAGE_SHIFT] == null || !pages[id >>> PAGE_SHIFT].isLive(id & (PAGE_SIZE - 1))) {
+                throw new IllegalArgumentException("no entry for id " + id);
+            }
+        }
+
+        private void checkOpen() {
+            if(!open) {
+                throw new IllegalStateException("batch is closed");
+            }
+        }
+    }
+
+    /**
+     * a page of entries.  a page is only changed by the batch that created
+     * it and is sealed before it is published; after that it is read only.
+     */
+    private static final class Page {
+        final int[] x = new int[PAGE_SIZE];
+        final int[] y = new int[PAGE_SIZE];
+        final int[] x1 = new int[PAGE_SIZE];
+        final int[] y1 = new int[PAGE_SIZE];
+        final long[] live = new long[PAGE_SIZE / 64];
+        int count;
+        int minX;
+        int minY;
+        int maxX;
+        int maxY;
+
+        Page copy() {
+            Page copy = new Page();
+            System.arraycopy(x, 0, copy.x, 0, PAGE_SIZE);
+            System.arraycopy(y, 0, copy.y, 0, PAGE_SIZE);
+            System.arraycopy(x1, 0, copy.x1, 0, PAGE_SIZE);
+            System.arraycopy(y1, 0, copy.y1, 0, PAGE_SIZE);
+            System.arraycopy(live, 0, copy.live, 0, live.length);
+            return copy;
+        }
+
+        boolean isLive(int i) {
+            return (live[i >>> 6] & (1L << i)) != 0;
+        }
+
+        void put(int i, int x, int y, int x1, int y1) {
+            this.x[i] = x;
+            this.y[i] = y;
+            this.x1[i] = x1;
+            this.y1[i] = y1;
+            live[i >>> 6] |= 1L << i;
+        }
+
+        void kill(int i) {
+            live[i >>> 6] &= ~(1L << i);
+        }
+
+        /**
+         * recomputes the count and bounding box of the live entries.
+         */
+        void seal() {
+            count = 0;
+            minX = Integer.MAX_VALUE;
+            minY = Integer.MAX_VALUE;
+            maxX = Integer.MIN_VALUE;
+            maxY = Integer.MIN_VALUE;
+            for(int w = 0; w < live.length; w++) {
+                for(long bits = live[w]; bits != 0; bits &= bits - 1) {
+                    int i = (w << 6) | Long.numberOfTrailingZeros(bits);
+                    count++;
+                    minX = Math.min(minX, x[i]);
+                    minY = Math.min(minY, y[i]);
+                    maxX = Math.max(maxX, x1[i]);
+                    maxY = Math.max(maxY, y1[i]);
+                }
+            }
+        }
+    }
+}
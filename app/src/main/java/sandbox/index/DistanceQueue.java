@@ -0,0 +1,108 @@
+package sandbox.index;
+
+import java.util.Arrays;
+
+/**
+ * A min-heap of objects keyed by <code>long</code> distances, used by the
+ * nearest neighbour searches.  The keys and objects are kept in two
+ * parallel arrays, so pushing and popping allocate nothing once the arrays
+ * have grown large enough.  A queue can be handed to search after search
+ * to reuse those arrays; each search clears it first.
+ *
+ * A queue is not thread safe.  Use one per thread.
+ *
+ * @author Wes McKean
+ */
+public final class DistanceQueue {
+    private long[] keys;
+    private Object[] items;
+    private int size;
+
+    /**
+     * Default constructor.  Creates an empty queue.
+     */
+    public DistanceQueue() {
+        this(64);
+    }
+
+    /**
+     * Creates an empty queue with room for <code>capacity</code> entries
+     * before it has to grow.
+     *
+     * @param capacity the initial capacity
+     */
+    public DistanceQueue(int capacity) {
+        keys = new long[Math.max(1, capacity)];
+        items = new Object[Math.max(1, capacity)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+    }
+
+    void push(long key, Object item) {
+        if(size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            items = Arrays.copyOf(items, size * 2);
+        }
+
+        int i = size++;
+        while(i > 0) {
+            int parent = (i - 1) >>> 1;
+            if(keys[parent] <= key) {
+                break;
+            }
+            keys[i] = keys[parent];
+            items[i] = items[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        items[i] = item;
+    }
+
+    long peekKey() {
+        return keys[0];
+    }
+
+    Object peekItem() {
+        return items[0];
+    }
+
+    void pop() {
+        int last = --size;
+        long key = keys[last];
+        Object item = items[last];
+        items[last] = null;
+        if(last == 0) {
+            return;
+        }
+
+        int i = 0;
+        while(true) {
+            int child = i * 2 + 1;
+            if(child >= last) {
+                break;
+            }
+            if(child + 1 < last && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if(key <= keys[child]) {
+                break;
+            }
+            keys[i] = keys[child];
+            items[i] = items[child];
+            i = child;
+        }
+        keys[i] = key;
+        items[i] = item;
+    }
+}
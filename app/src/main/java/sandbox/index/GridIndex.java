@@ -0,0 +1,511 @@
+package sandbox.index;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import sandbox.Point;
+import sandbox.PointCodec;
+import sandbox.PointMap;
+import sandbox.Rectangle;
+import sandbox.RectangleListener;
+import sandbox.Rectangles;
+
+/**
+ * A loose grid of rectangles for objects that move all the time.
+ *
+ * Every rectangle gets an <code>int</code> handle when it is inserted, and
+ * is filed under the grid cell holding its upper left corner.  A rectangle
+ * no wider or taller than a cell can only reach into the cell to its right
+ * and the cell below, so a query only has to look one cell further up and
+ * to the left than the cells it covers.  Rectangles larger than a cell are
+ * kept on a separate list that every query walks.
+ *
+ * Moving a rectangle with {@link #update(int, int, int, int, int)} costs the
+ * same whatever the size of the index: the coordinates are overwritten, and
+ * if the corner crossed into another cell the handle is unlinked from one
+ * cell's list and linked into the other's.  Nothing is rebuilt, so an index
+ * can follow thousands of moving objects every tick, and queries between
+ * updates always see the latest positions.
+ *
+ * {@link #track(Rectangle)} goes one step further and installs a
+ * <code>RectangleListener</code> on the rectangle, so moving it through its
+ * setters updates the index without any call from the caller.
+ *
+ * The queries give the same answers as <code>RTree</code>, reporting
+ * handles rather than rectangles.  The action must not modify the index.
+ *
+ * @author Wes McKean
+ */
+public class GridIndex {
+    /**
+     * the cell size used by the default constructor, 64
+     */
+    public static final int DEFAULT_CELL_SHIFT = 6;
+
+    /**
+     * the cell of a free handle.  cell coordinates are at least one bit
+     * narrower than an int, so no real cell encodes to these.
+     */
+    private static final long FREE = Long.MIN_VALUE;
+    private static final long OVERSIZE = Long.MIN_VALUE + 1;
+    private static final int NONE = -1;
+
+    private final int cellShift;
+    private final long cellSize;
+    private final PointMap<Cell> cells = new PointMap<>();
+    private int oversizeHead = NONE;
+
+    private int[] x = new int[16];
+    private int[] y = new int[16];
+    private int[] x1 = new int[16];
+    private int[] y1 = new int[16];
+    private long[] cell = new long[16];
+    private int[] next = new int[16];
+    private int[] prev = new int[16];
+    private Rectangle[] tracked = new Rectangle[16];
+    private int handles;
+    private int freeHead = NONE;
+    private int size;
+
+    /**
+     * Default constructor.  Creates an empty index with cells of 64 by 64.
+     */
+    public GridIndex() {
+        this(DEFAULT_CELL_SHIFT);
+    }
+
+    /**
+     * Creates an empty index with cells of 2^cellShift by 2^cellShift.  The
+     * cells should be about as large as the typical rectangle.
+     *
+     * @param cellShift the base two logarithm of the cell size, from 1 to 30
+     *
+     * @throws IllegalArgumentException if cellShift is out of range
+     */
+    public GridIndex(int cellShift) {
+        if(cellShift < 1 || cellShift > 30) {
+            throw new IllegalArgumentException("cellShift must be between 1 and 30");
+        }
+        this.cellShift = cellShift;
+        this.cellSize = 1L << cellShift;
+    }
+
+    /**
+     * @return the number of rectangles in the index
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the index holds no rectangles
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds a rectangle given by its coordinates.
+     *
+     * @param x  the coordinate of the upper left corner on the x-axis
+     * @param y  the coordinate of the upper left corner on the y-axis
+     * @param x1 the coordinate of the lower right corner on the x-axis
+     * @param y1 the coordinate of the lower right corner on the y-axis
+     * @return the handle of the new entry
+     *
+     * @throws IllegalArgumentException if the coordinates do not make a valid
+     * <code>Rectangle</code>
+     */
+    public int insert(int x, int y, int x1, int y1) {
+        Rectangles.validate(x, y, x1, y1);
+        int handle = allocate();
+        place(handle, x, y, x1, y1);
+        return handle;
+    }
+
+    /**
+     * Adds a copy of the rectangle's coordinates.  Later changes to the
+     * rectangle are not seen; see {@link #track(Rectangle)}.
+     *
+     * @param rectangle the rectangle to add
+     * @return the handle of the new entry
+     */
+    public int insert(Rectangle rectangle) {
+        return insert(rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * Adds a rectangle and keeps following it: whenever
+     * <code>setUpperLeft</code> or <code>setLowerRight</code> replaces one
+     * of its corners, the entry is updated.  Moving a rectangle takes one
+     * setter call per corner, so in between the entry may briefly be
+     * inverted; it is stored as it is and becomes valid again with the
+     * second call.
+     *
+     * @param rectangle the rectangle to follow
+     * @return the handle of the new entry
+     *
+     * @throws IllegalArgumentException if the rectangle already has a
+     * listener
+     */
+    public int track(Rectangle rectangle) {
+        if(rectangle.getListener() != null) {
+            throw new IllegalArgumentException("rectangle already has a listener");
+        }
+        int handle = insert(rectangle);
+        tracked[handle] = rectangle;
+        rectangle.setListener(new Follower(handle));
+        return handle;
+    }
+
+    /**
+     * Moves or resizes an entry.
+     *
+     * @param handle the entry
+     * @param x      the new coordinate of the upper left corner on the x-axis
+     * @param y      the new coordinate of the upper left corner on the y-axis
+     * @param x1     the new coordinate of the lower right corner on the x-axis
+     * @param y1     the new coordinate of the lower right corner on the y-axis
+     *
+     * @throws IllegalArgumentException if the handle is not in use, or the
+     * coordinates do not make a valid <code>Rectangle</code>
+     */
+    public void update(int handle, int x, int y, int x1, int y1) {
+        checkHandle(handle);
+        Rectangles.validate(x, y, x1, y1);
+        move(handle, x, y, x1, y1);
+    }
+
+    /**
+     * Moves or resizes an entry to the rectangle's coordinates.
+     *
+     * @param handle    the entry
+     * @param rectangle the new position
+     *
+     * @throws IllegalArgumentException if the handle is not in use
+     */
+    public void update(int handle, Rectangle rectangle) {
+        update(handle, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * Removes an entry.  A tracked rectangle loses its listener.  The handle
+     * may be given to a later insert.
+     *
+     * @param handle the entry
+     *
+     * @throws IllegalArgumentException if the handle is not in use
+     */
+    public void remove(int handle) {
+        checkHandle(handle);
+        unlink(handle);
+        if(tracked[handle] != null) {
+            tracked[handle].setListener(null);
+            tracked[handle] = null;
+        }
+        cell[handle] = FREE;
+        next[handle] = freeHead;
+        freeHead = handle;
+        size--;
+    }
+
+    /**
+     * @param handle an entry
+     * @return true if the handle belongs to an entry of the index
+     */
+    public boolean contains(int handle) {
+        return handle >= 0 && handle < handles && cell[handle] != FREE;
+    }
+
+    /**
+     * @param handle an entry
+     * @return the coordinate of the upper left corner on the x-axis
+     */
+    public int getX(int handle) {
+        checkHandle(handle);
+        return x[handle];
+    }
+
+    /**
+     * @param handle an entry
+     * @return the coordinate of the upper left corner on the y-axis
+     */
+    public int getY(int handle) {
+        checkHandle(handle);
+        return y[handle];
+    }
+
+    /**
+     * @param handle an entry
+     * @return the coordinate of the lower right corner on the x-axis
+     */
+    public int getX1(int handle) {
+        checkHandle(handle);
+        return x1[handle];
+    }
+
+    /**
+     * @param handle an entry
+     * @return the coordinate of the lower right corner on the y-axis
+     */
+    public int getY1(int handle) {
+        checkHandle(handle);
+        return y1[handle];
+    }
+
+    /**
+     * @param handle an entry
+     * @return a new <code>Rectangle</code> with the entry's coordinates
+     */
+    public Rectangle toRectangle(int handle) {
+        checkHandle(handle);
+        return new Rectangle(x[handle], y[handle], x1[handle], y1[handle]);
+    }
+
+    /**
+     * Finds every entry that intersects the rectangle.
+     *
+     * @param rectangle the query
+     * @param action    receives the handle of each entry found
+     * @see Rectangle#intersects(Rectangle)
+     */
+    public void intersecting(Rectangle rectangle, IntConsumer action) {
+        search(RTree.Query.INTERSECTS, rectangle, action);
+    }
+
+    /**
+     * Finds every entry that contains the rectangle.
+     *
+     * @param rectangle the query
+     * @param action    receives the handle of each entry found
+     * @see Rectangle#contains(Rectangle)
+     */
+    public void containing(Rectangle rectangle, IntConsumer action) {
+        search(RTree.Query.CONTAINS, rectangle, action);
+    }
+
+    /**
+     * Finds every entry that contains the point.
+     *
+     * @param pt     the query
+     * @param action receives the handle of each entry found
+     * @see Rectangle#contains(Point)
+     */
+    public void containing(Point pt, IntConsumer action) {
+        search(RTree.Query.CONTAINS, pt.getX(), pt.getY(), pt.getX(), pt.getY(), action);
+    }
+
+    /**
+     * Finds every entry the rectangle contains.
+     *
+     * @param rectangle the query
+     * @param action    receives the handle of each entry found
+     */
+    public void containedBy(Rectangle rectangle, IntConsumer action) {
+        search(RTree.Query.CONTAINED_BY, rectangle, action);
+    }
+
+    /**
+     * Finds every entry adjacent to the rectangle.
+     *
+     * @param rectangle the query
+     * @param action    receives the handle of each entry found
+     * @see Rectangle#adjacent(Rectangle)
+     */
+    public void adjacentTo(Rectangle rectangle, IntConsumer action) {
+        search(RTree.Query.ADJACENT, rectangle, action);
+    }
+
+    /**
+     * Finds every entry whose closed area shares at least one coordinate
+     * with the rectangle (x, y, x1, y1): everything that contains it, lies
+     * in it, intersects it or is adjacent to it.
+     *
+     * @param x      upper left x of the query
+     * @param y      upper left y of the query
+     * @param x1     lower right x of the query
+     * @param y1     lower right y of the query
+     * @param action receives the handle of each entry found
+     * @see Rectangles#overlaps(int, int, int, int, int, int, int, int)
+     */
+    public void overlapping(int x, int y, int x1, int y1, IntConsumer action) {
+        search(RTree.Query.OVERLAPS, x, y, x1, y1, action);
+    }
+
+    private void search(RTree.Query query, Rectangle rectangle, IntConsumer action) {
+        search(query, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY(), action);
+    }
+
+    /**
+     * every query only answers with entries whose box overlaps the query,
+     * so it walks the oversize list and the cells that can hold an upper
+     * left corner of such an entry.
+     */
+    private void search(RTree.Query query, int qx, int qy, int qx1, int qy1, IntConsumer action) {
+        walk(oversizeHead, query, qx, qy, qx1, qy1, action);
+
+        int cx = (int) ((qx - cellSize) >> cellShift);
+        int cy = (int) ((qy - cellSize) >> cellShift);
+        int cx1 = qx1 >> cellShift;
+        int cy1 = qy1 >> cellShift;
+
+        long span = ((long) cx1 - cx + 1) * ((long) cy1 - cy + 1);
+        if(span > cells.size()) {
+            cells.forEach((i, j, c) -> {
+                if(i >= cx && i <= cx1 && j >= cy && j <= cy1) {
+                    walk(c.head, query, qx, qy, qx1, qy1, action);
+                }
+            });
+            return;
+        }
+
+        for(int j = cy; j <= cy1; j++) {
+            for(int i = cx; i <= cx1; i++) {
+                Cell c = cells.get(i, j);
+                if(c != null) {
+                    walk(c.head, query, qx, qy, qx1, qy1, action);
+                }
+            }
+        }
+    }
+
+    private void walk(int head, RTree.Query query, int qx, int qy, int qx1, int qy1, IntConsumer action) {
+        for(int h = head; h != NONE; h = next[h]) {
+            if(query.matches(x[h], y[h], x1[h], y1[h], qx, qy, qx1, qy1)) {
+                action.accept(h);
+            }
+        }
+    }
+
+    /**
+     * overwrites the coordinates of an entry and refiles it if it left its
+     * cell.  does not validate, so a tracked rectangle can pass through an
+     * inverted state.
+     */
+    private void move(int handle, int x, int y, int x1, int y1) {
+        this.x[handle] = x;
+        this.y[handle] = y;
+        this.x1[handle] = x1;
+        this.y1[handle] = y1;
+        long target = cellOf(x, y, x1, y1);
+        if(target != cell[handle]) {
+            unlink(handle);
+            link(handle, target);
+        }
+    }
+
+    private void place(int handle, int x, int y, int x1, int y1) {
+        this.x[handle] = x;
+        this.y[handle] = y;
+        this.x1[handle] = x1;
+        this.y1[handle] = y1;
+        link(handle, cellOf(x, y, x1, y1));
+    }
+
+    private long cellOf(int x, int y, int x1, int y1) {
+        if((long) x1 - x > cellSize || (long) y1 - y > cellSize) {
+            return OVERSIZE;
+        }
+        return PointCodec.encode(x >> cellShift, y >> cellShift);
+    }
+
+    private void link(int handle, long target) {
+        cell[handle] = target;
+        prev[handle] = NONE;
+        int head;
+        if(target == OVERSIZE) {
+            head = oversizeHead;
+            oversizeHead = handle;
+        }
+        else {
+            Cell c = cells.getCode(target);
+            if(c == null) {
+                c = new Cell();
+                cells.putCode(target, c);
+            }
+            head = c.head;
+            c.head = handle;
+        }
+        next[handle] = head;
+        if(head != NONE) {
+            prev[head] = handle;
+        }
+    }
+
+    private void unlink(int handle) {
+        int before = prev[handle];
+        int after = next[handle];
+        if(after != NONE) {
+            prev[after] = before;
+        }
+        if(before != NONE) {
+            next[before] = after;
+        }
+        else if(cell[handle] == OVERSIZE) {
+            oversizeHead = after;
+        }
+        else if(after != NONE) {
+            cells.getCode(cell[handle]).head = after;
+        }
+        else {
+            // the cell is empty now
+            cells.removeCode(cell[handle]);
+        }
+    }
+
+    private int allocate() {
+        int handle;
+        if(freeHead != NONE) {
+            handle = freeHead;
+            freeHead = next[handle];
+        }
+        else {
+            if(handles == x.length) {
+                int capacity = handles * 2;
+                x = Arrays.copyOf(x, capacity);
+                y = Arrays.copyOf(y, capacity);
+                x1 = Arrays.copyOf(x1, capacity);
+                y1 = Arrays.copyOf(y1, capacity);
+                cell = Arrays.copyOf(cell, capacity);
+                next = Arrays.copyOf(next, capacity);
+                prev = Arrays.copyOf(prev, capacity);
+                tracked = Arrays.copyOf(tracked, capacity);
+            }
+            handle = handles++;
+        }
+        size++;
+        return handle;
+    }
+
+    private void checkHandle(int handle) {
+        if(!contains(handle)) {
+            throw new IllegalArgumentException("no entry for handle " + handle);
+        }
+    }
+
+    /**
+     * the head of the list of entries filed under one cell
+     */
+    private static final class Cell {
+        int head = NONE;
+    }
+
+    /**
+     * keeps the entry of a tracked rectangle in step with it.
+     */
+    private final class Follower implements RectangleListener {
+        private final int handle;
+
+        Follower(int handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public void changed(Rectangle rectangle) {
+            move(handle, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                    rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package sandbox.index;
+
+import sandbox.Rectangle;
+
+/**
+ * Receives the results of a nearest neighbour search, nearest first.
+ *
+ * @author Wes McKean
+ */
+@FunctionalInterface
+public interface NeighborConsumer {
+    /**
+     * @param rectangle a stored rectangle
+     * @param distance  its distance from the query
+     */
+    void accept(Rectangle rectangle, long distance);
+}
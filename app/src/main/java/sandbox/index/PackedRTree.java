@@ -0,0 +1,230 @@
+package sandbox.index;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import sandbox.HilbertCurve;
+import sandbox.Point;
+import sandbox.RectangleArray;
+import sandbox.metrics.Metrics;
+import sandbox.metrics.Probe;
+
+/**
+ * A read-only R-tree packed into flat arrays, for answering "which
+ * rectangles contain this point" as fast as possible over a set that does
+ * not change.
+ *
+ * The rectangles are sorted along a Hilbert curve through their centres
+ * ({@link HilbertCurve#sort(RectangleArray)}) and their coordinates copied
+ * in that order.  Each run of {@link #DEFAULT_NODE_SIZE} of them gets a
+ * bounding box on the level above, each run of those boxes a box on the
+ * level above that, and so on up to a single root.  Every level lives in
+ * the same four <code>int</code> arrays, one after the other, so there are
+ * no node objects and no child pointers: the children of box i on a level
+ * are the run of boxes starting at i times the node size on the level
+ * below.  A query reads each node's children as one sequential run of
+ * memory and walks the tree without a stack, so it allocates nothing.
+ *
+ * Building sorts once and makes one pass per level, so ten million
+ * rectangles take a few seconds.
+ *
+ * The queries give the same answers as the matching <code>Rectangle</code>
+ * methods and report the index each rectangle had in the array the tree
+ * was built from.  The tree copies the coordinates, so later changes to
+ * that array are not seen.
+ *
+ * @author Wes McKean
+ */
+public class PackedRTree {
+    /**
+     * the number of children of each node unless told otherwise
+     */
+    public static final int DEFAULT_NODE_SIZE = 16;
+
+    private final int size;
+    private final int nodeBits;
+    private final int[] minX;
+    private final int[] minY;
+    private final int[] maxX;
+    private final int[] maxY;
+    private final int[] ids;
+    /**
+     * where each level starts in the arrays, leaves first, with the end of
+     * the root level last
+     */
+    private final int[] levels;
+
+    private PackedRTree(RectangleArray rectangles, int nodeSize) {
+        this.size = rectangles.size();
+        this.nodeBits = Integer.numberOfTrailingZeros(nodeSize);
+
+        // count the boxes on each level; there is always a root above the
+        // rectangles, even when there are none
+        int[] bounds = new int[34];
+        bounds[1] = size;
+        int levelCount = 1;
+        long total = size;
+        long count = size;
+        do {
+            count = Math.max(1, (count + nodeSize - 1) >> nodeBits);
+            total += count;
+            if(total > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("too many rectangles to pack");
+            }
+            bounds[++levelCount] = (int) total;
+        } while(count > 1);
+        levels = Arrays.copyOf(bounds, levelCount + 1);
+
+        int capacity = levels[levelCount];
+        minX = new int[capacity];
+        minY = new int[capacity];
+        maxX = new int[capacity];
+        maxY = new int[capacity];
+        ids = new int[size];
+
+        int[] order = HilbertCurve.sort(rectangles);
+        for(int k = 0; k < size; k++) {
+            int i = order[k];
+            ids[k] = i;
+            minX[k] = rectangles.getX(i);
+            minY[k] = rectangles.getY(i);
+            maxX[k] = rectangles.getX1(i);
+            maxY[k] = rectangles.getY1(i);
+        }
+
+        for(int level = 1; level < levelCount; level++) {
+            int childEnd = levels[level];
+            for(int node = levels[level], child = levels[level - 1]; node < levels[level + 1]; node++) {
+                int x = Integer.MAX_VALUE;
+                int y = Integer.MAX_VALUE;
+                int x1 = Integer.MIN_VALUE;
+                int y1 = Integer.MIN_VALUE;
+                for(int end = Math.min(child + nodeSize, childEnd); child < end; child++) {
+                    x = Math.min(x, minX[child]);
+                    y = Math.min(y, minY[child]);
+                    x1 = Math.max(x1, maxX[child]);
+                    y1 = Math.max(y1, maxY[child]);
+                }
+                minX[node] = x;
+                minY[node] = y;
+                maxX[node] = x1;
+                maxY[node] = y1;
+            }
+        }
+    }
+
+    /**
+     * Packs rectangles into a tree with nodes of
+     * {@link #DEFAULT_NODE_SIZE} children.
+     *
+     * @param rectangles the rectangles to index
+     * @return the new tree
+     */
+    public static PackedRTree build(RectangleArray rectangles) {
+        return build(rectangles, DEFAULT_NODE_SIZE);
+    }
+
+    /**
+     * Packs rectangles into a tree.
+     *
+     * @param rectangles the rectangles to index
+     * @param nodeSize   the number of children of each node, a power of two
+     * from 2 to 256
+     * @return the new tree
+     *
+     * @throws IllegalArgumentException if the node size is not a power of two
+     * in range
+     */
+    public static PackedRTree build(RectangleArray rectangles, int nodeSize) {
+        if(nodeSize < 2 || nodeSize > 256 || Integer.bitCount(nodeSize) != 1) {
+            throw new IllegalArgumentException("node size must be a power of two from 2 to 256");
+        }
+        return new PackedRTree(rectangles, nodeSize);
+    }
+
+    /**
+     * @return the number of rectangles in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of levels of boxes above the rectangles
+     */
+    public int height() {
+        return levels.length - 2;
+    }
+
+    /**
+     * @return the number of children of each node
+     */
+    public int nodeSize() {
+        return 1 << nodeBits;
+    }
+
+    /**
+     * Hands the index of every rectangle that contains the point to the
+     * action.
+     *
+     * @param pt     the <code>Point</code> to test for containment
+     * @param action receives the matching indexes
+     * @return the number of matches
+     * @see sandbox.Rectangle#contains(Point)
+     */
+    public int containing(Point pt, IntConsumer action) {
+        return containing(pt.getX(), pt.getY(), action);
+    }
+
+    /**
+     * Hands the index of every rectangle that contains the point (px, py)
+     * to the action.  The order follows the curve, not the indexes.
+     *
+     * @param px     the point's x
+     * @param py     the point's y
+     * @param action receives the matching indexes
+     * @return the number of matches
+     */
+    public int containing(int px, int py, IntConsumer action) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int[] minX = this.minX, minY = this.minY, maxX = this.maxX, maxY = this.maxY;
+        int[] levels = this.levels;
+        int mask = (1 << nodeBits) - 1;
+        int top = levels.length - 2;
+
+        // a depth first walk that keeps its place as (level, i) and finds
+        // the way back up by arithmetic instead of a stack
+        int found = 0;
+        int level = top;
+        int i = levels[top];
+        while(true) {
+            boolean hit = px >= minX[i] && px <= maxX[i] && py >= minY[i] && py <= maxY[i];
+            if(hit && level > 0) {
+                // step down to the first child
+                i = levels[level - 1] + ((i - levels[level]) << nodeBits);
+                level--;
+                continue;
+            }
+            if(hit) {
+                action.accept(ids[i]);
+                found++;
+            }
+
+            // move to the next sibling, climbing while this was the last one
+            while(true) {
+                if(level == top) {
+                    if(Metrics.ENABLED) {
+                        Probe.PACKED_QUERY.record(start, found);
+                    }
+                    return found;
+                }
+                int next = i + 1;
+                if(next < levels[level + 1] && ((next - levels[level]) & mask) != 0) {
+                    i = next;
+                    break;
+                }
+                i = levels[level + 1] + ((i - levels[level]) >> nodeBits);
+                level++;
+            }
+        }
+    }
+}
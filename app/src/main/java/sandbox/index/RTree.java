@@ -0,0 +1,1066 @@
+package sandbox.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import sandbox.Metric;
+import sandbox.Point;
+import sandbox.Rectangle;
+import sandbox.Rectangles;
+import sandbox.Relation;
+import sandbox.metrics.Metrics;
+import sandbox.metrics.Probe;
+
+/**
+ * An R-tree of <code>Rectangle</code>s.  Rectangles are grouped into nodes
+ * of at most {@link #MAX_ENTRIES} entries, and every node keeps the bounding
+ * box of everything below it, so a query only visits the parts of the tree
+ * that can hold an answer.
+ *
+ * The queries return exactly the rectangles that a loop over every stored
+ * rectangle calling the matching <code>Rectangle</code> method would return.
+ * That includes the rule that <code>intersects</code> is false when one
+ * rectangle contains the other, and that <code>adjacent</code> counts
+ * touching corners.
+ *
+ * The tree copies a rectangle's coordinates when it is inserted.  If a stored
+ * <code>Rectangle</code> is changed, delete it before the change and insert
+ * it again afterwards.
+ *
+ * A tree can be filled all at once with {@link #bulkLoad(Collection)}, which
+ * packs the nodes using Sort-Tile-Recursive, or one rectangle at a time with
+ * {@link #insert(Rectangle)}.
+ *
+ * @author Wes McKean
+ */
+public class RTree {
+    /**
+     * the maximum number of entries in a node
+     */
+    public static final int MAX_ENTRIES = 16;
+    /**
+     * the minimum number of entries in a node other than the root
+     */
+    public static final int MIN_ENTRIES = 6;
+
+    private Node root = new Node(true);
+    private int size;
+
+    /**
+     * Default constructor.  Creates an empty tree.
+     */
+    public RTree() {
+    }
+
+    /**
+     * Builds a tree holding all of the rectangles, packed with the
+     * Sort-Tile-Recursive algorithm.  A packed tree has nearly full nodes
+     * that overlap very little, so it answers queries faster than one built
+     * by repeated inserts.
+     *
+     * @param rectangles the rectangles to index
+     * @return the new tree
+     */
+    public static RTree bulkLoad(Collection<Rectangle> rectangles) {
+        RTree tree = new RTree();
+        int n = rectangles.size();
+        if(n == 0) {
+            return tree;
+        }
+
+        Object[] items = new Object[n];
+        int[] minX = new int[n];
+        int[] minY = new int[n];
+        int[] maxX = new int[n];
+        int[] maxY = new int[n];
+        int i = 0;
+        for(Rectangle r : rectangles) {
+            items[i] = r;
+            minX[i] = r.getUpperLeft().getX();
+            minY[i] = r.getUpperLeft().getY();
+            maxX[i] = r.getLowerRight().getX();
+            maxY[i] = r.getLowerRight().getY();
+            i++;
+        }
+
+        boolean leaf = true;
+        while(true) {
+            Node[] nodes = pack(items, minX, minY, maxX, maxY, n, leaf);
+            if(nodes.length == 1) {
+                tree.root = nodes[0];
+                break;
+            }
+
+            n = nodes.length;
+            items = nodes;
+            minX = new int[n];
+            minY = new int[n];
+            maxX = new int[n];
+            maxY = new int[n];
+            for(int j = 0; j < n; j++) {
+                Node node = nodes[j];
+                minX[j] = node.boxMinX();
+                minY[j] = node.boxMinY();
+                maxX[j] = node.boxMaxX();
+                maxY[j] = node.boxMaxY();
+            }
+            leaf = false;
+        }
+
+        tree.size = rectangles.size();
+        return tree;
+    }
+
+    /**
+     * Packs one level of the tree: sorts the items into vertical slices by
+     * the center on the x-axis, then sorts each slice by the center on the
+     * y-axis and cuts it into full nodes.
+     */
+    private static Node[] pack(Object[] items, int[] minX, int[] minY, int[] maxX, int[] maxY, int n, boolean leaf) {
+        int nodeCount = (n + MAX_ENTRIES - 1) / MAX_ENTRIES;
+        int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+        int sliceSize = sliceCount * MAX_ENTRIES;
+
+        long[] keys = new long[n];
+        for(int i = 0; i < n; i++) {
+            keys[i] = sortKey(center(minX[i], maxX[i]), i);
+        }
+        Arrays.sort(keys);
+
+        Node[] nodes = new Node[nodeCount];
+        int next = 0;
+        for(int start = 0; start < n; start += sliceSize) {
+            int end = Math.min(n, start + sliceSize);
+            for(int i = start; i < end; i++) {
+                int index = (int) keys[i];
+                keys[i] = sortKey(center(minY[index], maxY[index]), index);
+            }
+            Arrays.sort(keys, start, end);
+
+            for(int i = start; i < end; i += MAX_ENTRIES) {
+                Node node = new Node(leaf);
+                for(int j = i; j < Math.min(end, i + MAX_ENTRIES); j++) {
+                    int index = (int) keys[j];
+                    node.add(items[index], minX[index], minY[index], maxX[index], maxY[index]);
+                }
+                nodes[next++] = node;
+            }
+        }
+
+        return nodes;
+    }
+
+    private static int center(int min, int max) {
+        return (int) (((long) min + max) >> 1);
+    }
+
+    private static long sortKey(int value, int index) {
+        return ((long) value << 32) | index;
+    }
+
+    /**
+     * @return the number of rectangles in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the tree holds no rectangles
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of levels in the tree, counting the leaves
+     */
+    public int height() {
+        int height = 1;
+        for(Node node = root; !node.leaf; node = (Node) node.children[0]) {
+            height++;
+        }
+        return height;
+    }
+
+    /**
+     * Adds a rectangle to the tree.  The same rectangle may be added more
+     * than once.
+     *
+     * @param rectangle the rectangle to add
+     *
+     * @throws IllegalArgumentException if rectangle is null
+     */
+    public void insert(Rectangle rectangle) {
+        if(rectangle == null) {
+            throw new IllegalArgumentException("rectangle may not be null");
+        }
+
+        insert(rectangle, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+        size++;
+    }
+
+    private void insert(Rectangle rectangle, int x, int y, int x1, int y1) {
+        Node sibling = insert(root, rectangle, x, y, x1, y1);
+        if(sibling != null) {
+            Node newRoot = new Node(false);
+            newRoot.add(root, root.boxMinX(), root.boxMinY(), root.boxMaxX(), root.boxMaxY());
+            newRoot.add(sibling, sibling.boxMinX(), sibling.boxMinY(), sibling.boxMaxX(), sibling.boxMaxY());
+            root = newRoot;
+        }
+    }
+
+    /**
+     * inserts below node and returns the new sibling if node had to be split.
+     */
+    private Node insert(Node node, Rectangle rectangle, int x, int y, int x1, int y1) {
+        if(node.leaf) {
+            node.add(rectangle, x, y, x1, y1);
+        }
+        else {
+            int best = node.chooseSubtree(x, y, x1, y1);
+            Node child = (Node) node.children[best];
+            Node sibling = insert(child, rectangle, x, y, x1, y1);
+            node.setBox(best, child.boxMinX(), child.boxMinY(), child.boxMaxX(), child.boxMaxY());
+            if(sibling != null) {
+                node.add(sibling, sibling.boxMinX(), sibling.boxMinY(), sibling.boxMaxX(), sibling.boxMaxY());
+            }
+        }
+
+        return node.count > MAX_ENTRIES ? node.split() : null;
+    }
+
+    /**
+     * Removes one occurrence of a rectangle from the tree.  The entry
+     * removed is one that is <code>equals</code> to the rectangle and was
+     * stored with the rectangle's current coordinates.
+     *
+     * @param rectangle the rectangle to remove
+     * @return true if a rectangle was removed, false if none was found
+     */
+    public boolean delete(Rectangle rectangle) {
+        int x = rectangle.getUpperLeft().getX();
+        int y = rectangle.getUpperLeft().getY();
+        int x1 = rectangle.getLowerRight().getX();
+        int y1 = rectangle.getLowerRight().getY();
+
+        List<Node> orphans = new ArrayList<>();
+        if(!delete(root, rectangle, x, y, x1, y1, orphans)) {
+            return false;
+        }
+
+        size--;
+        if(!root.leaf && root.count == 1) {
+            root = (Node) root.children[0];
+        }
+        else if(root.count == 0) {
+            root = new Node(true);
+        }
+
+        for(Node orphan : orphans) {
+            reinsert(orphan);
+        }
+
+        return true;
+    }
+
+    /**
+     * removes the entry from below node.  children that drop under the
+     * minimum are taken out of the tree and handed back as orphans so that
+     * their entries can be inserted again.
+     */
+    private boolean delete(Node node, Rectangle rectangle, int x, int y, int x1, int y1, List<Node> orphans) {
+        for(int i = 0; i < node.count; i++) {
+            if(node.leaf) {
+                if(node.minX[i] == x && node.minY[i] == y && node.maxX[i] == x1 && node.maxY[i] == y1
+                        && rectangle.equals(node.children[i])) {
+                    node.remove(i);
+                    return true;
+                }
+            }
+            else if(Rectangles.contains(node.minX[i], node.minY[i], node.maxX[i], node.maxY[i], x, y, x1, y1)) {
+                Node child = (Node) node.children[i];
+                if(delete(child, rectangle, x, y, x1, y1, orphans)) {
+                    if(child.count < MIN_ENTRIES) {
+                        node.remove(i);
+                        orphans.add(child);
+                    }
+                    else {
+                        node.setBox(i, child.boxMinX(), child.boxMinY(), child.boxMaxX(), child.boxMaxY());
+                    }
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private void reinsert(Node node) {
+        for(int i = 0; i < node.count; i++) {
+            if(node.leaf) {
+                insert((Rectangle) node.children[i], node.minX[i], node.minY[i], node.maxX[i], node.maxY[i]);
+            }
+            else {
+                reinsert((Node) node.children[i]);
+            }
+        }
+    }
+
+    /**
+     * Finds every stored rectangle that intersects the rectangle.
+     *
+     * @param rectangle the <code>Rectangle</code> to test against
+     * @return the matching rectangles
+     * @see Rectangle#intersects(Rectangle)
+     */
+    public List<Rectangle> intersecting(Rectangle rectangle) {
+        List<Rectangle> result = new ArrayList<>();
+        intersecting(rectangle, result::add);
+        return result;
+    }
+
+    /**
+     * Hands every stored rectangle that intersects the rectangle to the
+     * action.
+     *
+     * @param rectangle the <code>Rectangle</code> to test against
+     * @param action receives the matching rectangles
+     * @see Rectangle#intersects(Rectangle)
+     */
+    public void intersecting(Rectangle rectangle, Consumer<Rectangle> action) {
+        query(Query.INTERSECTS, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY(), action);
+    }
+
+    /**
+     * Finds every stored rectangle that wholly contains the rectangle.
+     *
+     * @param rectangle the <code>Rectangle</code> to test for containment
+     * @return the matching rectangles
+     * @see Rectangle#contains(Rectangle)
+     */
+    public List<Rectangle> containing(Rectangle rectangle) {
+        List<Rectangle> result = new ArrayList<>();
+        containing(rectangle, result::add);
+        return result;
+    }
+
+    /**
+     * Hands every stored rectangle that wholly contains the rectangle to
+     * the action.
+     *
+     * @param rectangle the <code>Rectangle</code> to test for containment
+     * @param action receives the matching rectangles
+     * @see Rectangle#contains(Rectangle)
+     */
+    public void containing(Rectangle rectangle, Consumer<Rectangle> action) {
+        query(Query.CONTAINS, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY(), action);
+    }
+
+    /**
+     * Finds every stored rectangle whose area includes the point.
+     *
+     * @param pt the <code>Point</code> to test for
+     * @return the matching rectangles
+     * @see Rectangle#contains(Point)
+     */
+    public List<Rectangle> containing(Point pt) {
+        List<Rectangle> result = new ArrayList<>();
+        containing(pt, result::add);
+        return result;
+    }
+
+    /**
+     * Hands every stored rectangle whose area includes the point to the
+     * action.
+     *
+     * @param pt the <code>Point</code> to test for
+     * @param action receives the matching rectangles
+     * @see Rectangle#contains(Point)
+     */
+    public void containing(Point pt, Consumer<Rectangle> action) {
+        query(Query.CONTAINS, pt.getX(), pt.getY(), pt.getX(), pt.getY(), action);
+    }
+
+    /**
+     * Finds every stored rectangle that the rectangle wholly contains.
+     *
+     * @param rectangle the enclosing <code>Rectangle</code>
+     * @return the matching rectangles
+     * @see Rectangle#contains(Rectangle)
+     */
+    public List<Rectangle> containedBy(Rectangle rectangle) {
+        List<Rectangle> result = new ArrayList<>();
+        containedBy(rectangle, result::add);
+        return result;
+    }
+
+    /**
+     * Hands every stored rectangle that the rectangle wholly contains to the
+     * action.
+     *
+     * @param rectangle the enclosing <code>Rectangle</code>
+     * @param action receives the matching rectangles
+     * @see Rectangle#contains(Rectangle)
+     */
+    public void containedBy(Rectangle rectangle, Consumer<Rectangle> action) {
+        query(Query.CONTAINED_BY, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY(), action);
+    }
+
+    /**
+     * Finds every stored rectangle that shares a side with the rectangle.
+     *
+     * @param rectangle the <code>Rectangle</code> to test against
+     * @return the matching rectangles
+     * @see Rectangle#adjacent(Rectangle)
+     */
+    public List<Rectangle> adjacentTo(Rectangle rectangle) {
+        List<Rectangle> result = new ArrayList<>();
+        adjacentTo(rectangle, result::add);
+        return result;
+    }
+
+    /**
+     * Hands every stored rectangle that shares a side with the rectangle to
+     * the action.
+     *
+     * @param rectangle the <code>Rectangle</code> to test against
+     * @param action receives the matching rectangles
+     * @see Rectangle#adjacent(Rectangle)
+     */
+    public void adjacentTo(Rectangle rectangle, Consumer<Rectangle> action) {
+        query(Query.ADJACENT, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY(), action);
+    }
+
+    /**
+     * Answers a batch of window queries with one walk of the tree rather
+     * than one walk per query.  A node is only entered when it overlaps the
+     * bounding box of the whole batch, and then only for the queries that
+     * could find an answer below it, so queries looking at the same part of
+     * the tree share the nodes on the way down.
+     *
+     * The kind of each query is the <code>Relation</code> bit a stored
+     * rectangle r must have in <code>r.relate(query)</code> to answer it:
+     * <code>INTERSECTS</code>, <code>CONTAINS</code> when r contains the
+     * query, <code>WITHIN</code> when the query contains r, or
+     * <code>ADJACENT</code>.  Each query is handed the same rectangles, in
+     * the same order, as the matching call to {@link #intersecting},
+     * {@link #containing}, {@link #containedBy} or {@link #adjacentTo}, though
+     * the results of different queries are interleaved.  A batch is counted
+     * as one query by the metrics.
+     *
+     * @param count     the number of queries
+     * @param relations the kind of each query
+     * @param boxes     x, y, x1 and y1 of each query, four ints per query
+     * @param action    receives the number of each query and each rectangle
+     * that answers it
+     *
+     * @throws IllegalArgumentException if a kind is not one of the four, or
+     * a box does not make a valid <code>Rectangle</code>
+     */
+    public void search(int count, int[] relations, int[] boxes, BatchConsumer action) {
+        Query[] queries = new Query[count];
+        int bx = Integer.MAX_VALUE, by = Integer.MAX_VALUE;
+        int bx1 = Integer.MIN_VALUE, by1 = Integer.MIN_VALUE;
+        for(int q = 0; q < count; q++) {
+            queries[q] = switch(relations[q]) {
+                case Relation.INTERSECTS -> Query.INTERSECTS;
+                case Relation.CONTAINS -> Query.CONTAINS;
+                case Relation.WITHIN -> Query.CONTAINED_BY;
+                case Relation.ADJACENT -> Query.ADJACENT;
+                default -> throw new IllegalArgumentException("not a kind of query: " + relations[q]);
+            };
+            int at = q * 4;
+            Rectangles.validate(boxes[at], boxes[at + 1], boxes[at + 2], boxes[at + 3]);
+            bx = Math.min(bx, boxes[at]);
+            by = Math.min(by, boxes[at + 1]);
+            bx1 = Math.max(bx1, boxes[at + 2]);
+            by1 = Math.max(by1, boxes[at + 3]);
+        }
+        if(count == 0) {
+            return;
+        }
+
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        // the queries still looking for answers at each level of the walk
+        int[][] live = new int[height()][count];
+        for(int q = 0; q < count; q++) {
+            live[0][q] = q;
+        }
+        int found = search(root, queries, boxes, bx, by, bx1, by1, live, 0, count, action);
+        if(Metrics.ENABLED) {
+            Probe.TREE_QUERY.record(start, found);
+        }
+    }
+
+    /**
+     * Returns every stored rectangle that intersects the rectangle as a lazy
+     * stream.  The tree is walked as the stream is consumed, so
+     * <code>findFirst</code> or <code>limit</code> leave the rest of it
+     * unvisited, and however many rectangles match, the walk only holds one
+     * node per level.  The tree must not be changed while the stream is in
+     * use.
+     *
+     * @param rectangle the <code>Rectangle</code> to test against
+     * @return the matching rectangles
+     * @see Rectangle#intersects(Rectangle)
+     */
+    public Stream<Rectangle> streamIntersecting(Rectangle rectangle) {
+        return stream(Query.INTERSECTS, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * Returns every stored rectangle that wholly contains the rectangle as a
+     * lazy stream.
+     *
+     * @param rectangle the <code>Rectangle</code> to test for containment
+     * @return the matching rectangles
+     * @see #streamIntersecting(Rectangle)
+     * @see Rectangle#contains(Rectangle)
+     */
+    public Stream<Rectangle> streamContaining(Rectangle rectangle) {
+        return stream(Query.CONTAINS, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * Returns every stored rectangle that contains the point as a lazy
+     * stream.
+     *
+     * @param pt the <code>Point</code> to test for containment
+     * @return the matching rectangles
+     * @see #streamIntersecting(Rectangle)
+     * @see Rectangle#contains(Point)
+     */
+    public Stream<Rectangle> streamContaining(Point pt) {
+        return stream(Query.CONTAINS, pt.getX(), pt.getY(), pt.getX(), pt.getY());
+    }
+
+    /**
+     * Returns every stored rectangle the rectangle wholly contains as a lazy
+     * stream.
+     *
+     * @param rectangle the containing <code>Rectangle</code>
+     * @return the matching rectangles
+     * @see #streamIntersecting(Rectangle)
+     * @see Rectangle#contains(Rectangle)
+     */
+    public Stream<Rectangle> streamContainedBy(Rectangle rectangle) {
+        return stream(Query.CONTAINED_BY, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * Returns every stored rectangle that shares a side with the rectangle
+     * as a lazy stream.
+     *
+     * @param rectangle the <code>Rectangle</code> to test against
+     * @return the matching rectangles
+     * @see #streamIntersecting(Rectangle)
+     * @see Rectangle#adjacent(Rectangle)
+     */
+    public Stream<Rectangle> streamAdjacentTo(Rectangle rectangle) {
+        return stream(Query.ADJACENT, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    private Stream<Rectangle> stream(Query query, int x, int y, int x1, int y1) {
+        return StreamSupport.stream(new Walk(query, x, y, x1, y1), false);
+    }
+
+    /**
+     * Finds the k stored rectangles nearest to a point.
+     *
+     * @param pt     the query
+     * @param k      the number of rectangles to find
+     * @param metric how to measure distance
+     * @return up to k rectangles, nearest first
+     * @see Metric#distance(Rectangle, Point)
+     */
+    public List<Rectangle> nearest(Point pt, int k, Metric metric) {
+        List<Rectangle> result = new ArrayList<>();
+        nearest(pt.getX(), pt.getY(), pt.getX(), pt.getY(), k, metric, new DistanceQueue(), (r, d) -> result.add(r));
+        return result;
+    }
+
+    /**
+     * Finds the k stored rectangles nearest to a rectangle.  Rectangles
+     * touching or overlapping the query are at distance zero.
+     *
+     * @param rectangle the query
+     * @param k         the number of rectangles to find
+     * @param metric    how to measure distance
+     * @return up to k rectangles, nearest first
+     * @see Metric#distance(Rectangle, Rectangle)
+     */
+    public List<Rectangle> nearest(Rectangle rectangle, int k, Metric metric) {
+        List<Rectangle> result = new ArrayList<>();
+        nearest(rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY(),
+                k, metric, new DistanceQueue(), (r, d) -> result.add(r));
+        return result;
+    }
+
+    /**
+     * Hands the k stored rectangles nearest to the box (x, y, x1, y1) to the
+     * action, nearest first.  A point is the box (px, py, px, py).
+     *
+     * The search is best first: the queue holds nodes keyed by the distance
+     * to their bounding box and rectangles keyed by their own distance, and
+     * the nearest is taken each time.  A box is never further than anything
+     * inside it, so a rectangle taken from the queue is nearer than
+     * everything still waiting, and the search stops after k of them,
+     * leaving the parts of the tree that are further away unvisited.  Apart
+     * from growing the queue, the search allocates nothing.
+     *
+     * @param x      upper left x of the query
+     * @param y      upper left y of the query
+     * @param x1     lower right x of the query
+     * @param y1     lower right y of the query
+     * @param k      the number of rectangles to find
+     * @param metric how to measure distance
+     * @param queue  a queue to reuse; it is cleared first
+     * @param action receives each rectangle found and its distance
+     *
+     * @throws IllegalArgumentException if k is negative
+     */
+    public void nearest(int x, int y, int x1, int y1, int k, Metric metric, DistanceQueue queue, NeighborConsumer action) {
+        if(k < 0) {
+            throw new IllegalArgumentException("k may not be negative");
+        }
+
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        queue.clear();
+        if(size > 0) {
+            queue.push(0, root);
+        }
+
+        int found = 0;
+        while(found < k && !queue.isEmpty()) {
+            long distance = queue.peekKey();
+            Object item = queue.peekItem();
+            queue.pop();
+
+            if(item instanceof Node node) {
+                for(int i = 0; i < node.count; i++) {
+                    queue.push(metric.distance(node.minX[i], node.minY[i], node.maxX[i], node.maxY[i], x, y, x1, y1),
+                            node.children[i]);
+                }
+            }
+            else {
+                action.accept((Rectangle) item, distance);
+                found++;
+            }
+        }
+        queue.clear();
+        if(Metrics.ENABLED) {
+            Probe.TREE_NEAREST.record(start, found);
+        }
+    }
+
+    private void query(Query query, int x, int y, int x1, int y1, Consumer<Rectangle> action) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int found = search(root, query, x, y, x1, y1, action);
+        if(Metrics.ENABLED) {
+            Probe.TREE_QUERY.record(start, found);
+        }
+    }
+
+    /**
+     * returns the number of rectangles handed to the action.
+     */
+    private static int search(Node node, Query query, int x, int y, int x1, int y1, Consumer<Rectangle> action) {
+        int found = 0;
+        for(int i = 0; i < node.count; i++) {
+            if(node.leaf) {
+                if(query.matches(node.minX[i], node.minY[i], node.maxX[i], node.maxY[i], x, y, x1, y1)) {
+                    action.accept((Rectangle) node.children[i]);
+                    found++;
+                }
+            }
+            else if(query.visits(node.minX[i], node.minY[i], node.maxX[i], node.maxY[i], x, y, x1, y1)) {
+                found += search((Node) node.children[i], query, x, y, x1, y1, action);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * searches below a node for the first n queries in live[depth], which
+     * all could find an answer there, and returns the number of results.
+     * every match also overlaps the batch's box (bx, by) to (bx1, by1), so
+     * children outside it are skipped without looking at the queries.
+     */
+    private static int search(Node node, Query[] queries, int[] boxes, int bx, int by, int bx1, int by1,
+            int[][] live, int depth, int n, BatchConsumer action) {
+        int found = 0;
+        int[] active = live[depth];
+        for(int i = 0; i < node.count; i++) {
+            int ax = node.minX[i], ay = node.minY[i], ax1 = node.maxX[i], ay1 = node.maxY[i];
+            if(!Rectangles.overlaps(ax, ay, ax1, ay1, bx, by, bx1, by1)) {
+                continue;
+            }
+
+            if(node.leaf) {
+                for(int k = 0; k < n; k++) {
+                    int q = active[k];
+                    int at = q * 4;
+                    if(queries[q].matches(ax, ay, ax1, ay1, boxes[at], boxes[at + 1], boxes[at + 2], boxes[at + 3])) {
+                        action.accept(q, (Rectangle) node.children[i]);
+                        found++;
+                    }
+                }
+            }
+            else {
+                int[] next = live[depth + 1];
+                int m = 0;
+                for(int k = 0; k < n; k++) {
+                    int q = active[k];
+                    int at = q * 4;
+                    if(queries[q].visits(ax, ay, ax1, ay1, boxes[at], boxes[at + 1], boxes[at + 2], boxes[at + 3])) {
+                        next[m++] = q;
+                    }
+                }
+                if(m > 0) {
+                    found += search((Node) node.children[i], queries, boxes, bx, by, bx1, by1, live, depth + 1, m,
+                            action);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * a depth first search that stops after each match.  the path from the
+     * root is kept as the node at each level and the next child to look at
+     * in it.
+     */
+    private final class Walk implements Spliterator<Rectangle> {
+        private final Query query;
+        private final int x;
+        private final int y;
+        private final int x1;
+        private final int y1;
+        private final Node[] path;
+        private final int[] next;
+        private int depth;
+
+        Walk(Query query, int x, int y, int x1, int y1) {
+            this.query = query;
+            this.x = x;
+            this.y = y;
+            this.x1 = x1;
+            this.y1 = y1;
+            this.path = new Node[height()];
+            this.next = new int[path.length];
+            path[0] = root;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Rectangle> action) {
+            while(depth >= 0) {
+                Node node = path[depth];
+                int i = next[depth];
+                if(i == node.count) {
+                    path[depth--] = null;
+                    continue;
+                }
+                next[depth] = i + 1;
+
+                if(node.leaf) {
+                    if(query.matches(node.minX[i], node.minY[i], node.maxX[i], node.maxY[i], x, y, x1, y1)) {
+                        action.accept((Rectangle) node.children[i]);
+                        return true;
+                    }
+                }
+                else if(query.visits(node.minX[i], node.minY[i], node.maxX[i], node.maxY[i], x, y, x1, y1)) {
+                    path[++depth] = (Node) node.children[i];
+                    next[depth] = 0;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<Rectangle> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return NONNULL;
+        }
+    }
+
+    /**
+     * the kinds of search the tree supports.  each one knows which stored
+     * entries match, and which node boxes could hold a match.
+     */
+    enum Query {
+        INTERSECTS {
+            @Override
+            boolean matches(int ax, int ay, int ax1, int ay1, int x, int y, int x1, int y1) {
+                return Rectangles.intersects(ax, ay, ax1, ay1, x, y, x1, y1);
+            }
+
+            @Override
+            boolean visits(int ax, int ay, int ax1, int ay1, int x, int y, int x1, int y1) {
+                return Rectangles.overlaps(ax, ay, ax1, ay1, x, y, x1, y1);
+            }
+        },
+        CONTAINS {
+            @Override
+            boolean matches(int ax, int ay, int ax1, int ay1, int x, int y, int x1, int y1) {
+                return Rectangles.contains(ax, ay, ax1, ay1, x, y, x1, y1);
+            }
+
+            @Override
+            boolean visits(int ax, int ay, int ax1, int ay1, int x, int y, int x1, int y1) {
+                return Rectangles.contains(ax, ay, ax1, ay1, x, y, x1, y1);
+            }
+        },
+        CONTAINED_BY {
+            @Override
+            boolean matches(int ax, int ay, int ax1, int ay1, int x, int y, int x1, int y1) {
+                return Rectangles.contains(x, y, x1, y1, ax, ay, ax1, ay1);
+            }
+
+            @Override
+            boolean visits(int ax, int ay, int ax1, int ay1, int x, int y, int x1, int y1) {
+                return Rectangles.overlaps(ax, ay, ax1, ay1, x, y, x1, y1);
+            }
+        },
+        ADJACENT {
+            @Override
+            boolean matches(int ax, int ay, int ax1, int ay1, int x, int y, int x1, int y1) {
+                return Rectangles.adjacent(ax, ay, ax1, ay1, x, y, x1, y1);
+            }
+
+            @Override
+            boolean visits(int ax, int ay, int ax1, int ay1, int x, int y, int x1, int y1) {
+                return Rectangles.overlaps(ax, ay, ax1, ay1, x, y, x1, y1);
+            }
+        },
+        OVERLAPS {
+            @Override
+            boolean matches(int ax, int ay, int ax1, int ay1, int x, int y, int x1, int y1) {
+                return Rectangles.overlaps(ax, ay, ax1, ay1, x, y, x1, y1);
+            }
+
+            @Override
+            boolean visits(int ax, int ay, int ax1, int ay1, int x, int y, int x1, int y1) {
+                return Rectangles.overlaps(ax, ay, ax1, ay1, x, y, x1, y1);
+            }
+        };
+
+        /**
+         * @return true if a stored rectangle a answers the query
+         */
+        abstract boolean matches(int ax, int ay, int ax1, int ay1, int x, int y, int x1, int y1);
+
+        /**
+         * @return true if a node with bounding box a could hold an answer
+         */
+        abstract boolean visits(int ax, int ay, int ax1, int ay1, int x, int y, int x1, int y1);
+    }
+
+    /**
+     * A node of the tree.  The bounding box of child i is kept in the four
+     * coordinate arrays; children are either <code>Rectangle</code>s (in a
+     * leaf) or other nodes.
+     */
+    static final class Node {
+        final boolean leaf;
+        int count;
+        // one extra slot so a node can overflow before it is split
+        final Object[] children = new Object[MAX_ENTRIES + 1];
+        final int[] minX = new int[MAX_ENTRIES + 1];
+        final int[] minY = new int[MAX_ENTRIES + 1];
+        final int[] maxX = new int[MAX_ENTRIES + 1];
+        final int[] maxY = new int[MAX_ENTRIES + 1];
+
+        Node(boolean leaf) {
+            this.leaf = leaf;
+        }
+
+        void add(Object child, int x, int y, int x1, int y1) {
+            children[count] = child;
+            setBox(count, x, y, x1, y1);
+            count++;
+        }
+
+        void setBox(int i, int x, int y, int x1, int y1) {
+            minX[i] = x;
+            minY[i] = y;
+            maxX[i] = x1;
+            maxY[i] = y1;
+        }
+
+        void remove(int i) {
+            int last = --count;
+            children[i] = children[last];
+            setBox(i, minX[last], minY[last], maxX[last], maxY[last]);
+            children[last] = null;
+        }
+
+        int boxMinX() {
+            int result = minX[0];
+            for(int i = 1; i < count; i++) {
+                result = Math.min(result, minX[i]);
+            }
+            return result;
+        }
+
+        int boxMinY() {
+            int result = minY[0];
+            for(int i = 1; i < count; i++) {
+                result = Math.min(result, minY[i]);
+            }
+            return result;
+        }
+
+        int boxMaxX() {
+            int result = maxX[0];
+            for(int i = 1; i < count; i++) {
+                result = Math.max(result, maxX[i]);
+            }
+            return result;
+        }
+
+        int boxMaxY() {
+            int result = maxY[0];
+            for(int i = 1; i < count; i++) {
+                result = Math.max(result, maxY[i]);
+            }
+            return result;
+        }
+
+        /**
+         * picks the child whose box grows the least to take in the new box,
+         * breaking ties by the smaller box.
+         */
+        int chooseSubtree(int x, int y, int x1, int y1) {
+            int best = 0;
+            long bestGrowth = Long.MAX_VALUE;
+            long bestArea = Long.MAX_VALUE;
+            for(int i = 0; i < count; i++) {
+                long area = area(minX[i], minY[i], maxX[i], maxY[i]);
+                long growth = area(Math.min(minX[i], x), Math.min(minY[i], y),
+                        Math.max(maxX[i], x1), Math.max(maxY[i], y1)) - area;
+                if(growth < bestGrowth || (growth == bestGrowth && area < bestArea)) {
+                    best = i;
+                    bestGrowth = growth;
+                    bestArea = area;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * splits an overflowing node with Guttman's quadratic split.  this
+         * node keeps one group and the other group is returned.
+         */
+        Node split() {
+            int n = count;
+            Object[] oldChildren = Arrays.copyOf(children, n);
+            int[] oldMinX = Arrays.copyOf(minX, n);
+            int[] oldMinY = Arrays.copyOf(minY, n);
+            int[] oldMaxX = Arrays.copyOf(maxX, n);
+            int[] oldMaxY = Arrays.copyOf(maxY, n);
+
+            // the two seeds are the pair that would waste the most area together
+            int seedA = 0;
+            int seedB = 1;
+            long worst = Long.MIN_VALUE;
+            for(int i = 0; i < n; i++) {
+                for(int j = i + 1; j < n; j++) {
+                    long waste = area(Math.min(oldMinX[i], oldMinX[j]), Math.min(oldMinY[i], oldMinY[j]),
+                            Math.max(oldMaxX[i], oldMaxX[j]), Math.max(oldMaxY[i], oldMaxY[j]))
+                            - area(oldMinX[i], oldMinY[i], oldMaxX[i], oldMaxY[i])
+                            - area(oldMinX[j], oldMinY[j], oldMaxX[j], oldMaxY[j]);
+                    if(waste > worst) {
+                        worst = waste;
+                        seedA = i;
+                        seedB = j;
+                    }
+                }
+            }
+
+            Arrays.fill(children, null);
+            count = 0;
+            Node sibling = new Node(leaf);
+            add(oldChildren[seedA], oldMinX[seedA], oldMinY[seedA], oldMaxX[seedA], oldMaxY[seedA]);
+            sibling.add(oldChildren[seedB], oldMinX[seedB], oldMinY[seedB], oldMaxX[seedB], oldMaxY[seedB]);
+
+            boolean[] assigned = new boolean[n];
+            assigned[seedA] = true;
+            assigned[seedB] = true;
+            int remaining = n - 2;
+            while(remaining > 0) {
+                // top up a group that needs every remaining entry to reach the minimum
+                Node forced = null;
+                if(count + remaining <= MIN_ENTRIES) {
+                    forced = this;
+                }
+                else if(sibling.count + remaining <= MIN_ENTRIES) {
+                    forced = sibling;
+                }
+
+                int next = -1;
+                Node target = null;
+                long bestDifference = -1;
+                for(int i = 0; i < n; i++) {
+                    if(assigned[i]) {
+                        continue;
+                    }
+                    long growthA = growth(this, oldMinX[i], oldMinY[i], oldMaxX[i], oldMaxY[i]);
+                    long growthB = growth(sibling, oldMinX[i], oldMinY[i], oldMaxX[i], oldMaxY[i]);
+                    long difference = Math.abs(growthA - growthB);
+                    if(difference > bestDifference) {
+                        bestDifference = difference;
+                        next = i;
+                        target = growthA < growthB || (growthA == growthB && count <= sibling.count) ? this : sibling;
+                    }
+                }
+
+                if(forced != null) {
+                    target = forced;
+                }
+                target.add(oldChildren[next], oldMinX[next], oldMinY[next], oldMaxX[next], oldMaxY[next]);
+                assigned[next] = true;
+                remaining--;
+            }
+
+            return sibling;
+        }
+
+        private static long growth(Node node, int x, int y, int x1, int y1) {
+            int bx = node.boxMinX();
+            int by = node.boxMinY();
+            int bx1 = node.boxMaxX();
+            int by1 = node.boxMaxY();
+            return area(Math.min(bx, x), Math.min(by, y), Math.max(bx1, x1), Math.max(by1, y1))
+                    - area(bx, by, bx1, by1);
+        }
+
+        private static long area(int x, int y, int x1, int y1) {
+            return ((long) x1 - x) * ((long) y1 - y);
+        }
+    }
+}
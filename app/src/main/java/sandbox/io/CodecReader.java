@@ -0,0 +1,207 @@
+package sandbox.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import sandbox.Rectangles;
+
+/**
+ * Reads rectangles encoded by {@link RectangleCodec}.
+ *
+ * The block headers are checked when the reader is created, and nothing
+ * else is decoded until it is asked for.  Rectangles are decoded straight
+ * out of the buffer into the consumer, one at a time, without allocating
+ * anything per rectangle.  A read with a window skips every block whose
+ * bounding box does not overlap the window.
+ *
+ * The reader does not change its buffer's position, so several readers
+ * and threads can share one.
+ *
+ * @author Wes McKean
+ */
+public class CodecReader {
+    private final ByteBuffer buffer;
+    private final long count;
+    private final int[] blocks;
+
+    private CodecReader(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if(this.buffer.limit() < RectangleCodec.HEADER_BYTES
+                || this.buffer.getInt(0) != RectangleCodec.MAGIC) {
+            throw new IOException("not a rectangle codec encoding");
+        }
+        if(this.buffer.getInt(4) != RectangleCodec.VERSION) {
+            throw new IOException("unsupported codec version " + this.buffer.getInt(4));
+        }
+        this.count = this.buffer.getLong(8);
+        int blockCount = this.buffer.getInt(16);
+        if(count < 0 || blockCount < 0) {
+            throw new IOException("corrupt codec header");
+        }
+
+        // find the blocks and make sure they add up
+        blocks = new int[blockCount];
+        long offset = RectangleCodec.HEADER_BYTES;
+        long records = 0;
+        for(int b = 0; b < blockCount; b++) {
+            if(offset + RectangleCodec.BLOCK_HEADER_BYTES > this.buffer.limit()) {
+                throw new IOException("codec encoding is truncated");
+            }
+            blocks[b] = (int) offset;
+            int bytes = this.buffer.getInt((int) offset);
+            int n = this.buffer.getInt((int) offset + 4);
+            if(bytes < 0 || n < 0) {
+                throw new IOException("corrupt codec block " + b);
+            }
+            records += n;
+            offset += RectangleCodec.BLOCK_HEADER_BYTES + (long) bytes;
+        }
+        if(offset > this.buffer.limit()) {
+            throw new IOException("codec encoding is truncated");
+        }
+        if(records != count) {
+            throw new IOException("codec blocks hold " + records + " rectangles, header says " + count);
+        }
+    }
+
+    /**
+     * Maps an encoded file into memory.
+     *
+     * @param path the file to read
+     * @return the reader
+     *
+     * @throws IOException if the file can not be read, is larger than 2 GB,
+     * or is not a valid encoding
+     */
+    public static CodecReader open(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path + " is too large to map");
+            }
+            return new CodecReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads an encoding held in memory, from the buffer's position to its
+     * limit.
+     *
+     * @param buffer the encoding
+     * @return the reader
+     *
+     * @throws IOException if the buffer does not hold a valid encoding
+     */
+    public static CodecReader wrap(ByteBuffer buffer) throws IOException {
+        return new CodecReader(buffer);
+    }
+
+    /**
+     * @return the number of rectangles
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * @return the number of blocks
+     */
+    public int blockCount() {
+        return blocks.length;
+    }
+
+    /**
+     * Decodes every rectangle.
+     *
+     * @param action called with the position of each rectangle in the
+     * encoding and its coordinates
+     */
+    public void forEach(RecordConsumer action) {
+        long index = 0;
+        for(int offset : blocks) {
+            index = decode(offset, index, action);
+        }
+    }
+
+    /**
+     * Decodes the rectangles that overlap or touch a window, skipping the
+     * blocks that can not hold any.
+     *
+     * @param window the window
+     * @param action called with the position of each matching rectangle in
+     * the encoding and its coordinates
+     * @return the number of rectangles passed to the action
+     */
+    public long forEach(Rectangle window, RecordConsumer action) {
+        int wx = window.getUpperLeft().getX();
+        int wy = window.getUpperLeft().getY();
+        int wx1 = window.getLowerRight().getX();
+        int wy1 = window.getLowerRight().getY();
+
+        long[] found = { 0 };
+        RecordConsumer filter = (index, x, y, x1, y1) -> {
+            if(Rectangles.overlaps(x, y, x1, y1, wx, wy, wx1, wy1)) {
+                found[0]++;
+                action.accept(index, x, y, x1, y1);
+            }
+        };
+
+        long index = 0;
+        for(int offset : blocks) {
+            if(Rectangles.overlaps(buffer.getInt(offset + 8), buffer.getInt(offset + 12),
+                    buffer.getInt(offset + 16), buffer.getInt(offset + 20), wx, wy, wx1, wy1)) {
+                index = decode(offset, index, filter);
+            }
+            else {
+                index += buffer.getInt(offset + 4);
+            }
+        }
+        return found[0];
+    }
+
+    /**
+     * @return every rectangle, in the order they were encoded
+     */
+    public RectangleArray toArray() {
+        RectangleArray result = new RectangleArray((int) Math.min(count, Integer.MAX_VALUE));
+        forEach((index, x, y, x1, y1) -> result.add(x, y, x1, y1));
+        return result;
+    }
+
+    /**
+     * decodes one block, returning the index after its last rectangle.  the
+     * read position is kept in a one element array rather than in the
+     * buffer so readers can share it.
+     */
+    private long decode(int offset, long index, RecordConsumer action) {
+        int n = buffer.getInt(offset + 4);
+        long x = buffer.getInt(offset + 8);
+        long y = buffer.getInt(offset + 12);
+        int[] position = { offset + RectangleCodec.BLOCK_HEADER_BYTES };
+        for(int k = 0; k < n; k++) {
+            x += RectangleCodec.unzigzag(varint(position));
+            y += RectangleCodec.unzigzag(varint(position));
+            long x1 = x + varint(position);
+            long y1 = y + varint(position);
+            action.accept(index++, (int) x, (int) y, (int) x1, (int) y1);
+        }
+        return index;
+    }
+
+    private long varint(int[] position) {
+        int p = position[0];
+        long value = 0;
+        for(int shift = 0; ; shift += 7) {
+            byte b = buffer.get(p++);
+            value |= (long) (b & 0x7F) << shift;
+            if(b >= 0) {
+                position[0] = p;
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package sandbox.io;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Allocates and frees direct buffers.
+ *
+ * The memory behind a direct buffer is normally returned only once the
+ * garbage collector notices the buffer is unreachable, which may be long
+ * after a multi gigabyte store has been closed.  {@link #free(ByteBuffer)}
+ * returns it straight away through <code>sun.misc.Unsafe.invokeCleaner</code>,
+ * which the JDK keeps for exactly this purpose.  It is looked up
+ * reflectively, and when it is missing freeing falls back to the garbage
+ * collector.
+ *
+ * A freed buffer must never be touched again; reading it can crash the JVM.
+ *
+ * @author Wes McKean
+ */
+final class DirectMemory {
+    private static final MethodHandle CLEANER = cleaner();
+
+    private DirectMemory() {
+    }
+
+    private static MethodHandle cleaner() {
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .unreflect(type.getMethod("invokeCleaner", ByteBuffer.class))
+                    .bindTo(field.get(null));
+        }
+        catch(ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param bytes the size of the buffer
+     * @return a new little-endian direct buffer
+     */
+    static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns the memory of a buffer made by {@link #allocate(int)}.
+     *
+     * @param buffer the buffer to free
+     * @return true if the memory was returned now, false if it is left to
+     * the garbage collector
+     */
+    static boolean free(ByteBuffer buffer) {
+        if(CLEANER == null) {
+            return false;
+        }
+        try {
+            CLEANER.invokeExact(buffer);
+            return true;
+        }
+        catch(Throwable e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package sandbox.io;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongConsumer;
+import sandbox.Point;
+import sandbox.Rectangle;
+import sandbox.Rectangles;
+import sandbox.metrics.Metrics;
+import sandbox.metrics.Probe;
+
+/**
+ * Rectangle records spread over a list of equally sized little-endian
+ * buffers.  A single <code>ByteBuffer</code> can not be larger than 2 GB, so
+ * large stores are cut into chunks of 2^chunkShift records and record i is
+ * found in chunk <code>i &gt;&gt; chunkShift</code>.
+ *
+ * @author Wes McKean
+ */
+abstract class QuadBuffers {
+    /**
+     * the default chunk holds 2^26 records, 1 GB
+     */
+    static final int DEFAULT_CHUNK_SHIFT = 26;
+
+    // the tests run by the bulk predicates
+    private static final int INTERSECTS = 0;
+    private static final int CONTAINS = 1;
+    private static final int ADJACENT = 2;
+
+    final int chunkShift;
+    final long chunkMask;
+    ByteBuffer[] chunks;
+
+    QuadBuffers(int chunkShift) {
+        if(chunkShift < 0 || chunkShift > 26) {
+            throw new IllegalArgumentException("chunkShift must be between 0 and 26");
+        }
+
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+        this.chunks = new ByteBuffer[0];
+    }
+
+    /**
+     * @return the number of rectangles stored
+     */
+    public abstract long size();
+
+    /**
+     * @throws IllegalStateException if the storage has been released
+     */
+    abstract void checkOpen();
+
+    private ByteBuffer chunk(long index) {
+        checkOpen();
+        if(index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size());
+        }
+        return chunks[(int) (index >>> chunkShift)];
+    }
+
+    private int offset(long index) {
+        return (int) (index & chunkMask) * RectangleFile.RECORD_BYTES;
+    }
+
+    /**
+     * @param index the rectangle to read
+     * @return the coordinate of the upper left corner on the x-axis
+     */
+    public int getX(long index) {
+        return chunk(index).getInt(offset(index));
+    }
+
+    /**
+     * @param index the rectangle to read
+     * @return the coordinate of the upper left corner on the y-axis
+     */
+    public int getY(long index) {
+        return chunk(index).getInt(offset(index) + 4);
+    }
+
+    /**
+     * @param index the rectangle to read
+     * @return the coordinate of the lower right corner on the x-axis
+     */
+    public int getX1(long index) {
+        return chunk(index).getInt(offset(index) + 8);
+    }
+
+    /**
+     * @param index the rectangle to read
+     * @return the coordinate of the lower right corner on the y-axis
+     */
+    public int getY1(long index) {
+        return chunk(index).getInt(offset(index) + 12);
+    }
+
+    /**
+     * Returns a flyweight view that reads straight from the storage.
+     *
+     * @return a new cursor; move it with {@link RecordCursor#moveTo(long)}
+     * before reading
+     */
+    public RecordCursor cursor() {
+        return new RecordCursor(this);
+    }
+
+    /**
+     * Hands every stored rectangle to the action, in order, reading the
+     * coordinates in place.
+     *
+     * @param action receives each rectangle
+     */
+    public void forEach(RecordConsumer action) {
+        forEach(0, size(), action);
+    }
+
+    /**
+     * Hands the stored rectangles from <code>from</code> (inclusive) to
+     * <code>to</code> (exclusive) to the action, in order.
+     *
+     * @param from the first rectangle
+     * @param to   one past the last rectangle
+     * @param action receives each rectangle
+     */
+    public void forEach(long from, long to, RecordConsumer action) {
+        checkOpen();
+        if(from < 0 || to > size() || from > to) {
+            throw new IndexOutOfBoundsException("invalid range [" + from + ", " + to + ") of " + size());
+        }
+
+        long index = from;
+        while(index < to) {
+            ByteBuffer chunk = chunks[(int) (index >>> chunkShift)];
+            long chunkEnd = Math.min(to, (index | chunkMask) + 1);
+            for(int offset = offset(index); index < chunkEnd; index++, offset += RectangleFile.RECORD_BYTES) {
+                action.accept(index, chunk.getInt(offset), chunk.getInt(offset + 4),
+                        chunk.getInt(offset + 8), chunk.getInt(offset + 12));
+            }
+        }
+    }
+
+    /**
+     * Hands the index of every stored rectangle that intersects the
+     * rectangle to the action, in ascending order.
+     *
+     * @param rectangle the <code>Rectangle</code> to test against
+     * @param action    receives the matching indexes
+     * @return the number of matches
+     * @see Rectangle#intersects(Rectangle)
+     */
+    public long intersects(Rectangle rectangle, LongConsumer action) {
+        return scan(INTERSECTS, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY(), action);
+    }
+
+    /**
+     * Hands the index of every stored rectangle that wholly contains the
+     * rectangle to the action, in ascending order.
+     *
+     * @param rectangle the <code>Rectangle</code> to test for containment
+     * @param action    receives the matching indexes
+     * @return the number of matches
+     * @see Rectangle#contains(Rectangle)
+     */
+    public long contains(Rectangle rectangle, LongConsumer action) {
+        return scan(CONTAINS, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY(), action);
+    }
+
+    /**
+     * Hands the index of every stored rectangle that contains the point to
+     * the action, in ascending order.
+     *
+     * @param pt     the <code>Point</code> to test for containment
+     * @param action receives the matching indexes
+     * @return the number of matches
+     * @see Rectangle#contains(Point)
+     */
+    public long contains(Point pt, LongConsumer action) {
+        return scan(CONTAINS, pt.getX(), pt.getY(), pt.getX(), pt.getY(), action);
+    }
+
+    /**
+     * Hands the index of every stored rectangle that shares a side with the
+     * rectangle to the action, in ascending order.
+     *
+     * @param rectangle the <code>Rectangle</code> to test against
+     * @param action    receives the matching indexes
+     * @return the number of matches
+     * @see Rectangle#adjacent(Rectangle)
+     */
+    public long adjacent(Rectangle rectangle, LongConsumer action) {
+        return scan(ADJACENT, rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY(), action);
+    }
+
+    /**
+     * tests every stored rectangle against the query, a chunk at a time so
+     * the inner loop reads the buffer directly.  a point is the query
+     * (px, py, px, py), which a closed rectangle contains exactly when it
+     * contains the point.
+     */
+    private long scan(int test, int qx, int qy, int qx1, int qy1, LongConsumer action) {
+        checkOpen();
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        long size = size();
+        long count = 0;
+        long index = 0;
+        while(index < size) {
+            ByteBuffer chunk = chunks[(int) (index >>> chunkShift)];
+            long chunkEnd = Math.min(size, (index | chunkMask) + 1);
+            for(int offset = offset(index); index < chunkEnd; index++, offset += RectangleFile.RECORD_BYTES) {
+                int x = chunk.getInt(offset);
+                int y = chunk.getInt(offset + 4);
+                int x1 = chunk.getInt(offset + 8);
+                int y1 = chunk.getInt(offset + 12);
+                boolean match = switch(test) {
+                    case INTERSECTS -> Rectangles.intersects(x, y, x1, y1, qx, qy, qx1, qy1);
+                    case CONTAINS -> Rectangles.contains(x, y, x1, y1, qx, qy, qx1, qy1);
+                    default -> Rectangles.adjacent(x, y, x1, y1, qx, qy, qx1, qy1);
+                };
+                if(match) {
+                    count++;
+                    action.accept(index);
+                }
+            }
+        }
+        if(Metrics.ENABLED) {
+            Probe.BUFFER_QUERY.record(start, count);
+        }
+        return count;
+    }
+}
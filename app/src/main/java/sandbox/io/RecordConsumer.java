@@ -0,0 +1,20 @@
+package sandbox.io;
+
+/**
+ * Receives stored rectangles one at a time as plain coordinates, so bulk
+ * iteration does not need to build <code>Rectangle</code>s.
+ *
+ * @author Wes McKean
+ */
+@FunctionalInterface
+public interface RecordConsumer {
+
+    /**
+     * @param index the position of the rectangle in its store
+     * @param x  the coordinate of the upper left corner on the x-axis
+     * @param y  the coordinate of the upper left corner on the y-axis
+     * @param x1 the coordinate of the lower right corner on the x-axis
+     * @param y1 the coordinate of the lower right corner on the y-axis
+     */
+    void accept(long index, int x, int y, int x1, int y1);
+}
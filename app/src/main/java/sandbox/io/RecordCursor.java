@@ -0,0 +1,62 @@
+package sandbox.io;
+
+import sandbox.RectangleView;
+
+/**
+ * A reusable, read-only view over one stored rectangle.  Each getter reads
+ * the coordinate straight from the storage, so moving the cursor costs
+ * nothing and nothing is copied.
+ *
+ * @author Wes McKean
+ */
+public final class RecordCursor implements RectangleView {
+    private final QuadBuffers buffers;
+    private long index;
+
+    RecordCursor(QuadBuffers buffers) {
+        this.buffers = buffers;
+    }
+
+    /**
+     * Positions this cursor over another rectangle.
+     *
+     * @param index the rectangle to look at
+     * @return this cursor
+     *
+     * @throws IndexOutOfBoundsException if index is not a stored rectangle
+     */
+    public RecordCursor moveTo(long index) {
+        if(index < 0 || index >= buffers.size()) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + buffers.size());
+        }
+        this.index = index;
+        return this;
+    }
+
+    /**
+     * @return the rectangle this cursor is positioned over
+     */
+    public long index() {
+        return index;
+    }
+
+    @Override
+    public int getX() {
+        return buffers.getX(index);
+    }
+
+    @Override
+    public int getY() {
+        return buffers.getY(index);
+    }
+
+    @Override
+    public int getX1() {
+        return buffers.getX1(index);
+    }
+
+    @Override
+    public int getY1() {
+        return buffers.getY1(index);
+    }
+}
@@ -0,0 +1,189 @@
+package sandbox.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import sandbox.HilbertCurve;
+import sandbox.RectangleArray;
+
+/**
+ * A compact binary encoding for sets of rectangles, for shipping them
+ * between processes and storing snapshots.  It is read by
+ * {@link CodecReader}.
+ *
+ * The rectangles are sorted along a Hilbert curve through their centres,
+ * so each one is usually close to the one before it, and cut into blocks of
+ * up to {@link #DEFAULT_BLOCK_SIZE} rectangles.  Each rectangle is stored
+ * as the distance of its upper left corner from the previous rectangle's
+ * and its size:
+ * <pre>
+ * zigzag(x - previous x)  zigzag(y - previous y)  x1 - x  y1 - y
+ * </pre>
+ * each as an unsigned LEB128 varint, so small numbers take a byte.  The
+ * first rectangle of a block is measured from the upper left corner of the
+ * block's bounding box, so every block decodes on its own.
+ *
+ * The header and the block headers are little-endian and fixed width:
+ * <pre>
+ * offset  size  field
+ *      0     4  magic, the ASCII bytes "RDLT"
+ *      4     4  format version, currently 1
+ *      8     8  number of rectangles
+ *     16     4  number of blocks
+ *     20     4  largest number of rectangles in a block
+ * then, for every block:
+ *      0     4  number of payload bytes that follow the block header
+ *      4     4  number of rectangles in the block
+ *      8    16  bounding box of the block: x, y, x1, y1
+ *     24     *  the payload
+ * </pre>
+ * A reader looking for a window skips every block whose bounding box misses
+ * it without decoding a byte of its payload.
+ *
+ * The rectangles come back in curve order, not the order they were given
+ * in.
+ *
+ * @author Wes McKean
+ */
+public final class RectangleCodec {
+    /**
+     * the first four bytes of every encoding, "RDLT" read as a little-endian
+     * int
+     */
+    public static final int MAGIC = 0x544c4452;
+    /**
+     * the version of the format written by this class
+     */
+    public static final int VERSION = 1;
+    /**
+     * the size of the header in bytes
+     */
+    public static final int HEADER_BYTES = 24;
+    /**
+     * the size of a block header in bytes
+     */
+    public static final int BLOCK_HEADER_BYTES = 24;
+    /**
+     * the number of rectangles in a block unless told otherwise
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 256;
+
+    /**
+     * the most bytes a rectangle can take: two 33-bit and two 32-bit
+     * varints
+     */
+    private static final int MAX_RECORD_BYTES = 20;
+
+    private RectangleCodec() {
+    }
+
+    /**
+     * Encodes rectangles into a file.
+     *
+     * @param path       the file to write; it is replaced if it exists
+     * @param rectangles the rectangles to encode
+     * @return the number of bytes written
+     *
+     * @throws IOException if the file can not be written
+     */
+    public static long write(Path path, RectangleArray rectangles) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return write(channel, rectangles, DEFAULT_BLOCK_SIZE);
+        }
+    }
+
+    /**
+     * Encodes rectangles onto a channel.
+     *
+     * @param channel    where to write the encoding
+     * @param rectangles the rectangles to encode
+     * @param blockSize  the most rectangles in a block
+     * @return the number of bytes written
+     *
+     * @throws IOException if the channel can not be written
+     */
+    public static long write(WritableByteChannel channel, RectangleArray rectangles, int blockSize)
+            throws IOException {
+        if(blockSize < 1 || blockSize > Integer.MAX_VALUE / MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("invalid block size " + blockSize);
+        }
+
+        int n = rectangles.size();
+        int blocks = (n + blockSize - 1) / blockSize;
+        int[] order = HilbertCurve.sort(rectangles);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(n).putInt(blocks).putInt(blockSize).flip();
+        long written = writeFully(channel, header);
+
+        ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer payload = ByteBuffer.allocate(blockSize * MAX_RECORD_BYTES);
+        for(int from = 0; from < n; from += blockSize) {
+            int to = Math.min(n, from + blockSize);
+
+            int minX = Integer.MAX_VALUE;
+            int minY = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE;
+            int maxY = Integer.MIN_VALUE;
+            for(int k = from; k < to; k++) {
+                int i = order[k];
+                minX = Math.min(minX, rectangles.getX(i));
+                minY = Math.min(minY, rectangles.getY(i));
+                maxX = Math.max(maxX, rectangles.getX1(i));
+                maxY = Math.max(maxY, rectangles.getY1(i));
+            }
+
+            payload.clear();
+            int previousX = minX;
+            int previousY = minY;
+            for(int k = from; k < to; k++) {
+                int i = order[k];
+                int x = rectangles.getX(i);
+                int y = rectangles.getY(i);
+                putVarint(payload, zigzag((long) x - previousX));
+                putVarint(payload, zigzag((long) y - previousY));
+                putVarint(payload, (long) rectangles.getX1(i) - x);
+                putVarint(payload, (long) rectangles.getY1(i) - y);
+                previousX = x;
+                previousY = y;
+            }
+            payload.flip();
+
+            blockHeader.clear();
+            blockHeader.putInt(payload.remaining()).putInt(to - from)
+                    .putInt(minX).putInt(minY).putInt(maxX).putInt(maxY).flip();
+            written += writeFully(channel, blockHeader);
+            written += writeFully(channel, payload);
+        }
+        return written;
+    }
+
+    private static long writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        long bytes = buffer.remaining();
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return bytes;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void putVarint(ByteBuffer buffer, long value) {
+        while((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+}
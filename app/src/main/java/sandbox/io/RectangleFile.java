@@ -0,0 +1,77 @@
+package sandbox.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * The binary rectangle file format.  Everything is little-endian and fixed
+ * width, so the file can be mapped into memory and read in place.
+ *
+ * <pre>
+ * offset  size  field
+ *      0     4  magic, the ASCII bytes "RECT"
+ *      4     4  format version, currently 1
+ *      8     8  number of rectangles (n)
+ *     16  16*n  one record per rectangle: x, y, x1, y1 as 32-bit ints
+ * </pre>
+ *
+ * @author Wes McKean
+ */
+public final class RectangleFile {
+    /**
+     * the first four bytes of every file, "RECT" read as a little-endian int
+     */
+    public static final int MAGIC = 0x54434552;
+    /**
+     * the version of the format written by <code>RectangleFileWriter</code>
+     */
+    public static final int VERSION = 1;
+    /**
+     * the size of the header in bytes
+     */
+    public static final int HEADER_BYTES = 16;
+    /**
+     * the size of one rectangle record in bytes
+     */
+    public static final int RECORD_BYTES = 16;
+
+    private RectangleFile() {
+    }
+
+    /**
+     * Reads and checks the header of a rectangle file.
+     *
+     * @param channel the open file
+     * @return the number of rectangles the header promises
+     *
+     * @throws IOException if the file can not be read, is not a rectangle
+     * file, or is shorter than the header says
+     */
+    static long readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while(header.hasRemaining()) {
+            if(channel.read(header, header.position()) < 0) {
+                throw new IOException("file is too short to be a rectangle file");
+            }
+        }
+
+        if(header.getInt(0) != MAGIC) {
+            throw new IOException("not a rectangle file");
+        }
+
+        if(header.getInt(4) != VERSION) {
+            throw new IOException("unsupported rectangle file version " + header.getInt(4));
+        }
+
+        // divided rather than multiplied, so a huge count in a damaged
+        // header can not overflow past the check
+        long count = header.getLong(8);
+        if(count < 0 || count > (channel.size() - HEADER_BYTES) / RECORD_BYTES) {
+            throw new IOException("rectangle file is truncated");
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,91 @@
+package sandbox.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a rectangle file (see {@link RectangleFile}) by mapping it into
+ * memory.  Nothing is parsed or copied up front; the coordinates are read
+ * in place when they are asked for, so opening a file of any size is
+ * immediate and the rectangles never land on the Java heap.
+ *
+ * Files larger than 2 GB are mapped as several chunks.
+ *
+ * The mappings stay valid until they are garbage collected, even after
+ * {@link #close()}, but the reader refuses to be used once it is closed.
+ *
+ * @author Wes McKean
+ */
+public class RectangleFileReader extends QuadBuffers implements Closeable {
+    private final FileChannel channel;
+    private final long count;
+    private boolean closed;
+
+    private RectangleFileReader(FileChannel channel, int chunkShift) throws IOException {
+        super(chunkShift);
+        this.channel = channel;
+        this.count = RectangleFile.readHeader(channel);
+
+        long recordsPerChunk = 1L << chunkShift;
+        int chunkCount = (int) ((count + recordsPerChunk - 1) >>> chunkShift);
+        chunks = new MappedByteBuffer[chunkCount];
+        for(int i = 0; i < chunkCount; i++) {
+            long first = (long) i << chunkShift;
+            long records = Math.min(recordsPerChunk, count - first);
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                    RectangleFile.HEADER_BYTES + first * RectangleFile.RECORD_BYTES,
+                    records * RectangleFile.RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Opens and maps a rectangle file.
+     *
+     * @param path the file to read
+     * @return the reader
+     *
+     * @throws IOException if the file can not be opened or is not a valid
+     * rectangle file
+     */
+    public static RectangleFileReader open(Path path) throws IOException {
+        return open(path, DEFAULT_CHUNK_SHIFT);
+    }
+
+    /**
+     * opens a file mapped in chunks of 2^chunkShift records.  small chunks
+     * let the tests cross chunk boundaries without multi gigabyte files.
+     */
+    static RectangleFileReader open(Path path, int chunkShift) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new RectangleFileReader(channel, chunkShift);
+        }
+        catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public long size() {
+        return count;
+    }
+
+    @Override
+    void checkOpen() {
+        if(closed) {
+            throw new IllegalStateException("reader is closed");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        channel.close();
+    }
+}
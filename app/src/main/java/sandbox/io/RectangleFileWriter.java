@@ -0,0 +1,169 @@
+package sandbox.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import sandbox.RectangleView;
+import sandbox.Rectangles;
+
+/**
+ * Writes a rectangle file (see {@link RectangleFile}) one rectangle at a
+ * time.  Records are gathered in a fixed size buffer and written as it
+ * fills, so memory use does not depend on the number of rectangles.  The
+ * count in the header is filled in by {@link #close()}; a file that was not
+ * closed is not a valid rectangle file.
+ *
+ * @author Wes McKean
+ */
+public class RectangleFileWriter implements Closeable {
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private long count;
+    private boolean closed;
+
+    private RectangleFileWriter(FileChannel channel) throws IOException {
+        this.channel = channel;
+        // room for the header, which is written on close
+        channel.position(RectangleFile.HEADER_BYTES);
+    }
+
+    /**
+     * Creates a rectangle file, replacing any file already at the path.
+     *
+     * @param path the file to write
+     * @return the writer
+     *
+     * @throws IOException if the file can not be created
+     */
+    public static RectangleFileWriter create(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            return new RectangleFileWriter(channel);
+        }
+        catch(IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes every rectangle of an array to a new file.
+     *
+     * @param path the file to write
+     * @param rectangles the rectangles to write, in order
+     *
+     * @throws IOException if the file can not be written
+     */
+    public static void write(Path path, RectangleArray rectangles) throws IOException {
+        try(RectangleFileWriter writer = create(path)) {
+            writer.writeAll(rectangles);
+        }
+    }
+
+    /**
+     * Appends a rectangle.
+     *
+     * @param x  the coordinate of the upper left corner on the x-axis
+     * @param y  the coordinate of the upper left corner on the y-axis
+     * @param x1 the coordinate of the lower right corner on the x-axis
+     * @param y1 the coordinate of the lower right corner on the y-axis
+     *
+     * @throws IOException if the file can not be written
+     * @throws IllegalArgumentException if the coordinates would not make a
+     * valid <code>Rectangle</code>
+     */
+    public void write(int x, int y, int x1, int y1) throws IOException {
+        if(closed) {
+            throw new IllegalStateException("writer is closed");
+        }
+        Rectangles.validate(x, y, x1, y1);
+
+        if(buffer.remaining() < RectangleFile.RECORD_BYTES) {
+            flush();
+        }
+        buffer.putInt(x).putInt(y).putInt(x1).putInt(y1);
+        count++;
+    }
+
+    /**
+     * Appends a rectangle.
+     *
+     * @param rectangle the rectangle to write
+     *
+     * @throws IOException if the file can not be written
+     */
+    public void write(Rectangle rectangle) throws IOException {
+        write(rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * Appends the rectangle currently under a view.
+     *
+     * @param view the rectangle to write
+     *
+     * @throws IOException if the file can not be written
+     */
+    public void write(RectangleView view) throws IOException {
+        write(view.getX(), view.getY(), view.getX1(), view.getY1());
+    }
+
+    /**
+     * Appends every rectangle of an array, in order.
+     *
+     * @param rectangles the rectangles to write
+     *
+     * @throws IOException if the file can not be written
+     */
+    public void writeAll(RectangleArray rectangles) throws IOException {
+        for(int i = 0; i < rectangles.size(); i++) {
+            write(rectangles.getX(i), rectangles.getY(i), rectangles.getX1(i), rectangles.getY1(i));
+        }
+    }
+
+    /**
+     * @return the number of rectangles written so far
+     */
+    public long count() {
+        return count;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes any buffered records and the header, then closes the file.
+     *
+     * @throws IOException if the file can not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if(closed) {
+            return;
+        }
+        closed = true;
+
+        try(channel) {
+            flush();
+            ByteBuffer header = ByteBuffer.allocate(RectangleFile.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(RectangleFile.MAGIC).putInt(RectangleFile.VERSION).putLong(count).flip();
+            while(header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package sandbox.io;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import sandbox.Rectangles;
+
+/**
+ * A growable store of rectangles kept outside the Java heap, for sets too
+ * large to hold as objects or even as <code>RectangleArray</code>s without
+ * long garbage collection pauses.
+ *
+ * Rectangles are appended as records of four little-endian ints, the same
+ * layout as a rectangle file (see {@link RectangleFile}), in direct buffers
+ * of 2^20 records (16 MB) each.  The garbage collector sees one small
+ * buffer object per chunk, however many rectangles there are.  Stored
+ * rectangles are read in place through the getters, flyweight views from
+ * {@link #cursor()}, {@link #forEach(RecordConsumer)} and the bulk
+ * predicates, none of which copy anything onto the heap.
+ *
+ * The memory is returned by {@link #close()} rather than whenever the
+ * garbage collector gets to it, and the store refuses to be used once it is
+ * closed.  The total is limited by <code>-XX:MaxDirectMemorySize</code>,
+ * which defaults to the maximum heap size.
+ *
+ * A store is not thread safe.  Any number of threads may read it as long as
+ * none of them appends to it or closes it.
+ *
+ * @author Wes McKean
+ */
+public class RectangleStore extends QuadBuffers implements Closeable {
+    /**
+     * the default chunk holds 2^20 records, 16 MB
+     */
+    static final int STORE_CHUNK_SHIFT = 20;
+
+    private long size;
+    private boolean closed;
+
+    /**
+     * Default constructor.  Creates an empty store.
+     */
+    public RectangleStore() {
+        this(STORE_CHUNK_SHIFT);
+    }
+
+    /**
+     * creates a store that allocates chunks of 2^chunkShift records.  small
+     * chunks let the tests cross chunk boundaries cheaply.
+     */
+    RectangleStore(int chunkShift) {
+        super(chunkShift);
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return true if nothing has been stored
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of bytes of direct memory the store holds
+     */
+    public long getAllocatedBytes() {
+        return (long) chunks.length * RectangleFile.RECORD_BYTES << chunkShift;
+    }
+
+    /**
+     * Appends a rectangle.
+     *
+     * @param x  upper left x
+     * @param y  upper left y
+     * @param x1 lower right x
+     * @param y1 lower right y
+     * @return the index of the new rectangle
+     *
+     * @throws IllegalArgumentException if the corners do not make a valid
+     * rectangle
+     */
+    public long append(int x, int y, int x1, int y1) {
+        checkOpen();
+        Rectangles.validate(x, y, x1, y1);
+
+        long index = size;
+        int chunk = (int) (index >>> chunkShift);
+        if(chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunk + 1);
+            chunks[chunk] = DirectMemory.allocate(RectangleFile.RECORD_BYTES << chunkShift);
+        }
+
+        ByteBuffer buffer = chunks[chunk];
+        int offset = (int) (index & chunkMask) * RectangleFile.RECORD_BYTES;
+        buffer.putInt(offset, x);
+        buffer.putInt(offset + 4, y);
+        buffer.putInt(offset + 8, x1);
+        buffer.putInt(offset + 12, y1);
+        size++;
+        return index;
+    }
+
+    /**
+     * Appends a rectangle.
+     *
+     * @param rectangle the rectangle to store
+     * @return the index of the new rectangle
+     */
+    public long append(Rectangle rectangle) {
+        return append(rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * Appends every rectangle in an array, in order.
+     *
+     * @param rectangles the rectangles to store
+     * @return the index of the first new rectangle
+     */
+    public long appendAll(RectangleArray rectangles) {
+        long first = size;
+        for(int i = 0; i < rectangles.size(); i++) {
+            append(rectangles.getX(i), rectangles.getY(i), rectangles.getX1(i), rectangles.getY1(i));
+        }
+        return first;
+    }
+
+    @Override
+    void checkOpen() {
+        if(closed) {
+            throw new IllegalStateException("store is closed");
+        }
+    }
+
+    /**
+     * Returns the memory of the store.  Closing a closed store does
+     * nothing.
+     */
+    @Override
+    public void close() {
+        if(closed) {
+            return;
+        }
+        closed = true;
+
+        // drop the chunks before freeing them, so nothing can reach freed memory
+        ByteBuffer[] released = chunks;
+        chunks = new ByteBuffer[0];
+        size = 0;
+        for(ByteBuffer chunk : released) {
+            DirectMemory.free(chunk);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package sandbox.join;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import sandbox.RectangleArray;
+
+/**
+ * The adjacency graph of a set of rectangles: rectangle i and rectangle j are
+ * neighbours exactly when <code>Rectangle.adjacent</code> is true for them.
+ *
+ * The graph is stored in compressed sparse row form.  The neighbours of
+ * rectangle i are <code>neighbors[offsets[i]]</code> up to (but not
+ * including) <code>neighbors[offsets[i + 1]]</code>, sorted in ascending
+ * order.  Every edge is stored in both directions.
+ *
+ * {@link #build(RectangleArray)} does not test every pair.  Two rectangles
+ * can only share a side if the bottom of one lies on the same line as the
+ * top of the other, or the right side of one lies on the same line as the
+ * left side of the other.  The builder groups the sides by that line and
+ * only matches overlapping sides within a group, so the cost is the sorting
+ * plus the number of edges found.
+ *
+ * @author Wes McKean
+ */
+public class AdjacencyGraph {
+    private final int[] offsets;
+    private final int[] neighbors;
+
+    private AdjacencyGraph(int[] offsets, int[] neighbors) {
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+    }
+
+    /**
+     * Builds the adjacency graph of a set of rectangles.
+     *
+     * @param rectangles the rectangles; vertex i of the graph is entry i
+     * @return the adjacency graph
+     * @see sandbox.Rectangle#adjacent(sandbox.Rectangle)
+     */
+    public static AdjacencyGraph build(RectangleArray rectangles) {
+        int n = rectangles.size();
+        int[] x = new int[n];
+        int[] y = new int[n];
+        int[] x1 = new int[n];
+        int[] y1 = new int[n];
+        for(int i = 0; i < n; i++) {
+            x[i] = rectangles.getX(i);
+            y[i] = rectangles.getY(i);
+            x1[i] = rectangles.getX1(i);
+            y1[i] = rectangles.getY1(i);
+        }
+
+        EdgeList edges = new EdgeList();
+        // bottom sides against top sides, matched along the x-axis
+        matchSides(y1, y, x, x1, edges);
+        // right sides against left sides, matched along the y-axis
+        matchSides(x1, x, y, y1, edges);
+
+        // a pair touching at a corner is found by both passes
+        long[] pairs = edges.sortedUnique();
+
+        int[] offsets = new int[n + 1];
+        for(long pair : pairs) {
+            offsets[(int) (pair >>> 32) + 1]++;
+            offsets[(int) pair + 1]++;
+        }
+        for(int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        int[] neighbors = new int[pairs.length * 2];
+        int[] next = Arrays.copyOf(offsets, n);
+        for(long pair : pairs) {
+            int i = (int) (pair >>> 32);
+            int j = (int) pair;
+            neighbors[next[i]++] = j;
+            neighbors[next[j]++] = i;
+        }
+
+        return new AdjacencyGraph(offsets, neighbors);
+    }
+
+    /**
+     * finds every pair (a, b) where side a of the first kind lies on the same
+     * line as side b of the second kind and the two sides overlap.
+     *
+     * @param lineA the line each rectangle's first side lies on
+     * @param lineB the line each rectangle's second side lies on
+     * @param start where each side starts along the line
+     * @param end   where each side ends along the line
+     */
+    private static void matchSides(int[] lineA, int[] lineB, int[] start, int[] end, EdgeList edges) {
+        int n = lineA.length;
+        long[] sidesA = new long[n];
+        long[] sidesB = new long[n];
+        for(int i = 0; i < n; i++) {
+            sidesA[i] = key(lineA[i], i);
+            sidesB[i] = key(lineB[i], i);
+        }
+        Arrays.sort(sidesA);
+        Arrays.sort(sidesB);
+
+        long[] groupA = new long[n];
+        long[] groupB = new long[n];
+        int[] activeA = new int[n];
+        int[] activeB = new int[n];
+
+        int a = 0;
+        int b = 0;
+        while(a < n && b < n) {
+            int line = value(sidesA[a]);
+            int lineOfB = value(sidesB[b]);
+            if(line < lineOfB) {
+                a++;
+                continue;
+            }
+            if(lineOfB < line) {
+                b++;
+                continue;
+            }
+
+            // both kinds of side lie on this line; order each group by start
+            int countA = 0;
+            for(; a < n && value(sidesA[a]) == line; a++) {
+                int i = (int) sidesA[a];
+                groupA[countA++] = key(start[i], i);
+            }
+            int countB = 0;
+            for(; b < n && value(sidesB[b]) == line; b++) {
+                int i = (int) sidesB[b];
+                groupB[countB++] = key(start[i], i);
+            }
+            Arrays.sort(groupA, 0, countA);
+            Arrays.sort(groupB, 0, countB);
+
+            // sweep along the line; a side overlaps every active side of the
+            // other kind that has not ended before it starts
+            int activeCountA = 0;
+            int activeCountB = 0;
+            int nextA = 0;
+            int nextB = 0;
+            while(nextA < countA || nextB < countB) {
+                boolean takeA = nextB == countB || (nextA < countA && groupA[nextA] <= groupB[nextB]);
+                if(takeA) {
+                    int i = (int) groupA[nextA++];
+                    activeCountB = overlapping(i, start[i], activeB, activeCountB, end, edges);
+                    activeA[activeCountA++] = i;
+                }
+                else {
+                    int i = (int) groupB[nextB++];
+                    activeCountA = overlapping(i, start[i], activeA, activeCountA, end, edges);
+                    activeB[activeCountB++] = i;
+                }
+            }
+        }
+    }
+
+    private static int overlapping(int i, int position, int[] active, int activeCount, int[] end, EdgeList edges) {
+        int activeAfter = 0;
+        for(int k = 0; k < activeCount; k++) {
+            int j = active[k];
+            if(end[j] < position) {
+                continue;
+            }
+            active[activeAfter++] = j;
+            if(i != j) {
+                edges.add(Math.min(i, j), Math.max(i, j));
+            }
+        }
+        return activeAfter;
+    }
+
+    private static long key(int value, int index) {
+        return ((long) value << 32) | index;
+    }
+
+    private static int value(long key) {
+        return (int) (key >> 32);
+    }
+
+    /**
+     * @return the number of vertices (rectangles) in the graph
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @return the number of edges in the graph, each counted once
+     */
+    public int edgeCount() {
+        return neighbors.length / 2;
+    }
+
+    /**
+     * @param i a vertex of the graph
+     * @return the number of rectangles adjacent to rectangle i
+     */
+    public int degree(int i) {
+        return offsets[i + 1] - offsets[i];
+    }
+
+    /**
+     * @param i a vertex of the graph
+     * @param k which neighbour to return, from zero to degree(i) - 1
+     * @return the k-th smallest index of a rectangle adjacent to rectangle i
+     */
+    public int neighbor(int i, int k) {
+        if(k < 0 || k >= degree(i)) {
+            throw new IndexOutOfBoundsException("neighbor " + k + " out of bounds for degree " + degree(i));
+        }
+        return neighbors[offsets[i] + k];
+    }
+
+    /**
+     * Hands the index of every rectangle adjacent to rectangle i, in
+     * ascending order, to the action.
+     *
+     * @param i a vertex of the graph
+     * @param action receives the neighbours
+     */
+    public void forEachNeighbor(int i, IntConsumer action) {
+        for(int k = offsets[i], end = offsets[i + 1]; k < end; k++) {
+            action.accept(neighbors[k]);
+        }
+    }
+
+    /**
+     * @param i a vertex of the graph
+     * @param j another vertex of the graph
+     * @return true if rectangles i and j are adjacent
+     */
+    public boolean adjacent(int i, int j) {
+        return Arrays.binarySearch(neighbors, offsets[i], offsets[i + 1], j) >= 0;
+    }
+
+    /**
+     * The row offsets of the graph.  The array is shared with the graph, so
+     * it must not be modified.
+     *
+     * @return an array of size() + 1 offsets into {@link #getNeighbors()}
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * The neighbour lists of the graph, one after another.  The array is
+     * shared with the graph, so it must not be modified.
+     *
+     * @return the neighbour lists
+     */
+    public int[] getNeighbors() {
+        return neighbors;
+    }
+
+    /**
+     * a growable list of pairs, each packed into a long with the smaller
+     * index in the high half.
+     */
+    private static final class EdgeList {
+        private long[] pairs = new long[64];
+        private int size;
+
+        void add(int i, int j) {
+            if(size == pairs.length) {
+                pairs = Arrays.copyOf(pairs, size * 2);
+            }
+            pairs[size++] = key(i, j);
+        }
+
+        long[] sortedUnique() {
+            Arrays.sort(pairs, 0, size);
+            int unique = 0;
+            for(int k = 0; k < size; k++) {
+                if(unique == 0 || pairs[k] != pairs[unique - 1]) {
+                    pairs[unique++] = pairs[k];
+                }
+            }
+            return Arrays.copyOf(pairs, unique);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package sandbox.join;
+
+/**
+ * Receives intersecting pairs of rectangles together with the area they
+ * share.
+ *
+ * @author Wes McKean
+ */
+@FunctionalInterface
+public interface IntersectionConsumer {
+
+    /**
+     * called once for every intersecting pair.  The shared area is the one
+     * <code>Rectangle.intersection</code> computes.  When the two rectangles
+     * only touch, the area is a line (x == x1 or y == y1), which
+     * <code>Rectangle.intersection</code> cannot build as a
+     * <code>Rectangle</code>.
+     *
+     * @param i  the index of the first rectangle of the pair
+     * @param j  the index of the second rectangle of the pair
+     * @param x  the upper left corner of the shared area on the x-axis
+     * @param y  the upper left corner of the shared area on the y-axis
+     * @param x1 the lower right corner of the shared area on the x-axis
+     * @param y1 the lower right corner of the shared area on the y-axis
+     */
+    void accept(int i, int j, int x, int y, int x1, int y1);
+}
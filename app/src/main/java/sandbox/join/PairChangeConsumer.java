@@ -0,0 +1,24 @@
+package sandbox.join;
+
+/**
+ * Receives the pairs that started or stopped being related when a
+ * {@link PairTracker} commits a batch of changes.
+ *
+ * @author Wes McKean
+ */
+@FunctionalInterface
+public interface PairChangeConsumer {
+
+    /**
+     * called once for every pair whose relationship changed.
+     *
+     * @param i        the handle of the first rectangle of the pair
+     * @param j        the handle of the second rectangle of the pair, greater
+     * than i
+     * @param relation <code>Relation.INTERSECTS</code> or
+     * <code>Relation.ADJACENT</code>
+     * @param added    true if the pair became related, false if it stopped
+     * being related
+     */
+    void accept(int i, int j, int relation, boolean added);
+}
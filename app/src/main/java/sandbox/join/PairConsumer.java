@@ -0,0 +1,19 @@
+package sandbox.join;
+
+/**
+ * Receives pairs of rectangles, identified by their indexes, as a join
+ * finds them.
+ *
+ * @author Wes McKean
+ */
+@FunctionalInterface
+public interface PairConsumer {
+
+    /**
+     * called once for every pair the join reports.
+     *
+     * @param i the index of the first rectangle of the pair
+     * @param j the index of the second rectangle of the pair
+     */
+    void accept(int i, int j);
+}
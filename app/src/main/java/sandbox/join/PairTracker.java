@@ -0,0 +1,432 @@
+package sandbox.join;
+
+import java.util.Arrays;
+import sandbox.PointCodec;
+import sandbox.PointSet;
+import sandbox.Rectangle;
+import sandbox.RectangleListener;
+import sandbox.Rectangles;
+import sandbox.Relation;
+import sandbox.index.GridIndex;
+
+/**
+ * Keeps the set of intersecting pairs and the set of adjacent pairs of a
+ * collection of moving rectangles up to date, reporting only what changed.
+ *
+ * Rectangles are added, moved and removed through their handles, or
+ * followed with {@link #track(Rectangle)} so that calling their setters is
+ * enough.  Changes are collected until {@link #commit(PairChangeConsumer)},
+ * which works out the pairs that were gained and lost and hands just those
+ * over.  The pairs are the ones <code>Rectangle.intersects</code> and
+ * <code>Rectangle.adjacent</code> would find, with handles in place of
+ * rectangles.
+ *
+ * A commit only looks at the rectangles that changed.  For each one it
+ * lists the pairs it was part of, using its old position, and after every
+ * change has been applied it finds its new partners in a
+ * {@link GridIndex}.  A partner that is not in the sets yet is a new pair.
+ * The listed pairs are then checked again at the new positions, and only
+ * the ones that no longer hold are taken out and reported.  The lists are
+ * plain arrays that are emptied by resetting their size, so the cost of a
+ * commit follows the number of rectangles moved and how crowded their
+ * neighbourhoods are, not the size of the collection or of any earlier
+ * commit.
+ *
+ * The pairs are kept as <code>PointCodec</code> codes of the two handles,
+ * lower handle first, in <code>PointSet</code>s, so asking whether two
+ * rectangles intersect is a hash lookup and nothing is allocated per pair.
+ *
+ * @author Wes McKean
+ */
+public class PairTracker {
+    private static final int NONE = -1;
+
+    private final GridIndex grid;
+    private final PointSet intersecting = new PointSet();
+    private final PointSet adjacent = new PointSet();
+    /**
+     * the pairs the changed rectangles were part of, which may be lost
+     */
+    private final CodeList oldIntersecting = new CodeList();
+    private final CodeList oldAdjacent = new CodeList();
+
+    private Rectangle[] tracked = new Rectangle[16];
+    private int[] x = new int[16];
+    private int[] y = new int[16];
+    private int[] x1 = new int[16];
+    private int[] y1 = new int[16];
+    private boolean[] dirty = new boolean[16];
+    private boolean[] removed = new boolean[16];
+    private int[] pending = new int[16];
+    private int pendingCount;
+
+    /**
+     * Default constructor.  Creates an empty tracker over a grid of 64 by
+     * 64 cells.
+     */
+    public PairTracker() {
+        this(GridIndex.DEFAULT_CELL_SHIFT);
+    }
+
+    /**
+     * Creates an empty tracker over a grid of 2^cellShift by 2^cellShift
+     * cells.  The cells should be about as large as the typical rectangle.
+     *
+     * @param cellShift the base two logarithm of the cell size, from 1 to 30
+     *
+     * @throws IllegalArgumentException if cellShift is out of range
+     */
+    public PairTracker(int cellShift) {
+        this.grid = new GridIndex(cellShift);
+    }
+
+    /**
+     * Adds a rectangle given by its coordinates.  Its pairs are reported by
+     * the next commit.
+     *
+     * @param x  the coordinate of the upper left corner on the x-axis
+     * @param y  the coordinate of the upper left corner on the y-axis
+     * @param x1 the coordinate of the lower right corner on the x-axis
+     * @param y1 the coordinate of the lower right corner on the y-axis
+     * @return the handle of the new rectangle
+     *
+     * @throws IllegalArgumentException if the coordinates do not make a valid
+     * <code>Rectangle</code>
+     */
+    public int add(int x, int y, int x1, int y1) {
+        int handle = grid.insert(x, y, x1, y1);
+        ensureCapacity(handle + 1);
+        tracked[handle] = null;
+        removed[handle] = false;
+        stage(handle, x, y, x1, y1);
+        return handle;
+    }
+
+    /**
+     * Adds a copy of the rectangle's coordinates.  Later changes to the
+     * rectangle are not seen; see {@link #track(Rectangle)}.
+     *
+     * @param rectangle the rectangle to add
+     * @return the handle of the new rectangle
+     */
+    public int add(Rectangle rectangle) {
+        return add(rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * Adds a rectangle and follows it: every call to one of its setters
+     * marks it as changed, and the next commit reads its position from it.
+     * The rectangle must be valid again by the time of the commit.
+     *
+     * @param rectangle the rectangle to follow
+     * @return the handle of the new rectangle
+     *
+     * @throws IllegalArgumentException if the rectangle already has a
+     * listener
+     */
+    public int track(Rectangle rectangle) {
+        if(rectangle.getListener() != null) {
+            throw new IllegalArgumentException("rectangle already has a listener");
+        }
+        int handle = add(rectangle);
+        tracked[handle] = rectangle;
+        rectangle.setListener(new Follower(handle));
+        return handle;
+    }
+
+    /**
+     * Moves or resizes a rectangle.  The move takes effect, and its pairs
+     * are reported, at the next commit.
+     *
+     * @param handle the rectangle
+     * @param x      the new coordinate of the upper left corner on the x-axis
+     * @param y      the new coordinate of the upper left corner on the y-axis
+     * @param x1     the new coordinate of the lower right corner on the x-axis
+     * @param y1     the new coordinate of the lower right corner on the y-axis
+     *
+     * @throws IllegalArgumentException if the handle is not in use or is
+     * tracked, or the coordinates do not make a valid <code>Rectangle</code>
+     */
+    public void move(int handle, int x, int y, int x1, int y1) {
+        checkHandle(handle);
+        if(tracked[handle] != null) {
+            throw new IllegalArgumentException("handle " + handle + " follows a rectangle");
+        }
+        Rectangles.validate(x, y, x1, y1);
+        stage(handle, x, y, x1, y1);
+    }
+
+    /**
+     * Removes a rectangle.  A tracked rectangle loses its listener at once;
+     * the pairs it was part of are reported as removed by the next commit,
+     * after which the handle may be reused.
+     *
+     * @param handle the rectangle
+     *
+     * @throws IllegalArgumentException if the handle is not in use
+     */
+    public void remove(int handle) {
+        checkHandle(handle);
+        if(tracked[handle] != null) {
+            tracked[handle].setListener(null);
+            tracked[handle] = null;
+        }
+        removed[handle] = true;
+        mark(handle);
+    }
+
+    /**
+     * @return the number of rectangles changed since the last commit
+     */
+    public int pendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * Applies every change made since the last commit and reports the pairs
+     * that became or stopped being intersecting or adjacent.  Pairs added
+     * are reported as they are found and the pairs lost after them.  The
+     * sink must not change the tracker.
+     *
+     * @param sink receives each pair that changed
+     * @return the number of changes reported
+     *
+     * @throws IllegalArgumentException if a tracked rectangle has been left
+     * invalid; nothing is changed in that case
+     */
+    public int commit(PairChangeConsumer sink) {
+        // read the new positions of the tracked rectangles first, so a bad
+        // one stops the commit before anything has changed
+        for(int k = 0; k < pendingCount; k++) {
+            int h = pending[k];
+            Rectangle r = tracked[h];
+            if(r != null) {
+                Rectangles.validate(r.getUpperLeft().getX(), r.getUpperLeft().getY(),
+                        r.getLowerRight().getX(), r.getLowerRight().getY());
+            }
+        }
+        for(int k = 0; k < pendingCount; k++) {
+            int h = pending[k];
+            Rectangle r = tracked[h];
+            if(r != null) {
+                x[h] = r.getUpperLeft().getX();
+                y[h] = r.getUpperLeft().getY();
+                x1[h] = r.getLowerRight().getX();
+                y1[h] = r.getLowerRight().getY();
+            }
+        }
+
+        // list every pair a changed rectangle was part of, once even when
+        // both of them changed.  the grid still holds the old positions,
+        // which is what the pairs describe
+        for(int k = 0; k < pendingCount; k++) {
+            int h = pending[k];
+            grid.overlapping(grid.getX(h), grid.getY(h), grid.getX1(h), grid.getY1(h), o -> {
+                if(o != h && (h < o || !dirty[o])) {
+                    long code = code(h, o);
+                    if(intersecting.containsCode(code)) {
+                        oldIntersecting.add(code);
+                    }
+                    if(adjacent.containsCode(code)) {
+                        oldAdjacent.add(code);
+                    }
+                }
+            });
+        }
+
+        for(int k = 0; k < pendingCount; k++) {
+            int h = pending[k];
+            if(removed[h]) {
+                grid.remove(h);
+            }
+            else {
+                grid.update(h, x[h], y[h], x1[h], y1[h]);
+            }
+        }
+
+        // add the pairs at the new positions, reporting the ones that were
+        // not there before
+        int[] changes = { 0 };
+        for(int k = 0; k < pendingCount; k++) {
+            int h = pending[k];
+            if(removed[h]) {
+                continue;
+            }
+            int hx = x[h], hy = y[h], hx1 = x1[h], hy1 = y1[h];
+            grid.overlapping(hx, hy, hx1, hy1, o -> {
+                if(o == h) {
+                    return;
+                }
+                int relation = Rectangles.relate(hx, hy, hx1, hy1,
+                        grid.getX(o), grid.getY(o), grid.getX1(o), grid.getY1(o));
+                long code = code(h, o);
+                if((relation & Relation.INTERSECTS) != 0 && intersecting.addCode(code)) {
+                    sink.accept(Math.min(h, o), Math.max(h, o), Relation.INTERSECTS, true);
+                    changes[0]++;
+                }
+                if((relation & Relation.ADJACENT) != 0 && adjacent.addCode(code)) {
+                    sink.accept(Math.min(h, o), Math.max(h, o), Relation.ADJACENT, true);
+                    changes[0]++;
+                }
+            });
+        }
+
+        // take out the old pairs that no longer hold
+        changes[0] += drop(oldIntersecting, intersecting, Relation.INTERSECTS, sink);
+        changes[0] += drop(oldAdjacent, adjacent, Relation.ADJACENT, sink);
+
+        for(int k = 0; k < pendingCount; k++) {
+            dirty[pending[k]] = false;
+        }
+        pendingCount = 0;
+        return changes[0];
+    }
+
+    /**
+     * @return the number of intersecting pairs as of the last commit
+     */
+    public int intersectingCount() {
+        return intersecting.size();
+    }
+
+    /**
+     * @return the number of adjacent pairs as of the last commit
+     */
+    public int adjacentCount() {
+        return adjacent.size();
+    }
+
+    /**
+     * @param i a handle
+     * @param j another handle
+     * @return true if the rectangles intersected as of the last commit
+     */
+    public boolean intersects(int i, int j) {
+        return intersecting.containsCode(code(i, j));
+    }
+
+    /**
+     * @param i a handle
+     * @param j another handle
+     * @return true if the rectangles were adjacent as of the last commit
+     */
+    public boolean adjacent(int i, int j) {
+        return adjacent.containsCode(code(i, j));
+    }
+
+    /**
+     * Hands every intersecting pair to the action, lower handle first, in
+     * no particular order.
+     *
+     * @param action receives each pair
+     */
+    public void forEachIntersecting(PairConsumer action) {
+        intersecting.forEach(action::accept);
+    }
+
+    /**
+     * Hands every adjacent pair to the action, lower handle first, in no
+     * particular order.
+     *
+     * @param action receives each pair
+     */
+    public void forEachAdjacent(PairConsumer action) {
+        adjacent.forEach(action::accept);
+    }
+
+    /**
+     * takes each listed pair out of the set unless the relation still holds
+     * between its rectangles, reports the ones taken out, and empties the
+     * list.  returns the number reported.
+     */
+    private int drop(CodeList old, PointSet pairs, int relation, PairChangeConsumer sink) {
+        int lost = 0;
+        for(int k = 0; k < old.size; k++) {
+            long code = old.codes[k];
+            int i = PointCodec.x(code);
+            int j = PointCodec.y(code);
+            if(removed[i] || removed[j] || (Rectangles.relate(grid.getX(i), grid.getY(i), grid.getX1(i),
+                    grid.getY1(i), grid.getX(j), grid.getY(j), grid.getX1(j), grid.getY1(j)) & relation) == 0) {
+                pairs.removeCode(code);
+                sink.accept(i, j, relation, false);
+                lost++;
+            }
+        }
+        old.size = 0;
+        return lost;
+    }
+
+    private static long code(int i, int j) {
+        return i < j ? PointCodec.encode(i, j) : PointCodec.encode(j, i);
+    }
+
+    private void stage(int handle, int x, int y, int x1, int y1) {
+        this.x[handle] = x;
+        this.y[handle] = y;
+        this.x1[handle] = x1;
+        this.y1[handle] = y1;
+        mark(handle);
+    }
+
+    private void mark(int handle) {
+        if(!dirty[handle]) {
+            dirty[handle] = true;
+            if(pendingCount == pending.length) {
+                pending = Arrays.copyOf(pending, pendingCount * 2);
+            }
+            pending[pendingCount++] = handle;
+        }
+    }
+
+    private void checkHandle(int handle) {
+        if(!grid.contains(handle) || removed[handle]) {
+            throw new IllegalArgumentException("no rectangle with handle " + handle);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if(capacity > x.length) {
+            int n = Math.max(capacity, x.length * 2);
+            tracked = Arrays.copyOf(tracked, n);
+            x = Arrays.copyOf(x, n);
+            y = Arrays.copyOf(y, n);
+            x1 = Arrays.copyOf(x1, n);
+            y1 = Arrays.copyOf(y1, n);
+            dirty = Arrays.copyOf(dirty, n);
+            removed = Arrays.copyOf(removed, n);
+        }
+    }
+
+    /**
+     * a growable list of pair codes.
+     */
+    private static final class CodeList {
+        long[] codes = new long[64];
+        int size;
+
+        void add(long code) {
+            if(size == codes.length) {
+                codes = Arrays.copyOf(codes, size * 2);
+            }
+            codes[size++] = code;
+        }
+    }
+
+    /**
+     * marks a tracked rectangle as changed whenever one of its setters is
+     * called.
+     */
+    private final class Follower implements RectangleListener {
+        private final int handle;
+
+        Follower(int handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public void changed(Rectangle rectangle) {
+            mark(handle);
+        }
+    }
+}
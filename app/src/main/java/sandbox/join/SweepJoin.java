@@ -0,0 +1,274 @@
+package sandbox.join;
+
+import java.util.Arrays;
+import sandbox.RectangleArray;
+import sandbox.Rectangles;
+
+/**
+ * Finds every intersecting pair of rectangles with a plane sweep instead of
+ * testing every rectangle against every other one.
+ *
+ * The rectangles are sorted by the left edge and swept from left to right.
+ * Only rectangles whose right edge has not yet been passed are kept active,
+ * and a new rectangle is only tested against the active ones that share a
+ * y-bucket with it.  The buckets cut the y-axis into bands about as tall as
+ * the average rectangle, and an active rectangle is filed in every band it
+ * reaches, so rectangles with long x-spans that never meet on the y-axis
+ * are never compared.  A pair sharing several bands is only reported from
+ * the band holding the top of the range they share.  Rectangles the sweep
+ * has passed are dropped from a band the next time it is looked at.
+ *
+ * The cost is the sort plus, for each rectangle, the active rectangles in
+ * the bands it reaches.  When the heights are about even that is close to
+ * the number of pairs reported.  Rectangles much taller than the average are
+ * filed in many bands, and rectangles much thinner than a band crowd into
+ * one without meeting each other.  The worst case is every rectangle in the
+ * same band, active at once, with few of them meeting on the y-axis: each
+ * rectangle is then compared with every active one, which is O(n^2).  There
+ * are never more bands than rectangles.
+ *
+ * Pairs are reported as the sweep finds them: in order of the left edge of
+ * the later rectangle, ties broken by index.  Two rectangles are reported
+ * exactly when <code>Rectangle.intersects</code> is true for them, so
+ * touching edges count and containment does not.
+ *
+ * @author Wes McKean
+ */
+public final class SweepJoin {
+
+    private SweepJoin() {
+    }
+
+    /**
+     * Reports every intersecting pair within one set of rectangles.
+     *
+     * @param rectangles the rectangles to join
+     * @param sink receives each pair once, with i &lt; j
+     * @see sandbox.Rectangle#intersects(sandbox.Rectangle)
+     */
+    public static void selfJoin(RectangleArray rectangles, PairConsumer sink) {
+        selfJoin(rectangles, (i, j, x, y, x1, y1) -> sink.accept(i, j));
+    }
+
+    /**
+     * Reports every intersecting pair within one set of rectangles, along
+     * with the area the pair shares.
+     *
+     * @param rectangles the rectangles to join
+     * @param sink receives each pair once, with i &lt; j
+     * @see sandbox.Rectangle#intersection(sandbox.Rectangle)
+     */
+    public static void selfJoin(RectangleArray rectangles, IntersectionConsumer sink) {
+        Coordinates c = new Coordinates(rectangles);
+        long[] order = sortByX(c);
+        Bands active = new Bands(c, c);
+
+        for(long key : order) {
+            int i = (int) key;
+            active.probe(c, i, c, false, true, sink);
+            active.add(c, i);
+        }
+    }
+
+    /**
+     * Reports every intersecting pair made of one rectangle from each set.
+     *
+     * @param a the first set of rectangles
+     * @param b the second set of rectangles
+     * @param sink receives each pair once, i being the index in a and j the
+     * index in b
+     * @see sandbox.Rectangle#intersects(sandbox.Rectangle)
+     */
+    public static void join(RectangleArray a, RectangleArray b, PairConsumer sink) {
+        join(a, b, (i, j, x, y, x1, y1) -> sink.accept(i, j));
+    }
+
+    /**
+     * Reports every intersecting pair made of one rectangle from each set,
+     * along with the area the pair shares.
+     *
+     * @param a the first set of rectangles
+     * @param b the second set of rectangles
+     * @param sink receives each pair once, i being the index in a and j the
+     * index in b
+     * @see sandbox.Rectangle#intersection(sandbox.Rectangle)
+     */
+    public static void join(RectangleArray a, RectangleArray b, IntersectionConsumer sink) {
+        Coordinates ca = new Coordinates(a);
+        Coordinates cb = new Coordinates(b);
+        long[] orderA = sortByX(ca);
+        long[] orderB = sortByX(cb);
+        Bands activeA = new Bands(ca, cb);
+        Bands activeB = new Bands(ca, cb);
+
+        int nextA = 0;
+        int nextB = 0;
+        while(nextA < orderA.length || nextB < orderB.length) {
+            boolean takeA = nextB == orderB.length
+                    || (nextA < orderA.length && ca.x[(int) orderA[nextA]] <= cb.x[(int) orderB[nextB]]);
+            if(takeA) {
+                int i = (int) orderA[nextA++];
+                activeB.probe(ca, i, cb, true, false, sink);
+                activeA.add(ca, i);
+            }
+            else {
+                int j = (int) orderB[nextB++];
+                activeA.probe(cb, j, ca, false, false, sink);
+                activeB.add(cb, j);
+            }
+        }
+    }
+
+    private static void report(Coordinates a, int i, Coordinates b, int j, boolean ordered, IntersectionConsumer sink) {
+        int ax = a.x[i], ay = a.y[i], ax1 = a.x1[i], ay1 = a.y1[i];
+        int bx = b.x[j], by = b.y[j], bx1 = b.x1[j], by1 = b.y1[j];
+
+        // cheap rejection on the y-axis before the full test
+        if(ay1 < by || ay > by1) {
+            return;
+        }
+
+        if(Rectangles.intersects(ax, ay, ax1, ay1, bx, by, bx1, by1)) {
+            int x = Math.max(ax, bx);
+            int y = Math.max(ay, by);
+            int x1 = Math.min(ax1, bx1);
+            int y1 = Math.min(ay1, by1);
+            if(ordered && j < i) {
+                sink.accept(j, i, x, y, x1, y1);
+            }
+            else {
+                sink.accept(i, j, x, y, x1, y1);
+            }
+        }
+    }
+
+    /**
+     * returns the indexes of the rectangles sorted by left edge, each packed
+     * in the low half of a long behind its left edge.
+     */
+    private static long[] sortByX(Coordinates c) {
+        long[] keys = new long[c.size];
+        for(int i = 0; i < c.size; i++) {
+            keys[i] = ((long) c.x[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * the active rectangles of one set, filed by the bands of the y-axis
+     * they reach.  both sets of a join use the same bands.
+     */
+    private static final class Bands {
+        private final int minY;
+        private final int shift;
+        private final int count;
+        private final int[][] members;
+        private final int[] sizes;
+
+        Bands(Coordinates a, Coordinates b) {
+            long lo = Long.MAX_VALUE, hi = Long.MIN_VALUE, height = 0;
+            for(Coordinates c : a == b ? new Coordinates[] { a } : new Coordinates[] { a, b }) {
+                for(int i = 0; i < c.size; i++) {
+                    lo = Math.min(lo, c.y[i]);
+                    hi = Math.max(hi, c.y1[i]);
+                    height += (long) c.y1[i] - c.y[i];
+                }
+            }
+            long n = a == b ? a.size : (long) a.size + b.size;
+            if(n == 0) {
+                lo = hi = 0;
+            }
+
+            // bands about as tall as the average rectangle, but never more
+            // of them than rectangles
+            int bits = 64 - Long.numberOfLeadingZeros(n == 0 ? 0 : height / n);
+            while(((hi - lo) >> bits) + 1 > Math.max(1, n)) {
+                bits++;
+            }
+            minY = (int) lo;
+            shift = bits;
+            count = (int) ((hi - lo) >> bits) + 1;
+            members = new int[count][];
+            sizes = new int[count];
+        }
+
+        private int band(int y) {
+            return (int) (((long) y - minY) >> shift);
+        }
+
+        void add(Coordinates c, int i) {
+            for(int k = band(c.y[i]), last = band(c.y1[i]); k <= last; k++) {
+                int[] band = members[k];
+                if(band == null) {
+                    band = members[k] = new int[4];
+                }
+                else if(sizes[k] == band.length) {
+                    band = members[k] = Arrays.copyOf(band, band.length * 2);
+                }
+                band[sizes[k]++] = i;
+            }
+        }
+
+        /**
+         * tests rectangle i of one set against the active rectangles of the
+         * other set in the bands it reaches, dropping the ones the sweep has
+         * passed.  fromFirst says whether i comes first in the pairs, and
+         * ordered that both sets are the same one.
+         */
+        void probe(Coordinates from, int i, Coordinates other, boolean fromFirst, boolean ordered,
+                IntersectionConsumer sink) {
+            int xi = from.x[i];
+            int yi = from.y[i];
+            for(int k = band(yi), last = band(from.y1[i]); k <= last; k++) {
+                int[] band = members[k];
+                int size = sizes[k];
+                int kept = 0;
+                for(int m = 0; m < size; m++) {
+                    int j = band[m];
+                    if(other.x1[j] < xi) {
+                        continue;
+                    }
+                    band[kept++] = j;
+                    // the pair is reported from the band holding the top
+                    // of the range the two share on the y-axis
+                    if(band(Math.max(yi, other.y[j])) == k) {
+                        if(fromFirst) {
+                            report(from, i, other, j, ordered, sink);
+                        }
+                        else {
+                            report(other, j, from, i, ordered, sink);
+                        }
+                    }
+                }
+                sizes[k] = kept;
+            }
+        }
+    }
+
+    /**
+     * a private copy of the coordinates so the sweep can read them without
+     * bounds checks on every access.
+     */
+    private static final class Coordinates {
+        final int size;
+        final int[] x;
+        final int[] y;
+        final int[] x1;
+        final int[] y1;
+
+        Coordinates(RectangleArray rectangles) {
+            size = rectangles.size();
+            x = new int[size];
+            y = new int[size];
+            x1 = new int[size];
+            y1 = new int[size];
+            for(int i = 0; i < size; i++) {
+                x[i] = rectangles.getX(i);
+                y[i] = rectangles.getY(i);
+                x1[i] = rectangles.getX1(i);
+                y1[i] = rectangles.getY1(i);
+            }
+        }
+    }
+}
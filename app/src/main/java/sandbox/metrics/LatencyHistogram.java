@@ -0,0 +1,168 @@
+package sandbox.metrics;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts latencies in log-linear buckets, the way HdrHistogram does: every
+ * power of two is split into 32 equal buckets, so a percentile is reported
+ * within about 3% of the true value whether it is 40 ns or 40 s.  Values
+ * below 32 get a bucket each.
+ *
+ * Recording is safe from any number of threads at once and never blocks:
+ * each bucket is an atomic counter in one fixed array.  The histogram uses
+ * the same 15 KB however many latencies it records.
+ *
+ * Reading while other threads record gives a view that may be slightly
+ * behind; take a {@link #snapshot()} for numbers that agree with each
+ * other.
+ *
+ * @author Wes McKean
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param nanos a latency in nanoseconds; negative values count as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucket(value));
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * returns the bucket a value falls in.
+     */
+    static int bucket(long value) {
+        if(value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (magnitude - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (magnitude - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * returns the largest value that falls in a bucket.
+     */
+    static long upperBound(int bucket) {
+        if(bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int magnitude = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long width = 1L << (magnitude - SUB_BITS);
+        return ((SUB_BUCKETS + sub) << (magnitude - SUB_BITS)) + width - 1;
+    }
+
+    /**
+     * @return the number of latencies recorded
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return the largest latency recorded, in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return the mean latency in nanoseconds, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : (double) total.sum() / n;
+    }
+
+    /**
+     * @param percentile a percentile between 0 and 100
+     * @return an upper bound for the latency at that percentile, in
+     * nanoseconds
+     *
+     * @throws IllegalArgumentException if the percentile is out of range
+     */
+    public long percentile(double percentile) {
+        if(!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+
+        long n = 0;
+        long[] counts = new long[BUCKETS];
+        for(int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            n += counts[i];
+        }
+        if(n == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(n * percentile / 100.0));
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if(seen >= rank) {
+                return Math.min(getMax(), upperBound(i));
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Copies the histogram.  The copy does not change when this one does.
+     *
+     * @return the copy
+     */
+    public LatencyHistogram snapshot() {
+        LatencyHistogram copy = new LatencyHistogram();
+        long n = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            long c = buckets.get(i);
+            copy.buckets.set(i, c);
+            n += c;
+        }
+        copy.count.add(n);
+        copy.total.add(total.sum());
+        copy.max.accumulate(max.get());
+        return copy;
+    }
+
+    /**
+     * Forgets every latency recorded.  Latencies recorded while the reset is
+     * under way may or may not be kept.
+     */
+    public void reset() {
+        for(int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+
+    /**
+     * Writes the count, mean, p50, p99, p99.9 and maximum latencies on one
+     * line.
+     *
+     * @param label what the latencies measure
+     * @param out   where to write the summary
+     */
+    public void print(String label, PrintStream out) {
+        out.printf("%s: %d, mean %.0f ns, p50 <= %d ns, p99 <= %d ns, p99.9 <= %d ns, max %d ns%n", label,
+                getCount(), getMean(), percentile(50), percentile(99), percentile(99.9), getMax());
+    }
+}
@@ -0,0 +1,88 @@
+package sandbox.metrics;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+
+/**
+ * Opt-in instrumentation for the geometry tests, the bulk scans and the
+ * index queries: call counters, latency histograms and Flight Recorder
+ * events, grouped by {@link Probe}.
+ *
+ * Metrics are off unless the JVM is started with the system property
+ * <code>sandbox.metrics</code> set to true.  The switch is read once into
+ * {@link #ENABLED}, a <code>static final</code> field, and every probe is
+ * guarded by it:
+ * <pre>
+ * if(Metrics.ENABLED) {
+ *     Probe.RECTANGLE_INTERSECTS.count();
+ * }
+ * </pre>
+ * so when metrics are off the JIT folds the test away and instrumented
+ * code runs exactly as it would without it.  <code>MetricsBenchmark</code>
+ * measures both settings.
+ *
+ * When metrics are on, setting <code>sandbox.metrics.report</code> to
+ * <code>stderr</code> or to a file name makes {@link #startReporter()}
+ * write every probe that has been called at an interval given in seconds
+ * by <code>sandbox.metrics.interval</code>, every 10 seconds by default.
+ *
+ * @author Wes McKean
+ */
+public final class Metrics {
+    /**
+     * true if the JVM was started with <code>-Dsandbox.metrics=true</code>
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("sandbox.metrics");
+
+    private static final long DEFAULT_INTERVAL = 10;
+
+    private Metrics() {
+    }
+
+    /**
+     * Copies every probe's counters and histogram.
+     *
+     * @return the copy
+     */
+    public static Snapshot snapshot() {
+        return new Snapshot();
+    }
+
+    /**
+     * Zeroes every probe.
+     */
+    public static void reset() {
+        for(Probe probe : Probe.values()) {
+            probe.reset();
+        }
+    }
+
+    /**
+     * Starts the reporter the system properties ask for.
+     *
+     * @return the reporter, or null if metrics are off or no report was
+     * asked for
+     *
+     * @throws IOException if the report file can not be opened
+     * @throws IllegalArgumentException if the interval is not a positive
+     * number of seconds
+     */
+    public static Reporter startReporter() throws IOException {
+        String target = System.getProperty("sandbox.metrics.report");
+        if(!ENABLED || target == null) {
+            return null;
+        }
+
+        long seconds = Long.getLong("sandbox.metrics.interval", DEFAULT_INTERVAL);
+        if(seconds < 1) {
+            throw new IllegalArgumentException("sandbox.metrics.interval must be a positive number of seconds");
+        }
+        if(target.equals("stderr")) {
+            return new Reporter(System.err, false, Duration.ofSeconds(seconds));
+        }
+        return new Reporter(new PrintStream(new FileOutputStream(target, true), true), true,
+                Duration.ofSeconds(seconds));
+    }
+}
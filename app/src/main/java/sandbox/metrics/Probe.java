@@ -0,0 +1,144 @@
+package sandbox.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The instrumented operations.  The geometry tests on
+ * <code>Rectangle</code> are only counted, since timing a call that takes a
+ * few nanoseconds would cost more than the call.  The bulk scans and index
+ * queries are counted and timed, their results are added up, and each one
+ * is also committed as a {@link QueryEvent} to Flight Recorder.
+ *
+ * Nothing here checks {@link Metrics#ENABLED}; the instrumented code does,
+ * so that when metrics are off the calls into this class are compiled
+ * away.
+ *
+ * @author Wes McKean
+ */
+public enum Probe {
+    /**
+     * <code>Rectangle.intersects</code>
+     */
+    RECTANGLE_INTERSECTS("rectangle.intersects", false),
+    /**
+     * <code>Rectangle.contains</code>, for both rectangles and points
+     */
+    RECTANGLE_CONTAINS("rectangle.contains", false),
+    /**
+     * <code>Rectangle.adjacent</code>
+     */
+    RECTANGLE_ADJACENT("rectangle.adjacent", false),
+    /**
+     * <code>Rectangle.relate</code>
+     */
+    RECTANGLE_RELATE("rectangle.relate", false),
+    /**
+     * the bulk queries on <code>RectangleArray</code>
+     */
+    ARRAY_QUERY("array.query", true),
+    /**
+     * the bulk queries on <code>QuadBuffers</code>: rectangle files and
+     * stores
+     */
+    BUFFER_QUERY("buffer.query", true),
+    /**
+     * the window queries on <code>RTree</code>
+     */
+    TREE_QUERY("tree.query", true),
+    /**
+     * the nearest neighbour searches on <code>RTree</code>
+     */
+    TREE_NEAREST("tree.nearest", true),
+    /**
+     * the point queries on <code>PackedRTree</code>
+     */
+    PACKED_QUERY("packed.query", true),
+    /**
+     * the scattered queries and joins on <code>ShardCluster</code>, from
+     * sending the first request to merging the last answer
+     */
+    SHARD_QUERY("shard.query", true);
+
+    private final String label;
+    private final boolean timed;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder results = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    Probe(String label, boolean timed) {
+        this.label = label;
+        this.timed = timed;
+    }
+
+    /**
+     * @return the name the probe is reported under
+     */
+    public String label() {
+        return label;
+    }
+
+    /**
+     * @return true if calls are timed as well as counted
+     */
+    public boolean isTimed() {
+        return timed;
+    }
+
+    /**
+     * Counts a call.
+     */
+    public void count() {
+        calls.increment();
+    }
+
+    /**
+     * Counts and times a call and commits a {@link QueryEvent} for it.
+     *
+     * @param start   <code>System.nanoTime()</code> when the call started
+     * @param found   the number of results the call produced
+     */
+    public void record(long start, long found) {
+        long elapsed = System.nanoTime() - start;
+        calls.increment();
+        results.add(found);
+        latency.record(elapsed);
+
+        QueryEvent event = new QueryEvent();
+        if(event.isEnabled()) {
+            event.probe = label;
+            event.results = found;
+            event.elapsed = elapsed;
+            event.commit();
+        }
+    }
+
+    /**
+     * @return the number of calls counted
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * @return the number of results recorded
+     */
+    public long getResults() {
+        return results.sum();
+    }
+
+    /**
+     * @return the latencies recorded
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Forgets every call counted.
+     */
+    public void reset() {
+        calls.reset();
+        results.reset();
+        latency.reset();
+    }
+}
@@ -0,0 +1,39 @@
+package sandbox.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Flight Recorder event for one bulk scan or index query, so a recording
+ * shows which queries ran, how much they found and how long they took
+ * next to the GC, lock and I/O events around them.
+ *
+ * The event is disabled unless a recording turns it on, for example with
+ * <code>-XX:StartFlightRecording</code>, and is only ever created when
+ * {@link Metrics#ENABLED} is set.  The time is carried in a field rather
+ * than by <code>begin()</code> and <code>end()</code>, so the event is only
+ * built once the query is over, and only for queries that are recorded.
+ *
+ * @author Wes McKean
+ */
+@Name("sandbox.Query")
+@Label("Spatial Query")
+@Category("Sandbox")
+@Description("A bulk scan or index query")
+@StackTrace(false)
+class QueryEvent extends Event {
+    @Label("Probe")
+    String probe;
+
+    @Label("Results")
+    long results;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
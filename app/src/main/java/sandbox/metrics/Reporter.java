@@ -0,0 +1,72 @@
+package sandbox.metrics;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a {@link Snapshot} of every probe at a fixed interval, and once
+ * more when it is closed.  Each report starts with a line holding the time.
+ * The counters keep running between reports; they are not reset.
+ *
+ * The reports are written from a daemon thread, so a reporter never keeps
+ * the JVM alive.
+ *
+ * @author Wes McKean
+ */
+public class Reporter implements Closeable {
+    private final PrintStream out;
+    private final boolean owned;
+    private final ScheduledExecutorService timer;
+
+    /**
+     * @param out      where to write the reports
+     * @param owned    true if closing the reporter should close the stream
+     * @param interval how often to report
+     */
+    public Reporter(PrintStream out, boolean owned, Duration interval) {
+        if(interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        this.out = out;
+        this.owned = owned;
+        this.timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long nanos = interval.toNanos();
+        timer.scheduleAtFixedRate(this::report, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Writes a report now.
+     */
+    public synchronized void report() {
+        out.println("metrics at " + Instant.now());
+        Metrics.snapshot().print(out);
+        out.flush();
+    }
+
+    /**
+     * Stops the timer and writes a final report.
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        try {
+            timer.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        report();
+        if(owned) {
+            out.close();
+        }
+    }
+}
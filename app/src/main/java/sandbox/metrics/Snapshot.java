@@ -0,0 +1,76 @@
+package sandbox.metrics;
+
+import java.io.PrintStream;
+
+/**
+ * The counters and histograms of every {@link Probe} at one moment.  Later
+ * calls do not change a snapshot, so two of them can be compared to see
+ * what happened in between.
+ *
+ * @author Wes McKean
+ */
+public final class Snapshot {
+    private final long[] calls;
+    private final long[] results;
+    private final LatencyHistogram[] latency;
+
+    Snapshot() {
+        Probe[] probes = Probe.values();
+        calls = new long[probes.length];
+        results = new long[probes.length];
+        latency = new LatencyHistogram[probes.length];
+        for(Probe probe : probes) {
+            int i = probe.ordinal();
+            calls[i] = probe.getCalls();
+            results[i] = probe.getResults();
+            latency[i] = probe.getLatency().snapshot();
+        }
+    }
+
+    /**
+     * @param probe the probe to read
+     * @return the number of calls it had counted
+     */
+    public long getCalls(Probe probe) {
+        return calls[probe.ordinal()];
+    }
+
+    /**
+     * @param probe the probe to read
+     * @return the number of results it had recorded
+     */
+    public long getResults(Probe probe) {
+        return results[probe.ordinal()];
+    }
+
+    /**
+     * @param probe the probe to read
+     * @return the latencies it had recorded; empty for probes that are not
+     * timed
+     */
+    public LatencyHistogram getLatency(Probe probe) {
+        return latency[probe.ordinal()];
+    }
+
+    /**
+     * Writes a line for every probe that has been called: the call count
+     * for counted probes, and the result count and latency percentiles for
+     * timed ones.
+     *
+     * @param out where to write the report
+     */
+    public void print(PrintStream out) {
+        for(Probe probe : Probe.values()) {
+            int i = probe.ordinal();
+            if(calls[i] == 0) {
+                continue;
+            }
+            if(probe.isTimed()) {
+                latency[i].print(String.format("%s: %d results, calls", probe.label(), results[i]), out);
+            }
+            else {
+                out.printf("%s: %d calls%n", probe.label(), calls[i]);
+            }
+        }
+    }
+}
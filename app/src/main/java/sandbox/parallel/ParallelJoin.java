@@ -0,0 +1,319 @@
+package sandbox.parallel;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import sandbox.RectangleArray;
+import sandbox.join.IntersectionConsumer;
+import sandbox.join.PairConsumer;
+import sandbox.join.SweepJoin;
+
+/**
+ * Finds intersecting pairs of rectangles on a <code>ForkJoinPool</code>.
+ *
+ * The plane is cut into the leaf regions of a <code>SpatialPartition</code>.
+ * A rectangle is copied into every region it reaches, and each region is
+ * joined on its own with <code>SweepJoin</code>.  A pair that straddles a
+ * cut is found in more than one region, so it is only reported by the region
+ * holding its reference point: the upper left corner of the area the two
+ * rectangles share.  That corner lies in both rectangles and in exactly one
+ * region, so every pair is reported exactly once.
+ *
+ * Each region sorts its own pairs by i and then j, and the regions are
+ * handed to the sink one after another on the calling thread, in the order
+ * of the leaves of the partition.  The partition only depends on the input,
+ * so the output is the same at any level of parallelism.  Only a window of
+ * about twice as many regions as the pool has threads is worked on or
+ * waiting to be reported at any time, so the pairs held cost 8 bytes each
+ * for those regions alone, never for the whole result.
+ *
+ * @author Wes McKean
+ */
+public final class ParallelJoin {
+
+    private ParallelJoin() {
+    }
+
+    /**
+     * Reports every intersecting pair within one set of rectangles, using
+     * the common pool.
+     *
+     * @param rectangles the rectangles to join
+     * @param sink       receives each pair once, with i &lt; j, region by
+     * region
+     * @see sandbox.Rectangle#intersects(sandbox.Rectangle)
+     */
+    public static void selfJoin(RectangleArray rectangles, PairConsumer sink) {
+        selfJoin(ForkJoinPool.commonPool(), rectangles, (i, j, x, y, x1, y1) -> sink.accept(i, j));
+    }
+
+    /**
+     * Reports every intersecting pair within one set of rectangles, along
+     * with the area the pair shares.
+     *
+     * @param pool       the pool to run the tasks in
+     * @param rectangles the rectangles to join
+     * @param sink       receives each pair once, with i &lt; j, region by
+     * region
+     * @see sandbox.Rectangle#intersection(sandbox.Rectangle)
+     */
+    public static void selfJoin(ForkJoinPool pool, RectangleArray rectangles, IntersectionConsumer sink) {
+        SpatialPartition partition = SpatialPartition.build(rectangles);
+        List<Region> regions = pool.invoke(new Split(partition, 0, Integer.MIN_VALUE, Integer.MIN_VALUE,
+                Integer.MAX_VALUE, Integer.MAX_VALUE, rectangles, all(rectangles), null, null));
+        run(pool, regions, rectangles, rectangles, sink);
+    }
+
+    /**
+     * Reports every intersecting pair made of one rectangle from each set,
+     * using the common pool.
+     *
+     * @param a    the first set of rectangles
+     * @param b    the second set of rectangles
+     * @param sink receives each pair once, i being the index in a and j the
+     * index in b, region by region
+     * @see sandbox.Rectangle#intersects(sandbox.Rectangle)
+     */
+    public static void join(RectangleArray a, RectangleArray b, PairConsumer sink) {
+        join(ForkJoinPool.commonPool(), a, b, (i, j, x, y, x1, y1) -> sink.accept(i, j));
+    }
+
+    /**
+     * Reports every intersecting pair made of one rectangle from each set,
+     * along with the area the pair shares.
+     *
+     * @param pool the pool to run the tasks in
+     * @param a    the first set of rectangles
+     * @param b    the second set of rectangles
+     * @param sink receives each pair once, i being the index in a and j the
+     * index in b, region by region
+     * @see sandbox.Rectangle#intersection(sandbox.Rectangle)
+     */
+    public static void join(ForkJoinPool pool, RectangleArray a, RectangleArray b, IntersectionConsumer sink) {
+        SpatialPartition partition = SpatialPartition.build(a);
+        List<Region> regions = pool.invoke(new Split(partition, 0, Integer.MIN_VALUE, Integer.MIN_VALUE,
+                Integer.MAX_VALUE, Integer.MAX_VALUE, a, all(a), b, all(b)));
+        run(pool, regions, a, b, sink);
+    }
+
+    private static int[] all(RectangleArray rectangles) {
+        int[] members = new int[rectangles.size()];
+        for(int i = 0; i < members.length; i++) {
+            members[i] = i;
+        }
+        return members;
+    }
+
+    /**
+     * joins the regions in the pool, keeping a window of them running ahead
+     * of the one being reported.
+     */
+    private static void run(ForkJoinPool pool, List<Region> regions, RectangleArray a, RectangleArray b,
+            IntersectionConsumer sink) {
+        int window = 2 * pool.getParallelism();
+        ArrayDeque<ForkJoinTask<long[]>> running = new ArrayDeque<>(window);
+        int next = 0;
+        try {
+            while(next < regions.size() || !running.isEmpty()) {
+                while(next < regions.size() && running.size() < window) {
+                    running.add(pool.submit(regions.get(next++)));
+                }
+                report(running.poll().join(), a, b, sink);
+            }
+        }
+        finally {
+            for(ForkJoinTask<long[]> task : running) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    private static void report(long[] pairs, RectangleArray a, RectangleArray b, IntersectionConsumer sink) {
+        for(long pair : pairs) {
+            int i = (int) (pair >>> 32);
+            int j = (int) pair;
+            sink.accept(i, j, Math.max(a.getX(i), b.getX(j)), Math.max(a.getY(i), b.getY(j)),
+                    Math.min(a.getX1(i), b.getX1(j)), Math.min(a.getY1(i), b.getY1(j)));
+        }
+    }
+
+    /**
+     * hands the rectangles reaching one region of the plane, the cells from
+     * (rx, ry) to (rx1, ry1) inclusive, down to the leaves below it.  an
+     * internal node hands its members to the sides of its cut they reach and
+     * forks; a leaf becomes a region to join.  returns the regions with
+     * anything to join, in leaf order.  for a self join b is null.
+     */
+    private static final class Split extends RecursiveTask<List<Region>> {
+        private static final long serialVersionUID = 1L;
+
+        private final SpatialPartition partition;
+        private final int node;
+        private final int rx, ry, rx1, ry1;
+        private final RectangleArray a;
+        private final int[] membersA;
+        private final RectangleArray b;
+        private final int[] membersB;
+
+        Split(SpatialPartition partition, int node, int rx, int ry, int rx1, int ry1,
+                RectangleArray a, int[] membersA, RectangleArray b, int[] membersB) {
+            this.partition = partition;
+            this.node = node;
+            this.rx = rx;
+            this.ry = ry;
+            this.rx1 = rx1;
+            this.ry1 = ry1;
+            this.a = a;
+            this.membersA = membersA;
+            this.b = b;
+            this.membersB = membersB;
+        }
+
+        @Override
+        protected List<Region> compute() {
+            if(membersA.length == 0 || (b == null ? membersA.length < 2 : membersB.length == 0)) {
+                return List.of();
+            }
+            if(partition.isLeaf(node)) {
+                return List.of(new Region(rx, ry, rx1, ry1, a, membersA, b, membersB));
+            }
+
+            boolean onX = partition.axis[node] == SpatialPartition.X_AXIS;
+            int cut = partition.split[node];
+            Split left = new Split(partition, partition.left[node], rx, ry, onX ? cut - 1 : rx1, onX ? ry1 : cut - 1,
+                    a, before(a, membersA, onX, cut), b, b == null ? null : before(b, membersB, onX, cut));
+            Split right = new Split(partition, partition.right[node], onX ? cut : rx, onX ? ry : cut, rx1, ry1,
+                    a, from(a, membersA, onX, cut), b, b == null ? null : from(b, membersB, onX, cut));
+            left.fork();
+            List<Region> r = right.compute();
+            List<Region> l = left.join();
+            List<Region> both = new ArrayList<>(l.size() + r.size());
+            both.addAll(l);
+            both.addAll(r);
+            return both;
+        }
+
+        /**
+         * the members reaching the cells before the cut
+         */
+        private static int[] before(RectangleArray rectangles, int[] members, boolean onX, int cut) {
+            int[] result = new int[members.length];
+            int count = 0;
+            for(int i : members) {
+                if((onX ? rectangles.getX(i) : rectangles.getY(i)) < cut) {
+                    result[count++] = i;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        /**
+         * the members reaching the cells from the cut on
+         */
+        private static int[] from(RectangleArray rectangles, int[] members, boolean onX, int cut) {
+            int[] result = new int[members.length];
+            int count = 0;
+            for(int i : members) {
+                if((onX ? rectangles.getX1(i) : rectangles.getY1(i)) >= cut) {
+                    result[count++] = i;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+    }
+
+    /**
+     * joins the rectangles reaching one leaf region with a sweep, keeping
+     * the pairs whose reference point lies in the region, sorted.  for a
+     * self join b is null.  it is not a task itself, so the pairs are let go
+     * of once the task running it is.
+     */
+    private static final class Region implements Callable<long[]> {
+        private final int rx, ry, rx1, ry1;
+        private final RectangleArray a;
+        private final int[] membersA;
+        private final RectangleArray b;
+        private final int[] membersB;
+
+        Region(int rx, int ry, int rx1, int ry1, RectangleArray a, int[] membersA, RectangleArray b, int[] membersB) {
+            this.rx = rx;
+            this.ry = ry;
+            this.rx1 = rx1;
+            this.ry1 = ry1;
+            this.a = a;
+            this.membersA = membersA;
+            this.b = b;
+            this.membersB = membersB;
+        }
+
+        @Override
+        public long[] call() {
+            long[] pairs = b == null ? selfSweep() : sweep();
+            Arrays.sort(pairs);
+            return pairs;
+        }
+
+        private long[] selfSweep() {
+            RectangleArray local = subset(a, membersA);
+            PairList pairs = new PairList();
+            SweepJoin.selfJoin(local, (li, lj, x, y, x1, y1) -> {
+                if(owns(x, y)) {
+                    int i = membersA[li];
+                    int j = membersA[lj];
+                    pairs.add(Math.min(i, j), Math.max(i, j));
+                }
+            });
+            return pairs.toArray();
+        }
+
+        private long[] sweep() {
+            PairList pairs = new PairList();
+            SweepJoin.join(subset(a, membersA), subset(b, membersB), (li, lj, x, y, x1, y1) -> {
+                if(owns(x, y)) {
+                    pairs.add(membersA[li], membersB[lj]);
+                }
+            });
+            return pairs.toArray();
+        }
+
+        /**
+         * true if the reference point of a pair lies in this region
+         */
+        private boolean owns(int x, int y) {
+            return x >= rx && x <= rx1 && y >= ry && y <= ry1;
+        }
+
+        private static RectangleArray subset(RectangleArray rectangles, int[] members) {
+            RectangleArray local = new RectangleArray(members.length);
+            for(int i : members) {
+                local.add(rectangles.getX(i), rectangles.getY(i), rectangles.getX1(i), rectangles.getY1(i));
+            }
+            return local;
+        }
+    }
+
+    /**
+     * a growable list of pairs, each packed into a long with i in the high
+     * half.
+     */
+    private static final class PairList {
+        private long[] pairs = new long[64];
+        private int size;
+
+        void add(int i, int j) {
+            if(size == pairs.length) {
+                pairs = Arrays.copyOf(pairs, size * 2);
+            }
+            pairs[size++] = ((long) i << 32) | j;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(pairs, size);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package sandbox.parallel;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import sandbox.Point;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import sandbox.Rectangles;
+import sandbox.io.RecordConsumer;
+
+/**
+ * Runs the bulk predicates of <code>RectangleArray</code> on a
+ * <code>ForkJoinPool</code>.
+ *
+ * The work follows the cuts of a <code>SpatialPartition</code>: every
+ * subtree whose bounding box reaches the query becomes a task, and subtrees
+ * that can not hold an answer are skipped without looking at their
+ * rectangles.  Each task collects its answers on its own, and the answers
+ * are returned in ascending index order, so the result is the same at any
+ * level of parallelism.
+ *
+ * @author Wes McKean
+ */
+public class ParallelQuery {
+    private final SpatialPartition partition;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a query runner that uses the common pool.
+     *
+     * @param partition the partitioned rectangles to search
+     */
+    public ParallelQuery(SpatialPartition partition) {
+        this(partition, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param partition the partitioned rectangles to search
+     * @param pool      the pool to run the tasks in
+     */
+    public ParallelQuery(SpatialPartition partition, ForkJoinPool pool) {
+        this.partition = partition;
+        this.pool = pool;
+    }
+
+    /**
+     * @param rectangle the query
+     * @return the indexes of the rectangles that intersect it, ascending
+     * @see Rectangle#intersects(Rectangle)
+     */
+    public int[] intersecting(Rectangle rectangle) {
+        int qx = rectangle.getUpperLeft().getX(), qy = rectangle.getUpperLeft().getY();
+        int qx1 = rectangle.getLowerRight().getX(), qy1 = rectangle.getLowerRight().getY();
+        return run(qx, qy, qx1, qy1, (x, y, x1, y1) -> Rectangles.intersects(x, y, x1, y1, qx, qy, qx1, qy1));
+    }
+
+    /**
+     * @param rectangle the query
+     * @return the indexes of the rectangles that contain it, ascending
+     * @see Rectangle#contains(Rectangle)
+     */
+    public int[] containing(Rectangle rectangle) {
+        int qx = rectangle.getUpperLeft().getX(), qy = rectangle.getUpperLeft().getY();
+        int qx1 = rectangle.getLowerRight().getX(), qy1 = rectangle.getLowerRight().getY();
+        return run(qx, qy, qx1, qy1, (x, y, x1, y1) -> Rectangles.contains(x, y, x1, y1, qx, qy, qx1, qy1));
+    }
+
+    /**
+     * @param pt the query
+     * @return the indexes of the rectangles that contain it, ascending
+     * @see Rectangle#contains(Point)
+     */
+    public int[] containing(Point pt) {
+        int px = pt.getX(), py = pt.getY();
+        return run(px, py, px, py, (x, y, x1, y1) -> Rectangles.contains(x, y, x1, y1, px, py));
+    }
+
+    /**
+     * Hands every rectangle that intersects the query to the action along
+     * with the area the two share, in ascending index order.  Rectangles
+     * that only touch the query share a line, reported with x == x1 or
+     * y == y1.
+     *
+     * @param rectangle the query
+     * @param action    receives the index of each intersecting rectangle and
+     * the shared area
+     * @see Rectangle#intersection(Rectangle)
+     */
+    public void intersection(Rectangle rectangle, RecordConsumer action) {
+        int qx = rectangle.getUpperLeft().getX(), qy = rectangle.getUpperLeft().getY();
+        int qx1 = rectangle.getLowerRight().getX(), qy1 = rectangle.getLowerRight().getY();
+        RectangleArray rectangles = partition.getRectangles();
+        for(int i : intersecting(rectangle)) {
+            action.accept(i, Math.max(rectangles.getX(i), qx), Math.max(rectangles.getY(i), qy),
+                    Math.min(rectangles.getX1(i), qx1), Math.min(rectangles.getY1(i), qy1));
+        }
+    }
+
+    private int[] run(int qx, int qy, int qx1, int qy1, Predicate test) {
+        int[] hits = pool.invoke(new Search(partition, 0, qx, qy, qx1, qy1, test));
+        Arrays.sort(hits);
+        return hits;
+    }
+
+    /**
+     * a test of one stored rectangle
+     */
+    @FunctionalInterface
+    private interface Predicate {
+        boolean test(int x, int y, int x1, int y1);
+    }
+
+    /**
+     * searches one subtree, forking a task for each side of its cut.  every
+     * answer overlaps the query (qx, qy, qx1, qy1), so subtrees whose box
+     * does not are skipped.
+     */
+    private static final class Search extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final SpatialPartition partition;
+        private final int node;
+        private final int qx, qy, qx1, qy1;
+        private final Predicate test;
+
+        Search(SpatialPartition partition, int node, int qx, int qy, int qx1, int qy1, Predicate test) {
+            this.partition = partition;
+            this.node = node;
+            this.qx = qx;
+            this.qy = qy;
+            this.qx1 = qx1;
+            this.qy1 = qy1;
+            this.test = test;
+        }
+
+        @Override
+        protected int[] compute() {
+            SpatialPartition p = partition;
+            if(!Rectangles.overlaps(p.minX[node], p.minY[node], p.maxX[node], p.maxY[node], qx, qy, qx1, qy1)) {
+                return new int[0];
+            }
+
+            if(!p.isLeaf(node)) {
+                Search left = new Search(p, p.left[node], qx, qy, qx1, qy1, test);
+                Search right = new Search(p, p.right[node], qx, qy, qx1, qy1, test);
+                left.fork();
+                int[] r = right.compute();
+                int[] l = left.join();
+                int[] both = Arrays.copyOf(l, l.length + r.length);
+                System.arraycopy(r, 0, both, l.length, r.length);
+                return both;
+            }
+
+            RectangleArray rectangles = p.getRectangles();
+            int[] hits = new int[p.to[node] - p.from[node]];
+            int count = 0;
+            for(int k = p.from[node]; k < p.to[node]; k++) {
+                int i = p.order[k];
+                if(test.test(rectangles.getX(i), rectangles.getY(i), rectangles.getX1(i), rectangles.getY1(i))) {
+                    hits[count++] = i;
+                }
+            }
+            return Arrays.copyOf(hits, count);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package sandbox.parallel;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+import sandbox.RectangleArray;
+
+/**
+ * Splits a <code>RectangleArray</code> into groups of nearby rectangles so
+ * the groups can be worked on in parallel.
+ *
+ * The partition is a k-d tree over the centers of the rectangles.  Each
+ * internal node cuts its region of the plane in two along one axis, at the
+ * median center of its rectangles on the axis where the centers are most
+ * spread out, so the two halves hold the same number of rectangles.  The
+ * cuts stop when a node holds no more than the leaf size.  Every node
+ * records the bounding box of its rectangles, which lets a search skip whole
+ * groups.
+ *
+ * The regions of the leaves do not overlap and together cover the plane.
+ * Left regions take the cells before the cut and right regions the cells
+ * from the cut on.
+ *
+ * The shape of the tree depends only on the rectangles and the leaf size,
+ * never on how many threads later work on it, which is what keeps the
+ * parallel results the same at any level of parallelism.
+ *
+ * @author Wes McKean
+ */
+public class SpatialPartition {
+    /**
+     * the leaf size used by {@link #build(RectangleArray)}
+     */
+    public static final int DEFAULT_LEAF_SIZE = 1024;
+
+    static final int X_AXIS = 0;
+    static final int Y_AXIS = 1;
+
+    private final RectangleArray rectangles;
+    /**
+     * the indexes of the rectangles, ordered so every node's rectangles are
+     * contiguous
+     */
+    final int[] order;
+
+    // one entry per node; node 0 is the root
+    int nodeCount;
+    int[] from;
+    int[] to;
+    int[] left;
+    int[] right;
+    int[] axis;
+    int[] split;
+    int[] minX;
+    int[] minY;
+    int[] maxX;
+    int[] maxY;
+
+    private SpatialPartition(RectangleArray rectangles) {
+        this.rectangles = rectangles;
+        this.order = new int[rectangles.size()];
+        int capacity = 16;
+        from = new int[capacity];
+        to = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        axis = new int[capacity];
+        split = new int[capacity];
+        minX = new int[capacity];
+        minY = new int[capacity];
+        maxX = new int[capacity];
+        maxY = new int[capacity];
+    }
+
+    /**
+     * Partitions the rectangles into leaves of at most
+     * {@link #DEFAULT_LEAF_SIZE} rectangles.
+     *
+     * @param rectangles the rectangles; they must not change while the
+     * partition is in use
+     * @return the partition
+     */
+    public static SpatialPartition build(RectangleArray rectangles) {
+        return build(rectangles, DEFAULT_LEAF_SIZE);
+    }
+
+    /**
+     * Partitions the rectangles.
+     *
+     * @param rectangles the rectangles; they must not change while the
+     * partition is in use
+     * @param leafSize   the largest number of rectangles in a leaf; leaves
+     * can only be larger when every center in them is the same
+     * @return the partition
+     *
+     * @throws IllegalArgumentException if leafSize is less than one
+     */
+    public static SpatialPartition build(RectangleArray rectangles, int leafSize) {
+        if(leafSize < 1) {
+            throw new IllegalArgumentException("leafSize must be at least one");
+        }
+
+        SpatialPartition partition = new SpatialPartition(rectangles);
+        int n = rectangles.size();
+        int[] cx = new int[n];
+        int[] cy = new int[n];
+        for(int i = 0; i < n; i++) {
+            partition.order[i] = i;
+            cx[i] = center(rectangles.getX(i), rectangles.getX1(i));
+            cy[i] = center(rectangles.getY(i), rectangles.getY1(i));
+        }
+        partition.split(0, n, cx, cy, leafSize, new long[n]);
+        return partition;
+    }
+
+    private static int center(int a, int b) {
+        return (int) (((long) a + b) >> 1);
+    }
+
+    /**
+     * creates the node for order[start, end) and, unless it is small enough
+     * to be a leaf, its children.  returns the node.
+     */
+    private int split(int start, int end, int[] cx, int[] cy, int leafSize, long[] keys) {
+        int node = newNode(start, end);
+        if(end - start <= leafSize) {
+            return node;
+        }
+
+        int loX = Integer.MAX_VALUE, hiX = Integer.MIN_VALUE;
+        int loY = Integer.MAX_VALUE, hiY = Integer.MIN_VALUE;
+        for(int k = start; k < end; k++) {
+            int i = order[k];
+            loX = Math.min(loX, cx[i]);
+            hiX = Math.max(hiX, cx[i]);
+            loY = Math.min(loY, cy[i]);
+            hiY = Math.max(hiY, cy[i]);
+        }
+        int along = (long) hiX - loX >= (long) hiY - loY ? X_AXIS : Y_AXIS;
+        int[] centers = along == X_AXIS ? cx : cy;
+
+        for(int k = start; k < end; k++) {
+            keys[k] = ((long) centers[order[k]] << 32) | order[k];
+        }
+        Arrays.sort(keys, start, end);
+        for(int k = start; k < end; k++) {
+            order[k] = (int) keys[k];
+        }
+
+        // cut before the first center equal to the median, or after the
+        // last one when the median is also the smallest center
+        int mid = (start + end) >>> 1;
+        int median = centers[order[mid]];
+        int cut = mid;
+        while(cut > start && centers[order[cut - 1]] == median) {
+            cut--;
+        }
+        if(cut == start) {
+            cut = mid;
+            while(cut < end && centers[order[cut]] == median) {
+                cut++;
+            }
+            if(cut == end) {
+                // every center is the same; nothing separates them
+                return node;
+            }
+        }
+
+        axis[node] = along;
+        split[node] = centers[order[cut]];
+        int l = split(start, cut, cx, cy, leafSize, keys);
+        int r = split(cut, end, cx, cy, leafSize, keys);
+        left[node] = l;
+        right[node] = r;
+        minX[node] = Math.min(minX[l], minX[r]);
+        minY[node] = Math.min(minY[l], minY[r]);
+        maxX[node] = Math.max(maxX[l], maxX[r]);
+        maxY[node] = Math.max(maxY[l], maxY[r]);
+        return node;
+    }
+
+    private int newNode(int start, int end) {
+        if(nodeCount == from.length) {
+            int capacity = nodeCount * 2;
+            from = Arrays.copyOf(from, capacity);
+            to = Arrays.copyOf(to, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            axis = Arrays.copyOf(axis, capacity);
+            split = Arrays.copyOf(split, capacity);
+            minX = Arrays.copyOf(minX, capacity);
+            minY = Arrays.copyOf(minY, capacity);
+            maxX = Arrays.copyOf(maxX, capacity);
+            maxY = Arrays.copyOf(maxY, capacity);
+        }
+
+        int node = nodeCount++;
+        from[node] = start;
+        to[node] = end;
+        left[node] = -1;
+        right[node] = -1;
+        int bx = Integer.MAX_VALUE, by = Integer.MAX_VALUE;
+        int bx1 = Integer.MIN_VALUE, by1 = Integer.MIN_VALUE;
+        for(int k = start; k < end; k++) {
+            int i = order[k];
+            bx = Math.min(bx, rectangles.getX(i));
+            by = Math.min(by, rectangles.getY(i));
+            bx1 = Math.max(bx1, rectangles.getX1(i));
+            by1 = Math.max(by1, rectangles.getY1(i));
+        }
+        minX[node] = bx;
+        minY[node] = by;
+        maxX[node] = bx1;
+        maxY[node] = by1;
+        return node;
+    }
+
+    /**
+     * @return the rectangles this partition was built over
+     */
+    public RectangleArray getRectangles() {
+        return rectangles;
+    }
+
+    /**
+     * @return the number of rectangles
+     */
+    public int size() {
+        return order.length;
+    }
+
+    /**
+     * @return the number of leaves
+     */
+    public int leafCount() {
+        int leaves = 0;
+        for(int node = 0; node < nodeCount; node++) {
+            if(isLeaf(node)) {
+                leaves++;
+            }
+        }
+        return leaves;
+    }
+
+    boolean isLeaf(int node) {
+        return left[node] < 0;
+    }
+
+    /**
+     * Returns a spliterator over the indexes of the rectangles that splits by
+     * space: each split hands off one side of a cut of the k-d tree, so every
+     * part covers a compact region of the plane rather than a run of
+     * indexes.  The indexes are met in leaf order, which is the same every
+     * time.
+     *
+     * @return the spliterator
+     */
+    public Spliterator.OfInt spliterator() {
+        return new SpatialSpliterator(this, 0);
+    }
+
+    /**
+     * @param parallel true for a parallel stream
+     * @return the indexes of the rectangles, split by space
+     * @see #spliterator()
+     */
+    public IntStream indexes(boolean parallel) {
+        return StreamSupport.intStream(spliterator(), parallel);
+    }
+}
@@ -0,0 +1,66 @@
+package sandbox.parallel;
+
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * A spliterator over a subtree of a <code>SpatialPartition</code>.  It
+ * splits at the subtree's cut, handing off the left side, for as long as
+ * nothing has been consumed.  Leaves are not split further.
+ *
+ * @author Wes McKean
+ */
+final class SpatialSpliterator implements Spliterator.OfInt {
+    private final SpatialPartition partition;
+    private int node;
+    private int next;
+
+    SpatialSpliterator(SpatialPartition partition, int node) {
+        this.partition = partition;
+        this.node = node;
+        this.next = partition.from[node];
+    }
+
+    @Override
+    public OfInt trySplit() {
+        if(partition.isLeaf(node) || next != partition.from[node]) {
+            return null;
+        }
+        SpatialSpliterator prefix = new SpatialSpliterator(partition, partition.left[node]);
+        node = partition.right[node];
+        next = partition.from[node];
+        return prefix;
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+        if(next >= end()) {
+            return false;
+        }
+        action.accept(partition.order[next++]);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+        int end = end();
+        int[] order = partition.order;
+        for(; next < end; next++) {
+            action.accept(order[next]);
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        return end() - next;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | DISTINCT | NONNULL | IMMUTABLE;
+    }
+
+    private int end() {
+        return partition.to[node];
+    }
+}
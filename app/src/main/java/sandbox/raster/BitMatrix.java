@@ -0,0 +1,332 @@
+package sandbox.raster;
+
+import java.util.Arrays;
+import sandbox.Point;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+
+/**
+ * A dense matrix of cells, each either set (occupied) or clear (free), with
+ * one bit per cell.  The matrix covers the cells from (0, 0) to
+ * (width - 1, height - 1).
+ *
+ * Each row is stored as consecutive 64-bit words, so a rectangle is filled,
+ * cleared or queried a word at a time: a row of a rectangle costs two
+ * masked words plus one word per 64 cells in between, not one operation per
+ * cell.
+ *
+ * Regions follow the same convention as <code>Rectangle.getWidth</code> and
+ * <code>Rectangle.getHeight</code>: a rectangle covers the cells from x to
+ * x1 and from y to y1 inclusive.  The queries treat cells outside the
+ * matrix as clear, but filling or clearing them is an error.
+ *
+ * @author Wes McKean
+ * @see TiledBitMatrix
+ */
+public class BitMatrix {
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] words;
+
+    /**
+     * Creates a matrix with every cell clear.
+     *
+     * @param width  the number of cells along the x-axis
+     * @param height the number of cells along the y-axis
+     *
+     * @throws IllegalArgumentException if width or height is not positive,
+     * or the matrix would need more than Integer.MAX_VALUE words
+     */
+    public BitMatrix(int width, int height) {
+        if(width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("width and height must be greater than zero");
+        }
+
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (int) ((width + 63L) >>> 6);
+        long size = (long) wordsPerRow * height;
+        if(size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("matrix is too large; use TiledBitMatrix");
+        }
+        this.words = new long[(int) size];
+    }
+
+    /**
+     * @return the number of cells along the x-axis
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return the number of cells along the y-axis
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @param x the cell on the x-axis
+     * @param y the cell on the y-axis
+     * @return true if the cell is set; cells outside the matrix are clear
+     */
+    public boolean get(int x, int y) {
+        if(x < 0 || x >= width || y < 0 || y >= height) {
+            return false;
+        }
+        return (words[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    /**
+     * @param pt the cell
+     * @return true if the cell is set
+     */
+    public boolean get(Point pt) {
+        return get(pt.getX(), pt.getY());
+    }
+
+    /**
+     * @param x the cell on the x-axis
+     * @param y the cell on the y-axis
+     *
+     * @throws IllegalArgumentException if the cell is outside the matrix
+     */
+    public void set(int x, int y) {
+        fill(x, y, x, y);
+    }
+
+    /**
+     * Sets every cell of a region.
+     *
+     * @param x  the left cell of the region
+     * @param y  the top cell of the region
+     * @param x1 the right cell of the region, inclusive
+     * @param y1 the bottom cell of the region, inclusive
+     *
+     * @throws IllegalArgumentException if the region is empty or reaches
+     * outside the matrix
+     */
+    public void fill(int x, int y, int x1, int y1) {
+        checkInside(x, y, x1, y1);
+        for(int row = y; row <= y1; row++) {
+            Words.fill(words, row * wordsPerRow, x, x1);
+        }
+    }
+
+    /**
+     * Sets every cell the rectangle covers.
+     *
+     * @param rectangle the region to set
+     *
+     * @throws IllegalArgumentException if the rectangle reaches outside the
+     * matrix
+     */
+    public void fill(Rectangle rectangle) {
+        fill(rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * Sets every cell covered by any of the rectangles.
+     *
+     * @param rectangles the regions to set
+     *
+     * @throws IllegalArgumentException if a rectangle reaches outside the
+     * matrix
+     */
+    public void fill(RectangleArray rectangles) {
+        for(int i = 0; i < rectangles.size(); i++) {
+            fill(rectangles.getX(i), rectangles.getY(i), rectangles.getX1(i), rectangles.getY1(i));
+        }
+    }
+
+    /**
+     * Clears every cell of a region.
+     *
+     * @param x  the left cell of the region
+     * @param y  the top cell of the region
+     * @param x1 the right cell of the region, inclusive
+     * @param y1 the bottom cell of the region, inclusive
+     *
+     * @throws IllegalArgumentException if the region is empty or reaches
+     * outside the matrix
+     */
+    public void clear(int x, int y, int x1, int y1) {
+        checkInside(x, y, x1, y1);
+        for(int row = y; row <= y1; row++) {
+            Words.clear(words, row * wordsPerRow, x, x1);
+        }
+    }
+
+    /**
+     * Clears every cell the rectangle covers.
+     *
+     * @param rectangle the region to clear
+     *
+     * @throws IllegalArgumentException if the rectangle reaches outside the
+     * matrix
+     */
+    public void clear(Rectangle rectangle) {
+        clear(rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * Clears every cell of the matrix.
+     */
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+
+    /**
+     * @param rectangle the region to test
+     * @return true if any cell of the region is set
+     */
+    public boolean any(Rectangle rectangle) {
+        int x = Math.max(rectangle.getUpperLeft().getX(), 0);
+        int y = Math.max(rectangle.getUpperLeft().getY(), 0);
+        int x1 = Math.min(rectangle.getLowerRight().getX(), width - 1);
+        int y1 = Math.min(rectangle.getLowerRight().getY(), height - 1);
+        for(int row = y; row <= y1 && x <= x1; row++) {
+            if(Words.any(words, row * wordsPerRow, x, x1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param rectangle the region to test
+     * @return true if every cell of the region is set; a region reaching
+     * outside the matrix never is
+     */
+    public boolean all(Rectangle rectangle) {
+        int x = rectangle.getUpperLeft().getX();
+        int y = rectangle.getUpperLeft().getY();
+        int x1 = rectangle.getLowerRight().getX();
+        int y1 = rectangle.getLowerRight().getY();
+        if(x < 0 || y < 0 || x1 >= width || y1 >= height) {
+            return false;
+        }
+        for(int row = y; row <= y1; row++) {
+            if(!Words.all(words, row * wordsPerRow, x, x1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param rectangle the region to count
+     * @return the number of set cells in the region
+     */
+    public long count(Rectangle rectangle) {
+        int x = Math.max(rectangle.getUpperLeft().getX(), 0);
+        int y = Math.max(rectangle.getUpperLeft().getY(), 0);
+        int x1 = Math.min(rectangle.getLowerRight().getX(), width - 1);
+        int y1 = Math.min(rectangle.getLowerRight().getY(), height - 1);
+        long count = 0;
+        for(int row = y; row <= y1 && x <= x1; row++) {
+            count += Words.count(words, row * wordsPerRow, x, x1);
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of set cells in the matrix
+     */
+    public long count() {
+        long count = 0;
+        for(long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Keeps only the cells set in both matrices.
+     *
+     * @param other a matrix of the same size
+     * @return this matrix
+     *
+     * @throws IllegalArgumentException if the sizes differ
+     */
+    public BitMatrix and(BitMatrix other) {
+        checkSameSize(other);
+        for(int i = 0; i < words.length; i++) {
+            words[i] &= other.words[i];
+        }
+        return this;
+    }
+
+    /**
+     * Sets every cell set in the other matrix.
+     *
+     * @param other a matrix of the same size
+     * @return this matrix
+     *
+     * @throws IllegalArgumentException if the sizes differ
+     */
+    public BitMatrix or(BitMatrix other) {
+        checkSameSize(other);
+        for(int i = 0; i < words.length; i++) {
+            words[i] |= other.words[i];
+        }
+        return this;
+    }
+
+    /**
+     * Clears every cell set in the other matrix.
+     *
+     * @param other a matrix of the same size
+     * @return this matrix
+     *
+     * @throws IllegalArgumentException if the sizes differ
+     */
+    public BitMatrix andNot(BitMatrix other) {
+        checkSameSize(other);
+        for(int i = 0; i < words.length; i++) {
+            words[i] &= ~other.words[i];
+        }
+        return this;
+    }
+
+    /**
+     * @return a copy of this matrix
+     */
+    public BitMatrix copy() {
+        BitMatrix copy = new BitMatrix(width, height);
+        System.arraycopy(words, 0, copy.words, 0, words.length);
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(o instanceof BitMatrix m) {
+            return m.width == width && m.height == height && Arrays.equals(m.words, words);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * width + height) + Arrays.hashCode(words);
+    }
+
+    private void checkInside(int x, int y, int x1, int y1) {
+        if(x > x1 || y > y1) {
+            throw new IllegalArgumentException("region is empty");
+        }
+        if(x < 0 || y < 0 || x1 >= width || y1 >= height) {
+            throw new IllegalArgumentException("region reaches outside the matrix");
+        }
+    }
+
+    private void checkSameSize(BitMatrix other) {
+        if(other.width != width || other.height != height) {
+            throw new IllegalArgumentException("matrices must be the same size");
+        }
+    }
+}
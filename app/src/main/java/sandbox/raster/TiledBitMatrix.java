@@ -0,0 +1,400 @@
+package sandbox.raster;
+
+import sandbox.Point;
+import sandbox.PointCodec;
+import sandbox.PointMap;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+
+/**
+ * A sparse matrix of cells, each either set (occupied) or clear (free), that
+ * covers every <code>int</code> coordinate.  It is the
+ * <code>BitMatrix</code> for grids far too large to store densely.
+ *
+ * The matrix is cut into tiles of 64 by 64 cells, one 64-bit word per row
+ * of a tile, and only tiles holding at least one set cell are kept, in a
+ * <code>PointMap</code> keyed by tile coordinates.  A tile costs 512 bytes,
+ * so memory follows the occupied part of the grid rather than its extent.
+ * Regions are filled and queried a word at a time as in
+ * <code>BitMatrix</code>.  A query over a region containing more tiles than
+ * the matrix holds looks at the stored tiles instead of the region, so a
+ * huge query over a sparse matrix stays cheap.
+ *
+ * Regions follow the same inclusive convention as
+ * <code>Rectangle.getWidth</code> and <code>Rectangle.getHeight</code>.
+ *
+ * @author Wes McKean
+ * @see BitMatrix
+ */
+public class TiledBitMatrix {
+    private static final int TILE_SHIFT = 6;
+    private static final int TILE_MASK = (1 << TILE_SHIFT) - 1;
+
+    private final PointMap<long[]> tiles = new PointMap<>();
+
+    /**
+     * Creates a matrix with every cell clear.
+     */
+    public TiledBitMatrix() {
+    }
+
+    /**
+     * @return the number of tiles holding set cells
+     */
+    public int tileCount() {
+        return tiles.size();
+    }
+
+    /**
+     * @param x the cell on the x-axis
+     * @param y the cell on the y-axis
+     * @return true if the cell is set
+     */
+    public boolean get(int x, int y) {
+        long[] tile = tiles.get(x >> TILE_SHIFT, y >> TILE_SHIFT);
+        return tile != null && (tile[y & TILE_MASK] & (1L << x)) != 0;
+    }
+
+    /**
+     * @param pt the cell
+     * @return true if the cell is set
+     */
+    public boolean get(Point pt) {
+        return get(pt.getX(), pt.getY());
+    }
+
+    /**
+     * @param x the cell on the x-axis
+     * @param y the cell on the y-axis
+     */
+    public void set(int x, int y) {
+        fill(x, y, x, y);
+    }
+
+    /**
+     * Sets every cell of a region.
+     *
+     * @param x  the left cell of the region
+     * @param y  the top cell of the region
+     * @param x1 the right cell of the region, inclusive
+     * @param y1 the bottom cell of the region, inclusive
+     *
+     * @throws IllegalArgumentException if the region is empty
+     */
+    public void fill(int x, int y, int x1, int y1) {
+        checkRegion(x, y, x1, y1);
+        for(int ty = y >> TILE_SHIFT; ty <= y1 >> TILE_SHIFT; ty++) {
+            for(int tx = x >> TILE_SHIFT; tx <= x1 >> TILE_SHIFT; tx++) {
+                long mask = columns(tx, x, x1);
+                long[] tile = tiles.get(tx, ty);
+                if(tile == null) {
+                    tile = new long[1 << TILE_SHIFT];
+                    tiles.put(tx, ty, tile);
+                }
+                for(int row = rowFrom(ty, y); row <= rowTo(ty, y1); row++) {
+                    tile[row] |= mask;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets every cell the rectangle covers.
+     *
+     * @param rectangle the region to set
+     */
+    public void fill(Rectangle rectangle) {
+        fill(rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * Sets every cell covered by any of the rectangles.
+     *
+     * @param rectangles the regions to set
+     */
+    public void fill(RectangleArray rectangles) {
+        for(int i = 0; i < rectangles.size(); i++) {
+            fill(rectangles.getX(i), rectangles.getY(i), rectangles.getX1(i), rectangles.getY1(i));
+        }
+    }
+
+    /**
+     * Clears every cell of a region.  Tiles left without a set cell are
+     * dropped.
+     *
+     * @param x  the left cell of the region
+     * @param y  the top cell of the region
+     * @param x1 the right cell of the region, inclusive
+     * @param y1 the bottom cell of the region, inclusive
+     *
+     * @throws IllegalArgumentException if the region is empty
+     */
+    public void clear(int x, int y, int x1, int y1) {
+        checkRegion(x, y, x1, y1);
+        for(long code : tilesIn(x, y, x1, y1)) {
+            int tx = PointCodec.x(code);
+            int ty = PointCodec.y(code);
+            long[] tile = tiles.get(tx, ty);
+            if(tile == null || !overlaps(tx, ty, x, y, x1, y1)) {
+                continue;
+            }
+            long mask = ~columns(tx, x, x1);
+            for(int row = rowFrom(ty, y); row <= rowTo(ty, y1); row++) {
+                tile[row] &= mask;
+            }
+            if(isEmpty(tile)) {
+                tiles.remove(tx, ty);
+            }
+        }
+    }
+
+    /**
+     * Clears every cell the rectangle covers.
+     *
+     * @param rectangle the region to clear
+     */
+    public void clear(Rectangle rectangle) {
+        clear(rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * Clears every cell of the matrix.
+     */
+    public void clear() {
+        tiles.clear();
+    }
+
+    /**
+     * @param rectangle the region to test
+     * @return true if any cell of the region is set
+     */
+    public boolean any(Rectangle rectangle) {
+        int x = rectangle.getUpperLeft().getX();
+        int y = rectangle.getUpperLeft().getY();
+        int x1 = rectangle.getLowerRight().getX();
+        int y1 = rectangle.getLowerRight().getY();
+        for(long code : tilesIn(x, y, x1, y1)) {
+            int tx = PointCodec.x(code);
+            int ty = PointCodec.y(code);
+            long[] tile = tiles.get(tx, ty);
+            if(tile == null || !overlaps(tx, ty, x, y, x1, y1)) {
+                continue;
+            }
+            long mask = columns(tx, x, x1);
+            for(int row = rowFrom(ty, y); row <= rowTo(ty, y1); row++) {
+                if((tile[row] & mask) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param rectangle the region to test
+     * @return true if every cell of the region is set
+     */
+    public boolean all(Rectangle rectangle) {
+        int x = rectangle.getUpperLeft().getX();
+        int y = rectangle.getUpperLeft().getY();
+        int x1 = rectangle.getLowerRight().getX();
+        int y1 = rectangle.getLowerRight().getY();
+        // every tile of the region must be present, so a region with more
+        // tiles than the matrix holds can not be full
+        if(tileSpan(x, y, x1, y1) > tiles.size()) {
+            return false;
+        }
+        for(long code : tilesIn(x, y, x1, y1)) {
+            int tx = PointCodec.x(code);
+            int ty = PointCodec.y(code);
+            long[] tile = tiles.get(tx, ty);
+            if(tile == null) {
+                return false;
+            }
+            long mask = columns(tx, x, x1);
+            for(int row = rowFrom(ty, y); row <= rowTo(ty, y1); row++) {
+                if((tile[row] & mask) != mask) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param rectangle the region to count
+     * @return the number of set cells in the region
+     */
+    public long count(Rectangle rectangle) {
+        int x = rectangle.getUpperLeft().getX();
+        int y = rectangle.getUpperLeft().getY();
+        int x1 = rectangle.getLowerRight().getX();
+        int y1 = rectangle.getLowerRight().getY();
+        long count = 0;
+        for(long code : tilesIn(x, y, x1, y1)) {
+            int tx = PointCodec.x(code);
+            int ty = PointCodec.y(code);
+            long[] tile = tiles.get(tx, ty);
+            if(tile == null || !overlaps(tx, ty, x, y, x1, y1)) {
+                continue;
+            }
+            long mask = columns(tx, x, x1);
+            for(int row = rowFrom(ty, y); row <= rowTo(ty, y1); row++) {
+                count += Long.bitCount(tile[row] & mask);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of set cells in the matrix
+     */
+    public long count() {
+        long[] count = new long[1];
+        tiles.forEach((tx, ty, tile) -> {
+            for(long word : tile) {
+                count[0] += Long.bitCount(word);
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * Keeps only the cells set in both matrices.
+     *
+     * @param other another matrix
+     * @return this matrix
+     */
+    public TiledBitMatrix and(TiledBitMatrix other) {
+        for(long code : codes()) {
+            long[] tile = tiles.getCode(code);
+            long[] mask = other.tiles.getCode(code);
+            if(mask == null) {
+                tiles.removeCode(code);
+                continue;
+            }
+            for(int row = 0; row < tile.length; row++) {
+                tile[row] &= mask[row];
+            }
+            if(isEmpty(tile)) {
+                tiles.removeCode(code);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Sets every cell set in the other matrix.
+     *
+     * @param other another matrix
+     * @return this matrix
+     */
+    public TiledBitMatrix or(TiledBitMatrix other) {
+        for(long code : other.codes()) {
+            long[] source = other.tiles.getCode(code);
+            long[] tile = tiles.getCode(code);
+            if(tile == null) {
+                tiles.putCode(code, source.clone());
+                continue;
+            }
+            for(int row = 0; row < tile.length; row++) {
+                tile[row] |= source[row];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Clears every cell set in the other matrix.
+     *
+     * @param other another matrix
+     * @return this matrix
+     */
+    public TiledBitMatrix andNot(TiledBitMatrix other) {
+        for(long code : other.codes()) {
+            long[] tile = tiles.getCode(code);
+            if(tile == null) {
+                continue;
+            }
+            long[] mask = other.tiles.getCode(code);
+            for(int row = 0; row < tile.length; row++) {
+                tile[row] &= ~mask[row];
+            }
+            if(isEmpty(tile)) {
+                tiles.removeCode(code);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * returns the codes of the tiles to visit for a region: every tile of
+     * the region when there are no more of them than stored tiles, otherwise
+     * the stored tiles.  callers skip tiles that are missing or outside the
+     * region.
+     */
+    private long[] tilesIn(int x, int y, int x1, int y1) {
+        long span = tileSpan(x, y, x1, y1);
+        if(span > tiles.size()) {
+            return codes();
+        }
+
+        long[] codes = new long[(int) span];
+        int count = 0;
+        for(int ty = y >> TILE_SHIFT; ty <= y1 >> TILE_SHIFT; ty++) {
+            for(int tx = x >> TILE_SHIFT; tx <= x1 >> TILE_SHIFT; tx++) {
+                codes[count++] = PointCodec.encode(tx, ty);
+            }
+        }
+        return codes;
+    }
+
+    private long[] codes() {
+        long[] codes = new long[tiles.size()];
+        int[] count = new int[1];
+        tiles.forEach((tx, ty, tile) -> codes[count[0]++] = PointCodec.encode(tx, ty));
+        return codes;
+    }
+
+    private static long tileSpan(int x, int y, int x1, int y1) {
+        return ((long) (x1 >> TILE_SHIFT) - (x >> TILE_SHIFT) + 1) * ((long) (y1 >> TILE_SHIFT) - (y >> TILE_SHIFT) + 1);
+    }
+
+    private static boolean overlaps(int tx, int ty, int x, int y, int x1, int y1) {
+        return tx >= x >> TILE_SHIFT && tx <= x1 >> TILE_SHIFT && ty >= y >> TILE_SHIFT && ty <= y1 >> TILE_SHIFT;
+    }
+
+    /**
+     * the bits of a tile row that fall between x and x1
+     */
+    private static long columns(int tx, int x, int x1) {
+        int from = tx == x >> TILE_SHIFT ? x & TILE_MASK : 0;
+        int to = tx == x1 >> TILE_SHIFT ? x1 & TILE_MASK : TILE_MASK;
+        return Words.mask(from, to);
+    }
+
+    private static int rowFrom(int ty, int y) {
+        return ty == y >> TILE_SHIFT ? y & TILE_MASK : 0;
+    }
+
+    private static int rowTo(int ty, int y1) {
+        return ty == y1 >> TILE_SHIFT ? y1 & TILE_MASK : TILE_MASK;
+    }
+
+    private static boolean isEmpty(long[] tile) {
+        for(long word : tile) {
+            if(word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void checkRegion(int x, int y, int x1, int y1) {
+        if(x > x1 || y > y1) {
+            throw new IllegalArgumentException("region is empty");
+        }
+    }
+}
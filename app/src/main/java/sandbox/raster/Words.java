@@ -0,0 +1,101 @@
+package sandbox.raster;
+
+/**
+ * Word level operations on a run of cells in one row of a bit matrix.  Cell
+ * i of a row is bit (i &amp; 63) of word (i &gt;&gt;&gt; 6).  A run of
+ * cells from x to x1 inclusive touches at most two partial words; every
+ * word in between is handled whole.
+ *
+ * @author Wes McKean
+ */
+final class Words {
+
+    private Words() {
+    }
+
+    /**
+     * @return the bits of one word from bit <code>from</code> to bit
+     * <code>to</code> inclusive, both taken modulo 64
+     */
+    static long mask(int from, int to) {
+        return (-1L << from) & (-1L >>> (63 - (to & 63)));
+    }
+
+    static void fill(long[] words, int base, int x, int x1) {
+        int first = x >>> 6;
+        int last = x1 >>> 6;
+        if(first == last) {
+            words[base + first] |= mask(x, x1);
+            return;
+        }
+        words[base + first] |= -1L << x;
+        for(int w = first + 1; w < last; w++) {
+            words[base + w] = -1L;
+        }
+        words[base + last] |= -1L >>> (63 - (x1 & 63));
+    }
+
+    static void clear(long[] words, int base, int x, int x1) {
+        int first = x >>> 6;
+        int last = x1 >>> 6;
+        if(first == last) {
+            words[base + first] &= ~mask(x, x1);
+            return;
+        }
+        words[base + first] &= ~(-1L << x);
+        for(int w = first + 1; w < last; w++) {
+            words[base + w] = 0;
+        }
+        words[base + last] &= ~(-1L >>> (63 - (x1 & 63)));
+    }
+
+    static boolean any(long[] words, int base, int x, int x1) {
+        int first = x >>> 6;
+        int last = x1 >>> 6;
+        if(first == last) {
+            return (words[base + first] & mask(x, x1)) != 0;
+        }
+        if((words[base + first] & (-1L << x)) != 0) {
+            return true;
+        }
+        for(int w = first + 1; w < last; w++) {
+            if(words[base + w] != 0) {
+                return true;
+            }
+        }
+        return (words[base + last] & (-1L >>> (63 - (x1 & 63)))) != 0;
+    }
+
+    static boolean all(long[] words, int base, int x, int x1) {
+        int first = x >>> 6;
+        int last = x1 >>> 6;
+        if(first == last) {
+            long mask = mask(x, x1);
+            return (words[base + first] & mask) == mask;
+        }
+        long head = -1L << x;
+        if((words[base + first] & head) != head) {
+            return false;
+        }
+        for(int w = first + 1; w < last; w++) {
+            if(words[base + w] != -1L) {
+                return false;
+            }
+        }
+        long tail = -1L >>> (63 - (x1 & 63));
+        return (words[base + last] & tail) == tail;
+    }
+
+    static int count(long[] words, int base, int x, int x1) {
+        int first = x >>> 6;
+        int last = x1 >>> 6;
+        if(first == last) {
+            return Long.bitCount(words[base + first] & mask(x, x1));
+        }
+        int count = Long.bitCount(words[base + first] & (-1L << x));
+        for(int w = first + 1; w < last; w++) {
+            count += Long.bitCount(words[base + w]);
+        }
+        return count + Long.bitCount(words[base + last] & (-1L >>> (63 - (x1 & 63))));
+    }
+}
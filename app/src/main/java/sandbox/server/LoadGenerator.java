@@ -0,0 +1,160 @@
+package sandbox.server;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.SocketAddress;
+import java.util.Random;
+import sandbox.Rectangle;
+import sandbox.cli.Operation;
+import sandbox.metrics.LatencyHistogram;
+
+/**
+ * Drives a {@link QueryServer} with random queries and measures how long
+ * each one takes to be answered.
+ *
+ * Each connection runs on its own thread and keeps <code>depth</code>
+ * requests in flight: it pipelines that many, then sends a new one each
+ * time a response comes back.  A depth of one is a plain request and
+ * response loop.  The latency of a request is measured from when it was
+ * buffered to when its response had been read, so it includes any time it
+ * spent waiting behind the requests in flight before it.
+ *
+ * The queries are squares whose upper left corners are spread evenly over
+ * an area, with sides of up to a sixteenth of the area's width.
+ *
+ * @author Wes McKean
+ */
+public class LoadGenerator {
+    private final SocketAddress address;
+    private final Operation operation;
+    private final Rectangle area;
+    private final int connections;
+    private final int requests;
+    private final int depth;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private long results;
+
+    /**
+     * @param address     where the server is listening
+     * @param operation   what to ask
+     * @param area        where to put the queries
+     * @param connections how many connections to open
+     * @param requests    how many requests to send on each connection
+     * @param depth       how many requests to keep in flight on each
+     * connection
+     */
+    public LoadGenerator(SocketAddress address, Operation operation, Rectangle area, int connections, int requests,
+            int depth) {
+        Protocol.code(operation);
+        if(connections < 1 || requests < 0 || depth < 1) {
+            throw new IllegalArgumentException("connections and depth must be positive, requests not negative");
+        }
+        this.address = address;
+        this.operation = operation;
+        this.area = area;
+        this.connections = connections;
+        this.requests = requests;
+        this.depth = depth;
+    }
+
+    /**
+     * Runs the load and waits for it to finish.
+     *
+     * @param seed seeds the random queries
+     *
+     * @throws IOException if a connection fails
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void run(long seed) throws IOException, InterruptedException {
+        Thread[] threads = new Thread[connections];
+        long[] counts = new long[connections];
+        IOException[] failures = new IOException[connections];
+
+        for(int c = 0; c < connections; c++) {
+            int connection = c;
+            threads[c] = new Thread(() -> {
+                try {
+                    counts[connection] = drive(new Random(seed + connection));
+                }
+                catch(IOException e) {
+                    failures[connection] = e;
+                }
+            }, "load-" + c);
+            threads[c].start();
+        }
+
+        IOException failure = null;
+        for(int c = 0; c < connections; c++) {
+            threads[c].join();
+            results += counts[c];
+            if(failure == null) {
+                failure = failures[c];
+            }
+        }
+        if(failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * runs one connection, returning the number of results it was sent.
+     */
+    private long drive(Random random) throws IOException {
+        int ax = area.getUpperLeft().getX();
+        int ay = area.getUpperLeft().getY();
+        int width = area.getLowerRight().getX() - ax;
+        int height = area.getLowerRight().getY() - ay;
+        int side = Math.max(1, width / 16);
+
+        long[] sentAt = new long[requests];
+        long found = 0;
+        try(QueryClient client = QueryClient.connect(address)) {
+            int next = 0;
+            for(int done = 0; done < requests; done++) {
+                // top the pipeline back up; receive() sends what is buffered
+                for(; next < requests && next - done < depth; next++) {
+                    int x = ax + random.nextInt(width);
+                    int y = ay + random.nextInt(height);
+                    sentAt[next] = System.nanoTime();
+                    client.send(next, operation, x, y, x + 1 + random.nextInt(side), y + 1 + random.nextInt(side));
+                }
+
+                int id = client.receive((index, x, y, x1, y1) -> {
+                });
+                latency.record(System.nanoTime() - sentAt[id]);
+                found += Math.max(0, client.getCount());
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return the latencies of the requests answered by the last run
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return the number of results received by the last run
+     */
+    public long getResults() {
+        return results;
+    }
+
+    /**
+     * Writes the request count, throughput and latency percentiles of the
+     * last run.
+     *
+     * @param elapsed how long the run took, in nanoseconds
+     * @param out     where to write the report
+     */
+    public void report(long elapsed, PrintStream out) {
+        double seconds = elapsed / 1e9;
+        out.printf("%s: %d requests on %d connections, %d results in %.3f s (%.0f requests/s)%n",
+                operation.command(), latency.getCount(), connections, results, seconds,
+                seconds > 0 ? latency.getCount() / seconds : 0.0);
+        latency.print("latency per request", out);
+    }
+}
@@ -0,0 +1,100 @@
+package sandbox.server;
+
+import sandbox.cli.Operation;
+
+/**
+ * The wire format spoken by {@link QueryServer} and {@link QueryClient}.
+ * All numbers are 32-bit big-endian integers.
+ *
+ * A request is a fixed {@value #REQUEST_BYTES} byte frame:
+ * <pre>
+ * id  operation  x  y  x1  y1
+ * </pre>
+ * The id is chosen by the client and handed back in the response.  The
+ * operation is one of the codes below and x, y, x1, y1 is the query
+ * rectangle.
+ *
+ * A response is a {@value #HEADER_BYTES} byte header followed by its
+ * results:
+ * <pre>
+ * id  count  [x  y  x1  y1] * count
+ * </pre>
+ * A count of {@link #ERROR} means the request was rejected, because the
+ * operation is unknown or the query is not a valid rectangle, and no
+ * results follow.
+ *
+ * Clients may pipeline: any number of requests can be sent before reading
+ * a response.  Responses to one connection are not necessarily written in
+ * the order the requests were sent, so clients match them up by id.
+ *
+ * @author Wes McKean
+ */
+public final class Protocol {
+    /**
+     * the size of a request frame
+     */
+    public static final int REQUEST_BYTES = 24;
+    /**
+     * the size of a response header
+     */
+    public static final int HEADER_BYTES = 8;
+    /**
+     * the size of one result in a response
+     */
+    public static final int RESULT_BYTES = 16;
+    /**
+     * the count of a rejected request
+     */
+    public static final int ERROR = -1;
+
+    /**
+     * stored rectangles that intersect the query
+     */
+    public static final int INTERSECTS = 1;
+    /**
+     * the area each intersecting stored rectangle shares with the query
+     */
+    public static final int INTERSECTION = 2;
+    /**
+     * stored rectangles the query contains
+     */
+    public static final int CONTAINS = 3;
+    /**
+     * stored rectangles that share a side with the query
+     */
+    public static final int ADJACENT = 4;
+
+    private Protocol() {
+    }
+
+    /**
+     * @param operation an operation
+     * @return the code of the operation on the wire
+     *
+     * @throws IllegalArgumentException if the server does not run the
+     * operation
+     */
+    public static int code(Operation operation) {
+        return switch(operation) {
+            case INTERSECTS -> INTERSECTS;
+            case INTERSECTION -> INTERSECTION;
+            case CONTAINS -> CONTAINS;
+            case ADJACENT -> ADJACENT;
+            default -> throw new IllegalArgumentException("the server does not run " + operation.command());
+        };
+    }
+
+    /**
+     * @param code the code of an operation on the wire
+     * @return the operation, or null if the code is unknown
+     */
+    public static Operation operation(int code) {
+        return switch(code) {
+            case INTERSECTS -> Operation.INTERSECTS;
+            case INTERSECTION -> Operation.INTERSECTION;
+            case CONTAINS -> Operation.CONTAINS;
+            case ADJACENT -> Operation.ADJACENT;
+            default -> null;
+        };
+    }
+}
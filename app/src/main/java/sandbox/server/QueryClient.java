@@ -0,0 +1,151 @@
+package sandbox.server;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import sandbox.cli.Operation;
+import sandbox.io.RecordConsumer;
+
+/**
+ * A blocking client for {@link QueryServer}.
+ *
+ * Requests are buffered by {@link #send} and go out when the buffer fills
+ * or {@link #flush()} is called, so a client can pipeline by sending
+ * several requests before reading any of the responses.
+ *
+ * A client is not thread safe.  Use one per thread.
+ *
+ * @author Wes McKean
+ */
+public class QueryClient implements Closeable {
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocate(BUFFER_BYTES);
+    private final ByteBuffer in = ByteBuffer.allocate(BUFFER_BYTES);
+    private int count;
+
+    private QueryClient(SocketChannel channel) {
+        this.channel = channel;
+        in.flip();
+    }
+
+    /**
+     * @param address the address the server is listening on
+     * @return a connected client
+     *
+     * @throws IOException if the server can not be reached
+     */
+    public static QueryClient connect(SocketAddress address) throws IOException {
+        SocketChannel channel = address instanceof UnixDomainSocketAddress
+                ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                : SocketChannel.open();
+        try {
+            channel.connect(address);
+            if(channel.supportedOptions().contains(StandardSocketOptions.TCP_NODELAY)) {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            }
+        }
+        catch(IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new QueryClient(channel);
+    }
+
+    /**
+     * Buffers a request.
+     *
+     * @param id        handed back with the response
+     * @param operation what to ask
+     * @param x         upper left x of the query
+     * @param y         upper left y of the query
+     * @param x1        lower right x of the query
+     * @param y1        lower right y of the query
+     *
+     * @throws IOException if the buffer was full and could not be written
+     * @throws IllegalArgumentException if the server does not run the
+     * operation
+     */
+    public void send(int id, Operation operation, int x, int y, int x1, int y1) throws IOException {
+        send(id, Protocol.code(operation), x, y, x1, y1);
+    }
+
+    /**
+     * Buffers a request with an operation code, known or not.
+     */
+    void send(int id, int operation, int x, int y, int x1, int y1) throws IOException {
+        if(out.remaining() < Protocol.REQUEST_BYTES) {
+            flush();
+        }
+        out.putInt(id).putInt(operation).putInt(x).putInt(y).putInt(x1).putInt(y1);
+    }
+
+    /**
+     * Writes the buffered requests.
+     *
+     * @throws IOException if the requests could not be written
+     */
+    public void flush() throws IOException {
+        out.flip();
+        while(out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    /**
+     * Reads the next response, flushing any buffered requests first.
+     *
+     * @param action receives each result with its position in the response
+     * @return the id of the request the response answers
+     *
+     * @throws IOException if the response could not be read
+     */
+    public int receive(RecordConsumer action) throws IOException {
+        if(out.position() > 0) {
+            flush();
+        }
+
+        fill(Protocol.HEADER_BYTES);
+        int id = in.getInt();
+        count = in.getInt();
+        for(int i = 0; i < count; i++) {
+            fill(Protocol.RESULT_BYTES);
+            action.accept(i, in.getInt(), in.getInt(), in.getInt(), in.getInt());
+        }
+        return id;
+    }
+
+    /**
+     * @return the number of results in the last response read, or
+     * <code>Protocol.ERROR</code> if the request was rejected
+     */
+    public int getCount() {
+        return count;
+    }
+
+    private void fill(int bytes) throws IOException {
+        if(in.remaining() >= bytes) {
+            return;
+        }
+        in.compact();
+        while(in.position() < bytes) {
+            if(channel.read(in) < 0) {
+                throw new EOFException("the server closed the connection");
+            }
+        }
+        in.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,551 @@
+package sandbox.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import sandbox.Rectangle;
+import sandbox.Rectangles;
+import sandbox.Relation;
+import sandbox.cli.Operation;
+import sandbox.index.RTree;
+
+/**
+ * Answers queries against an in-memory set of rectangles over TCP or a Unix
+ * domain socket, so a job can ask many questions without paying for a JVM
+ * and an index each time.  See {@link Protocol} for the wire format.
+ *
+ * Each connection gets a thread that does nothing but read request frames
+ * and queue them.  On a JVM with virtual threads (21 and later) that is a
+ * virtual thread; otherwise it comes from a cached pool.  Connections can
+ * pipeline requests, but the queue holds at most a fixed number of them.
+ * When it is full the reading threads wait, stop reading their sockets, and
+ * the clients' writes back up, so a client pipelining faster than the
+ * server answers is slowed down rather than growing the heap.
+ *
+ * A single batch thread answers the queue.  It takes the first waiting
+ * request, then keeps collecting until the batch window has passed or
+ * {@link #MAX_BATCH} requests are waiting, and answers the batch together:
+ * <ul>
+ * <li>the queries are run as one walk of the index with
+ * <code>RTree.search</code>, so queries looking at the same part of the
+ * index share the nodes they visit;</li>
+ * <li>the answers for each connection are gathered in that connection's
+ * buffer and written with one write per connection rather than one per
+ * request.</li>
+ * </ul>
+ * A wider window makes bigger batches at the cost of latency for a lone
+ * request.  A window of zero still batches whatever arrived while the
+ * previous batch was being answered.
+ *
+ * The index is only ever read by the batch thread, so it must not be
+ * modified once the server has started.  A client that stops reading its
+ * responses holds up the batch thread, which is acceptable for a local
+ * service with well-behaved clients.  With a full queue that includes a
+ * client that sends all its requests before reading any answers, so a
+ * client should read while it sends once it has more than the queue's
+ * capacity in flight.
+ *
+ * @author Wes McKean
+ */
+public class QueryServer implements Closeable {
+    /**
+     * the batch window used by default, in nanoseconds
+     */
+    public static final long DEFAULT_WINDOW = TimeUnit.MICROSECONDS.toNanos(100);
+    /**
+     * the most requests answered in one batch
+     */
+    public static final int MAX_BATCH = 4096;
+    /**
+     * how many requests can wait to be answered, unless the server is given
+     * another capacity
+     */
+    public static final int DEFAULT_CAPACITY = 16 * MAX_BATCH;
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final RTree tree;
+    private final long window;
+    private final BlockingQueue<Request> pending;
+    private final Set<Connection> open = ConcurrentHashMap.newKeySet();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    /**
+     * the queries of the batch being answered, and what the index found for
+     * them; only used by the batch thread
+     */
+    private final int[] queryOf = new int[MAX_BATCH];
+    private final int[] relations = new int[MAX_BATCH];
+    private final int[] boxes = new int[MAX_BATCH * 4];
+    private final int[] found = new int[MAX_BATCH + 1];
+    private int[] hitQuery = new int[1024];
+    private Rectangle[] hits = new Rectangle[1024];
+    private Rectangle[] grouped = new Rectangle[1024];
+    private int hitCount;
+
+    private ServerSocketChannel server;
+    private SocketAddress address;
+    private ExecutorService readers;
+    private Thread acceptor;
+    private Thread batcher;
+    private volatile boolean closed;
+
+    /**
+     * Creates a server with the default batch window.
+     *
+     * @param tree the rectangles to query
+     */
+    public QueryServer(RTree tree) {
+        this(tree, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Creates a server with the default queue capacity.
+     *
+     * @param tree   the rectangles to query
+     * @param window how long to keep collecting requests for a batch, in
+     * nanoseconds
+     */
+    public QueryServer(RTree tree, long window) {
+        this(tree, window, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param tree     the rectangles to query
+     * @param window   how long to keep collecting requests for a batch, in
+     * nanoseconds
+     * @param capacity the most requests waiting to be answered before the
+     * connections stop being read
+     */
+    public QueryServer(RTree tree, long window, int capacity) {
+        if(window < 0) {
+            throw new IllegalArgumentException("window may not be negative");
+        }
+        if(capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least one");
+        }
+        this.tree = tree;
+        this.window = window;
+        this.pending = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Binds the server and starts answering connections.
+     *
+     * @param address an <code>InetSocketAddress</code> to listen on TCP, port
+     * zero picking a free port, or a <code>UnixDomainSocketAddress</code>
+     * @return the address the server is listening on
+     *
+     * @throws IOException if the address can not be bound
+     */
+    public synchronized SocketAddress start(SocketAddress address) throws IOException {
+        if(server != null) {
+            throw new IllegalStateException("the server has already been started");
+        }
+
+        server = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                : ServerSocketChannel.open();
+        server.bind(address);
+        this.address = server.getLocalAddress();
+
+        readers = newReaderExecutor();
+        acceptor = new Thread(this::accept, "query-server-accept");
+        batcher = new Thread(this::batches, "query-server-batch");
+        acceptor.start();
+        batcher.start();
+        return this.address;
+    }
+
+    /**
+     * @return the address the server is listening on, or null before it has
+     * been started
+     */
+    public synchronized SocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * @return the number of requests answered so far
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return the number of batches answered so far
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * Waits until the server is closed.
+     *
+     * @throws InterruptedException if the wait is interrupted
+     */
+    public void join() throws InterruptedException {
+        Thread thread;
+        synchronized(this) {
+            thread = batcher;
+        }
+        if(thread != null) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Stops listening and drops every connection.  Requests that have not
+     * been answered yet are lost.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized(this) {
+            if(closed || server == null) {
+                closed = true;
+                return;
+            }
+            closed = true;
+        }
+
+        server.close();
+        batcher.interrupt();
+        readers.shutdownNow();
+        for(Connection connection : open) {
+            connection.close();
+        }
+        try {
+            acceptor.join();
+            batcher.join();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if(address instanceof UnixDomainSocketAddress unix) {
+            Files.deleteIfExists(unix.getPath());
+        }
+    }
+
+    /**
+     * returns an executor that runs each task on a new virtual thread when
+     * the JVM has them, and on a cached pool of platform threads when it
+     * does not.  the lookup is reflective so the code still compiles and
+     * runs on 17.
+     */
+    static ExecutorService newReaderExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        }
+        catch(ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "query-server-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void accept() {
+        try {
+            while(true) {
+                SocketChannel channel = server.accept();
+                if(channel.supportedOptions().contains(StandardSocketOptions.TCP_NODELAY)) {
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+                Connection connection = new Connection(channel);
+                open.add(connection);
+                readers.execute(() -> read(connection));
+            }
+        }
+        catch(IOException | RuntimeException e) {
+            // the server was closed
+        }
+    }
+
+    /**
+     * queues every request read from a connection, then a marker telling
+     * the batch thread to close the connection once it has answered them.
+     * a full queue holds up the reading, which holds up the client.
+     */
+    private void read(Connection connection) {
+        ByteBuffer in = ByteBuffer.allocate(BUFFER_BYTES);
+        try {
+            try {
+                while(connection.channel.read(in) >= 0) {
+                    in.flip();
+                    while(in.remaining() >= Protocol.REQUEST_BYTES) {
+                        pending.put(new Request(connection, false, in.getInt(), in.getInt(), in.getInt(), in.getInt(),
+                                in.getInt(), in.getInt()));
+                    }
+                    in.compact();
+                }
+            }
+            catch(IOException e) {
+                // the client went away; answer what it sent and close
+            }
+            if(!closed) {
+                pending.put(new Request(connection, true, 0, 0, 0, 0, 0, 0));
+            }
+        }
+        catch(InterruptedException e) {
+            connection.close();
+        }
+    }
+
+    private void batches() {
+        Request[] batch = new Request[MAX_BATCH];
+        List<Connection> touched = new ArrayList<>();
+        try {
+            while(!closed) {
+                int count = collect(batch);
+                if(count > 0) {
+                    answer(batch, count, touched);
+                    Arrays.fill(batch, 0, count, null);
+                }
+            }
+        }
+        catch(InterruptedException e) {
+            // the server was closed
+        }
+    }
+
+    private int collect(Request[] batch) throws InterruptedException {
+        Request request = pending.poll(100, TimeUnit.MILLISECONDS);
+        if(request == null) {
+            return 0;
+        }
+
+        batch[0] = request;
+        int count = 1;
+        long deadline = System.nanoTime() + window;
+        while(count < batch.length) {
+            request = pending.poll();
+            if(request == null) {
+                long wait = deadline - System.nanoTime();
+                if(wait <= 0 || (request = pending.poll(wait, TimeUnit.NANOSECONDS)) == null) {
+                    break;
+                }
+            }
+            batch[count++] = request;
+        }
+        return count;
+    }
+
+    private void answer(Request[] batch, int count, List<Connection> touched) {
+        // turn away the bad requests and gather the rest into one search
+        int queries = 0;
+        for(int i = 0; i < count; i++) {
+            Request request = batch[i];
+            if(request.end()) {
+                continue;
+            }
+            Connection connection = request.connection();
+            if(!connection.touched) {
+                connection.touched = true;
+                touched.add(connection);
+            }
+
+            int relation = relation(request);
+            if(relation == Relation.DISJOINT) {
+                connection.reserve(Protocol.HEADER_BYTES).putInt(request.id()).putInt(Protocol.ERROR);
+                continue;
+            }
+            queryOf[queries] = i;
+            relations[queries] = relation;
+            int at = queries * 4;
+            boxes[at] = request.x();
+            boxes[at + 1] = request.y();
+            boxes[at + 2] = request.x1();
+            boxes[at + 3] = request.y1();
+            queries++;
+        }
+
+        hitCount = 0;
+        tree.search(queries, relations, boxes, this::hit);
+        group(queries);
+        for(int q = 0; q < queries; q++) {
+            write(batch[queryOf[q]], q);
+        }
+        Arrays.fill(grouped, 0, hitCount, null);
+
+        // counted before the answers go out, so a client that has its
+        // answers sees them counted
+        requests.addAndGet(queries);
+        batches.incrementAndGet();
+
+        for(Connection connection : touched) {
+            connection.touched = false;
+            connection.flush();
+        }
+        touched.clear();
+
+        // a connection's end marker comes after all of its requests
+        for(int i = 0; i < count; i++) {
+            if(batch[i].end()) {
+                batch[i].connection().close();
+            }
+        }
+    }
+
+    /**
+     * returns the <code>Relation</code> bit a stored rectangle needs to
+     * answer the request, or <code>DISJOINT</code> if the request can not be
+     * answered.
+     */
+    private static int relation(Request request) {
+        Operation operation = Protocol.operation(request.operation());
+        try {
+            Rectangles.validate(request.x(), request.y(), request.x1(), request.y1());
+        }
+        catch(IllegalArgumentException e) {
+            return Relation.DISJOINT;
+        }
+        if(operation == null) {
+            return Relation.DISJOINT;
+        }
+        return switch(operation) {
+            case INTERSECTS, INTERSECTION -> Relation.INTERSECTS;
+            case CONTAINS -> Relation.WITHIN;
+            case ADJACENT -> Relation.ADJACENT;
+            default -> throw new IllegalStateException(operation.command());
+        };
+    }
+
+    private void hit(int query, Rectangle rectangle) {
+        if(hitCount == hits.length) {
+            hitQuery = Arrays.copyOf(hitQuery, hitCount * 2);
+            hits = Arrays.copyOf(hits, hitCount * 2);
+        }
+        hitQuery[hitCount] = query;
+        hits[hitCount++] = rectangle;
+    }
+
+    /**
+     * sorts the hits by query into grouped, keeping the order the search
+     * found them in, so the hits of query q are grouped[found[q]] up to
+     * grouped[found[q + 1]].
+     */
+    private void group(int queries) {
+        Arrays.fill(found, 0, queries + 1, 0);
+        for(int k = 0; k < hitCount; k++) {
+            found[hitQuery[k] + 1]++;
+        }
+        for(int q = 0; q < queries; q++) {
+            found[q + 1] += found[q];
+        }
+        if(grouped.length < hitCount) {
+            grouped = new Rectangle[hits.length];
+        }
+        for(int k = 0; k < hitCount; k++) {
+            grouped[found[hitQuery[k]]++] = hits[k];
+        }
+        // each start was moved up to the next one's; move them back
+        for(int q = queries; q > 0; q--) {
+            found[q] = found[q - 1];
+        }
+        found[0] = 0;
+        Arrays.fill(hits, 0, hitCount, null);
+    }
+
+    private void write(Request request, int query) {
+        boolean intersection = request.operation() == Protocol.INTERSECTION;
+        int qx = request.x(), qy = request.y(), qx1 = request.x1(), qy1 = request.y1();
+        int from = found[query];
+        int to = found[query + 1];
+        ByteBuffer out = request.connection().reserve(Protocol.HEADER_BYTES + (to - from) * Protocol.RESULT_BYTES);
+        out.putInt(request.id()).putInt(to - from);
+        for(int k = from; k < to; k++) {
+            Rectangle r = grouped[k];
+            int x = r.getUpperLeft().getX();
+            int y = r.getUpperLeft().getY();
+            int x1 = r.getLowerRight().getX();
+            int y1 = r.getLowerRight().getY();
+            if(intersection) {
+                x = Math.max(x, qx);
+                y = Math.max(y, qy);
+                x1 = Math.min(x1, qx1);
+                y1 = Math.min(y1, qy1);
+            }
+            out.putInt(x).putInt(y).putInt(x1).putInt(y1);
+        }
+    }
+
+    /**
+     * a request read from a connection, or, when end is set, the marker
+     * queued once the connection has reached the end of its input.  the
+     * marker is kept apart from the operation codes, so any code a client
+     * sends is answered.
+     */
+    private record Request(Connection connection, boolean end, int id, int operation, int x, int y, int x1, int y1) {
+    }
+
+    private final class Connection {
+        final SocketChannel channel;
+        ByteBuffer out = ByteBuffer.allocate(BUFFER_BYTES);
+        boolean touched;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * returns the output buffer with room for at least the given number
+         * of bytes, growing it if it has to.
+         */
+        ByteBuffer reserve(int bytes) {
+            if(out.remaining() < bytes) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+                out.flip();
+                bigger.put(out);
+                out = bigger;
+            }
+            return out;
+        }
+
+        void flush() {
+            out.flip();
+            try {
+                while(out.hasRemaining()) {
+                    channel.write(out);
+                }
+            }
+            catch(IOException e) {
+                close();
+            }
+            if(out.capacity() > 16 * BUFFER_BYTES) {
+                out = ByteBuffer.allocate(BUFFER_BYTES);
+            }
+            out.clear();
+        }
+
+        void close() {
+            open.remove(this);
+            try {
+                channel.close();
+            }
+            catch(IOException e) {
+                // nothing more to do with it
+            }
+        }
+    }
+}
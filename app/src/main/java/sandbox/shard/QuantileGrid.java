@@ -0,0 +1,191 @@
+package sandbox.shard;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import sandbox.RectangleArray;
+
+/**
+ * Cuts the plane into tiles holding about the same number of rectangles, so
+ * each tile can be handed to its own worker.
+ *
+ * The plane is first cut into columns at the quantiles of the centers of
+ * the rectangles along the x-axis.  Each column is then cut into rows at
+ * the quantiles of the centers along the y-axis of the rectangles falling
+ * in that column, so a dense patch gets thin rows in its own column without
+ * thinning every other column.  A column takes the x coordinates from its
+ * cut up to the next column's cut, and a row likewise, so the tiles do not
+ * overlap and together cover the plane: every point lies in exactly one
+ * tile.
+ *
+ * The cuts only need the centers to be spread the way the full data set is,
+ * so the grid can be built from a sample when the data set is too large to
+ * hold in memory.  Cuts that fall on the same coordinate are merged, which
+ * can leave a column with fewer rows than asked for.
+ *
+ * A rectangle reaches every tile its closed area touches, so one crossing
+ * a cut is copied into each tile on either side of it.
+ *
+ * @author Wes McKean
+ */
+public class QuantileGrid {
+    /**
+     * the x coordinate each column starts at; the first is always
+     * <code>Integer.MIN_VALUE</code>
+     */
+    private final int[] columns;
+    /**
+     * the y coordinate each row starts at, per column; the first row of
+     * every column starts at <code>Integer.MIN_VALUE</code>
+     */
+    private final int[][] rows;
+    /**
+     * the number of the first tile of each column
+     */
+    private final int[] firstTile;
+    private final int tileCount;
+
+    private QuantileGrid(int[] columns, int[][] rows) {
+        this.columns = columns;
+        this.rows = rows;
+        this.firstTile = new int[columns.length];
+        int tiles = 0;
+        for(int c = 0; c < columns.length; c++) {
+            firstTile[c] = tiles;
+            tiles += rows[c].length;
+        }
+        this.tileCount = tiles;
+    }
+
+    /**
+     * Cuts the plane into tiles around a set of rectangles.
+     *
+     * @param rectangles the rectangles, or a sample of them
+     * @param columns    the number of columns to cut the plane into
+     * @param rows       the number of rows to cut each column into
+     * @return the grid, with at most columns * rows tiles
+     *
+     * @throws IllegalArgumentException if columns or rows is less than one
+     */
+    public static QuantileGrid build(RectangleArray rectangles, int columns, int rows) {
+        if(columns < 1 || rows < 1) {
+            throw new IllegalArgumentException("columns and rows must be at least one");
+        }
+
+        int n = rectangles.size();
+        long[] keys = new long[n];
+        for(int i = 0; i < n; i++) {
+            keys[i] = ((long) center(rectangles.getX(i), rectangles.getX1(i)) << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] columnCuts = cuts(keys, 0, n, columns);
+
+        int[][] rowCuts = new int[columnCuts.length][];
+        long[] column = new long[n];
+        int start = 0;
+        for(int c = 0; c < columnCuts.length; c++) {
+            int end = start;
+            int count = 0;
+            while(end < n && (c + 1 == columnCuts.length || (int) (keys[end] >> 32) < columnCuts[c + 1])) {
+                int i = (int) keys[end++];
+                column[count++] = ((long) center(rectangles.getY(i), rectangles.getY1(i)) << 32) | i;
+            }
+            Arrays.sort(column, 0, count);
+            rowCuts[c] = cuts(column, 0, count, rows);
+            start = end;
+        }
+        return new QuantileGrid(columnCuts, rowCuts);
+    }
+
+    private static int center(int a, int b) {
+        return (int) (((long) a + b) >> 1);
+    }
+
+    /**
+     * picks the coordinates parts - 1 evenly spaced sort keys fall on, after
+     * a leading <code>Integer.MIN_VALUE</code>.  repeats are dropped, and so
+     * is a cut at the smallest coordinate, which would leave nothing before
+     * it.
+     */
+    private static int[] cuts(long[] keys, int from, int to, int parts) {
+        int n = to - from;
+        int[] result = new int[parts];
+        result[0] = Integer.MIN_VALUE;
+        int count = 1;
+        long last = n > 0 ? keys[from] >> 32 : Long.MAX_VALUE;
+        for(int k = 1; k < parts && n > 0; k++) {
+            int cut = (int) (keys[from + (int) ((long) n * k / parts)] >> 32);
+            if(cut > last) {
+                result[count++] = cut;
+                last = cut;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * @return the number of tiles
+     */
+    public int tileCount() {
+        return tileCount;
+    }
+
+    /**
+     * @param px the coordinate of the point on the x-axis
+     * @param py the coordinate of the point on the y-axis
+     * @return the tile the point lies in
+     */
+    public int tileOf(int px, int py) {
+        int c = floor(columns, px);
+        return firstTile[c] + floor(rows[c], py);
+    }
+
+    /**
+     * Hands every tile a rectangle reaches to the action, column by column
+     * and then row by row, so in ascending order.
+     *
+     * @param x      upper left x of the rectangle
+     * @param y      upper left y of the rectangle
+     * @param x1     lower right x of the rectangle
+     * @param y1     lower right y of the rectangle
+     * @param action receives the number of each tile the rectangle reaches
+     */
+    public void tiles(int x, int y, int x1, int y1, IntConsumer action) {
+        int c1 = floor(columns, x1);
+        for(int c = floor(columns, x); c <= c1; c++) {
+            int r1 = floor(rows[c], y1);
+            for(int r = floor(rows[c], y); r <= r1; r++) {
+                action.accept(firstTile[c] + r);
+            }
+        }
+    }
+
+    /**
+     * Returns the area of a tile.  Its corners are inclusive, so a point
+     * lies in the tile exactly when it lies within the returned bounds.
+     *
+     * @param tile the number of a tile
+     * @return x, y, x1 and y1 of the tile
+     *
+     * @throws IllegalArgumentException if there is no such tile
+     */
+    public int[] bounds(int tile) {
+        if(tile < 0 || tile >= tileCount) {
+            throw new IllegalArgumentException("no such tile: " + tile);
+        }
+
+        int c = floor(firstTile, tile);
+        int r = tile - firstTile[c];
+        int x1 = c + 1 < columns.length ? columns[c + 1] - 1 : Integer.MAX_VALUE;
+        int y1 = r + 1 < rows[c].length ? rows[c][r + 1] - 1 : Integer.MAX_VALUE;
+        return new int[] { columns[c], rows[c][r], x1, y1 };
+    }
+
+    /**
+     * finds the last cut at or before the value.  the first cut is the
+     * smallest int, so there always is one.
+     */
+    private static int floor(int[] cuts, int value) {
+        int k = Arrays.binarySearch(cuts, value);
+        return k >= 0 ? k : -k - 2;
+    }
+}
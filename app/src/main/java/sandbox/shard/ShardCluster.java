@@ -0,0 +1,460 @@
+package sandbox.shard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import sandbox.Rectangle;
+import sandbox.Rectangles;
+import sandbox.Relation;
+import sandbox.cli.Operation;
+import sandbox.io.RecordConsumer;
+import sandbox.join.PairConsumer;
+import sandbox.metrics.Metrics;
+import sandbox.metrics.Probe;
+import sandbox.server.Protocol;
+
+/**
+ * Spreads a set of rectangles too large for one heap over local worker
+ * processes, one per tile of a {@link QuantileGrid}, and answers queries by
+ * scattering them to the workers and gathering the answers.
+ *
+ * <pre>
+ * QuantileGrid grid = QuantileGrid.build(sample, 4, 4);
+ * try(ShardCluster cluster = ShardCluster.start(grid, List.of("-Xmx8g"))) {
+ *     reader.forEach((i, x, y, x1, y1) -&gt; cluster.add(x, y, x1, y1));
+ *     cluster.query(Operation.INTERSECTS, window, action);
+ * }
+ * </pre>
+ *
+ * Each worker is a {@link ShardWorker} started with the same
+ * <code>java</code> and class path as this JVM, and is spoken to over its
+ * stdin and stdout; its stderr goes to ours.  Rectangles get ids in the
+ * order they are added and are sent to every tile they reach, in batches,
+ * so the cluster itself only holds the grid and a batch per worker.
+ *
+ * A query goes only to the workers whose tiles it reaches.  All of them are
+ * sent the query before any answer is read, so they work on it at the same
+ * time.  Each worker only answers with the results whose reference point
+ * lies in its tile, so a rectangle held by several workers is still found
+ * exactly once, and the results are handed over in ascending order of id:
+ * the same results, in the same order, that the matching scan over a single
+ * <code>RectangleArray</code> of the rectangles gives.
+ *
+ * A cluster is not thread safe.
+ *
+ * @author Wes McKean
+ */
+public class ShardCluster implements Closeable {
+    /**
+     * the number of rectangles gathered for a worker before they are sent
+     */
+    public static final int BATCH_SIZE = 4096;
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final QuantileGrid grid;
+    private final Process[] workers;
+    private final DataOutputStream[] requests;
+    private final DataInputStream[] responses;
+    /**
+     * the records waiting to be sent to each worker, five ints each
+     */
+    private final int[][] batches;
+    private final int[] batchSizes;
+    private final long[] shardSizes;
+    /**
+     * the tiles the rectangle being added reaches
+     */
+    private int[] reached = new int[16];
+    private int reachedCount;
+    private int size;
+    private boolean closed;
+
+    private ShardCluster(QuantileGrid grid, Process[] workers) throws IOException {
+        this.grid = grid;
+        this.workers = workers;
+        int tiles = workers.length;
+        requests = new DataOutputStream[tiles];
+        responses = new DataInputStream[tiles];
+        batches = new int[tiles][BATCH_SIZE * 5];
+        batchSizes = new int[tiles];
+        shardSizes = new long[tiles];
+        for(int tile = 0; tile < tiles; tile++) {
+            requests[tile] = new DataOutputStream(
+                    new BufferedOutputStream(workers[tile].getOutputStream(), BUFFER_BYTES));
+            responses[tile] = new DataInputStream(
+                    new BufferedInputStream(workers[tile].getInputStream(), BUFFER_BYTES));
+            for(int bound : grid.bounds(tile)) {
+                requests[tile].writeInt(bound);
+            }
+            requests[tile].flush();
+        }
+    }
+
+    /**
+     * Starts a worker for every tile of the grid, with the default options
+     * for the JVM.
+     *
+     * @param grid the tiles
+     * @return the cluster, holding no rectangles
+     *
+     * @throws IOException if a worker can not be started
+     */
+    public static ShardCluster start(QuantileGrid grid) throws IOException {
+        return start(grid, List.of());
+    }
+
+    /**
+     * Starts a worker for every tile of the grid.
+     *
+     * @param grid       the tiles
+     * @param jvmOptions options for each worker's JVM, such as its heap size
+     * @return the cluster, holding no rectangles
+     *
+     * @throws IOException if a worker can not be started
+     */
+    public static ShardCluster start(QuantileGrid grid, List<String> jvmOptions) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardWorker.class.getName());
+        ProcessBuilder builder = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT);
+
+        Process[] workers = new Process[grid.tileCount()];
+        try {
+            for(int tile = 0; tile < workers.length; tile++) {
+                workers[tile] = builder.start();
+            }
+            return new ShardCluster(grid, workers);
+        }
+        catch(IOException e) {
+            for(Process worker : workers) {
+                if(worker != null) {
+                    worker.destroyForcibly();
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the tiles the rectangles are spread over
+     */
+    public QuantileGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * @return the number of rectangles added
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param tile the number of a tile
+     * @return the number of rectangles sent to its worker, counting the ones
+     * that reach other tiles as well
+     */
+    public long shardSize(int tile) {
+        return shardSizes[tile];
+    }
+
+    /**
+     * Adds a rectangle given by its coordinates.  It reaches its workers
+     * with the next batch; queries send any waiting batches first.
+     *
+     * @param x  the coordinate of the upper left corner on the x-axis
+     * @param y  the coordinate of the upper left corner on the y-axis
+     * @param x1 the coordinate of the lower right corner on the x-axis
+     * @param y1 the coordinate of the lower right corner on the y-axis
+     * @return the id of the rectangle, the number of rectangles added before
+     * it
+     *
+     * @throws IOException if a batch could not be sent
+     * @throws IllegalArgumentException if the coordinates do not make a valid
+     * <code>Rectangle</code>
+     */
+    public int add(int x, int y, int x1, int y1) throws IOException {
+        Rectangles.validate(x, y, x1, y1);
+        checkOpen();
+        reachedCount = 0;
+        grid.tiles(x, y, x1, y1, this::reach);
+
+        int id = size++;
+        for(int k = 0; k < reachedCount; k++) {
+            int tile = reached[k];
+            int[] batch = batches[tile];
+            int at = batchSizes[tile] * 5;
+            batch[at] = id;
+            batch[at + 1] = x;
+            batch[at + 2] = y;
+            batch[at + 3] = x1;
+            batch[at + 4] = y1;
+            shardSizes[tile]++;
+            if(++batchSizes[tile] == BATCH_SIZE) {
+                send(tile);
+                requests[tile].flush();
+            }
+        }
+        return id;
+    }
+
+    private void reach(int tile) {
+        if(reachedCount == reached.length) {
+            reached = Arrays.copyOf(reached, reachedCount * 2);
+        }
+        reached[reachedCount++] = tile;
+    }
+
+    /**
+     * Adds a copy of the rectangle's coordinates.
+     *
+     * @param rectangle the rectangle to add
+     * @return the id of the rectangle
+     *
+     * @throws IOException if a batch could not be sent
+     */
+    public int add(Rectangle rectangle) throws IOException {
+        return add(rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY());
+    }
+
+    /**
+     * writes the records waiting for a worker, without flushing.
+     */
+    private void send(int tile) throws IOException {
+        int count = batchSizes[tile];
+        if(count == 0) {
+            return;
+        }
+
+        DataOutputStream out = requests[tile];
+        out.writeInt(ShardWorker.ADD);
+        out.writeInt(count);
+        int[] batch = batches[tile];
+        for(int k = 0; k < count * 5; k++) {
+            out.writeInt(batch[k]);
+        }
+        batchSizes[tile] = 0;
+    }
+
+    /**
+     * Finds the stored rectangles that match a query rectangle.
+     *
+     * @param operation <code>INTERSECTS</code>, <code>INTERSECTION</code>,
+     * <code>CONTAINS</code> or <code>ADJACENT</code>, as the
+     * {@link Protocol} defines them
+     * @param query     the query rectangle
+     * @param action    receives the id and coordinates of each match, or
+     * for <code>INTERSECTION</code> the area it shares with the query, in
+     * ascending order of id
+     * @return the number of matches
+     *
+     * @throws IOException if a worker fails
+     * @throws IllegalArgumentException if the operation does not take a
+     * query rectangle
+     */
+    public int query(Operation operation, Rectangle query, RecordConsumer action) throws IOException {
+        int code = Protocol.code(operation);
+        checkOpen();
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int qx = query.getUpperLeft().getX();
+        int qy = query.getUpperLeft().getY();
+        int qx1 = query.getLowerRight().getX();
+        int qy1 = query.getLowerRight().getY();
+
+        reachedCount = 0;
+        grid.tiles(qx, qy, qx1, qy1, this::reach);
+        int[] tiles = Arrays.copyOf(reached, reachedCount);
+        for(int tile : tiles) {
+            send(tile);
+            DataOutputStream out = requests[tile];
+            out.writeInt(ShardWorker.QUERY);
+            out.writeInt(code);
+            out.writeInt(qx);
+            out.writeInt(qy);
+            out.writeInt(qx1);
+            out.writeInt(qy1);
+            out.flush();
+        }
+
+        int total = 0;
+        int[][] answers = new int[tiles.length][];
+        for(int k = 0; k < tiles.length; k++) {
+            DataInputStream in = responses[tiles[k]];
+            try {
+                int count = in.readInt();
+                int[] records = new int[count * 5];
+                for(int r = 0; r < records.length; r++) {
+                    records[r] = in.readInt();
+                }
+                answers[k] = records;
+                total += count;
+            }
+            catch(EOFException e) {
+                throw stopped(tiles[k]);
+            }
+        }
+
+        // each answer is already in order of id; merge them
+        int[] next = new int[tiles.length];
+        for(int n = 0; n < total; n++) {
+            int best = -1;
+            for(int k = 0; k < answers.length; k++) {
+                if(next[k] < answers[k].length && (best < 0 || answers[k][next[k]] < answers[best][next[best]])) {
+                    best = k;
+                }
+            }
+            int[] records = answers[best];
+            int at = next[best];
+            action.accept(records[at], records[at + 1], records[at + 2], records[at + 3], records[at + 4]);
+            next[best] = at + 5;
+        }
+        if(Metrics.ENABLED) {
+            Probe.SHARD_QUERY.record(start, total);
+        }
+        return total;
+    }
+
+    /**
+     * Finds every pair of stored rectangles in a relation.  Each worker
+     * joins its own rectangles, all at the same time, and sends its pairs in
+     * order.  The pairs are merged here as they are read, so the cluster
+     * only holds the next pair from each worker however many there are.
+     *
+     * @param relation <code>Relation.INTERSECTS</code> for the pairs
+     * <code>Rectangle.intersects</code> holds for, or
+     * <code>Relation.ADJACENT</code> for the pairs
+     * <code>Rectangle.adjacent</code> holds for
+     * @param sink     receives each pair once, with i &lt; j, in ascending
+     * order
+     * @return the number of pairs
+     *
+     * @throws IOException if a worker fails
+     * @throws IllegalArgumentException if the relation is neither of those
+     */
+    public long pairs(int relation, PairConsumer sink) throws IOException {
+        if(relation != Relation.INTERSECTS && relation != Relation.ADJACENT) {
+            throw new IllegalArgumentException("pairs are only found for INTERSECTS or ADJACENT");
+        }
+        checkOpen();
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+
+        for(int tile = 0; tile < workers.length; tile++) {
+            send(tile);
+            requests[tile].writeInt(ShardWorker.PAIRS);
+            requests[tile].writeInt(relation);
+            requests[tile].flush();
+        }
+
+        // the number of pairs each worker has yet to send, and the next one
+        long[] left = new long[workers.length];
+        long[] heads = new long[workers.length];
+        long total = 0;
+        for(int tile = 0; tile < workers.length; tile++) {
+            left[tile] = readLong(tile);
+            total += left[tile];
+            next(tile, left, heads);
+        }
+
+        // each worker's pairs are already in order; merge them
+        for(long n = 0; n < total; n++) {
+            int best = -1;
+            for(int tile = 0; tile < workers.length; tile++) {
+                if(left[tile] >= 0 && (best < 0 || heads[tile] < heads[best])) {
+                    best = tile;
+                }
+            }
+            sink.accept((int) (heads[best] >>> 32), (int) heads[best]);
+            next(best, left, heads);
+        }
+        if(Metrics.ENABLED) {
+            Probe.SHARD_QUERY.record(start, total);
+        }
+        return total;
+    }
+
+    /**
+     * reads a worker's next pair into heads, or marks it as done by taking
+     * its count below zero.
+     */
+    private void next(int tile, long[] left, long[] heads) throws IOException {
+        if(--left[tile] >= 0) {
+            heads[tile] = readLong(tile);
+        }
+    }
+
+    private long readLong(int tile) throws IOException {
+        try {
+            return responses[tile].readLong();
+        }
+        catch(EOFException e) {
+            throw stopped(tile);
+        }
+    }
+
+    private IOException stopped(int tile) {
+        return new IOException("the worker for tile " + tile + " stopped answering");
+    }
+
+    private void checkOpen() throws IOException {
+        if(closed) {
+            throw new IOException("the cluster is closed");
+        }
+    }
+
+    /**
+     * Closes the workers' input, which makes them exit, and waits for them.
+     * A worker that has not exited after a few seconds is killed.
+     *
+     * @throws IOException if a worker did not exit cleanly
+     */
+    @Override
+    public void close() throws IOException {
+        if(closed) {
+            return;
+        }
+        closed = true;
+
+        IOException failure = null;
+        for(DataOutputStream out : requests) {
+            try {
+                out.close();
+            }
+            catch(IOException e) {
+                // the worker has already gone; its exit status says why
+            }
+        }
+        for(int tile = 0; tile < workers.length; tile++) {
+            try {
+                if(!workers[tile].waitFor(5, TimeUnit.SECONDS)) {
+                    workers[tile].destroyForcibly();
+                    failure = new IOException("the worker for tile " + tile + " did not exit");
+                }
+                else if(workers[tile].exitValue() != 0) {
+                    failure = new IOException("the worker for tile " + tile + " exited with status "
+                            + workers[tile].exitValue());
+                }
+            }
+            catch(InterruptedException e) {
+                workers[tile].destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+        if(failure != null) {
+            throw failure;
+        }
+    }
+}
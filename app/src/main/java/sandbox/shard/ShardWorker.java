@@ -0,0 +1,257 @@
+package sandbox.shard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import sandbox.RectangleArray;
+import sandbox.Rectangles;
+import sandbox.Relation;
+import sandbox.index.GridIndex;
+import sandbox.join.AdjacencyGraph;
+import sandbox.join.SweepJoin;
+import sandbox.server.Protocol;
+
+/**
+ * The process that holds one tile of a {@link ShardCluster}.  It reads
+ * requests from stdin and writes the answers to stdout; anything it has to
+ * complain about goes to stderr.  All numbers are big-endian, like
+ * {@link Protocol}.
+ *
+ * The conversation opens with the bounds of the worker's tile, four
+ * <code>int</code>s as <code>QuantileGrid.bounds</code> returns them.  Each
+ * request after that starts with its code:
+ * <pre>
+ * ADD    count  [id  x  y  x1  y1] * count
+ * QUERY  operation  x  y  x1  y1
+ * PAIRS  relation
+ * </pre>
+ * <code>ADD</code> stores rectangles and is not answered.  Ids must arrive
+ * in ascending order.  <code>QUERY</code> runs one of the
+ * <code>Protocol</code> operations and is answered with a count and then
+ * that many <code>id x y x1 y1</code> records in ascending order of id.
+ * <code>PAIRS</code> finds the pairs that are
+ * <code>Relation.INTERSECTS</code> or <code>Relation.ADJACENT</code> and
+ * is answered with a <code>long</code> count and then each pair as a
+ * <code>long</code>, the smaller id in the high half, in ascending order.
+ * The worker exits when stdin is closed.
+ *
+ * A rectangle crossing the edge of the tile is also held by the worker on
+ * the other side, so the worker only answers with the results whose
+ * reference point lies in its own tile.  The reference point is the upper
+ * left corner of the area the stored rectangle shares with the query, or
+ * the two rectangles of a pair share with each other.  That corner lies in
+ * every rectangle involved and in exactly one tile, whose worker therefore
+ * holds them all, so every result comes from exactly one worker.
+ *
+ * @author Wes McKean
+ */
+public class ShardWorker {
+    static final int ADD = 1;
+    static final int QUERY = 2;
+    static final int PAIRS = 3;
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final int tileX;
+    private final int tileY;
+    private final int tileX1;
+    private final int tileY1;
+    private final RectangleArray rectangles = new RectangleArray();
+    private int[] ids = new int[1024];
+    /**
+     * the index over the rectangles, built by the first query after the
+     * rectangles changed
+     */
+    private GridIndex index;
+    private int[] hits = new int[1024];
+
+    ShardWorker(int x, int y, int x1, int y1) {
+        this.tileX = x;
+        this.tileY = y;
+        this.tileX1 = x1;
+        this.tileY1 = y1;
+    }
+
+    /**
+     * @param args not used
+     * @throws IOException if stdin or stdout fails, or a request is not
+     * understood
+     */
+    public static void main(String[] args) throws IOException {
+        // System.out could be written by anything that prints; the
+        // descriptor is only written here
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in, BUFFER_BYTES));
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), BUFFER_BYTES));
+        serve(in, out);
+    }
+
+    /**
+     * answers requests until the input ends.
+     */
+    static void serve(DataInputStream in, DataOutputStream out) throws IOException {
+        ShardWorker worker = new ShardWorker(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+        while(true) {
+            int request;
+            try {
+                request = in.readInt();
+            }
+            catch(EOFException e) {
+                return;
+            }
+
+            switch(request) {
+                case ADD -> worker.add(in);
+                case QUERY -> worker.query(in, out);
+                case PAIRS -> worker.pairs(in, out);
+                default -> throw new IOException("unknown request: " + request);
+            }
+            out.flush();
+        }
+    }
+
+    private boolean owns(int px, int py) {
+        return px >= tileX && px <= tileX1 && py >= tileY && py <= tileY1;
+    }
+
+    private void add(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        for(int k = 0; k < count; k++) {
+            int id = in.readInt();
+            int i = rectangles.add(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+            if(i == ids.length) {
+                ids = Arrays.copyOf(ids, i * 2);
+            }
+            ids[i] = id;
+        }
+        index = null;
+    }
+
+    private GridIndex index() {
+        if(index == null) {
+            // cells about as large as the average rectangle
+            int n = rectangles.size();
+            long extent = 0;
+            for(int i = 0; i < n; i++) {
+                extent += Math.max((long) rectangles.getX1(i) - rectangles.getX(i),
+                        (long) rectangles.getY1(i) - rectangles.getY(i));
+            }
+            long mean = n == 0 ? 0 : extent / n;
+            index = new GridIndex(Math.max(1, Math.min(30, 64 - Long.numberOfLeadingZeros(mean))));
+            for(int i = 0; i < n; i++) {
+                index.insert(rectangles.getX(i), rectangles.getY(i), rectangles.getX1(i), rectangles.getY1(i));
+            }
+        }
+        return index;
+    }
+
+    private void query(DataInputStream in, DataOutputStream out) throws IOException {
+        int operation = in.readInt();
+        int qx = in.readInt();
+        int qy = in.readInt();
+        int qx1 = in.readInt();
+        int qy1 = in.readInt();
+        if(operation < Protocol.INTERSECTS || operation > Protocol.ADJACENT) {
+            throw new IOException("unknown operation: " + operation);
+        }
+
+        // handles are handed out in order, so they are the indexes in the
+        // array
+        int[] count = { 0 };
+        index().overlapping(qx, qy, qx1, qy1, i -> {
+            int x = rectangles.getX(i), y = rectangles.getY(i), x1 = rectangles.getX1(i), y1 = rectangles.getY1(i);
+            boolean matches = switch(operation) {
+                case Protocol.CONTAINS -> Rectangles.contains(qx, qy, qx1, qy1, x, y, x1, y1);
+                case Protocol.ADJACENT -> Rectangles.adjacent(x, y, x1, y1, qx, qy, qx1, qy1);
+                default -> Rectangles.intersects(x, y, x1, y1, qx, qy, qx1, qy1);
+            };
+            if(matches && owns(Math.max(x, qx), Math.max(y, qy))) {
+                if(count[0] == hits.length) {
+                    hits = Arrays.copyOf(hits, hits.length * 2);
+                }
+                hits[count[0]++] = i;
+            }
+        });
+        Arrays.sort(hits, 0, count[0]);
+
+        out.writeInt(count[0]);
+        for(int k = 0; k < count[0]; k++) {
+            int i = hits[k];
+            out.writeInt(ids[i]);
+            if(operation == Protocol.INTERSECTION) {
+                out.writeInt(Math.max(rectangles.getX(i), qx));
+                out.writeInt(Math.max(rectangles.getY(i), qy));
+                out.writeInt(Math.min(rectangles.getX1(i), qx1));
+                out.writeInt(Math.min(rectangles.getY1(i), qy1));
+            }
+            else {
+                out.writeInt(rectangles.getX(i));
+                out.writeInt(rectangles.getY(i));
+                out.writeInt(rectangles.getX1(i));
+                out.writeInt(rectangles.getY1(i));
+            }
+        }
+    }
+
+    private void pairs(DataInputStream in, DataOutputStream out) throws IOException {
+        int relation = in.readInt();
+        PairList pairs = new PairList();
+        if(relation == Relation.INTERSECTS) {
+            SweepJoin.selfJoin(rectangles, (i, j, x, y, x1, y1) -> {
+                if(owns(x, y)) {
+                    pairs.add(i, j);
+                }
+            });
+        }
+        else if(relation == Relation.ADJACENT) {
+            AdjacencyGraph graph = AdjacencyGraph.build(rectangles);
+            for(int i = 0; i < rectangles.size(); i++) {
+                int a = i;
+                graph.forEachNeighbor(i, j -> {
+                    if(j > a && owns(Math.max(rectangles.getX(a), rectangles.getX(j)),
+                            Math.max(rectangles.getY(a), rectangles.getY(j)))) {
+                        pairs.add(a, j);
+                    }
+                });
+            }
+        }
+        else {
+            throw new IOException("unknown relation: " + relation);
+        }
+
+        // ids ascend with the indexes, so the smaller index has the smaller id
+        long[] keys = pairs.keys;
+        for(int k = 0; k < pairs.size; k++) {
+            int i = (int) (keys[k] >>> 32);
+            int j = (int) keys[k];
+            keys[k] = ((long) ids[i] << 32) | ids[j];
+        }
+        Arrays.sort(keys, 0, pairs.size);
+
+        out.writeLong(pairs.size);
+        for(int k = 0; k < pairs.size; k++) {
+            out.writeLong(keys[k]);
+        }
+    }
+
+    /**
+     * a growable list of pairs packed into longs, smaller index high.
+     */
+    private static final class PairList {
+        long[] keys = new long[1024];
+        int size;
+
+        void add(int i, int j) {
+            if(size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = ((long) Math.min(i, j) << 32) | Math.max(i, j);
+        }
+    }
+}
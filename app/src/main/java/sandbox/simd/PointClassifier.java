@@ -0,0 +1,139 @@
+package sandbox.simd;
+
+import java.util.Arrays;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+
+/**
+ * Tests many points against rectangles at once.  The points come in as two
+ * primitive arrays, <code>xs</code> and <code>ys</code>, and the answers go
+ * out as a bit mask: bit i of the mask is word <code>i / 64</code>, bit
+ * <code>i % 64</code>, the same layout <code>BitSet.valueOf(long[])</code>
+ * reads.
+ *
+ * {@link #best()} uses the incubating Vector API to test a full vector of
+ * points per instruction when the JVM was started with
+ * <code>--add-modules jdk.incubator.vector</code>, and falls back to a plain
+ * loop when it was not.  Both give the same answers as
+ * <code>Rectangle.contains(Point)</code>.
+ *
+ * @author Wes McKean
+ */
+public abstract class PointClassifier {
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final PointClassifier SCALAR = new ScalarClassifier();
+    private static final PointClassifier BEST = load();
+
+    PointClassifier() {
+    }
+
+    private static PointClassifier load() {
+        if(Boolean.getBoolean("sandbox.simd.disable") || ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return SCALAR;
+        }
+
+        try {
+            return new VectorClassifier();
+        }
+        catch(LinkageError e) {
+            return SCALAR;
+        }
+    }
+
+    /**
+     * Returns the fastest classifier this JVM supports.  Setting the system
+     * property <code>sandbox.simd.disable</code> to true forces the plain
+     * loop.
+     *
+     * @return the vectorized classifier if the Vector API is available,
+     * otherwise the scalar one
+     */
+    public static PointClassifier best() {
+        return BEST;
+    }
+
+    /**
+     * @return the classifier that tests one point at a time
+     */
+    public static PointClassifier scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * @return true if this classifier uses the Vector API
+     */
+    public abstract boolean isVectorized();
+
+    /**
+     * Marks the points that fall within the area of a rectangle.
+     *
+     * @param rectangle the <code>Rectangle</code> to test the points against
+     * @param xs    the locations of the points on the x-axis
+     * @param ys    the locations of the points on the y-axis
+     * @param count the number of points to test, starting at index zero
+     * @param mask  receives bit i set if point i is inside the rectangle and
+     * cleared if it is not.  it must hold at least (count + 63) / 64 words;
+     * words past the last point are left alone.
+     * @see Rectangle#contains(sandbox.Point)
+     */
+    public void contains(Rectangle rectangle, int[] xs, int[] ys, int count, long[] mask) {
+        check(xs, ys, count, mask);
+        contains(rectangle.getUpperLeft().getX(), rectangle.getUpperLeft().getY(),
+                rectangle.getLowerRight().getX(), rectangle.getLowerRight().getY(), xs, ys, count, mask);
+    }
+
+    /**
+     * Marks the points that fall within the area of at least one of the
+     * rectangles.
+     *
+     * @param rectangles the rectangles to test the points against
+     * @param xs    the locations of the points on the x-axis
+     * @param ys    the locations of the points on the y-axis
+     * @param count the number of points to test, starting at index zero
+     * @param mask  receives bit i set if point i is inside any of the
+     * rectangles and cleared if it is not.  it must hold at least
+     * (count + 63) / 64 words; words past the last point are left alone.
+     * @see Rectangle#contains(sandbox.Point)
+     */
+    public void containsAny(RectangleArray rectangles, int[] xs, int[] ys, int count, long[] mask) {
+        check(xs, ys, count, mask);
+        int n = rectangles.size();
+        int[] bounds = new int[n * 4];
+        for(int i = 0; i < n; i++) {
+            bounds[i * 4] = rectangles.getX(i);
+            bounds[i * 4 + 1] = rectangles.getY(i);
+            bounds[i * 4 + 2] = rectangles.getX1(i);
+            bounds[i * 4 + 3] = rectangles.getY1(i);
+        }
+        containsAny(bounds, n, xs, ys, count, mask);
+    }
+
+    /**
+     * the kernel for one rectangle.  the mask words covering the points
+     * have already been checked.
+     */
+    abstract void contains(int x, int y, int x1, int y1, int[] xs, int[] ys, int count, long[] mask);
+
+    /**
+     * the kernel for many rectangles, packed as x, y, x1, y1 quads.
+     */
+    abstract void containsAny(int[] bounds, int rectangles, int[] xs, int[] ys, int count, long[] mask);
+
+    private static void check(int[] xs, int[] ys, int count, long[] mask) {
+        if(count < 0 || count > xs.length || count > ys.length) {
+            throw new IllegalArgumentException("count must be between zero and the number of coordinates");
+        }
+
+        if(mask.length < words(count)) {
+            throw new IllegalArgumentException("mask must hold at least " + words(count) + " words");
+        }
+    }
+
+    static int words(int count) {
+        return (count + 63) >>> 6;
+    }
+
+    static void clear(long[] mask, int count) {
+        Arrays.fill(mask, 0, words(count), 0L);
+    }
+}
@@ -0,0 +1,58 @@
+package sandbox.simd;
+
+import sandbox.Rectangles;
+
+/**
+ * The plain loop, one point at a time.  Used when the Vector API is not
+ * available, and for the points left over after the last full vector.
+ *
+ * @author Wes McKean
+ */
+final class ScalarClassifier extends PointClassifier {
+
+    @Override
+    public boolean isVectorized() {
+        return false;
+    }
+
+    @Override
+    void contains(int x, int y, int x1, int y1, int[] xs, int[] ys, int count, long[] mask) {
+        clear(mask, count);
+        containsFrom(0, x, y, x1, y1, xs, ys, count, mask);
+    }
+
+    @Override
+    void containsAny(int[] bounds, int rectangles, int[] xs, int[] ys, int count, long[] mask) {
+        clear(mask, count);
+        containsAnyFrom(0, bounds, rectangles, xs, ys, count, mask);
+    }
+
+    /**
+     * sets the bits of the points from start to count that lie in the
+     * rectangle.  the bits must already be clear.
+     */
+    static void containsFrom(int start, int x, int y, int x1, int y1, int[] xs, int[] ys, int count, long[] mask) {
+        for(int i = start; i < count; i++) {
+            if(Rectangles.contains(x, y, x1, y1, xs[i], ys[i])) {
+                mask[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    /**
+     * sets the bits of the points from start to count that lie in any of the
+     * rectangles.  the bits must already be clear.
+     */
+    static void containsAnyFrom(int start, int[] bounds, int rectangles, int[] xs, int[] ys, int count, long[] mask) {
+        for(int i = start; i < count; i++) {
+            int px = xs[i];
+            int py = ys[i];
+            for(int r = 0, b = 0; r < rectangles; r++, b += 4) {
+                if(Rectangles.contains(bounds[b], bounds[b + 1], bounds[b + 2], bounds[b + 3], px, py)) {
+                    mask[i >>> 6] |= 1L << i;
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package sandbox.simd;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Tests a full vector of points per step with the incubating Vector API.
+ * This class only loads when the <code>jdk.incubator.vector</code> module is
+ * present; <code>PointClassifier</code> falls back to the scalar loop when
+ * it is not.
+ *
+ * The number of lanes is a power of two no larger than 64 and every vector
+ * starts at a multiple of the lane count, so the lanes of one vector always
+ * land in a single word of the mask.
+ *
+ * @author Wes McKean
+ */
+final class VectorClassifier extends PointClassifier {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    void contains(int x, int y, int x1, int y1, int[] xs, int[] ys, int count, long[] mask) {
+        clear(mask, count);
+
+        int lanes = SPECIES.length();
+        int upper = SPECIES.loopBound(count);
+        int i = 0;
+        for(; i < upper; i += lanes) {
+            IntVector vx = IntVector.fromArray(SPECIES, xs, i);
+            IntVector vy = IntVector.fromArray(SPECIES, ys, i);
+            VectorMask<Integer> inside = inside(vx, vy, x, y, x1, y1);
+            mask[i >>> 6] |= inside.toLong() << i;
+        }
+
+        ScalarClassifier.containsFrom(i, x, y, x1, y1, xs, ys, count, mask);
+    }
+
+    @Override
+    void containsAny(int[] bounds, int rectangles, int[] xs, int[] ys, int count, long[] mask) {
+        clear(mask, count);
+
+        int lanes = SPECIES.length();
+        int upper = SPECIES.loopBound(count);
+        int i = 0;
+        for(; i < upper; i += lanes) {
+            IntVector vx = IntVector.fromArray(SPECIES, xs, i);
+            IntVector vy = IntVector.fromArray(SPECIES, ys, i);
+            VectorMask<Integer> inside = SPECIES.maskAll(false);
+            for(int r = 0, b = 0; r < rectangles; r++, b += 4) {
+                inside = inside.or(inside(vx, vy, bounds[b], bounds[b + 1], bounds[b + 2], bounds[b + 3]));
+                if(inside.allTrue()) {
+                    break;
+                }
+            }
+            mask[i >>> 6] |= inside.toLong() << i;
+        }
+
+        ScalarClassifier.containsAnyFrom(i, bounds, rectangles, xs, ys, count, mask);
+    }
+
+    private static VectorMask<Integer> inside(IntVector vx, IntVector vy, int x, int y, int x1, int y1) {
+        return vx.compare(VectorOperators.GE, x)
+                .and(vx.compare(VectorOperators.LE, x1))
+                .and(vy.compare(VectorOperators.GE, y))
+                .and(vy.compare(VectorOperators.LE, y1));
+    }
+}
@@ -0,0 +1,120 @@
+package sandbox;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import sandbox.io.RectangleFileWriter;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class AppTest {
+    private static final String INPUT = "# x y x1 y1\n"
+            + "0 0 10 10\n"
+            + "\n"
+            + "5,5,15,15\r\n"
+            + "2 2 3 3\n"
+            + "10 0 20 10\n"
+            + "30\t30\t40\t40\n";
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private int run(String input, String... args) {
+        return new App().run(args, new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)), out,
+                new PrintStream(err, true));
+    }
+
+    private String output() {
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void testIntersects() {
+        assertEquals(0, run(INPUT, "intersects", "-q", "0,0,10,10"));
+        assertEquals("5 5 15 15\n10 0 20 10\n", output());
+        assertTrue(err.toString().startsWith("intersects: 5 records, 2 results"));
+    }
+
+    @Test
+    public void testIntersection() {
+        assertEquals(0, run(INPUT, "intersection", "-q", "0,0,10,10"));
+        assertEquals("5 5 10 10\n10 0 10 10\n", output());
+    }
+
+    @Test
+    public void testContainsRectanglesAndPoints() {
+        assertEquals(0, run(INPUT + "1 1\n-4 1\n", "contains", "-q", "0,0,10,10"));
+        assertEquals("0 0 10 10\n2 2 3 3\n1 1\n", output());
+    }
+
+    @Test
+    public void testAdjacent() {
+        assertEquals(0, run(INPUT, "adjacent", "-q", "0,0,10,10"));
+        assertEquals("10 0 20 10\n", output());
+    }
+
+    @Test
+    public void testAllPairs() {
+        assertEquals(0, run(INPUT, "all-pairs"));
+        List<String> pairs = List.of(output().split("\n"));
+        assertEquals(3, pairs.size());
+        assertTrue(pairs.containsAll(List.of("0 1", "0 3", "1 3")));
+    }
+
+    @Test
+    public void testCompact() {
+        assertEquals(0, run("0 0 10 10\n10 0 20 10\n2 2 3 3\n", "compact"));
+        assertEquals("0 0 20 10\n", output());
+        assertTrue(err.toString().contains("compaction ratio: 3.00"));
+    }
+
+    @Test
+    public void testBinaryInputAndFileOutput() throws Exception {
+        Path input = Files.createTempFile("app", ".rect");
+        Path output = Files.createTempFile("app", ".txt");
+        try {
+            try(RectangleFileWriter writer = RectangleFileWriter.create(input)) {
+                writer.write(0, 0, 10, 10);
+                writer.write(-5, -5, 2, 2);
+                writer.write(50, 50, 60, 60);
+            }
+            assertEquals(0, run("", "intersects", "-q", "0,0,10,10", "-i", input.toString(), "-o", output.toString()));
+            assertEquals("-5 -5 2 2\n", Files.readString(output));
+        }
+        finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+
+    @Test
+    public void testErrors() {
+        assertEquals(2, run(INPUT));
+        assertEquals(2, run(INPUT, "nearest", "-q", "0,0,1,1"));
+        assertEquals(2, run(INPUT, "intersects"));
+        assertEquals(2, run(INPUT, "intersects", "-q", "0,0,1"));
+        assertEquals(1, run("0 0 1 x\n", "intersects", "-q", "0,0,1,1"));
+        assertEquals(1, run("5 5 1 1\n", "intersects", "-q", "0,0,1,1"));
+        assertEquals(1, run("1 1\n", "intersects", "-q", "0,0,1,1"));
+        assertTrue(err.toString().contains("line 1"));
+    }
+
+    @Test
+    public void testServerErrors() {
+        assertEquals(2, run("", "load", "-t", "all-pairs"));
+        assertEquals(2, run("", "load", "-i", "rectangles.txt"));
+        assertEquals(2, run("", "serve", "-p", "70000"));
+        assertEquals(2, run("", "serve", "-w"));
+        assertEquals(1, run("0 0 10 10\n3 3\n", "serve", "-p", "0"));
+        assertTrue(err.toString().contains("line 2"));
+    }
+}
@@ -0,0 +1,76 @@
+package sandbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class HilbertCurveTest {
+
+    @Test
+    public void testCurveVisitsNeighbours() {
+        for(int order = 1; order <= 5; order++) {
+            int side = 1 << order;
+            int[] xs = new int[side * side];
+            int[] ys = new int[side * side];
+            boolean[] seen = new boolean[side * side];
+            for(int x = 0; x < side; x++) {
+                for(int y = 0; y < side; y++) {
+                    int d = (int) HilbertCurve.index(order, x, y);
+                    assertTrue(!seen[d], "position " + d + " used twice");
+                    seen[d] = true;
+                    xs[d] = x;
+                    ys[d] = y;
+                }
+            }
+            for(int d = 1; d < side * side; d++) {
+                assertEquals(1, Math.abs(xs[d] - xs[d - 1]) + Math.abs(ys[d] - ys[d - 1]));
+            }
+        }
+    }
+
+    @Test
+    public void testSortIsInCurveOrder() {
+        RectangleArray rectangles = new RectangleArray();
+        for(int x = 0; x < 64; x++) {
+            for(int y = 0; y < 64; y++) {
+                // in reverse, so the sort has to move every rectangle
+                rectangles.add((63 - x) * 1000, (63 - y) * 1000, (63 - x) * 1000 + 10, (63 - y) * 1000 + 10);
+            }
+        }
+        int shift = HilbertCurve.shift(63_000);
+
+        int[] order = HilbertCurve.sort(rectangles);
+        assertEquals(rectangles.size(), order.length);
+        long previous = -1;
+        for(int i : order) {
+            int cx = (rectangles.getX(i) + rectangles.getX1(i)) >> 1;
+            int cy = (rectangles.getY(i) + rectangles.getY1(i)) >> 1;
+            long d = HilbertCurve.index(16, (cx - 5) >>> shift, (cy - 5) >>> shift);
+            assertTrue(d >= previous, "position " + d + " after " + previous);
+            previous = d;
+        }
+        // the second half of the curve is reached, and comes last
+        assertTrue(previous >= 1L << 31);
+    }
+
+    @Test
+    public void testLimits() {
+        assertEquals(0, HilbertCurve.index(1, 0, 0));
+        assertEquals(3, HilbertCurve.index(1, 1, 0));
+        int max = Integer.MAX_VALUE;
+        assertTrue(HilbertCurve.index(HilbertCurve.MAX_ORDER, max, 0) < 1L << 62);
+        assertThrows(IllegalArgumentException.class, () -> HilbertCurve.index(0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> HilbertCurve.index(2, 4, 0));
+        assertThrows(IllegalArgumentException.class, () -> HilbertCurve.index(2, 0, -1));
+
+        assertEquals(0, HilbertCurve.shift(0));
+        assertEquals(0, HilbertCurve.shift(65535));
+        assertEquals(1, HilbertCurve.shift(65536));
+        assertEquals(16, HilbertCurve.shift(0xFFFFFFFFL));
+    }
+}
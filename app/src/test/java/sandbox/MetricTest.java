@@ -0,0 +1,62 @@
+package sandbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class MetricTest {
+
+    @Test
+    public void testPointDistances() {
+        Point a = new Point(1, 2);
+        Point b = new Point(4, 6);
+
+        assertEquals(7, Metric.MANHATTAN.distance(a, b));
+        assertEquals(4, Metric.CHEBYSHEV.distance(a, b));
+        assertEquals(25, Metric.SQUARED_EUCLIDEAN.distance(a, b));
+        assertEquals(0, Metric.MANHATTAN.distance(a, a));
+    }
+
+    @Test
+    public void testRectangleToPoint() {
+        Rectangle r = new Rectangle(0, 0, 10, 10);
+
+        // inside and on the edge
+        assertEquals(0, Metric.MANHATTAN.distance(r, new Point(5, 5)));
+        assertEquals(0, Metric.MANHATTAN.distance(r, new Point(10, 3)));
+        // beside and diagonal
+        assertEquals(4, Metric.SQUARED_EUCLIDEAN.distance(r, new Point(12, 5)));
+        assertEquals(5, Metric.MANHATTAN.distance(r, new Point(13, -2)));
+        assertEquals(3, Metric.CHEBYSHEV.distance(r, new Point(13, -2)));
+        assertEquals(13, Metric.SQUARED_EUCLIDEAN.distance(r, new Point(13, -2)));
+    }
+
+    @Test
+    public void testRectangleToRectangle() {
+        Rectangle a = new Rectangle(0, 0, 10, 10);
+
+        assertEquals(0, Metric.CHEBYSHEV.distance(a, new Rectangle(5, 5, 20, 20)));
+        assertEquals(0, Metric.CHEBYSHEV.distance(a, new Rectangle(10, 0, 20, 10)));
+        assertEquals(0, Metric.CHEBYSHEV.distance(a, new Rectangle(1, 1, 2, 2)));
+
+        Rectangle b = new Rectangle(13, 14, 20, 20);
+        assertEquals(7, Metric.MANHATTAN.distance(a, b));
+        assertEquals(4, Metric.CHEBYSHEV.distance(a, b));
+        assertEquals(25, Metric.SQUARED_EUCLIDEAN.distance(b, a));
+    }
+
+    @Test
+    public void testNoOverflow() {
+        Point a = new Point(Integer.MIN_VALUE, Integer.MIN_VALUE);
+        Point b = new Point(Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+        assertEquals(2 * 0xFFFFFFFFL, Metric.MANHATTAN.distance(a, b));
+        assertEquals(0xFFFFFFFFL, Metric.CHEBYSHEV.distance(a, b));
+        assertEquals(Long.MAX_VALUE, Metric.SQUARED_EUCLIDEAN.distance(a, b));
+        assertEquals(2L * Integer.MAX_VALUE * Integer.MAX_VALUE,
+                Metric.SQUARED_EUCLIDEAN.distance(new Point(0, 0), b));
+    }
+}
@@ -0,0 +1,61 @@
+package sandbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class PointCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        int[] values = {0, 1, -1, 12345, -98765, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for(int x : values) {
+            for(int y : values) {
+                long code = PointCodec.encode(x, y);
+                assertEquals(x, PointCodec.x(code));
+                assertEquals(y, PointCodec.y(code));
+                assertEquals(new Point(x, y), PointCodec.decode(code));
+                assertEquals(new Point(x, y).hashCode(), PointCodec.hashCode(code));
+            }
+        }
+        assertNotEquals(PointCodec.encode(1, 2), PointCodec.encode(2, 1));
+    }
+
+    @Test
+    public void testCodesSortByXThenY() {
+        assertTrue(PointCodec.encode(-5, 100) < PointCodec.encode(-4, -100));
+        assertTrue(PointCodec.encode(3, -1) < PointCodec.encode(3, 0));
+    }
+
+    @Test
+    public void testValuesAgreeWithMutableTypes() {
+        Point p = new Point(3, -7);
+        PointValue v = PointValue.of(p);
+        assertEquals(v, new PointValue(3, -7));
+        assertEquals(p.hashCode(), v.hashCode());
+        assertEquals(p.toString(), v.toString());
+        assertEquals(p, v.toPoint());
+        assertEquals(v, PointValue.decode(v.encode()));
+
+        Rectangle r = new Rectangle(0, 0, 10, 10);
+        RectangleValue rv = RectangleValue.of(r);
+        assertEquals(r.hashCode(), rv.hashCode());
+        assertEquals(r.toString(), rv.toString());
+        assertEquals(r, rv.toRectangle());
+        assertEquals(r.getWidth(), rv.getWidth());
+
+        RectangleValue other = new RectangleValue(10, 3, 20, 6);
+        assertTrue(rv.adjacent(other));
+        assertTrue(rv.intersects(other));
+        assertFalse(rv.contains(other));
+        assertTrue(rv.contains(new PointValue(10, 10)));
+        assertThrows(IllegalArgumentException.class, () ->{new RectangleValue(10, 10, 4, 4);});
+    }
+}
@@ -0,0 +1,52 @@
+package sandbox;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class PointMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        PointMap<String> map = new PointMap<>();
+        assertNull(map.put(3, 4, "a"));
+        assertEquals("a", map.put(new Point(3, 4), "b"));
+        assertEquals("b", map.get(3, 4));
+        assertNull(map.get(4, 3));
+        assertTrue(map.containsKey(3, 4));
+        assertEquals("b", map.remove(3, 4));
+        assertNull(map.remove(3, 4));
+        assertTrue(map.isEmpty());
+        assertThrows(IllegalArgumentException.class, () ->{map.put(0, 0, null);});
+    }
+
+    @Test
+    public void testMatchesHashMap() {
+        Random random = new Random(2);
+        PointMap<Integer> map = new PointMap<>(16);
+        Map<Point, Integer> expected = new HashMap<>();
+
+        for(int i = 0; i < 50_000; i++) {
+            Point p = new Point(random.nextInt(300), random.nextInt(300));
+            switch(random.nextInt(3)) {
+                case 0 -> assertEquals(expected.put(p, i), map.put(p, i));
+                case 1 -> assertEquals(expected.remove(p), map.remove(p));
+                default -> assertEquals(expected.get(p), map.get(p));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        Map<Point, Integer> actual = new HashMap<>();
+        map.forEach((x, y, value) -> actual.put(new Point(x, y), value));
+        assertEquals(expected, actual);
+    }
+}
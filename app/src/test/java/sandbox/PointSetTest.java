@@ -0,0 +1,57 @@
+package sandbox;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class PointSetTest {
+
+    @Test
+    public void testAddContainsRemove() {
+        PointSet set = new PointSet();
+        assertTrue(set.add(1, 2));
+        assertFalse(set.add(new Point(1, 2)));
+        assertTrue(set.add(Integer.MIN_VALUE, 0));
+        assertTrue(set.contains(new Point(1, 2)));
+        assertTrue(set.contains(Integer.MIN_VALUE, 0));
+        assertFalse(set.contains(2, 1));
+        assertEquals(2, set.size());
+
+        assertTrue(set.remove(1, 2));
+        assertFalse(set.remove(1, 2));
+        assertEquals(1, set.size());
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(Integer.MIN_VALUE, 0));
+    }
+
+    @Test
+    public void testMatchesHashSet() {
+        Random random = new Random(1);
+        PointSet set = new PointSet();
+        Set<Point> expected = new HashSet<>();
+
+        for(int i = 0; i < 50_000; i++) {
+            Point p = new Point(random.nextInt(200) - 100, random.nextInt(200) - 100);
+            switch(random.nextInt(3)) {
+                case 0 -> assertEquals(expected.add(p), set.add(p));
+                case 1 -> assertEquals(expected.remove(p), set.remove(p));
+                default -> assertEquals(expected.contains(p), set.contains(p));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+
+        Set<Point> actual = new HashSet<>();
+        set.forEach((x, y) -> assertTrue(actual.add(new Point(x, y))));
+        assertEquals(expected, actual);
+    }
+}
@@ -36,4 +36,14 @@ public class PointTest {
         
         assertTrue(p3.isOnLine(p1, p2));
     }
+
+    @Test
+    public void testHashCode() {
+        Point p1 = new Point(3, 4);
+        Point p2 = new Point(3, 4);
+
+        assertTrue(p1.equals(p2));
+        assertTrue(p1.hashCode() == p2.hashCode());
+        assertFalse(p1.hashCode() == new Point(4, 3).hashCode());
+    }
 }
@@ -0,0 +1,68 @@
+package sandbox;
+
+import java.util.Random;
+
+/**
+ * Random rectangles for the tests.  Every rectangle takes four draws from
+ * the generator, x, y, width and height in that order, so a test seeded the
+ * same way always sees the same rectangles.
+ *
+ * @author Wes McKean
+ */
+public final class RandomRectangles {
+
+    private RandomRectangles() {
+    }
+
+    /**
+     * Makes a rectangle whose upper left corner lies in the square of side
+     * range starting at (from, from), from 1 to size wide and tall.
+     *
+     * @param random the generator to draw from
+     * @param from   the smallest coordinate of the upper left corner
+     * @param range  how many coordinates the upper left corner can take
+     * @param size   the largest width and height
+     * @return the rectangle
+     */
+    public static Rectangle rectangle(Random random, int from, int range, int size) {
+        int x = from + random.nextInt(range);
+        int y = from + random.nextInt(range);
+        return new Rectangle(x, y, x + 1 + random.nextInt(size), y + 1 + random.nextInt(size));
+    }
+
+    /**
+     * Makes count rectangles the way {@link #rectangle(Random, int, int, int)}
+     * does.
+     *
+     * @param random the generator to draw from
+     * @param count  the number of rectangles
+     * @param from   the smallest coordinate of the upper left corners
+     * @param range  how many coordinates the upper left corners can take
+     * @param size   the largest width and height
+     * @return the rectangles
+     */
+    public static RectangleArray array(Random random, int count, int from, int range, int size) {
+        RectangleArray array = new RectangleArray(count);
+        for(int i = 0; i < count; i++) {
+            int x = from + random.nextInt(range);
+            int y = from + random.nextInt(range);
+            array.add(x, y, x + 1 + random.nextInt(size), y + 1 + random.nextInt(size));
+        }
+        return array;
+    }
+
+    /**
+     * Makes a rectangle of any size that lies wholly within the cells from
+     * (0, 0) to (width - 1, height - 1).
+     *
+     * @param random the generator to draw from
+     * @param width  the number of columns, at least two
+     * @param height the number of rows, at least two
+     * @return the rectangle
+     */
+    public static Rectangle within(Random random, int width, int height) {
+        int x = random.nextInt(width - 1);
+        int y = random.nextInt(height - 1);
+        return new Rectangle(x, y, x + 1 + random.nextInt(width - x - 1), y + 1 + random.nextInt(height - y - 1));
+    }
+}
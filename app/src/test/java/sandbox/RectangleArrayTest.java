@@ -0,0 +1,226 @@
+package sandbox;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class RectangleArrayTest {
+
+    @Test
+    public void testInvalidCoordinates() {
+        RectangleArray array = new RectangleArray();
+        assertThrows(IllegalArgumentException.class, () ->{array.add(10, 10, 4, 4);});
+        assertThrows(IllegalArgumentException.class, () ->{array.add(10, 10, 10, 20);});
+        assertEquals(0, array.size());
+    }
+
+    @Test
+    public void testConversion() {
+        Rectangle r1 = new Rectangle(0, 0, 10, 10);
+        Rectangle r2 = new Rectangle(-5, 3, 8, 12);
+        RectangleArray array = RectangleArray.of(List.of(r1, r2));
+
+        assertEquals(2, array.size());
+        assertEquals(r1, array.toRectangle(0));
+        assertEquals(r2, array.toRectangle(1));
+        assertEquals(List.of(r1, r2), array.toList());
+        assertEquals(14, array.cursor().moveTo(1).getWidth());
+    }
+
+    @Test
+    public void testSlice() {
+        RectangleArray array = RectangleArray.of(List.of(
+                new Rectangle(0, 0, 4, 4), new Rectangle(2, 2, 6, 6), new Rectangle(1, 1, 2, 2)));
+        RectangleArray slice = array.slice(1, 3);
+
+        assertEquals(2, slice.size());
+        assertEquals(new Rectangle(2, 2, 6, 6), slice.toRectangle(0));
+        assertThrows(UnsupportedOperationException.class, () ->{slice.add(0, 0, 1, 1);});
+        assertThrows(IndexOutOfBoundsException.class, () ->{slice.getX(2);});
+
+        int[] hits = new int[slice.size()];
+        assertEquals(1, slice.intersects(new Rectangle(0, 0, 4, 4), hits));
+        assertEquals(0, hits[0]);
+    }
+
+    @Test
+    public void testBatchMatchesRectangle() {
+        Random random = new Random(42);
+        RectangleArray array = RandomRectangles.array(random, 200, 0, 20, 8);
+        BitSet bits = new BitSet(array.size());
+        int[] indexes = new int[array.size()];
+
+        for(int q = 0; q < 200; q++) {
+            Rectangle query = RandomRectangles.rectangle(random, 0, 20, 8);
+            Point pt = new Point(random.nextInt(30), random.nextInt(30));
+
+            array.intersects(query, bits);
+            int count = array.intersects(query, indexes);
+            for(int i = 0, n = 0; i < array.size(); i++) {
+                boolean expected = array.toRectangle(i).intersects(query);
+                assertEquals(expected, bits.get(i));
+                if(expected) {
+                    assertEquals(i, indexes[n++]);
+                }
+            }
+            assertEquals(bits.cardinality(), count);
+
+            array.contains(query, bits);
+            assertEquals(bits.cardinality(), array.contains(query, indexes));
+            for(int i = 0; i < array.size(); i++) {
+                assertEquals(array.toRectangle(i).contains(query), bits.get(i));
+            }
+
+            array.contains(pt, bits);
+            assertEquals(bits.cardinality(), array.contains(pt, indexes));
+            for(int i = 0; i < array.size(); i++) {
+                assertEquals(array.toRectangle(i).contains(pt), bits.get(i));
+            }
+
+            array.adjacent(query, bits);
+            assertEquals(bits.cardinality(), array.adjacent(query, indexes));
+            for(int i = 0; i < array.size(); i++) {
+                assertEquals(array.toRectangle(i).adjacent(query), bits.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testCursorMatchesRectangle() {
+        Random random = new Random(7);
+        RectangleArray array = RandomRectangles.array(random, 50, 0, 20, 8);
+        RectangleArray.Cursor cursor = array.cursor();
+
+        for(int i = 0; i < array.size(); i++) {
+            Rectangle expected = array.toRectangle(i);
+            cursor.moveTo(i);
+            for(int j = 0; j < array.size(); j++) {
+                Rectangle other = array.toRectangle(j);
+                assertEquals(expected.intersects(other), cursor.intersects(other));
+                assertEquals(expected.contains(other), cursor.contains(other));
+                assertEquals(expected.adjacent(other), cursor.adjacent(other));
+            }
+            assertTrue(cursor.contains(expected.getLowerRight()));
+            assertFalse(cursor.contains(new Point(expected.getLowerRight().getX() + 1, 0)));
+        }
+    }
+
+    @Test
+    public void testLazyAndSinkQueriesMatchRectangle() {
+        Random random = new Random(19);
+        RectangleArray array = RandomRectangles.array(random, 5000, 0, 20, 8);
+        // a slice checks the offset is honoured
+        RectangleArray slice = array.slice(1000, 4000);
+        List<Rectangle> list = slice.toList();
+
+        for(int q = 0; q < 50; q++) {
+            Rectangle query = RandomRectangles.rectangle(random, 0, 20, 8);
+            Point pt = new Point(random.nextInt(28), random.nextInt(28));
+
+            List<Integer> intersects = new ArrayList<>();
+            List<Integer> contains = new ArrayList<>();
+            List<Integer> containsPoint = new ArrayList<>();
+            List<Integer> adjacent = new ArrayList<>();
+            for(int i = 0; i < list.size(); i++) {
+                if(list.get(i).intersects(query)) {
+                    intersects.add(i);
+                }
+                if(list.get(i).contains(query)) {
+                    contains.add(i);
+                }
+                if(list.get(i).contains(pt)) {
+                    containsPoint.add(i);
+                }
+                if(list.get(i).adjacent(query)) {
+                    adjacent.add(i);
+                }
+            }
+
+            assertEquals(intersects, slice.streamIntersects(query).boxed().collect(Collectors.toList()));
+            assertEquals(intersects, slice.streamIntersects(query).parallel().boxed().collect(Collectors.toList()));
+            assertEquals(contains, slice.streamContains(query).boxed().collect(Collectors.toList()));
+            assertEquals(containsPoint, slice.streamContains(pt).boxed().collect(Collectors.toList()));
+            assertEquals(adjacent, slice.streamAdjacent(query).boxed().collect(Collectors.toList()));
+
+            List<Integer> sink = new ArrayList<>();
+            slice.intersects(query, (int i) -> sink.add(i));
+            assertEquals(intersects, sink);
+            sink.clear();
+            slice.contains(query, (int i) -> sink.add(i));
+            assertEquals(contains, sink);
+            sink.clear();
+            slice.contains(pt, (int i) -> sink.add(i));
+            assertEquals(containsPoint, sink);
+            sink.clear();
+            slice.adjacent(query, (int i) -> sink.add(i));
+            assertEquals(adjacent, sink);
+
+            if(!intersects.isEmpty()) {
+                assertEquals((int) intersects.get(0), slice.streamIntersects(query).findFirst().getAsInt());
+            }
+        }
+    }
+
+    @Test
+    public void testLazyStreamStopsEarly() {
+        RectangleArray array = new RectangleArray();
+        for(int i = 0; i < 100_000; i++) {
+            array.add(i, 0, i + 2, 2);
+        }
+        int[] tested = new int[1];
+        int[] first = array.streamIntersects(new Rectangle(0, 0, 100_000, 1))
+                .peek(i -> tested[0]++)
+                .limit(3)
+                .toArray();
+        assertArrayEquals(new int[] {0, 1, 2}, first);
+        assertEquals(3, tested[0]);
+    }
+
+    @Test
+    public void testIntersectionSink() {
+        RectangleArray array = RectangleArray.of(List.of(
+                new Rectangle(0, 0, 10, 10),
+                new Rectangle(10, 0, 20, 10),
+                new Rectangle(30, 30, 40, 40),
+                new Rectangle(5, 5, 15, 15)));
+        Rectangle query = new Rectangle(0, 0, 10, 10);
+
+        List<String> actual = new ArrayList<>();
+        array.intersection(query, (i, x, y, x1, y1) -> actual.add(i + ":" + x + "," + y + "," + x1 + "," + y1));
+        assertEquals(List.of("1:10,0,10,10", "3:5,5,10,10"), actual);
+    }
+
+    @Test
+    public void testRelate() {
+        Random random = new Random(23);
+        RectangleArray array = RandomRectangles.array(random, 500, 0, 40, 10);
+        Rectangle query = new Rectangle(10, 10, 25, 30);
+
+        byte[] result = new byte[array.size()];
+        int count = array.relate(query, result);
+        int expected = 0;
+        for(int i = 0; i < array.size(); i++) {
+            int relation = array.toRectangle(i).relate(query);
+            assertEquals(relation, result[i] & 0xFF);
+            if(relation != Relation.DISJOINT) {
+                expected++;
+            }
+        }
+        assertEquals(expected, count);
+        assertTrue(count > 0 && count < array.size());
+
+        assertThrows(IllegalArgumentException.class, () -> array.relate(query, new byte[10]));
+    }
+}
@@ -1,6 +1,8 @@
 
 package sandbox;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -150,4 +152,77 @@ public class RectangleTest {
         Optional<Rectangle> optional = r1.intersection(r2);
         assertFalse(optional.isPresent());
     }
+
+    @Test
+    public void testHashCode() {
+        Rectangle r1 = new Rectangle(0, 0, 4, 4);
+        Rectangle r2 = Rectangle.build(0, 0, 5, 5);
+
+        assertEquals(r1, r2);
+        assertEquals(r1.hashCode(), r2.hashCode());
+    }
+
+    @Test
+    public void testListener() {
+        Rectangle r1 = new Rectangle(0, 0, 4, 4);
+        int[] calls = new int[1];
+        r1.setListener(r -> {
+            assertEquals(r1, r);
+            calls[0]++;
+        });
+
+        r1.setLowerRight(new Point(8, 8));
+        r1.setUpperLeft(new Point(2, 2));
+        assertEquals(2, calls[0]);
+
+        r1.setListener(null);
+        r1.setLowerRight(new Point(9, 9));
+        assertEquals(2, calls[0]);
+    }
+
+    @Test
+    public void testRelateMatchesPredicates() {
+        // every pair of small rectangles on a 6x6 grid, so every way of
+        // touching and overlapping comes up
+        List<Rectangle> all = new ArrayList<>();
+        for(int x = 0; x < 6; x++) {
+            for(int y = 0; y < 6; y++) {
+                for(int x1 = x + 1; x1 < 6; x1++) {
+                    for(int y1 = y + 1; y1 < 6; y1++) {
+                        all.add(new Rectangle(x, y, x1, y1));
+                    }
+                }
+            }
+        }
+
+        for(Rectangle a : all) {
+            for(Rectangle b : all) {
+                int relation = a.relate(b);
+                String pair = a + " " + b + " " + Relation.toString(relation);
+                assertEquals(a.contains(b), (relation & Relation.CONTAINS) != 0, pair);
+                assertEquals(b.contains(a), (relation & Relation.WITHIN) != 0, pair);
+                assertEquals(a.intersects(b), (relation & Relation.INTERSECTS) != 0, pair);
+                assertEquals(a.adjacent(b), (relation & Relation.ADJACENT) != 0, pair);
+                assertEquals(b.relate(a), Relation.converse(relation), pair);
+            }
+        }
+    }
+
+    @Test
+    public void testRelateSides() {
+        Rectangle a = new Rectangle(10, 10, 20, 20);
+
+        assertEquals(Relation.EQUAL, a.relate(new Rectangle(10, 10, 20, 20)));
+        assertEquals(Relation.DISJOINT, a.relate(new Rectangle(30, 30, 40, 40)));
+        assertEquals(Relation.CONTAINS, a.relate(new Rectangle(12, 12, 18, 18)));
+        assertEquals(Relation.WITHIN, a.relate(new Rectangle(0, 0, 30, 30)));
+        assertEquals(Relation.INTERSECTS, a.relate(new Rectangle(15, 15, 25, 25)));
+        assertEquals(Relation.INTERSECTS | Relation.ADJACENT | Relation.TOP, a.relate(new Rectangle(12, 0, 18, 10)));
+        assertEquals(Relation.INTERSECTS | Relation.ADJACENT | Relation.RIGHT, a.relate(new Rectangle(20, 5, 30, 15)));
+        assertEquals(Relation.INTERSECTS | Relation.ADJACENT | Relation.BOTTOM | Relation.LEFT,
+                a.relate(new Rectangle(0, 20, 10, 30)));
+
+        assertEquals("INTERSECTS|ADJACENT|TOP", Relation.toString(Relation.INTERSECTS | Relation.ADJACENT | Relation.TOP));
+        assertEquals("DISJOINT", Relation.toString(Relation.DISJOINT));
+    }
 }
@@ -0,0 +1,92 @@
+package sandbox.cover;
+
+import java.util.List;
+import java.util.Random;
+import sandbox.RandomRectangles;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class CompactionTest {
+
+    @Test
+    public void testTilesCompactToOne() {
+        RectangleArray tiles = new RectangleArray();
+        for(int x = 0; x < 50; x++) {
+            for(int y = 0; y < 50; y++) {
+                tiles.add(x * 2, y * 2, x * 2 + 2, y * 2 + 2);
+            }
+        }
+        // a few nested and overlapping extras
+        tiles.add(10, 10, 20, 20);
+        tiles.add(0, 0, 100, 1);
+
+        Compaction compaction = Compaction.compact(tiles);
+        assertEquals(List.of(new Rectangle(0, 0, 100, 100)), compaction.toList());
+        assertEquals(2502, compaction.getInputCount());
+        assertEquals(2502.0, compaction.getRatio());
+    }
+
+    @Test
+    public void testPicksTheBetterAxis() {
+        // a wide bar with a bump on top cuts into three columns but only two
+        // rows
+        List<Rectangle> bump = List.of(new Rectangle(0, 0, 20, 2), new Rectangle(5, 2, 7, 4));
+        assertEquals(3, Coverage.decompose(bump).size());
+        assertEquals(List.of(new Rectangle(0, 0, 20, 2), new Rectangle(5, 2, 7, 4)), Compaction.compact(bump).toList());
+
+        // the same shape turned on its side
+        List<Rectangle> turned = List.of(new Rectangle(0, 0, 2, 20), new Rectangle(2, 5, 4, 7));
+        assertEquals(2, Compaction.compact(turned).getPieceCount());
+    }
+
+    @Test
+    public void testCoversTheSameCells() {
+        Random random = new Random(41);
+        for(int round = 0; round < 20; round++) {
+            RectangleArray rectangles = RandomRectangles.array(random, 1 + random.nextInt(60), 0, 40, 8);
+
+            Compaction compaction = Compaction.compact(rectangles);
+            RectangleArray pieces = compaction.getPieces();
+            assertTrue(pieces.size() <= Coverage.decompose(rectangles).size());
+
+            for(int i = 0; i < pieces.size(); i++) {
+                for(int j = i + 1; j < pieces.size(); j++) {
+                    boolean sharesArea = Math.max(pieces.getX(i), pieces.getX(j)) < Math.min(pieces.getX1(i), pieces.getX1(j))
+                            && Math.max(pieces.getY(i), pieces.getY(j)) < Math.min(pieces.getY1(i), pieces.getY1(j));
+                    assertFalse(sharesArea);
+                }
+            }
+
+            for(int x = 0; x < 50; x++) {
+                for(int y = 0; y < 50; y++) {
+                    Rectangle cell = new Rectangle(x, y, x + 1, y + 1);
+                    boolean expected = false;
+                    for(Rectangle r : rectangles.toList()) {
+                        expected |= r.contains(cell);
+                    }
+                    boolean actual = false;
+                    for(Rectangle r : pieces.toList()) {
+                        actual |= r.contains(cell);
+                    }
+                    assertEquals(expected, actual);
+                }
+            }
+            assertEquals(Coverage.area(rectangles), Coverage.area(pieces));
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        Compaction compaction = Compaction.compact(List.of());
+        assertEquals(0, compaction.getPieceCount());
+        assertEquals(1.0, compaction.getRatio());
+    }
+}
@@ -0,0 +1,118 @@
+package sandbox.cover;
+
+import java.util.List;
+import java.util.Random;
+import sandbox.Point;
+import sandbox.RandomRectangles;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class CoverageTest {
+    private static final int RANGE = 60;
+
+    /**
+     * marks the cells (inclusive) and the unit squares (closed regions) the
+     * rectangles cover.
+     */
+    private static boolean[][] cells(RectangleArray rectangles, boolean squares) {
+        boolean[][] grid = new boolean[RANGE][RANGE];
+        for(int i = 0; i < rectangles.size(); i++) {
+            int end = squares ? 0 : 1;
+            for(int x = rectangles.getX(i); x < rectangles.getX1(i) + end; x++) {
+                for(int y = rectangles.getY(i); y < rectangles.getY1(i) + end; y++) {
+                    grid[x][y] = true;
+                }
+            }
+        }
+        return grid;
+    }
+
+    @Test
+    public void testSimpleArea() {
+        assertEquals(0, Coverage.area(List.of()));
+        assertEquals(121, Coverage.area(List.of(new Rectangle(0, 0, 10, 10))));
+        // the overlapping 6 by 6 block is only counted once
+        assertEquals(121 + 121 - 36, Coverage.area(List.of(new Rectangle(0, 0, 10, 10), new Rectangle(5, 5, 15, 15))));
+        // rectangles sharing a side share a column of cells
+        assertEquals(121 + 121 - 11, Coverage.area(List.of(new Rectangle(0, 0, 10, 10), new Rectangle(10, 0, 20, 10))));
+        // the cells up to Integer.MAX_VALUE are counted without overflow
+        assertEquals(2 * ((long) Integer.MAX_VALUE + 1),
+                Coverage.area(List.of(new Rectangle(0, Integer.MAX_VALUE - 1, Integer.MAX_VALUE, Integer.MAX_VALUE))));
+    }
+
+    @Test
+    public void testAreaMatchesBruteForce() {
+        Random random = new Random(23);
+        for(int round = 0; round < 20; round++) {
+            RectangleArray rectangles = RandomRectangles.array(random, 1 + random.nextInt(40), 0, RANGE - 12, 10);
+            boolean[][] grid = cells(rectangles, false);
+
+            int wx = random.nextInt(RANGE / 2);
+            int wy = random.nextInt(RANGE / 2);
+            Rectangle window = new Rectangle(wx, wy, wx + 1 + random.nextInt(RANGE / 2), wy + 1 + random.nextInt(RANGE / 2));
+
+            long total = 0;
+            long inside = 0;
+            for(int x = 0; x < RANGE; x++) {
+                for(int y = 0; y < RANGE; y++) {
+                    if(grid[x][y]) {
+                        total++;
+                        if(window.contains(new Point(x, y))) {
+                            inside++;
+                        }
+                    }
+                }
+            }
+            assertEquals(total, Coverage.area(rectangles));
+            assertEquals(inside, Coverage.area(rectangles, window));
+        }
+    }
+
+    @Test
+    public void testDecomposeCoversTheSameRegion() {
+        Random random = new Random(29);
+        for(int round = 0; round < 20; round++) {
+            RectangleArray rectangles = RandomRectangles.array(random, 1 + random.nextInt(40), 0, RANGE - 12, 10);
+            RectangleArray pieces = Coverage.decompose(rectangles);
+
+            for(int i = 0; i < pieces.size(); i++) {
+                for(int j = i + 1; j < pieces.size(); j++) {
+                    boolean sharesArea = Math.max(pieces.getX(i), pieces.getX(j)) < Math.min(pieces.getX1(i), pieces.getX1(j))
+                            && Math.max(pieces.getY(i), pieces.getY(j)) < Math.min(pieces.getY1(i), pieces.getY1(j));
+                    assertFalse(sharesArea);
+                }
+            }
+
+            boolean[][] expectedSquares = cells(rectangles, true);
+            boolean[][] actualSquares = cells(pieces, true);
+            boolean[][] expectedCells = cells(rectangles, false);
+            boolean[][] actualCells = cells(pieces, false);
+            for(int x = 0; x < RANGE; x++) {
+                for(int y = 0; y < RANGE; y++) {
+                    assertEquals(expectedSquares[x][y], actualSquares[x][y]);
+                    assertEquals(expectedCells[x][y], actualCells[x][y]);
+                }
+            }
+            assertEquals(Coverage.area(rectangles), Coverage.area(pieces));
+        }
+    }
+
+    @Test
+    public void testDecomposeMergesAcrossSlabs() {
+        List<Rectangle> pieces = Coverage.decompose(List.of(
+                new Rectangle(0, 0, 10, 10),
+                new Rectangle(2, 2, 8, 8),
+                new Rectangle(5, 0, 20, 10)));
+        assertEquals(List.of(new Rectangle(0, 0, 20, 10)), pieces);
+
+        pieces = Coverage.decompose(List.of(new Rectangle(0, 0, 10, 10), new Rectangle(5, 5, 15, 15)));
+        assertEquals(3, pieces.size());
+    }
+}
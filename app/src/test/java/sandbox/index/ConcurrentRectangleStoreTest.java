@@ -0,0 +1,168 @@
+package sandbox.index;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import sandbox.Point;
+import sandbox.RandomRectangles;
+import sandbox.Rectangle;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class ConcurrentRectangleStoreTest {
+
+    @Test
+    public void testBatchesMatchBruteForce() {
+        Random random = new Random(43);
+        ConcurrentRectangleStore store = new ConcurrentRectangleStore();
+        List<Integer> ids = new ArrayList<>();
+
+        for(int round = 0; round < 10; round++) {
+            try(ConcurrentRectangleStore.Batch batch = store.batch()) {
+                for(int i = 0; i < 500; i++) {
+                    ids.add(batch.add(RandomRectangles.rectangle(random, 0, 1000, 30)));
+                }
+                for(int i = 0; i < 100; i++) {
+                    batch.set(ids.get(random.nextInt(ids.size())), RandomRectangles.rectangle(random, 0, 1000, 30));
+                    batch.remove(ids.remove(random.nextInt(ids.size())));
+                }
+                batch.commit();
+            }
+        }
+
+        ConcurrentRectangleStore.Snapshot snapshot = store.snapshot();
+        assertEquals(10, snapshot.version());
+        assertEquals(ids.size(), snapshot.size());
+        for(int q = 0; q < 50; q++) {
+            Rectangle query = RandomRectangles.rectangle(random, 0, 1000, 30);
+            Point pt = new Point(random.nextInt(1000), random.nextInt(1000));
+            Set<Integer> intersecting = new HashSet<>();
+            Set<Integer> containing = new HashSet<>();
+            Set<Integer> containedBy = new HashSet<>();
+            for(int id : ids) {
+                Rectangle r = snapshot.toRectangle(id);
+                if(r.intersects(query)) {
+                    intersecting.add(id);
+                }
+                if(r.contains(pt)) {
+                    containing.add(id);
+                }
+                if(query.contains(r)) {
+                    containedBy.add(id);
+                }
+            }
+
+            Set<Integer> actual = new HashSet<>();
+            snapshot.intersecting(query, actual::add);
+            assertEquals(intersecting, actual);
+            actual.clear();
+            snapshot.containing(pt, actual::add);
+            assertEquals(containing, actual);
+            actual.clear();
+            snapshot.containedBy(query, actual::add);
+            assertEquals(containedBy, actual);
+        }
+
+        Set<Integer> all = new HashSet<>();
+        snapshot.forEach(all::add);
+        assertEquals(new HashSet<>(ids), all);
+    }
+
+    @Test
+    public void testSnapshotsDoNotChange() {
+        ConcurrentRectangleStore store = new ConcurrentRectangleStore();
+        int a = store.add(new Rectangle(0, 0, 10, 10));
+        ConcurrentRectangleStore.Snapshot before = store.snapshot();
+
+        store.set(a, new Rectangle(50, 50, 60, 60));
+        int b = store.add(new Rectangle(1, 1, 2, 2));
+        store.remove(a);
+
+        assertEquals(new Rectangle(0, 0, 10, 10), before.toRectangle(a));
+        assertFalse(before.contains(b));
+        assertEquals(1, before.size());
+
+        ConcurrentRectangleStore.Snapshot after = store.snapshot();
+        assertFalse(after.contains(a));
+        assertTrue(after.contains(b));
+        assertEquals(4, after.version());
+
+        // the removed id is reused
+        assertEquals(a, store.add(new Rectangle(3, 3, 4, 4)));
+    }
+
+    @Test
+    public void testClosedBatchIsThrownAway() {
+        ConcurrentRectangleStore store = new ConcurrentRectangleStore();
+        try(ConcurrentRectangleStore.Batch batch = store.batch()) {
+            batch.add(new Rectangle(0, 0, 10, 10));
+        }
+        assertTrue(store.snapshot().isEmpty());
+        assertEquals(0, store.snapshot().version());
+
+        ConcurrentRectangleStore.Batch batch = store.batch();
+        batch.commit();
+        assertThrows(IllegalStateException.class, () -> batch.add(new Rectangle(0, 0, 1, 1)));
+        assertThrows(IllegalArgumentException.class, () -> store.remove(0));
+    }
+
+    @Test
+    public void testReadersSeeWholeBatches() throws Exception {
+        // every batch moves all of the rectangles together, so a reader
+        // that saw part of a batch would find them out of step
+        ConcurrentRectangleStore store = new ConcurrentRectangleStore();
+        int count = 3000;
+        try(ConcurrentRectangleStore.Batch batch = store.batch()) {
+            for(int i = 0; i < count; i++) {
+                batch.add(0, i, 1, i + 1);
+            }
+            batch.commit();
+        }
+
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[4];
+        for(int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                for(int round = 0; round < 200; round++) {
+                    ConcurrentRectangleStore.Snapshot snapshot = store.snapshot();
+                    int x = snapshot.getX(0);
+                    int[] seen = new int[1];
+                    snapshot.containing(new Point(x, 0), id -> seen[0]++);
+                    snapshot.forEach(id -> {
+                        if(snapshot.getX(id) != x) {
+                            failure.set("entry " + id + " out of step");
+                        }
+                    });
+                    if(seen[0] != 1) {
+                        failure.set("found " + seen[0] + " entries");
+                    }
+                }
+            });
+            readers[t].start();
+        }
+
+        for(int step = 1; step <= 200; step++) {
+            try(ConcurrentRectangleStore.Batch batch = store.batch()) {
+                for(int i = 0; i < count; i++) {
+                    batch.set(i, step * 2, i, step * 2 + 1, i + 1);
+                }
+                batch.commit();
+            }
+        }
+        for(Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get());
+    }
+}
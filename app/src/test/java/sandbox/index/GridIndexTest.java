@@ -0,0 +1,134 @@
+package sandbox.index;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import sandbox.Point;
+import sandbox.RandomRectangles;
+import sandbox.Rectangle;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class GridIndexTest {
+
+    /**
+     * mostly small rectangles, sometimes larger than a cell.
+     */
+    private static Rectangle mixed(Random random) {
+        return RandomRectangles.rectangle(random, -200, 400, random.nextInt(10) == 0 ? 100 : 12);
+    }
+
+    private static Set<Integer> collect(Consumer<IntConsumer> query) {
+        Set<Integer> result = new HashSet<>();
+        query.accept(h -> assertTrue(result.add(h)));
+        return result;
+    }
+
+    private static void assertMatchesBruteForce(GridIndex index, List<Integer> handles, Random random) {
+        for(int q = 0; q < 50; q++) {
+            Rectangle query = mixed(random);
+            Point pt = new Point(random.nextInt(400) - 200, random.nextInt(400) - 200);
+
+            Set<Integer> intersecting = new HashSet<>();
+            Set<Integer> containing = new HashSet<>();
+            Set<Integer> containingPoint = new HashSet<>();
+            Set<Integer> containedBy = new HashSet<>();
+            Set<Integer> adjacent = new HashSet<>();
+            for(int h : handles) {
+                Rectangle r = index.toRectangle(h);
+                if(r.intersects(query)) {
+                    intersecting.add(h);
+                }
+                if(r.contains(query)) {
+                    containing.add(h);
+                }
+                if(r.contains(pt)) {
+                    containingPoint.add(h);
+                }
+                if(query.contains(r)) {
+                    containedBy.add(h);
+                }
+                if(r.adjacent(query)) {
+                    adjacent.add(h);
+                }
+            }
+
+            assertEquals(intersecting, collect(a -> index.intersecting(query, a)));
+            assertEquals(containing, collect(a -> index.containing(query, a)));
+            assertEquals(containingPoint, collect(a -> index.containing(pt, a)));
+            assertEquals(containedBy, collect(a -> index.containedBy(query, a)));
+            assertEquals(adjacent, collect(a -> index.adjacentTo(query, a)));
+        }
+    }
+
+    @Test
+    public void testMovingObjectsMatchBruteForce() {
+        Random random = new Random(41);
+        GridIndex index = new GridIndex(4);
+        List<Integer> handles = new ArrayList<>();
+        for(int i = 0; i < 500; i++) {
+            handles.add(index.insert(mixed(random)));
+        }
+        assertEquals(500, index.size());
+        assertMatchesBruteForce(index, handles, random);
+
+        for(int tick = 0; tick < 5; tick++) {
+            for(int h : handles) {
+                int dx = random.nextInt(41) - 20;
+                int dy = random.nextInt(41) - 20;
+                index.update(h, index.getX(h) + dx, index.getY(h) + dy, index.getX1(h) + dx, index.getY1(h) + dy);
+            }
+            for(int i = 0; i < 50; i++) {
+                int h = handles.remove(random.nextInt(handles.size()));
+                index.remove(h);
+                assertFalse(index.contains(h));
+                handles.add(index.insert(mixed(random)));
+            }
+            assertMatchesBruteForce(index, handles, random);
+        }
+        assertEquals(500, index.size());
+    }
+
+    @Test
+    public void testTrackedRectangle() {
+        GridIndex index = new GridIndex();
+        Rectangle r = new Rectangle(0, 0, 10, 10);
+        int handle = index.track(r);
+        assertThrows(IllegalArgumentException.class, () -> index.track(r));
+
+        // move far away: the lower right corner first, then the upper left
+        r.setLowerRight(new Point(1010, 1010));
+        r.setUpperLeft(new Point(1000, 1000));
+        assertEquals(new Rectangle(1000, 1000, 1010, 1010), index.toRectangle(handle));
+        assertEquals(Set.of(handle), collect(a -> index.containing(new Point(1005, 1005), a)));
+        assertEquals(Set.of(), collect(a -> index.containing(new Point(5, 5), a)));
+
+        index.remove(handle);
+        assertNull(r.getListener());
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    public void testBadArguments() {
+        GridIndex index = new GridIndex();
+        int handle = index.insert(0, 0, 1, 1);
+        assertThrows(IllegalArgumentException.class, () -> index.update(handle, 5, 5, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> index.update(handle + 1, 0, 0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new GridIndex(0));
+        index.remove(handle);
+        assertThrows(IllegalArgumentException.class, () -> index.remove(handle));
+        assertEquals(handle, index.insert(2, 2, 3, 3));
+    }
+}
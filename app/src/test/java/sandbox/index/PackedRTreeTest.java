@@ -0,0 +1,85 @@
+package sandbox.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import sandbox.Point;
+import sandbox.RandomRectangles;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class PackedRTreeTest {
+
+    private static List<Integer> bruteForce(RectangleArray rectangles, Point pt) {
+        List<Integer> result = new ArrayList<>();
+        for(int i = 0; i < rectangles.size(); i++) {
+            if(rectangles.toRectangle(i).contains(pt)) {
+                result.add(i);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testContainingMatchesBruteForce() {
+        Random random = new Random(5);
+        for(int nodeSize : new int[] { 2, 4, 16, 256 }) {
+            for(int count : new int[] { 1, 15, 16, 17, 1000, 5000 }) {
+                RectangleArray rectangles = RandomRectangles.array(new Random(count), count, 0, 1000, 100);
+                PackedRTree tree = PackedRTree.build(rectangles, nodeSize);
+                assertEquals(count, tree.size());
+
+                for(int q = 0; q < 100; q++) {
+                    Point pt = new Point(random.nextInt(1200) - 100, random.nextInt(1200) - 100);
+                    List<Integer> found = new ArrayList<>();
+                    int n = tree.containing(pt, found::add);
+                    Collections.sort(found);
+                    assertEquals(bruteForce(rectangles, pt), found, "node size " + nodeSize + ", count " + count);
+                    assertEquals(found.size(), n);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEdgesAndExtremes() {
+        RectangleArray rectangles = new RectangleArray();
+        rectangles.add(0, 0, 10, 10);
+        rectangles.add(10, 10, 20, 20);
+        rectangles.add(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        PackedRTree tree = PackedRTree.build(rectangles, 2);
+
+        // corners and edges are inside
+        List<Integer> found = new ArrayList<>();
+        tree.containing(10, 10, found::add);
+        Collections.sort(found);
+        assertEquals(List.of(0, 1, 2), found);
+        assertEquals(1, tree.containing(Integer.MAX_VALUE, Integer.MIN_VALUE, i -> assertEquals(2, i)));
+        assertEquals(2, tree.height());
+    }
+
+    @Test
+    public void testEmptyAndInvalid() {
+        PackedRTree empty = PackedRTree.build(new RectangleArray());
+        assertEquals(0, empty.size());
+        assertEquals(1, empty.height());
+        assertEquals(0, empty.containing(0, 0, i -> {
+            throw new AssertionError();
+        }));
+
+        RectangleArray one = new RectangleArray();
+        one.add(new Rectangle(1, 1, 2, 2));
+        assertEquals(16, PackedRTree.build(one).nodeSize());
+        assertThrows(IllegalArgumentException.class, () -> PackedRTree.build(one, 3));
+        assertThrows(IllegalArgumentException.class, () -> PackedRTree.build(one, 512));
+        assertThrows(IllegalArgumentException.class, () -> PackedRTree.build(one, 1));
+    }
+}
@@ -0,0 +1,266 @@
+package sandbox.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import sandbox.Metric;
+import sandbox.Point;
+import sandbox.RandomRectangles;
+import sandbox.Rectangle;
+import sandbox.Relation;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class RTreeTest {
+    private static final Comparator<Rectangle> ORDER = Comparator
+            .comparingInt((Rectangle r) -> r.getUpperLeft().getX())
+            .thenComparingInt(r -> r.getUpperLeft().getY())
+            .thenComparingInt(r -> r.getLowerRight().getX())
+            .thenComparingInt(r -> r.getLowerRight().getY());
+
+    private static List<Rectangle> sorted(List<Rectangle> rectangles) {
+        List<Rectangle> result = new ArrayList<>(rectangles);
+        result.sort(ORDER);
+        return result;
+    }
+
+    private static void assertMatchesBruteForce(RTree tree, List<Rectangle> stored, Random random) {
+        assertEquals(stored.size(), tree.size());
+        for(int q = 0; q < 100; q++) {
+            Rectangle query = RandomRectangles.rectangle(random, 0, 100, 10);
+            Point pt = new Point(random.nextInt(110), random.nextInt(110));
+
+            List<Rectangle> intersecting = new ArrayList<>();
+            List<Rectangle> containing = new ArrayList<>();
+            List<Rectangle> containingPoint = new ArrayList<>();
+            List<Rectangle> containedBy = new ArrayList<>();
+            List<Rectangle> adjacent = new ArrayList<>();
+            for(Rectangle r : stored) {
+                if(r.intersects(query)) {
+                    intersecting.add(r);
+                }
+                if(r.contains(query)) {
+                    containing.add(r);
+                }
+                if(r.contains(pt)) {
+                    containingPoint.add(r);
+                }
+                if(query.contains(r)) {
+                    containedBy.add(r);
+                }
+                if(r.adjacent(query)) {
+                    adjacent.add(r);
+                }
+            }
+
+            assertEquals(sorted(intersecting), sorted(tree.intersecting(query)));
+            assertEquals(sorted(containing), sorted(tree.containing(query)));
+            assertEquals(sorted(containingPoint), sorted(tree.containing(pt)));
+            assertEquals(sorted(containedBy), sorted(tree.containedBy(query)));
+            assertEquals(sorted(adjacent), sorted(tree.adjacentTo(query)));
+
+            assertEquals(sorted(intersecting), sorted(tree.streamIntersecting(query).collect(Collectors.toList())));
+            assertEquals(sorted(containing), sorted(tree.streamContaining(query).collect(Collectors.toList())));
+            assertEquals(sorted(containingPoint), sorted(tree.streamContaining(pt).collect(Collectors.toList())));
+            assertEquals(sorted(containedBy), sorted(tree.streamContainedBy(query).collect(Collectors.toList())));
+            assertEquals(sorted(adjacent), sorted(tree.streamAdjacentTo(query).collect(Collectors.toList())));
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        RTree tree = new RTree();
+        assertTrue(tree.isEmpty());
+        assertTrue(tree.intersecting(new Rectangle(0, 0, 10, 10)).isEmpty());
+        assertFalse(tree.delete(new Rectangle(0, 0, 10, 10)));
+        assertTrue(RTree.bulkLoad(List.of()).isEmpty());
+    }
+
+    @Test
+    public void testIntersectsExcludesContainment() {
+        RTree tree = new RTree();
+        Rectangle outer = new Rectangle(0, 0, 10, 10);
+        Rectangle inner = new Rectangle(1, 1, 2, 2);
+        Rectangle overlapping = new Rectangle(5, 5, 8, 12);
+        tree.insert(outer);
+        tree.insert(inner);
+        tree.insert(overlapping);
+
+        assertEquals(List.of(overlapping), tree.intersecting(outer));
+        assertEquals(sorted(List.of(outer, inner)), sorted(tree.containing(inner)));
+        assertEquals(sorted(List.of(outer, inner)), sorted(tree.containedBy(outer)));
+    }
+
+    @Test
+    public void testBulkLoadMatchesBruteForce() {
+        Random random = new Random(11);
+        List<Rectangle> stored = new ArrayList<>();
+        for(int i = 0; i < 2000; i++) {
+            stored.add(RandomRectangles.rectangle(random, 0, 100, 10));
+        }
+
+        RTree tree = RTree.bulkLoad(stored);
+        assertTrue(tree.height() > 1);
+        assertMatchesBruteForce(tree, stored, random);
+    }
+
+    @Test
+    public void testInsertAndDeleteMatchBruteForce() {
+        Random random = new Random(5);
+        List<Rectangle> stored = new ArrayList<>();
+        RTree tree = new RTree();
+        for(int i = 0; i < 1500; i++) {
+            Rectangle r = RandomRectangles.rectangle(random, 0, 100, 10);
+            stored.add(r);
+            tree.insert(r);
+        }
+        assertMatchesBruteForce(tree, stored, random);
+
+        for(int i = 0; i < 1000; i++) {
+            Rectangle r = stored.remove(random.nextInt(stored.size()));
+            assertTrue(tree.delete(r));
+        }
+        assertMatchesBruteForce(tree, stored, random);
+
+        RTree loaded = RTree.bulkLoad(stored);
+        for(int i = 0; i < 300; i++) {
+            Rectangle r = RandomRectangles.rectangle(random, 0, 100, 10);
+            stored.add(r);
+            loaded.insert(r);
+            r = stored.remove(random.nextInt(stored.size()));
+            assertTrue(loaded.delete(r));
+        }
+        assertMatchesBruteForce(loaded, stored, random);
+
+        for(Rectangle r : new ArrayList<>(stored)) {
+            assertTrue(loaded.delete(r));
+        }
+        assertTrue(loaded.isEmpty());
+    }
+
+    @Test
+    public void testNearestMatchesBruteForce() {
+        Random random = new Random(23);
+        List<Rectangle> stored = new ArrayList<>();
+        for(int i = 0; i < 2000; i++) {
+            stored.add(RandomRectangles.rectangle(random, 0, 300, 10));
+        }
+        RTree tree = RTree.bulkLoad(stored);
+        DistanceQueue queue = new DistanceQueue();
+
+        for(Metric metric : Metric.values()) {
+            for(int q = 0; q < 50; q++) {
+                Rectangle query = RandomRectangles.rectangle(random, 0, 320, 10);
+                int k = 1 + random.nextInt(20);
+
+                List<Long> expected = new ArrayList<>();
+                for(Rectangle r : stored) {
+                    expected.add(metric.distance(r, query));
+                }
+                expected.sort(null);
+
+                // ties may come back in any order, so compare the distances
+                List<Long> actual = new ArrayList<>();
+                tree.nearest(query.getUpperLeft().getX(), query.getUpperLeft().getY(),
+                        query.getLowerRight().getX(), query.getLowerRight().getY(), k, metric, queue, (r, d) -> {
+                            assertEquals(metric.distance(r, query), d);
+                            actual.add(d);
+                        });
+                assertEquals(expected.subList(0, k), actual);
+
+                Point pt = query.getUpperLeft();
+                List<Rectangle> nearest = tree.nearest(pt, k, metric);
+                assertEquals(k, nearest.size());
+                long furthest = metric.distance(nearest.get(k - 1), pt);
+                for(Rectangle r : stored) {
+                    if(!nearest.contains(r)) {
+                        assertTrue(metric.distance(r, pt) >= furthest);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNearestEdgeCases() {
+        RTree tree = new RTree();
+        assertTrue(tree.nearest(new Point(0, 0), 3, Metric.MANHATTAN).isEmpty());
+
+        Rectangle a = new Rectangle(0, 0, 10, 10);
+        Rectangle b = new Rectangle(20, 0, 30, 10);
+        tree.insert(a);
+        tree.insert(b);
+        assertEquals(List.of(b, a), tree.nearest(new Rectangle(31, 2, 35, 4), 5, Metric.CHEBYSHEV));
+        assertEquals(List.of(a), tree.nearest(new Point(10, 10), 1, Metric.SQUARED_EUCLIDEAN));
+        assertTrue(tree.nearest(new Point(10, 10), 0, Metric.MANHATTAN).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> tree.nearest(new Point(0, 0), -1, Metric.MANHATTAN));
+    }
+
+    @Test
+    public void testStreamStopsEarly() {
+        Random random = new Random(2);
+        List<Rectangle> stored = new ArrayList<>();
+        for(int i = 0; i < 5000; i++) {
+            stored.add(RandomRectangles.rectangle(random, 0, 100, 10));
+        }
+        RTree tree = RTree.bulkLoad(stored);
+        Rectangle everything = new Rectangle(-1, -1, 200, 200);
+
+        assertEquals(5000, tree.streamContainedBy(everything).count());
+        assertEquals(10, tree.streamContainedBy(everything).limit(10).count());
+        assertTrue(tree.streamIntersecting(new Rectangle(500, 500, 600, 600)).findFirst().isEmpty());
+        assertEquals(0, new RTree().streamContaining(new Point(1, 1)).count());
+    }
+
+    @Test
+    public void testBatchSearchMatchesSingleQueries() {
+        Random random = new Random(6);
+        List<Rectangle> stored = new ArrayList<>();
+        for(int i = 0; i < 4000; i++) {
+            stored.add(RandomRectangles.rectangle(random, 0, 300, 10));
+        }
+        RTree tree = RTree.bulkLoad(stored);
+
+        int[] kinds = { Relation.INTERSECTS, Relation.CONTAINS, Relation.WITHIN, Relation.ADJACENT };
+        int count = 200;
+        int[] relations = new int[count];
+        int[] boxes = new int[count * 4];
+        List<List<Rectangle>> expected = new ArrayList<>();
+        List<List<Rectangle>> actual = new ArrayList<>();
+        for(int q = 0; q < count; q++) {
+            // larger windows for the containment queries, so they find some
+            int x = random.nextInt(300);
+            int y = random.nextInt(300);
+            int size = q % 4 == 2 ? 40 : 1 + random.nextInt(10);
+            Rectangle query = new Rectangle(x, y, x + size, y + size);
+            relations[q] = kinds[q % 4];
+            boxes[q * 4] = query.getUpperLeft().getX();
+            boxes[q * 4 + 1] = query.getUpperLeft().getY();
+            boxes[q * 4 + 2] = query.getLowerRight().getX();
+            boxes[q * 4 + 3] = query.getLowerRight().getY();
+            expected.add(switch(kinds[q % 4]) {
+                case Relation.INTERSECTS -> tree.intersecting(query);
+                case Relation.CONTAINS -> tree.containing(query);
+                case Relation.WITHIN -> tree.containedBy(query);
+                default -> tree.adjacentTo(query);
+            });
+            actual.add(new ArrayList<>());
+        }
+
+        tree.search(count, relations, boxes, (q, r) -> actual.get(q).add(r));
+        // the same rectangles in the same order as one query at a time
+        assertEquals(expected, actual);
+        assertThrows(IllegalArgumentException.class,
+                () -> tree.search(1, new int[] { Relation.EQUAL }, new int[] { 0, 0, 1, 1 }, (q, r) -> {
+                }));
+    }
+}
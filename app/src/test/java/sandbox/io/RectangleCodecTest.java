@@ -0,0 +1,138 @@
+package sandbox.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import sandbox.RandomRectangles;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import sandbox.Rectangles;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class RectangleCodecTest {
+
+    private static ByteBuffer encode(RectangleArray rectangles, int blockSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = RectangleCodec.write(Channels.newChannel(out), rectangles, blockSize);
+        assertEquals(out.size(), written);
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    /**
+     * the rectangles as sorted strings, since the codec reorders them.
+     */
+    private static List<String> sorted(RectangleArray rectangles) {
+        List<String> result = new ArrayList<>();
+        for(int i = 0; i < rectangles.size(); i++) {
+            result.add(rectangles.getX(i) + " " + rectangles.getY(i) + " "
+                    + rectangles.getX1(i) + " " + rectangles.getY1(i));
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        RectangleArray expected = RandomRectangles.array(new Random(5000), 5000, -10000, 20000, 50);
+        CodecReader reader = CodecReader.wrap(encode(expected, RectangleCodec.DEFAULT_BLOCK_SIZE));
+
+        assertEquals(5000, reader.size());
+        assertEquals(20, reader.blockCount());
+        assertEquals(sorted(expected), sorted(reader.toArray()));
+
+        // far smaller than the sixteen bytes a rectangle takes raw
+        assertTrue(encode(expected, 256).remaining() < 8 * 5000);
+    }
+
+    @Test
+    public void testExtremes() throws IOException {
+        RectangleArray expected = new RectangleArray();
+        expected.add(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        expected.add(Integer.MAX_VALUE - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE + 1);
+        expected.add(Integer.MIN_VALUE, Integer.MAX_VALUE - 1, Integer.MIN_VALUE + 1, Integer.MAX_VALUE);
+        expected.add(0, 0, 1, 1);
+        for(int blockSize = 1; blockSize <= 4; blockSize++) {
+            CodecReader reader = CodecReader.wrap(encode(expected, blockSize));
+            assertEquals(sorted(expected), sorted(reader.toArray()));
+        }
+
+        CodecReader empty = CodecReader.wrap(encode(new RectangleArray(), 16));
+        assertEquals(0, empty.size());
+        assertEquals(0, empty.blockCount());
+    }
+
+    @Test
+    public void testWindowSkipsBlocks() throws IOException {
+        RectangleArray rectangles = RandomRectangles.array(new Random(5000), 5000, -10000, 20000, 50);
+        CodecReader reader = CodecReader.wrap(encode(rectangles, 64));
+        Random random = new Random(7);
+
+        for(int q = 0; q < 50; q++) {
+            int x = random.nextInt(20000) - 10000;
+            int y = random.nextInt(20000) - 10000;
+            Rectangle window = new Rectangle(x, y, x + random.nextInt(2000), y + random.nextInt(2000));
+
+            RectangleArray expected = new RectangleArray();
+            for(int i = 0; i < rectangles.size(); i++) {
+                if(Rectangles.overlaps(rectangles.getX(i), rectangles.getY(i), rectangles.getX1(i),
+                        rectangles.getY1(i), window.getUpperLeft().getX(), window.getUpperLeft().getY(),
+                        window.getLowerRight().getX(), window.getLowerRight().getY())) {
+                    expected.add(rectangles.getX(i), rectangles.getY(i), rectangles.getX1(i), rectangles.getY1(i));
+                }
+            }
+
+            RectangleArray found = new RectangleArray();
+            long count = reader.forEach(window, (index, x0, y0, x1, y1) -> found.add(x0, y0, x1, y1));
+            assertEquals(expected.size(), count);
+            assertEquals(sorted(expected), sorted(found));
+        }
+
+        // the indexes are positions in the encoding either way
+        RectangleArray all = reader.toArray();
+        reader.forEach(new Rectangle(0, 0, 500, 500), (index, x, y, x1, y1) -> {
+            assertEquals(all.getX((int) index), x);
+            assertEquals(all.getY1((int) index), y1);
+        });
+    }
+
+    @Test
+    public void testFile() throws IOException {
+        Path path = Files.createTempFile("rectangles", ".rdlt");
+        try {
+            RectangleArray expected = RandomRectangles.array(new Random(1000), 1000, -10000, 20000, 50);
+            long written = RectangleCodec.write(path, expected);
+            assertEquals(written, Files.size(path));
+            assertEquals(sorted(expected), sorted(CodecReader.open(path).toArray()));
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testCorrupt() throws IOException {
+        ByteBuffer good = encode(RandomRectangles.array(new Random(100), 100, -10000, 20000, 50), 16);
+        assertThrows(IOException.class, () -> CodecReader.wrap(ByteBuffer.allocate(8)));
+        assertThrows(IOException.class, () -> CodecReader.wrap(good.duplicate().limit(good.limit() - 1)));
+
+        ByteBuffer wrongCount = ByteBuffer.wrap(good.array().clone());
+        wrongCount.put(8, (byte) 99);
+        assertThrows(IOException.class, () -> CodecReader.wrap(wrongCount));
+
+        assertThrows(IllegalArgumentException.class, () -> encode(RandomRectangles.array(new Random(10), 10, -10000, 20000, 50), 0));
+    }
+}
@@ -0,0 +1,113 @@
+package sandbox.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import sandbox.RandomRectangles;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class RectangleFileTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path path = Files.createTempFile("rectangles", ".bin");
+        try {
+            RectangleArray expected = RandomRectangles.array(new Random(1000), 1000, -1000, 2000, 50);
+            RectangleFileWriter.write(path, expected);
+            assertEquals(RectangleFile.HEADER_BYTES + 1000L * RectangleFile.RECORD_BYTES, Files.size(path));
+
+            try(RectangleFileReader reader = RectangleFileReader.open(path)) {
+                assertEquals(1000, reader.size());
+                RecordCursor cursor = reader.cursor();
+                for(int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.toRectangle(i), cursor.moveTo(i).toRectangle());
+                }
+                assertTrue(cursor.moveTo(0).contains(expected.toRectangle(0)));
+            }
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testChunkedMapping() throws IOException {
+        Path path = Files.createTempFile("rectangles", ".bin");
+        try {
+            RectangleArray expected = RandomRectangles.array(new Random(1000), 1000, -1000, 2000, 50);
+            try(RectangleFileWriter writer = RectangleFileWriter.create(path)) {
+                for(Rectangle r : expected.toList()) {
+                    writer.write(r);
+                }
+                assertEquals(1000, writer.count());
+            }
+
+            // 64 records per chunk, the last chunk only partly full
+            try(RectangleFileReader reader = RectangleFileReader.open(path, 6)) {
+                AtomicLong next = new AtomicLong();
+                reader.forEach((index, x, y, x1, y1) -> {
+                    assertEquals(next.getAndIncrement(), index);
+                    assertEquals(expected.toRectangle((int) index), new Rectangle(x, y, x1, y1));
+                });
+                assertEquals(1000, next.get());
+
+                next.set(60);
+                reader.forEach(60, 200, (index, x, y, x1, y1) -> {
+                    assertEquals(next.getAndIncrement(), index);
+                    assertEquals(expected.getY1((int) index), y1);
+                });
+                assertEquals(200, next.get());
+                assertEquals(expected.getX(999), reader.getX(999));
+                assertThrows(IndexOutOfBoundsException.class, () ->{reader.getX(1000);});
+            }
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testInvalidFiles() throws IOException {
+        Path path = Files.createTempFile("rectangles", ".bin");
+        try {
+            Files.write(path, new byte[] {1, 2, 3});
+            assertThrows(IOException.class, () ->{RectangleFileReader.open(path);});
+
+            Files.write(path, new byte[32]);
+            assertThrows(IOException.class, () ->{RectangleFileReader.open(path);});
+
+            RectangleFileWriter.write(path, RandomRectangles.array(new Random(10), 10, -1000, 2000, 50));
+            byte[] bytes = Files.readAllBytes(path);
+            Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+            assertThrows(IOException.class, () ->{RectangleFileReader.open(path);});
+
+            // a count whose size in bytes wraps around to zero
+            byte[] huge = bytes.clone();
+            ByteBuffer.wrap(huge).order(ByteOrder.LITTLE_ENDIAN).putLong(8, 1L << 60);
+            Files.write(path, huge);
+            assertThrows(IOException.class, () ->{RectangleFileReader.open(path);});
+
+            Files.write(path, bytes);
+            RectangleFileReader reader = RectangleFileReader.open(path);
+            reader.close();
+            assertThrows(IllegalStateException.class, () ->{reader.getX(0);});
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+}
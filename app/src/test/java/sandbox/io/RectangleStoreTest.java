@@ -0,0 +1,108 @@
+package sandbox.io;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import sandbox.Point;
+import sandbox.RandomRectangles;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class RectangleStoreTest {
+
+    @Test
+    public void testAppendAcrossChunks() {
+        RectangleArray expected = RandomRectangles.array(new Random(3), 1000, -200, 400, 30);
+        try(RectangleStore store = new RectangleStore(4)) {
+            assertTrue(store.isEmpty());
+            assertEquals(0, store.appendAll(expected));
+            assertEquals(1000, store.append(new Rectangle(1, 2, 3, 4)));
+            assertEquals(1001, store.size());
+            assertEquals(63L * 16 * 16, store.getAllocatedBytes());
+
+            RecordCursor cursor = store.cursor();
+            for(int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.toRectangle(i), cursor.moveTo(i).toRectangle());
+                assertEquals(expected.getY1(i), store.getY1(i));
+            }
+            assertEquals(new Rectangle(1, 2, 3, 4), cursor.moveTo(1000).toRectangle());
+
+            long[] visited = new long[1];
+            store.forEach((index, x, y, x1, y1) -> assertEquals(visited[0]++, index));
+            assertEquals(1001, visited[0]);
+
+            assertThrows(IllegalArgumentException.class, () -> store.append(5, 5, 5, 9));
+            assertThrows(IndexOutOfBoundsException.class, () -> store.getX(1001));
+        }
+    }
+
+    @Test
+    public void testPredicatesMatchRectangle() {
+        Random random = new Random(7);
+        RectangleArray rectangles = RandomRectangles.array(random, 2000, -200, 400, 30);
+        List<Rectangle> list = rectangles.toList();
+        try(RectangleStore store = new RectangleStore(6)) {
+            store.appendAll(rectangles);
+
+            for(int q = 0; q < 50; q++) {
+                Rectangle query = RandomRectangles.rectangle(random, -200, 400, 30);
+                Point pt = new Point(random.nextInt(400) - 200, random.nextInt(400) - 200);
+
+                List<Long> intersects = new ArrayList<>();
+                List<Long> contains = new ArrayList<>();
+                List<Long> containsPoint = new ArrayList<>();
+                List<Long> adjacent = new ArrayList<>();
+                for(int i = 0; i < list.size(); i++) {
+                    if(list.get(i).intersects(query)) {
+                        intersects.add((long) i);
+                    }
+                    if(list.get(i).contains(query)) {
+                        contains.add((long) i);
+                    }
+                    if(list.get(i).contains(pt)) {
+                        containsPoint.add((long) i);
+                    }
+                    if(list.get(i).adjacent(query)) {
+                        adjacent.add((long) i);
+                    }
+                }
+
+                List<Long> actual = new ArrayList<>();
+                assertEquals(intersects.size(), store.intersects(query, actual::add));
+                assertEquals(intersects, actual);
+                actual.clear();
+                assertEquals(contains.size(), store.contains(query, actual::add));
+                assertEquals(contains, actual);
+                actual.clear();
+                assertEquals(containsPoint.size(), store.contains(pt, actual::add));
+                assertEquals(containsPoint, actual);
+                actual.clear();
+                assertEquals(adjacent.size(), store.adjacent(query, actual::add));
+                assertEquals(adjacent, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testClose() {
+        RectangleStore store = new RectangleStore(4);
+        store.append(0, 0, 10, 10);
+        RecordCursor cursor = store.cursor().moveTo(0);
+        store.close();
+        store.close();
+
+        assertEquals(0, store.getAllocatedBytes());
+        assertThrows(IllegalStateException.class, () -> store.append(0, 0, 1, 1));
+        assertThrows(IllegalStateException.class, () -> cursor.getX());
+        assertThrows(IllegalStateException.class, () -> store.intersects(new Rectangle(0, 0, 1, 1), i -> {
+        }));
+    }
+}
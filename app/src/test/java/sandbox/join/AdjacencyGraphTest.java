@@ -0,0 +1,72 @@
+package sandbox.join;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class AdjacencyGraphTest {
+
+    @Test
+    public void testSimpleGraph() {
+        RectangleArray rectangles = RectangleArray.of(List.of(
+                new Rectangle(0, 0, 10, 10),
+                new Rectangle(10, 3, 20, 6),
+                new Rectangle(3, 10, 8, 16),
+                new Rectangle(20, 6, 25, 9),
+                new Rectangle(30, 30, 40, 40)));
+        AdjacencyGraph graph = AdjacencyGraph.build(rectangles);
+
+        assertEquals(5, graph.size());
+        assertEquals(3, graph.edgeCount());
+        assertTrue(graph.adjacent(0, 1));
+        assertTrue(graph.adjacent(2, 0));
+        // touching at a corner only
+        assertTrue(graph.adjacent(1, 3));
+        assertFalse(graph.adjacent(0, 3));
+        assertEquals(0, graph.degree(4));
+        assertEquals(2, graph.neighbor(0, 1));
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(17);
+        RectangleArray rectangles = new RectangleArray();
+        for(int i = 0; i < 600; i++) {
+            int x = random.nextInt(40);
+            int y = random.nextInt(40);
+            rectangles.add(x, y, x + 1 + random.nextInt(6), y + 1 + random.nextInt(6));
+        }
+        List<Rectangle> list = rectangles.toList();
+        AdjacencyGraph graph = AdjacencyGraph.build(rectangles);
+
+        int edges = 0;
+        for(int i = 0; i < list.size(); i++) {
+            int[] expected = new int[list.size()];
+            int degree = 0;
+            for(int j = 0; j < list.size(); j++) {
+                if(i != j && list.get(i).adjacent(list.get(j))) {
+                    expected[degree++] = j;
+                }
+            }
+            edges += degree;
+
+            int[] actual = new int[graph.degree(i)];
+            for(int k = 0; k < actual.length; k++) {
+                actual[k] = graph.neighbor(i, k);
+            }
+            assertArrayEquals(Arrays.copyOf(expected, degree), actual);
+        }
+        assertEquals(edges / 2, graph.edgeCount());
+    }
+}
@@ -0,0 +1,151 @@
+package sandbox.join;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import sandbox.Point;
+import sandbox.RandomRectangles;
+import sandbox.Rectangle;
+import sandbox.Relation;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class PairTrackerTest {
+
+    /**
+     * the pairs of live rectangles for which the predicate holds, as
+     * "i,j" with i &lt; j.
+     */
+    private static Set<String> bruteForce(List<Rectangle> rectangles, int relation) {
+        Set<String> result = new HashSet<>();
+        for(int i = 0; i < rectangles.size(); i++) {
+            for(int j = i + 1; j < rectangles.size(); j++) {
+                Rectangle a = rectangles.get(i);
+                Rectangle b = rectangles.get(j);
+                if(a != null && b != null
+                        && (relation == Relation.INTERSECTS ? a.intersects(b) : a.adjacent(b))) {
+                    result.add(i + "," + j);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testChangesMatchBruteForce() {
+        Random random = new Random(17);
+        PairTracker tracker = new PairTracker(5);
+        List<Rectangle> model = new ArrayList<>();
+        for(int i = 0; i < 200; i++) {
+            Rectangle r = RandomRectangles.rectangle(random, 0, 300, 40);
+            assertEquals(i, tracker.add(r));
+            model.add(r);
+        }
+
+        // the pairs rebuilt from nothing but the reported changes
+        Set<String> intersecting = new HashSet<>();
+        Set<String> adjacent = new HashSet<>();
+        PairChangeConsumer apply = (i, j, relation, added) -> {
+            assertTrue(i < j);
+            Set<String> pairs = relation == Relation.INTERSECTS ? intersecting : adjacent;
+            assertTrue(added ? pairs.add(i + "," + j) : pairs.remove(i + "," + j),
+                    (added ? "added " : "removed ") + i + "," + j + " twice");
+        };
+
+        for(int round = 0; round < 30; round++) {
+            int before = intersecting.size() + adjacent.size();
+            int changes = tracker.commit(apply);
+            assertEquals(0, tracker.pendingCount());
+            assertTrue(changes >= Math.abs(intersecting.size() + adjacent.size() - before));
+
+            assertEquals(bruteForce(model, Relation.INTERSECTS), intersecting);
+            assertEquals(bruteForce(model, Relation.ADJACENT), adjacent);
+            assertEquals(intersecting.size(), tracker.intersectingCount());
+            assertEquals(adjacent.size(), tracker.adjacentCount());
+
+            // move a few, snap some onto each other's edges so adjacency
+            // comes and goes, and replace one
+            for(int k = 0; k < 10; k++) {
+                int h = random.nextInt(model.size());
+                if(model.get(h) == null) {
+                    continue;
+                }
+                Rectangle r = RandomRectangles.rectangle(random, 0, 300, 40);
+                if(k % 3 == 0) {
+                    Rectangle other = model.get(random.nextInt(model.size()));
+                    if(other != null) {
+                        int x = other.getLowerRight().getX();
+                        r = new Rectangle(x, r.getUpperLeft().getY(), x + r.getWidth(), r.getLowerRight().getY());
+                    }
+                }
+                tracker.move(h, r.getUpperLeft().getX(), r.getUpperLeft().getY(),
+                        r.getLowerRight().getX(), r.getLowerRight().getY());
+                model.set(h, r);
+            }
+            int gone = random.nextInt(model.size());
+            if(model.get(gone) != null) {
+                tracker.remove(gone);
+                model.set(gone, null);
+            }
+        }
+
+        tracker.commit(apply);
+        assertEquals(bruteForce(model, Relation.INTERSECTS), intersecting);
+        assertEquals(bruteForce(model, Relation.ADJACENT), adjacent);
+
+        // nothing changed, nothing reported
+        assertEquals(0, tracker.commit((i, j, relation, added) -> {
+            throw new AssertionError();
+        }));
+    }
+
+    @Test
+    public void testTrackedRectangles() {
+        PairTracker tracker = new PairTracker();
+        Rectangle a = new Rectangle(0, 0, 10, 10);
+        Rectangle b = new Rectangle(20, 0, 30, 10);
+        int ha = tracker.track(a);
+        int hb = tracker.track(b);
+        assertEquals(0, tracker.commit((i, j, relation, added) -> { }));
+
+        // slide b left until it touches a, then overlaps it
+        b.setUpperLeft(new Point(10, 0));
+        b.setLowerRight(new Point(20, 10));
+        assertEquals(1, tracker.pendingCount());
+        List<String> changes = new ArrayList<>();
+        tracker.commit((i, j, relation, added) -> changes.add(Relation.toString(relation) + (added ? "+" : "-")));
+        assertEquals(List.of("INTERSECTS+", "ADJACENT+"), changes);
+        assertTrue(tracker.intersects(hb, ha));
+        assertTrue(tracker.adjacent(ha, hb));
+
+        b.setUpperLeft(new Point(5, 0));
+        changes.clear();
+        tracker.commit((i, j, relation, added) -> changes.add(Relation.toString(relation) + (added ? "+" : "-")));
+        assertEquals(List.of("ADJACENT-"), changes);
+        assertTrue(tracker.intersects(ha, hb));
+        assertFalse(tracker.adjacent(ha, hb));
+
+        // a rectangle left inverted stops the commit
+        b.setUpperLeft(new Point(25, 0));
+        assertThrows(IllegalArgumentException.class, () -> tracker.commit((i, j, relation, added) -> { }));
+        b.setUpperLeft(new Point(15, 0));
+
+        tracker.remove(ha);
+        assertEquals(null, a.getListener());
+        changes.clear();
+        tracker.commit((i, j, relation, added) -> changes.add(Relation.toString(relation) + (added ? "+" : "-")));
+        assertEquals(List.of("INTERSECTS-"), changes);
+        assertEquals(0, tracker.intersectingCount());
+        assertThrows(IllegalArgumentException.class, () -> tracker.remove(ha));
+        assertThrows(IllegalArgumentException.class, () -> tracker.move(hb, 0, 0, 1, 1));
+    }
+}
@@ -0,0 +1,114 @@
+package sandbox.join;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import sandbox.RandomRectangles;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class SweepJoinTest {
+
+    @Test
+    public void testSelfJoinMatchesBruteForce() {
+        RectangleArray rectangles = RandomRectangles.array(new Random(3), 800, 0, 200, 15);
+        List<Rectangle> list = rectangles.toList();
+
+        Set<List<Integer>> expected = new HashSet<>();
+        for(int i = 0; i < list.size(); i++) {
+            for(int j = i + 1; j < list.size(); j++) {
+                if(list.get(i).intersects(list.get(j))) {
+                    expected.add(List.of(i, j));
+                }
+            }
+        }
+
+        Set<List<Integer>> actual = new HashSet<>();
+        SweepJoin.selfJoin(rectangles, (i, j) -> {
+            assertTrue(i < j);
+            assertTrue(actual.add(List.of(i, j)));
+        });
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testTwoSetJoinMatchesBruteForce() {
+        Random random = new Random(9);
+        RectangleArray a = RandomRectangles.array(random, 400, 0, 200, 15);
+        RectangleArray b = RandomRectangles.array(random, 300, 0, 200, 15);
+
+        Set<List<Integer>> expected = new HashSet<>();
+        for(int i = 0; i < a.size(); i++) {
+            for(int j = 0; j < b.size(); j++) {
+                if(a.toRectangle(i).intersects(b.toRectangle(j))) {
+                    expected.add(List.of(i, j));
+                }
+            }
+        }
+
+        Set<List<Integer>> actual = new HashSet<>();
+        SweepJoin.join(a, b, (i, j) -> assertTrue(actual.add(List.of(i, j))));
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testLongStripesAndTallRectangles() {
+        // wide stripes that never meet on the y-axis, crossed by a few
+        // rectangles spanning many bands
+        RectangleArray rectangles = new RectangleArray();
+        for(int i = 0; i < 300; i++) {
+            rectangles.add(i % 7, i * 3, 1000 + i % 5, i * 3 + 1);
+        }
+        for(int i = 0; i < 10; i++) {
+            rectangles.add(i * 90, i * 40, i * 90 + 5, i * 40 + 400);
+        }
+        List<Rectangle> list = rectangles.toList();
+
+        Set<List<Integer>> expected = new HashSet<>();
+        for(int i = 0; i < list.size(); i++) {
+            for(int j = i + 1; j < list.size(); j++) {
+                if(list.get(i).intersects(list.get(j))) {
+                    expected.add(List.of(i, j));
+                }
+            }
+        }
+
+        Set<List<Integer>> actual = new HashSet<>();
+        SweepJoin.selfJoin(rectangles, (i, j) -> assertTrue(actual.add(List.of(i, j))));
+        assertEquals(expected, actual);
+        assertTrue(expected.size() > 0);
+    }
+
+    @Test
+    public void testIntersectionArea() {
+        RectangleArray rectangles = RandomRectangles.array(new Random(21), 300, 0, 200, 15);
+
+        SweepJoin.selfJoin(rectangles, (i, j, x, y, x1, y1) -> {
+            if(x < x1 && y < y1) {
+                Optional<Rectangle> expected = rectangles.toRectangle(i).intersection(rectangles.toRectangle(j));
+                assertEquals(expected, Optional.of(new Rectangle(x, y, x1, y1)));
+            }
+        });
+    }
+
+    @Test
+    public void testTouchingAndContained() {
+        RectangleArray rectangles = RectangleArray.of(List.of(
+                new Rectangle(0, 0, 10, 10),
+                new Rectangle(10, 0, 20, 10),
+                new Rectangle(1, 1, 2, 2)));
+
+        Set<List<Integer>> actual = new HashSet<>();
+        SweepJoin.selfJoin(rectangles, (i, j) -> actual.add(List.of(i, j)));
+        assertEquals(Set.of(List.of(0, 1)), actual);
+    }
+}
@@ -0,0 +1,73 @@
+package sandbox.metrics;
+
+import java.util.Arrays;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBuckets() {
+        // every value lands in a bucket whose bounds hold it, and the buckets
+        // follow each other without gaps
+        for(long value = 0; value < 100_000; value++) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertTrue(value <= LatencyHistogram.upperBound(bucket));
+            assertTrue(bucket == 0 || value > LatencyHistogram.upperBound(bucket - 1));
+        }
+        int last = LatencyHistogram.bucket(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(last));
+    }
+
+    @Test
+    public void testPercentiles() {
+        Random random = new Random(3);
+        long[] values = new long[10_000];
+        LatencyHistogram histogram = new LatencyHistogram();
+        for(int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 20);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(values[values.length - 1], histogram.getMax());
+        for(double p : new double[] { 1, 50, 90, 99, 99.9, 100 }) {
+            long exact = values[(int) Math.ceil(values.length * p / 100.0) - 1];
+            long reported = histogram.percentile(p);
+            assertTrue(reported >= exact, p + ": " + reported + " < " + exact);
+            assertTrue(reported <= exact + exact / 32 + 1, p + ": " + reported + " too far above " + exact);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentile(101));
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentile(Double.NaN));
+    }
+
+    @Test
+    public void testSnapshotAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10);
+        histogram.record(30);
+        histogram.record(-5);
+
+        LatencyHistogram copy = histogram.snapshot();
+        histogram.reset();
+        histogram.record(1000);
+
+        assertEquals(3, copy.getCount());
+        assertEquals(30, copy.getMax());
+        assertEquals(40 / 3.0, copy.getMean(), 1e-9);
+        assertEquals(10, copy.percentile(50));
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(0, new LatencyHistogram().percentile(99));
+    }
+}
@@ -0,0 +1,109 @@
+package sandbox.metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.BitSet;
+import sandbox.Point;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class MetricsTest {
+
+    @Test
+    public void testSnapshotAndReset() {
+        Metrics.reset();
+        Probe.RECTANGLE_INTERSECTS.count();
+        Probe.RECTANGLE_INTERSECTS.count();
+        Probe.TREE_QUERY.record(System.nanoTime(), 7);
+        Probe.TREE_QUERY.record(System.nanoTime(), 5);
+
+        Snapshot snapshot = Metrics.snapshot();
+        Metrics.reset();
+        Probe.TREE_QUERY.record(System.nanoTime(), 1);
+
+        assertEquals(2, snapshot.getCalls(Probe.RECTANGLE_INTERSECTS));
+        assertEquals(2, snapshot.getCalls(Probe.TREE_QUERY));
+        assertEquals(12, snapshot.getResults(Probe.TREE_QUERY));
+        assertEquals(2, snapshot.getLatency(Probe.TREE_QUERY).getCount());
+        assertEquals(0, snapshot.getCalls(Probe.ARRAY_QUERY));
+
+        assertEquals(0, Probe.RECTANGLE_INTERSECTS.getCalls());
+        assertEquals(1, Probe.TREE_QUERY.getCalls());
+        Metrics.reset();
+    }
+
+    @Test
+    public void testPredicatesCountedOnce() {
+        // the test task runs with -Dsandbox.metrics=true
+        assertTrue(Metrics.ENABLED);
+        Rectangle a = new Rectangle(0, 0, 10, 10);
+        Rectangle b = new Rectangle(5, 5, 15, 15);
+
+        Metrics.reset();
+        a.intersects(b);
+        assertEquals(1, Probe.RECTANGLE_INTERSECTS.getCalls());
+        assertEquals(0, Probe.RECTANGLE_CONTAINS.getCalls());
+
+        Metrics.reset();
+        a.contains(b);
+        assertEquals(1, Probe.RECTANGLE_CONTAINS.getCalls());
+
+        Metrics.reset();
+        a.contains(new Point(1, 1));
+        assertEquals(1, Probe.RECTANGLE_CONTAINS.getCalls());
+
+        Metrics.reset();
+        a.intersection(b);
+        a.adjacent(b);
+        a.relate(b);
+        assertEquals(0, Probe.RECTANGLE_INTERSECTS.getCalls());
+        assertEquals(0, Probe.RECTANGLE_CONTAINS.getCalls());
+        assertEquals(1, Probe.RECTANGLE_ADJACENT.getCalls());
+        assertEquals(1, Probe.RECTANGLE_RELATE.getCalls());
+        Metrics.reset();
+    }
+
+    @Test
+    public void testBitSetResultsCountedWithinSize() {
+        RectangleArray array = new RectangleArray();
+        array.add(0, 0, 10, 10);
+        array.add(20, 20, 30, 30);
+        BitSet result = new BitSet();
+        result.set(2, 100);
+
+        Metrics.reset();
+        array.contains(new Point(5, 5), result);
+        assertEquals(1, Probe.ARRAY_QUERY.getResults());
+        Metrics.reset();
+    }
+
+    @Test
+    public void testReport() {
+        Metrics.reset();
+        Probe.RECTANGLE_ADJACENT.count();
+        Probe.ARRAY_QUERY.record(System.nanoTime(), 3);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Reporter reporter = new Reporter(new PrintStream(bytes), true, Duration.ofHours(1));
+        reporter.close();
+        Metrics.reset();
+
+        String report = bytes.toString();
+        assertTrue(report.startsWith("metrics at "), report);
+        assertTrue(report.contains("rectangle.adjacent: 1 calls"), report);
+        assertTrue(report.contains("array.query: 3 results, calls: 1, mean"), report);
+        assertFalse(report.contains("tree.query"), report);
+
+        assertThrows(IllegalArgumentException.class, () -> new Reporter(System.err, false, Duration.ZERO));
+    }
+}
@@ -0,0 +1,85 @@
+package sandbox.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import sandbox.RandomRectangles;
+import sandbox.RectangleArray;
+import sandbox.join.SweepJoin;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class ParallelJoinTest {
+
+    private static List<List<Integer>> sorted(List<List<Integer>> pairs) {
+        List<List<Integer>> copy = new ArrayList<>(pairs);
+        copy.sort((p, q) -> p.get(0).equals(q.get(0)) ? p.get(1) - q.get(1) : p.get(0) - q.get(0));
+        return copy;
+    }
+
+    private static List<List<Integer>> sequentialSelfJoin(RectangleArray rectangles) {
+        List<List<Integer>> pairs = new ArrayList<>();
+        SweepJoin.selfJoin(rectangles, (i, j) -> pairs.add(List.of(i, j)));
+        return sorted(pairs);
+    }
+
+    @Test
+    public void testSelfJoinMatchesSweepAtAnyParallelism() {
+        // large rectangles so many pairs straddle the cuts
+        RectangleArray rectangles = RandomRectangles.array(new Random(47), 6000, 0, 2000, 60);
+        List<List<Integer>> expected = sequentialSelfJoin(rectangles);
+
+        List<List<Integer>> first = null;
+        for(int threads : new int[] {1, 3, 8}) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                List<List<Integer>> actual = new ArrayList<>();
+                ParallelJoin.selfJoin(pool, rectangles, (i, j, x, y, x1, y1) -> actual.add(List.of(i, j)));
+                assertEquals(expected, sorted(actual));
+                // the regions come in the same order every time
+                if(first == null) {
+                    first = actual;
+                }
+                assertEquals(first, actual);
+            }
+            finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testTwoSetJoinMatchesSweep() {
+        Random random = new Random(53);
+        RectangleArray a = RandomRectangles.array(random, 3000, 0, 1000, 40);
+        RectangleArray b = RandomRectangles.array(random, 2500, 0, 1000, 40);
+
+        List<List<Integer>> expected = new ArrayList<>();
+        SweepJoin.join(a, b, (i, j) -> expected.add(List.of(i, j)));
+
+        List<List<Integer>> actual = new ArrayList<>();
+        ParallelJoin.join(a, b, (i, j) -> actual.add(List.of(i, j)));
+        assertEquals(sorted(expected), sorted(actual));
+    }
+
+    @Test
+    public void testIdenticalRectangles() {
+        // every center is the same, so the partition can not cut
+        RectangleArray rectangles = new RectangleArray();
+        for(int i = 0; i < 3000; i++) {
+            rectangles.add(i % 2, i % 2, 10 - i % 2, 10 - i % 2);
+        }
+        assertEquals(sequentialSelfJoin(rectangles).size(), countPairs(rectangles));
+    }
+
+    private static int countPairs(RectangleArray rectangles) {
+        int[] count = new int[1];
+        ParallelJoin.selfJoin(rectangles, (i, j) -> count[0]++);
+        return count[0];
+    }
+}
@@ -0,0 +1,90 @@
+package sandbox.parallel;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.Spliterator;
+import sandbox.Point;
+import sandbox.RandomRectangles;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class ParallelQueryTest {
+
+    private static int[] expected(BitSet bits) {
+        return bits.stream().toArray();
+    }
+
+    @Test
+    public void testPredicatesMatchRectangleArray() {
+        Random random = new Random(59);
+        RectangleArray rectangles = RandomRectangles.array(random, 20_000, 0, 5000, 80);
+        ParallelQuery query = new ParallelQuery(SpatialPartition.build(rectangles, 256));
+        BitSet bits = new BitSet();
+
+        for(int q = 0; q < 30; q++) {
+            Rectangle r = RandomRectangles.rectangle(random, 0, 5000, 300);
+            int x = r.getUpperLeft().getX();
+            int y = r.getUpperLeft().getY();
+            Rectangle small = new Rectangle(x, y, x + 2, y + 2);
+            Point pt = new Point(x, y);
+
+            rectangles.intersects(r, bits);
+            assertArrayEquals(expected(bits), query.intersecting(r));
+            rectangles.contains(small, bits);
+            assertArrayEquals(expected(bits), query.containing(small));
+            rectangles.contains(pt, bits);
+            assertArrayEquals(expected(bits), query.containing(pt));
+
+            int[] hits = query.intersecting(r);
+            int[] seen = new int[1];
+            query.intersection(r, (index, ix, iy, ix1, iy1) -> {
+                assertEquals(hits[seen[0]++], (int) index);
+                assertTrue(ix <= ix1 && iy <= iy1);
+            });
+            assertEquals(hits.length, seen[0]);
+        }
+    }
+
+    @Test
+    public void testSpliteratorSplitsBySpace() {
+        RectangleArray rectangles = RandomRectangles.array(new Random(61), 5000, 0, 1000, 10);
+        SpatialPartition partition = SpatialPartition.build(rectangles, 100);
+        assertTrue(partition.leafCount() >= 50);
+
+        Spliterator.OfInt right = partition.spliterator();
+        Spliterator.OfInt left = right.trySplit();
+        assertEquals(5000, left.estimateSize() + right.estimateSize());
+
+        // the two halves lie on either side of a cut, so they overlap little
+        int[] boxLeft = box(rectangles, left);
+        int[] boxRight = box(rectangles, right);
+        long overlap = Math.max(0, Math.min(boxLeft[2], boxRight[2]) - Math.max(boxLeft[0], boxRight[0]))
+                * (long) Math.max(0, Math.min(boxLeft[3], boxRight[3]) - Math.max(boxLeft[1], boxRight[1]));
+        assertTrue(overlap < 1000L * 1000 / 10);
+
+        int[] all = partition.indexes(true).sorted().toArray();
+        int[] expected = new int[5000];
+        Arrays.setAll(expected, i -> i);
+        assertArrayEquals(expected, all);
+    }
+
+    private static int[] box(RectangleArray rectangles, Spliterator.OfInt part) {
+        int[] box = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+        part.forEachRemaining((int i) -> {
+            box[0] = Math.min(box[0], rectangles.getX(i));
+            box[1] = Math.min(box[1], rectangles.getY(i));
+            box[2] = Math.max(box[2], rectangles.getX1(i));
+            box[3] = Math.max(box[3], rectangles.getY1(i));
+        });
+        return box;
+    }
+}
@@ -0,0 +1,95 @@
+package sandbox.raster;
+
+import java.util.Random;
+import sandbox.RandomRectangles;
+import sandbox.Rectangle;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class BitMatrixTest {
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 70;
+
+    @Test
+    public void testSingleCells() {
+        BitMatrix matrix = new BitMatrix(130, 3);
+        matrix.set(0, 0);
+        matrix.set(63, 1);
+        matrix.set(64, 1);
+        matrix.set(129, 2);
+        assertTrue(matrix.get(63, 1));
+        assertTrue(matrix.get(64, 1));
+        assertFalse(matrix.get(65, 1));
+        assertFalse(matrix.get(-1, 0));
+        assertFalse(matrix.get(130, 2));
+        assertEquals(4, matrix.count());
+        assertThrows(IllegalArgumentException.class, () -> matrix.set(130, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BitMatrix(0, 3));
+    }
+
+    @Test
+    public void testRegionsMatchBruteForce() {
+        Random random = new Random(31);
+        BitMatrix matrix = new BitMatrix(WIDTH, HEIGHT);
+        boolean[][] cells = new boolean[WIDTH][HEIGHT];
+
+        for(int round = 0; round < 200; round++) {
+            Rectangle r = RandomRectangles.within(random, WIDTH, HEIGHT);
+            boolean fill = random.nextInt(3) > 0;
+            if(fill) {
+                matrix.fill(r);
+            }
+            else {
+                matrix.clear(r);
+            }
+            for(int x = r.getUpperLeft().getX(); x <= r.getLowerRight().getX(); x++) {
+                for(int y = r.getUpperLeft().getY(); y <= r.getLowerRight().getY(); y++) {
+                    cells[x][y] = fill;
+                }
+            }
+
+            Rectangle query = RandomRectangles.within(random, WIDTH, HEIGHT);
+            long count = 0;
+            for(int x = query.getUpperLeft().getX(); x <= query.getLowerRight().getX(); x++) {
+                for(int y = query.getUpperLeft().getY(); y <= query.getLowerRight().getY(); y++) {
+                    count += cells[x][y] ? 1 : 0;
+                }
+            }
+            assertEquals(count, matrix.count(query));
+            assertEquals(count > 0, matrix.any(query));
+            assertEquals(count == (long) query.getWidth() * query.getHeight(), matrix.all(query));
+        }
+    }
+
+    @Test
+    public void testQueriesOutsideTheMatrix() {
+        BitMatrix matrix = new BitMatrix(10, 10);
+        matrix.fill(new Rectangle(0, 0, 9, 9));
+        assertEquals(100, matrix.count(new Rectangle(-5, -5, 20, 20)));
+        assertTrue(matrix.any(new Rectangle(-5, -5, 0, 0)));
+        assertFalse(matrix.any(new Rectangle(10, 10, 20, 20)));
+        assertFalse(matrix.all(new Rectangle(-5, -5, 5, 5)));
+        assertTrue(matrix.all(new Rectangle(0, 0, 9, 9)));
+    }
+
+    @Test
+    public void testBooleanOperations() {
+        BitMatrix a = new BitMatrix(WIDTH, HEIGHT);
+        BitMatrix b = new BitMatrix(WIDTH, HEIGHT);
+        a.fill(new Rectangle(0, 0, 99, 49));
+        b.fill(new Rectangle(50, 10, 149, 59));
+
+        assertEquals(50 * 40, a.copy().and(b).count());
+        assertEquals(100 * 50 * 2 - 50 * 40, a.copy().or(b).count());
+        assertEquals(100 * 50 - 50 * 40, a.copy().andNot(b).count());
+        assertEquals(a, a.copy());
+        assertThrows(IllegalArgumentException.class, () -> a.and(new BitMatrix(10, 10)));
+    }
+}
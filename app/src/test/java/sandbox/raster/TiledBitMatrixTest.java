@@ -0,0 +1,79 @@
+package sandbox.raster;
+
+import java.util.Random;
+import sandbox.Rectangle;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class TiledBitMatrixTest {
+
+    @Test
+    public void testMatchesDenseMatrix() {
+        // the dense matrix is shifted so the tiled one sees negative cells
+        int shift = 150;
+        Random random = new Random(37);
+        BitMatrix dense = new BitMatrix(300, 300);
+        TiledBitMatrix tiled = new TiledBitMatrix();
+
+        for(int round = 0; round < 300; round++) {
+            int x = random.nextInt(280);
+            int y = random.nextInt(280);
+            Rectangle r = new Rectangle(x, y, x + 1 + random.nextInt(19), y + 1 + random.nextInt(19));
+            Rectangle shifted = new Rectangle(x - shift, y - shift, r.getLowerRight().getX() - shift, r.getLowerRight().getY() - shift);
+            if(random.nextInt(3) > 0) {
+                dense.fill(r);
+                tiled.fill(shifted);
+            }
+            else {
+                dense.clear(r);
+                tiled.clear(shifted);
+            }
+
+            x = random.nextInt(250);
+            y = random.nextInt(250);
+            Rectangle query = new Rectangle(x, y, x + 1 + random.nextInt(49), y + 1 + random.nextInt(49));
+            Rectangle shiftedQuery = new Rectangle(x - shift, y - shift, query.getLowerRight().getX() - shift, query.getLowerRight().getY() - shift);
+            assertEquals(dense.count(query), tiled.count(shiftedQuery));
+            assertEquals(dense.any(query), tiled.any(shiftedQuery));
+            assertEquals(dense.all(query), tiled.all(shiftedQuery));
+        }
+        assertEquals(dense.count(), tiled.count());
+    }
+
+    @Test
+    public void testSparseAcrossTheWholeGrid() {
+        TiledBitMatrix matrix = new TiledBitMatrix();
+        matrix.set(Integer.MIN_VALUE, Integer.MIN_VALUE);
+        matrix.set(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        matrix.fill(-10, -10, 10, 10);
+        assertEquals(6, matrix.tileCount());
+
+        Rectangle everything = new Rectangle(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        assertEquals(2 + 21 * 21, matrix.count(everything));
+        assertTrue(matrix.any(new Rectangle(Integer.MAX_VALUE - 1, Integer.MAX_VALUE - 1, Integer.MAX_VALUE, Integer.MAX_VALUE)));
+        assertFalse(matrix.all(everything));
+
+        matrix.clear(everything);
+        assertEquals(0, matrix.tileCount());
+    }
+
+    @Test
+    public void testBooleanOperations() {
+        TiledBitMatrix a = new TiledBitMatrix();
+        TiledBitMatrix b = new TiledBitMatrix();
+        a.fill(new Rectangle(0, 0, 99, 49));
+        b.fill(new Rectangle(50, 10, 149, 59));
+        TiledBitMatrix c = new TiledBitMatrix().or(a);
+
+        assertEquals(100 * 50 * 2 - 50 * 40, c.or(b).count());
+        assertEquals(50 * 40, c.and(a).and(b).count());
+        assertEquals(100 * 50 - 50 * 40, a.andNot(b).count());
+        assertEquals(0, a.andNot(a).tileCount());
+    }
+}
@@ -0,0 +1,211 @@
+package sandbox.server;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import sandbox.RandomRectangles;
+import sandbox.Rectangle;
+import sandbox.cli.Operation;
+import sandbox.index.RTree;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class QueryServerTest {
+    private static final Operation[] OPERATIONS = {
+        Operation.INTERSECTS, Operation.INTERSECTION, Operation.CONTAINS, Operation.ADJACENT
+    };
+
+    private static String result(int x, int y, int x1, int y1) {
+        return x + " " + y + " " + x1 + " " + y1;
+    }
+
+    private static List<String> expected(List<Rectangle> stored, Operation operation, Rectangle query) {
+        int qx = query.getUpperLeft().getX();
+        int qy = query.getUpperLeft().getY();
+        int qx1 = query.getLowerRight().getX();
+        int qy1 = query.getLowerRight().getY();
+
+        List<String> result = new ArrayList<>();
+        for(Rectangle r : stored) {
+            int x = r.getUpperLeft().getX();
+            int y = r.getUpperLeft().getY();
+            int x1 = r.getLowerRight().getX();
+            int y1 = r.getLowerRight().getY();
+            boolean match = switch(operation) {
+                case INTERSECTS, INTERSECTION -> r.intersects(query);
+                case CONTAINS -> query.contains(r);
+                default -> r.adjacent(query);
+            };
+            if(match && operation == Operation.INTERSECTION) {
+                // touching rectangles share a line, which Rectangle can not hold
+                result.add(result(Math.max(x, qx), Math.max(y, qy), Math.min(x1, qx1), Math.min(y1, qy1)));
+            }
+            else if(match) {
+                result.add(result(x, y, x1, y1));
+            }
+        }
+        result.sort(null);
+        return result;
+    }
+
+    private static void assertPipelinedAnswers(SocketAddress address) throws Exception {
+        Random random = new Random(31);
+        List<Rectangle> stored = new ArrayList<>();
+        for(int i = 0; i < 3000; i++) {
+            stored.add(RandomRectangles.rectangle(random, 0, 500, 20));
+        }
+
+        try(QueryServer server = new QueryServer(RTree.bulkLoad(stored))) {
+            SocketAddress bound = server.start(address);
+            try(QueryClient client = QueryClient.connect(bound)) {
+                Map<Integer, List<String>> expected = new HashMap<>();
+                for(int id = 0; id < 400; id++) {
+                    Operation operation = OPERATIONS[id % OPERATIONS.length];
+                    Rectangle query = RandomRectangles.rectangle(random, 0, 500, 60);
+                    expected.put(id, expected(stored, operation, query));
+                    client.send(id, operation, query.getUpperLeft().getX(), query.getUpperLeft().getY(),
+                            query.getLowerRight().getX(), query.getLowerRight().getY());
+                }
+
+                for(int n = 0; n < 400; n++) {
+                    List<String> actual = new ArrayList<>();
+                    int id = client.receive((i, x, y, x1, y1) -> actual.add(result(x, y, x1, y1)));
+                    assertEquals(actual.size(), client.getCount());
+                    actual.sort(null);
+                    assertEquals(expected.remove(id), actual);
+                }
+                assertTrue(expected.isEmpty());
+            }
+            assertEquals(400, server.getRequests());
+            assertTrue(server.getBatches() <= 400);
+        }
+    }
+
+    @Test
+    public void testPipelinedQueriesOverTcp() throws Exception {
+        assertPipelinedAnswers(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    @Test
+    public void testPipelinedQueriesOverUnixSocket() throws Exception {
+        Path directory = Files.createTempDirectory("server");
+        Path socket = directory.resolve("query.sock");
+        try {
+            assertPipelinedAnswers(UnixDomainSocketAddress.of(socket));
+            assertFalse(Files.exists(socket));
+        }
+        finally {
+            Files.deleteIfExists(socket);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testRejectsBadRequests() throws Exception {
+        RTree tree = RTree.bulkLoad(List.of(new Rectangle(0, 0, 10, 10)));
+        try(QueryServer server = new QueryServer(tree, 0)) {
+            SocketAddress address = server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            try(QueryClient client = QueryClient.connect(address)) {
+                client.send(1, 99, 0, 0, 5, 5);
+                client.send(2, Protocol.INTERSECTS, 5, 5, 5, 9);
+                client.send(3, Protocol.INTERSECTS, 5, 5, 15, 15);
+
+                int[] counts = new int[4];
+                for(int n = 0; n < 3; n++) {
+                    int id = client.receive((i, x, y, x1, y1) -> {
+                    });
+                    counts[id] = client.getCount();
+                }
+                assertEquals(Protocol.ERROR, counts[1]);
+                assertEquals(Protocol.ERROR, counts[2]);
+                assertEquals(1, counts[3]);
+            }
+        }
+    }
+
+    @Test
+    public void testAnswersOperationZero() throws Exception {
+        RTree tree = RTree.bulkLoad(List.of(new Rectangle(0, 0, 10, 10)));
+        try(QueryServer server = new QueryServer(tree, 0)) {
+            SocketAddress address = server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            try(QueryClient client = QueryClient.connect(address)) {
+                client.send(1, 0, 0, 0, 5, 5);
+                client.send(2, Protocol.INTERSECTS, 5, 5, 15, 15);
+
+                int[] counts = new int[3];
+                for(int n = 0; n < 2; n++) {
+                    int id = client.receive((i, x, y, x1, y1) -> {
+                    });
+                    counts[id] = client.getCount();
+                }
+                assertEquals(Protocol.ERROR, counts[1]);
+                assertEquals(1, counts[2]);
+            }
+        }
+    }
+
+    @Test
+    public void testSmallQueueAnswersEverything() throws Exception {
+        RTree tree = RTree.bulkLoad(List.of(new Rectangle(0, 0, 10, 10), new Rectangle(20, 20, 30, 30)));
+        // far more requests pipelined than the queue holds
+        try(QueryServer server = new QueryServer(tree, 0, 4)) {
+            SocketAddress address = server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            try(QueryClient client = QueryClient.connect(address)) {
+                for(int id = 0; id < 1000; id++) {
+                    int at = id % 2 * 20;
+                    client.send(id, Protocol.INTERSECTS, at + 5, at + 5, at + 15, at + 15);
+                }
+
+                int[] answered = new int[1000];
+                for(int n = 0; n < 1000; n++) {
+                    int[] left = new int[1];
+                    int id = client.receive((i, x, y, x1, y1) -> left[0] = x);
+                    assertEquals(1, client.getCount());
+                    assertEquals(id % 2 * 20, left[0]);
+                    answered[id]++;
+                }
+                for(int times : answered) {
+                    assertEquals(1, times);
+                }
+            }
+            assertEquals(1000, server.getRequests());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new QueryServer(tree, 0, 0));
+    }
+
+    @Test
+    public void testLoadGenerator() throws Exception {
+        Random random = new Random(8);
+        List<Rectangle> stored = new ArrayList<>();
+        for(int i = 0; i < 1000; i++) {
+            stored.add(RandomRectangles.rectangle(random, 0, 1000, 50));
+        }
+
+        try(QueryServer server = new QueryServer(RTree.bulkLoad(stored))) {
+            SocketAddress address = server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            LoadGenerator load = new LoadGenerator(address, Operation.INTERSECTS, new Rectangle(0, 0, 1000, 1000),
+                    3, 200, 8);
+            load.run(5);
+
+            assertEquals(600, load.getLatency().getCount());
+            assertEquals(600, server.getRequests());
+            assertTrue(load.getResults() > 0);
+            assertTrue(load.getLatency().percentile(50) <= load.getLatency().percentile(99));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package sandbox.shard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import sandbox.RandomRectangles;
+import sandbox.RectangleArray;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class QuantileGridTest {
+
+    /**
+     * a dense patch in one corner as well as a uniform spread.
+     */
+    private static RectangleArray patchy(int count, int extent) {
+        Random random = new Random(count);
+        RectangleArray array = new RectangleArray(count);
+        for(int i = 0; i < count; i++) {
+            array.add(RandomRectangles.rectangle(random, 0, i % 2 == 0 ? extent : extent / 10, 20));
+        }
+        return array;
+    }
+
+    private static boolean inside(int[] bounds, int px, int py) {
+        return px >= bounds[0] && px <= bounds[2] && py >= bounds[1] && py <= bounds[3];
+    }
+
+    @Test
+    public void testBalanced() {
+        RectangleArray rectangles = patchy(20000, 10000);
+        QuantileGrid grid = QuantileGrid.build(rectangles, 4, 4);
+        assertEquals(16, grid.tileCount());
+
+        int[] counts = new int[grid.tileCount()];
+        for(int i = 0; i < rectangles.size(); i++) {
+            int cx = (rectangles.getX(i) + rectangles.getX1(i)) >> 1;
+            int cy = (rectangles.getY(i) + rectangles.getY1(i)) >> 1;
+            counts[grid.tileOf(cx, cy)]++;
+        }
+        for(int count : counts) {
+            assertTrue(Math.abs(count - 1250) < 50, "tile holds " + count);
+        }
+    }
+
+    @Test
+    public void testTilesCoverThePlane() {
+        QuantileGrid grid = QuantileGrid.build(patchy(1000, 1000), 3, 5);
+        Random random = new Random(7);
+        for(int k = 0; k < 10000; k++) {
+            int px = random.nextInt(1200) - 100;
+            int py = random.nextInt(1200) - 100;
+            int tile = grid.tileOf(px, py);
+            for(int t = 0; t < grid.tileCount(); t++) {
+                assertEquals(t == tile, inside(grid.bounds(t), px, py));
+            }
+        }
+        assertTrue(inside(grid.bounds(grid.tileOf(Integer.MIN_VALUE, Integer.MAX_VALUE)), Integer.MIN_VALUE,
+                Integer.MAX_VALUE));
+        assertTrue(inside(grid.bounds(grid.tileOf(Integer.MAX_VALUE, Integer.MIN_VALUE)), Integer.MAX_VALUE,
+                Integer.MIN_VALUE));
+    }
+
+    @Test
+    public void testTilesReached() {
+        QuantileGrid grid = QuantileGrid.build(patchy(1000, 1000), 4, 4);
+        Random random = new Random(11);
+        for(int k = 0; k < 2000; k++) {
+            int x = random.nextInt(1000);
+            int y = random.nextInt(1000);
+            int x1 = x + random.nextInt(400);
+            int y1 = y + random.nextInt(400);
+
+            List<Integer> expected = new ArrayList<>();
+            for(int t = 0; t < grid.tileCount(); t++) {
+                int[] b = grid.bounds(t);
+                if(b[0] <= x1 && x <= b[2] && b[1] <= y1 && y <= b[3]) {
+                    expected.add(t);
+                }
+            }
+            List<Integer> actual = new ArrayList<>();
+            grid.tiles(x, y, x1, y1, actual::add);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testRepeatedCuts() {
+        RectangleArray rectangles = new RectangleArray();
+        for(int i = 0; i < 100; i++) {
+            rectangles.add(10, 10, 20, 20);
+        }
+        QuantileGrid grid = QuantileGrid.build(rectangles, 4, 4);
+        assertEquals(1, grid.tileCount());
+        assertEquals(0, grid.tileOf(15, 15));
+
+        QuantileGrid empty = QuantileGrid.build(new RectangleArray(), 2, 2);
+        assertEquals(1, empty.tileCount());
+        assertThrows(IllegalArgumentException.class, () -> QuantileGrid.build(rectangles, 0, 2));
+        assertThrows(IllegalArgumentException.class, () -> grid.bounds(1));
+    }
+}
@@ -0,0 +1,134 @@
+package sandbox.shard;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import sandbox.RandomRectangles;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import sandbox.Rectangles;
+import sandbox.Relation;
+import sandbox.cli.Operation;
+import sandbox.join.AdjacencyGraph;
+import sandbox.join.SweepJoin;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class ShardClusterTest {
+
+    /**
+     * rectangles on a coarse lattice, so edges and corners often meet and
+     * often fall on the cuts between tiles, with a few large ones reaching
+     * across many tiles.
+     */
+    private static RectangleArray lattice(int count) {
+        Random random = new Random(count);
+        RectangleArray array = new RectangleArray(count);
+        for(int i = 0; i < count; i++) {
+            Rectangle r = RandomRectangles.rectangle(random, 0, 100, i % 50 == 0 ? 40 : 6);
+            array.add(r.getUpperLeft().getX() * 10, r.getUpperLeft().getY() * 10, r.getLowerRight().getX() * 10,
+                    r.getLowerRight().getY() * 10);
+        }
+        return array;
+    }
+
+    private static List<String> expected(Operation operation, RectangleArray rectangles, Rectangle query) {
+        int qx = query.getUpperLeft().getX(), qy = query.getUpperLeft().getY();
+        int qx1 = query.getLowerRight().getX(), qy1 = query.getLowerRight().getY();
+        List<String> result = new ArrayList<>();
+        switch(operation) {
+            case INTERSECTS -> rectangles.intersects(query, i -> result.add(i + " " + rectangles.toRectangle(i)));
+            case ADJACENT -> rectangles.adjacent(query, i -> result.add(i + " " + rectangles.toRectangle(i)));
+            case INTERSECTION -> rectangles.intersection(query,
+                    (i, x, y, x1, y1) -> result.add(i + " " + x + "," + y + "," + x1 + "," + y1));
+            default -> {
+                for(int i = 0; i < rectangles.size(); i++) {
+                    Rectangle r = rectangles.toRectangle(i);
+                    if(Rectangles.contains(qx, qy, qx1, qy1, rectangles.getX(i), rectangles.getY(i),
+                            rectangles.getX1(i), rectangles.getY1(i))) {
+                        result.add(i + " " + r);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testMatchesSingleNode() throws IOException {
+        RectangleArray rectangles = lattice(5000);
+        QuantileGrid grid = QuantileGrid.build(rectangles, 2, 2);
+        try(ShardCluster cluster = ShardCluster.start(grid)) {
+            for(int i = 0; i < rectangles.size(); i++) {
+                assertEquals(i, cluster.add(rectangles.toRectangle(i)));
+            }
+            assertEquals(rectangles.size(), cluster.size());
+            long copies = 0;
+            for(int tile = 0; tile < grid.tileCount(); tile++) {
+                copies += cluster.shardSize(tile);
+            }
+            assertTrue(copies > rectangles.size());
+
+            Random random = new Random(3);
+            for(int k = 0; k < 200; k++) {
+                int x = random.nextInt(100) * 10;
+                int y = random.nextInt(100) * 10;
+                Rectangle query = new Rectangle(x, y, x + 10 + random.nextInt(30) * 10,
+                        y + 10 + random.nextInt(30) * 10);
+                for(Operation operation : List.of(Operation.INTERSECTS, Operation.INTERSECTION,
+                        Operation.CONTAINS, Operation.ADJACENT)) {
+                    List<String> actual = new ArrayList<>();
+                    int count = cluster.query(operation, query, (i, x0, y0, x1, y1) -> actual.add(
+                            i + " " + (operation == Operation.INTERSECTION ? x0 + "," + y0 + "," + x1 + "," + y1
+                                    : new Rectangle(x0, y0, x1, y1))));
+                    assertEquals(expected(operation, rectangles, query), actual, operation + " " + query);
+                    assertEquals(actual.size(), count);
+                }
+            }
+
+            List<Long> expected = new ArrayList<>();
+            SweepJoin.selfJoin(rectangles, (i, j) -> expected.add(((long) i << 32) | j));
+            expected.sort(null);
+            List<Long> actual = new ArrayList<>();
+            assertEquals(expected.size(), cluster.pairs(Relation.INTERSECTS, (i, j) -> actual.add(((long) i << 32) | j)));
+            assertEquals(expected, actual);
+
+            expected.clear();
+            AdjacencyGraph graph = AdjacencyGraph.build(rectangles);
+            for(int i = 0; i < rectangles.size(); i++) {
+                long a = i;
+                graph.forEachNeighbor(i, j -> {
+                    if(j > a) {
+                        expected.add((a << 32) | j);
+                    }
+                });
+            }
+            actual.clear();
+            assertEquals(expected.size(), cluster.pairs(Relation.ADJACENT, (i, j) -> actual.add(((long) i << 32) | j)));
+            assertEquals(expected, actual);
+            assertTrue(expected.size() > 0);
+        }
+    }
+
+    @Test
+    public void testBadRequests() throws IOException {
+        ShardCluster cluster = ShardCluster.start(QuantileGrid.build(lattice(100), 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> cluster.add(5, 5, 1, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> cluster.query(Operation.ALL_PAIRS, new Rectangle(0, 0, 1, 1), (i, x, y, x1, y1) -> {
+                }));
+        assertThrows(IllegalArgumentException.class, () -> cluster.pairs(Relation.CONTAINS, (i, j) -> {
+        }));
+        assertEquals(0, cluster.query(Operation.INTERSECTS, new Rectangle(0, 0, 1, 1), (i, x, y, x1, y1) -> {
+        }));
+        cluster.close();
+        assertThrows(IOException.class, () -> cluster.add(0, 0, 1, 1));
+    }
+}
@@ -0,0 +1,88 @@
+package sandbox.simd;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import sandbox.Point;
+import sandbox.Rectangle;
+import sandbox.RectangleArray;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Wes McKean
+ */
+public class PointClassifierTest {
+
+    @Test
+    public void testContainsMatchesRectangle() {
+        Random random = new Random(4);
+        // an odd count leaves a tail after the last full vector
+        int count = 1000 + 13;
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        for(int i = 0; i < count; i++) {
+            xs[i] = random.nextInt(100);
+            ys[i] = random.nextInt(100);
+        }
+
+        Rectangle rectangle = new Rectangle(20, 30, 60, 70);
+        long[] best = new long[PointClassifier.words(count)];
+        long[] scalar = new long[best.length];
+        // stale bits must be cleared
+        Arrays.fill(best, -1L);
+        PointClassifier.best().contains(rectangle, xs, ys, count, best);
+        PointClassifier.scalar().contains(rectangle, xs, ys, count, scalar);
+
+        BitSet bits = BitSet.valueOf(best);
+        for(int i = 0; i < count; i++) {
+            assertEquals(rectangle.contains(new Point(xs[i], ys[i])), bits.get(i));
+        }
+        assertArrayEquals(scalar, best);
+    }
+
+    @Test
+    public void testContainsAnyMatchesRectangle() {
+        Random random = new Random(8);
+        int count = 777;
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        for(int i = 0; i < count; i++) {
+            xs[i] = random.nextInt(200) - 50;
+            ys[i] = random.nextInt(200) - 50;
+        }
+
+        RectangleArray rectangles = new RectangleArray();
+        for(int i = 0; i < 12; i++) {
+            int x = random.nextInt(100);
+            int y = random.nextInt(100);
+            rectangles.add(x, y, x + 1 + random.nextInt(20), y + 1 + random.nextInt(20));
+        }
+
+        long[] best = new long[PointClassifier.words(count)];
+        long[] scalar = new long[best.length];
+        PointClassifier.best().containsAny(rectangles, xs, ys, count, best);
+        PointClassifier.scalar().containsAny(rectangles, xs, ys, count, scalar);
+
+        BitSet bits = BitSet.valueOf(best);
+        for(int i = 0; i < count; i++) {
+            boolean expected = false;
+            for(Rectangle r : rectangles.toList()) {
+                expected |= r.contains(new Point(xs[i], ys[i]));
+            }
+            assertEquals(expected, bits.get(i));
+        }
+        assertArrayEquals(scalar, best);
+    }
+
+    @Test
+    public void testMaskTooSmall() {
+        int[] xs = new int[65];
+        assertThrows(IllegalArgumentException.class, () ->{
+            PointClassifier.best().contains(new Rectangle(0, 0, 1, 1), xs, xs, 65, new long[1]);
+        });
+    }
+}